@@ -0,0 +1,103 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Instrumentation tests asserting on the number of the calls of child.measure in a measure pass
+ * of {@link FlexboxLayout}, see {@link FlexboxLayout#getChildMeasureCount()}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FlexboxLayoutMeasureTest {
+  private static final int WIDTH_SPEC = MeasureSpec.makeMeasureSpec(100, MeasureSpec.EXACTLY);
+
+  private static final int HEIGHT_SPEC = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+
+  private FlexboxLayout mLayout;
+
+  @Before
+  public void setUp() throws Exception {
+    mLayout = new FlexboxLayout(InstrumentationRegistry.getTargetContext());
+    mLayout.setFlexDirection(FlexboxLayout.FLEX_DIRECTION_ROW);
+    mLayout.setFlexWrap(FlexboxLayout.FLEX_WRAP_WRAP);
+    mLayout.setAlignItems(FlexboxLayout.ALIGN_ITEMS_FLEX_START);
+  }
+
+  @Test
+  public void measure_inflexibleChildrenOnce() throws Exception {
+    addChildren(6, 40, 0f);
+    measureAndLayout();
+    assertEquals(6, mLayout.getChildMeasureCount());
+  }
+
+  @Test
+  public void measure_grownChildrenAtMostTwice() throws Exception {
+    addChildren(7, 30, 1f);
+    measureAndLayout();
+    int count = mLayout.getChildMeasureCount();
+    assertTrue("measured " + count + " times", count > 7 && count <= 7 * 2);
+  }
+
+  @Test
+  public void measure_shrunkChildrenAtMostTwice() throws Exception {
+    mLayout.setFlexWrap(FlexboxLayout.FLEX_WRAP_NOWRAP);
+    addChildren(5, 40, 0f);
+    measureAndLayout();
+    int count = mLayout.getChildMeasureCount();
+    assertTrue("measured " + count + " times", count > 5 && count <= 5 * 2);
+  }
+
+  @Test
+  public void measure_stretchedChildrenAtMostThrice() throws Exception {
+    mLayout.setAlignItems(FlexboxLayout.ALIGN_ITEMS_STRETCH);
+    addChildren(7, 30, 1f);
+    // A taller child, so that the other children in its flex line are stretched.
+    ((FlexboxLayout.LayoutParams) mLayout.getChildAt(0).getLayoutParams()).height = 40;
+    measureAndLayout();
+    int count = mLayout.getChildMeasureCount();
+    assertTrue("measured " + count + " times", count <= 7 * 3);
+  }
+
+  @Test
+  public void measure_sameSpecsReplaysLastPass() throws Exception {
+    addChildren(6, 40, 1f);
+    measureAndLayout();
+    mLayout.forceLayout();
+    measureAndLayout();
+    assertEquals(0, mLayout.getChildMeasureCount());
+  }
+
+  @Test
+  public void measure_onlyFromFlexLineOfChangedChild() throws Exception {
+    // Three flex lines of two children each.
+    addChildren(6, 40, 0f);
+    measureAndLayout();
+    mLayout.getChildAt(5).requestLayout();
+    measureAndLayout();
+    // The other child in the flex line keeps its size and measure specs.
+    assertEquals(1, mLayout.getChildMeasureCount());
+  }
+
+  private void addChildren(int count, int width, float flexGrow) {
+    for (int i = 0; i < count; i++) {
+      FlexboxLayout.LayoutParams lp = new FlexboxLayout.LayoutParams(width, 20);
+      lp.flexGrow = flexGrow;
+      View child = new View(mLayout.getContext());
+      mLayout.addView(child, lp);
+    }
+  }
+
+  private void measureAndLayout() {
+    mLayout.measure(WIDTH_SPEC, HEIGHT_SPEC);
+    mLayout.layout(0, 0, mLayout.getMeasuredWidth(), mLayout.getMeasuredHeight());
+  }
+}
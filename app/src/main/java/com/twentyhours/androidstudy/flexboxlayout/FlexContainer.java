@@ -0,0 +1,31 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+/**
+ * A container of the {@link FlexItem}s laid out by {@link FlexboxEngine}. The container knows how
+ * to measure its items, e.g. with the measure specs given by its parent.
+ */
+public interface FlexContainer {
+
+  /**
+   * @return the number of the flex items including the gone ones
+   */
+  int getFlexItemCount();
+
+  /**
+   * @param index the index of the flex item
+   * @return the flex item at the given index, never {@code null}. The returned item only needs
+   * to be valid until this method is called again.
+   */
+  FlexItem getFlexItemAt(int index);
+
+  /**
+   * Measure the flex item at the given index.
+   *
+   * @param index    the index of the flex item
+   * @param mainSize the exact length along the main axis excluding the margins, or
+   *                 {@link FlexboxEngine#SIZE_UNDEFINED} to let the item decide its own length
+   *                 within the constraints of this container. The length along the cross axis
+   *                 is always decided by the item.
+   */
+  void measureFlexItem(int index, int mainSize);
+}
@@ -0,0 +1,61 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+/**
+ * An item in a flex container, seen by {@link FlexboxEngine}. It exposes only the values needed
+ * to break the items into the flex lines and to resolve their flexible lengths, so that the
+ * engine doesn't depend on the Android view system.
+ */
+public interface FlexItem {
+
+  /** The default value for the flex grow attribute */
+  float FLEX_GROW_DEFAULT = 0f;
+
+  /** The default value for the flex shrink attribute */
+  float FLEX_SHRINK_DEFAULT = 1f;
+
+  /** The default value for the flex basis percent attribute, which means it's not set */
+  float FLEX_BASIS_PERCENT_DEFAULT = -1f;
+
+  /**
+   * @return how much this item will grow if positive free space is distributed relative to the
+   * rest of other flex items included in the same flex line
+   */
+  float getFlexGrow();
+
+  /**
+   * @return how much this item will shrink if negative free space is distributed relative to the
+   * rest of other flex items included in the same flex line
+   */
+  float getFlexShrink();
+
+  /**
+   * @return the initial length along the main axis in a percentage format relative to the flex
+   * container, or {@link #FLEX_BASIS_PERCENT_DEFAULT} if it's not set
+   */
+  float getFlexBasisPercent();
+
+  int getMarginLeft();
+
+  int getMarginTop();
+
+  int getMarginRight();
+
+  int getMarginBottom();
+
+  /**
+   * @return the width of this item measured by the last call of
+   * {@link FlexContainer#measureFlexItem(int, int)}, excluding its margins
+   */
+  int getMeasuredWidth();
+
+  /**
+   * @return the height of this item measured by the last call of
+   * {@link FlexContainer#measureFlexItem(int, int)}, excluding its margins
+   */
+  int getMeasuredHeight();
+
+  /**
+   * @return {@code true} if this item takes no space, i.e. the visibility of the view is gone
+   */
+  boolean isGone();
+}
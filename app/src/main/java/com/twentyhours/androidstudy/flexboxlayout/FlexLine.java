@@ -1,46 +1,28 @@
 package com.twentyhours.androidstudy.flexboxlayout;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Created by soonhyung-imac on 3/7/17.
+ *
+ * A view over a flex line held in {@link FlexLineArray}. The values are not copied, thus they
+ * reflect the latest measure and layout passes of the flex container.
  */
 
 public class FlexLine {
-  FlexLine() {
-  }
-
-  /** @see {@link #getLeft()} */
-  int mLeft = Integer.MAX_VALUE;
-
-  /** @see {@link #getTop()} */
-  int mTop = Integer.MAX_VALUE;
-
-  /** @see {@link #getRight()} */
-  int mRight = Integer.MIN_VALUE;
-
-  /** @see {@link #getBottom()} */
-  int mBottom = Integer.MIN_VALUE;
-
-  /** @see {@link #getMainSize()} */
-  int mMainSize;
+  private final FlexLineArray mArray;
 
-  /** @see {@link #getCrossSize()} */
-  int mCrossSize;
+  private final int mIndex;
 
-  /** @see {@link #getItemCount()} */
-  int mItemCount;
-
-  /** Holds the count of the views whose visibilities are gone */
-  int mGoneItemCount;
+  FlexLine(FlexLineArray array, int index) {
+    mArray = array;
+    mIndex = index;
+  }
 
   /**
    * @return the distance in pixels from the top edge of this view's parent
    * to the top edge of this FlexLine.
    */
   public int getLeft() {
-    return mLeft;
+    return mArray.mLeft[mIndex];
   }
 
   /**
@@ -48,7 +30,7 @@ public class FlexLine {
    * to the top edge of this FlexLine.
    */
   public int getTop() {
-    return mTop;
+    return mArray.mTop[mIndex];
   }
 
   /**
@@ -56,7 +38,7 @@ public class FlexLine {
    * to the right edge of this FlexLine.
    */
   public int getRight() {
-    return mRight;
+    return mArray.mRight[mIndex];
   }
 
   /**
@@ -64,34 +46,41 @@ public class FlexLine {
    * to the bottom edge of this FlexLine.
    */
   public int getBottom() {
-    return mBottom;
+    return mArray.mBottom[mIndex];
   }
 
   /**
    * @return the size of the flex line in pixels along the main axis of the flex container.
    */
   public int getMainSize() {
-    return mMainSize;
+    return mArray.mMainSize[mIndex];
   }
 
   /**
    * @return the size of the flex line in pixels along the cross axis of the flex container.
    */
   public int getCrossSize() {
-    return mCrossSize;
+    return mArray.mCrossSize[mIndex];
   }
 
   /**
    * @return the count of the views contained in this flex line.
    */
   public int getItemCount() {
-    return mItemCount;
+    return mArray.mItemCount[mIndex];
   }
 
   /**
    * @return the count of the views whose visibilities are not gone in this flex line.
    */
   public int getItemCountNotGone() {
-    return mItemCount - mGoneItemCount;
+    return mArray.getItemCountNotGone(mIndex);
+  }
+
+  /**
+   * @return the index of the first child view (including gone views) in this flex line.
+   */
+  public int getFirstIndex() {
+    return mArray.mFirstIndex[mIndex];
   }
 }
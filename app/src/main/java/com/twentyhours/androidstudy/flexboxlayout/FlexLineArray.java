@@ -0,0 +1,283 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds the attributes of the flex lines in primitive arrays, one slot per flex line.
+ * The arrays and the {@link FlexLine} instances viewing them are reused across measure passes,
+ * thus no allocation happens in measure and layout once the arrays are grown large enough.
+ */
+class FlexLineArray {
+  private static final int INITIAL_CAPACITY = 4;
+
+  /** The number of the flex lines held in this array */
+  int mSize;
+
+  /** @see FlexLine#getLeft() */
+  int[] mLeft = new int[INITIAL_CAPACITY];
+
+  /** @see FlexLine#getTop() */
+  int[] mTop = new int[INITIAL_CAPACITY];
+
+  /** @see FlexLine#getRight() */
+  int[] mRight = new int[INITIAL_CAPACITY];
+
+  /** @see FlexLine#getBottom() */
+  int[] mBottom = new int[INITIAL_CAPACITY];
+
+  /** @see FlexLine#getMainSize() */
+  int[] mMainSize = new int[INITIAL_CAPACITY];
+
+  /**
+   * The main size of the flex line before the flexible lengths of its items are resolved, i.e.
+   * the sum of the hypothetical main sizes of the items including their margins and the padding
+   * of the flex container.
+   */
+  int[] mBaseMainSize = new int[INITIAL_CAPACITY];
+
+  /** The sum of the flex grow attributes of the items in the flex line */
+  float[] mTotalFlexGrow = new float[INITIAL_CAPACITY];
+
+  /** The sum of the flex shrink attributes of the items in the flex line */
+  float[] mTotalFlexShrink = new float[INITIAL_CAPACITY];
+
+  /** @see FlexLine#getCrossSize() */
+  int[] mCrossSize = new int[INITIAL_CAPACITY];
+
+  /**
+   * The cross size of the flex line calculated from its items, before the flex container
+   * stretches the flex line to fill its own cross size (e.g. by the alignContent attribute).
+   */
+  int[] mBaseCrossSize = new int[INITIAL_CAPACITY];
+
+  /** @see FlexLine#getItemCount() */
+  int[] mItemCount = new int[INITIAL_CAPACITY];
+
+  /** Holds the count of the views whose visibilities are gone */
+  int[] mGoneItemCount = new int[INITIAL_CAPACITY];
+
+  /** The index of the first child view (including gone views) contained in the flex line */
+  int[] mFirstIndex = new int[INITIAL_CAPACITY];
+
+  /** The views over each slot, created lazily and kept while the slot exists */
+  private FlexLine[] mFlexLines = new FlexLine[INITIAL_CAPACITY];
+
+  private final List<FlexLine> mReadOnlyList = new AbstractList<FlexLine>() {
+    @Override
+    public FlexLine get(int index) {
+      return FlexLineArray.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return mSize;
+    }
+  };
+
+  /**
+   * Append a new flex line which has no item yet.
+   *
+   * @param firstIndex the index of the first child view in the new flex line
+   * @param mainSize   the initial main size of the new flex line, e.g. the padding of the
+   *                   flex container along the main axis
+   * @return the index of the new flex line
+   */
+  int add(int firstIndex, int mainSize) {
+    if (mSize == mMainSize.length) {
+      grow();
+    }
+    int index = mSize++;
+    reset(index, firstIndex, mainSize);
+    return index;
+  }
+
+  /**
+   * Reset the flex line at the given index as if it was just added.
+   */
+  void reset(int index, int firstIndex, int mainSize) {
+    mMainSize[index] = mainSize;
+    mBaseMainSize[index] = mainSize;
+    mTotalFlexGrow[index] = 0f;
+    mTotalFlexShrink[index] = 0f;
+    mCrossSize[index] = 0;
+    mBaseCrossSize[index] = 0;
+    mItemCount[index] = 0;
+    mGoneItemCount[index] = 0;
+    mFirstIndex[index] = firstIndex;
+    resetBounds(index);
+  }
+
+  /**
+   * Reset the bounds of the flex line at the given index, which are calculated in the layout
+   * pass.
+   */
+  void resetBounds(int index) {
+    mLeft[index] = Integer.MAX_VALUE;
+    mTop[index] = Integer.MAX_VALUE;
+    mRight[index] = Integer.MIN_VALUE;
+    mBottom[index] = Integer.MIN_VALUE;
+  }
+
+  /**
+   * Discard the flex lines from the given index.
+   *
+   * @param size the number of the flex lines to be kept
+   */
+  void truncate(int size) {
+    mSize = size;
+  }
+
+  void clear() {
+    mSize = 0;
+  }
+
+  /**
+   * Replace the flex lines held in this array with the copies of the ones in the given array.
+   */
+  void copyFrom(FlexLineArray source) {
+    int size = source.mSize;
+    while (mMainSize.length < size) {
+      grow();
+    }
+    System.arraycopy(source.mLeft, 0, mLeft, 0, size);
+    System.arraycopy(source.mTop, 0, mTop, 0, size);
+    System.arraycopy(source.mRight, 0, mRight, 0, size);
+    System.arraycopy(source.mBottom, 0, mBottom, 0, size);
+    System.arraycopy(source.mMainSize, 0, mMainSize, 0, size);
+    System.arraycopy(source.mBaseMainSize, 0, mBaseMainSize, 0, size);
+    System.arraycopy(source.mTotalFlexGrow, 0, mTotalFlexGrow, 0, size);
+    System.arraycopy(source.mTotalFlexShrink, 0, mTotalFlexShrink, 0, size);
+    System.arraycopy(source.mCrossSize, 0, mCrossSize, 0, size);
+    System.arraycopy(source.mBaseCrossSize, 0, mBaseCrossSize, 0, size);
+    System.arraycopy(source.mItemCount, 0, mItemCount, 0, size);
+    System.arraycopy(source.mGoneItemCount, 0, mGoneItemCount, 0, size);
+    System.arraycopy(source.mFirstIndex, 0, mFirstIndex, 0, size);
+    mSize = size;
+  }
+
+  int size() {
+    return mSize;
+  }
+
+  boolean isEmpty() {
+    return mSize == 0;
+  }
+
+  /**
+   * @return the count of the views whose visibilities are not gone in the flex line.
+   */
+  int getItemCountNotGone(int index) {
+    return mItemCount[index] - mGoneItemCount[index];
+  }
+
+  /**
+   * Find the flex line containing the child at the given index by a binary search over the first
+   * indices of the flex lines.
+   *
+   * @param childIndex the index of the child view
+   * @return the index of the flex line, or {@code -1} if no flex line contains the child
+   */
+  int findLineIndexForChild(int childIndex) {
+    int low = 0;
+    int high = mSize - 1;
+    int found = -1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (mFirstIndex[mid] <= childIndex) {
+        found = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    if (found == -1 || childIndex >= mFirstIndex[found] + mItemCount[found]) {
+      return -1;
+    }
+    return found;
+  }
+
+  /**
+   * Find the flex line whose bounds contain the given position along the cross axis by a binary
+   * search. The flex lines are placed either in the ascending or the descending order along the
+   * cross axis (e.g. right to left in RTL), and both orders are supported.
+   *
+   * @param crossPosition      the position along the cross axis
+   * @param mainAxisHorizontal {@code true} if the main axis is horizontal, thus the flex lines
+   *                           are stacked vertically
+   * @return the index of the flex line, or {@code -1} if no flex line is placed there
+   */
+  int findLineIndexAt(int crossPosition, boolean mainAxisHorizontal) {
+    if (mSize == 0) {
+      return -1;
+    }
+    int[] starts = mainAxisHorizontal ? mTop : mLeft;
+    int[] ends = mainAxisHorizontal ? mBottom : mRight;
+    boolean ascending = starts[0] <= starts[mSize - 1];
+    int low = 0;
+    int high = mSize - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (crossPosition < starts[mid]) {
+        if (ascending) {
+          high = mid - 1;
+        } else {
+          low = mid + 1;
+        }
+      } else if (crossPosition >= ends[mid]) {
+        if (ascending) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the view over the flex line at the given index. The same instance is returned for the
+   * same index, and it reflects the latest values of the slot.
+   */
+  FlexLine get(int index) {
+    if (index < 0 || index >= mSize) {
+      throw new IndexOutOfBoundsException("Invalid flex line index " + index + ", size is "
+          + mSize);
+    }
+    FlexLine flexLine = mFlexLines[index];
+    if (flexLine == null) {
+      flexLine = new FlexLine(this, index);
+      mFlexLines[index] = flexLine;
+    }
+    return flexLine;
+  }
+
+  /**
+   * @return a read-only list backed by this array. It doesn't copy anything, thus it always
+   * reflects the latest flex lines.
+   */
+  List<FlexLine> asList() {
+    return mReadOnlyList;
+  }
+
+  private void grow() {
+    int capacity = mMainSize.length * 2;
+    mLeft = Arrays.copyOf(mLeft, capacity);
+    mTop = Arrays.copyOf(mTop, capacity);
+    mRight = Arrays.copyOf(mRight, capacity);
+    mBottom = Arrays.copyOf(mBottom, capacity);
+    mMainSize = Arrays.copyOf(mMainSize, capacity);
+    mBaseMainSize = Arrays.copyOf(mBaseMainSize, capacity);
+    mTotalFlexGrow = Arrays.copyOf(mTotalFlexGrow, capacity);
+    mTotalFlexShrink = Arrays.copyOf(mTotalFlexShrink, capacity);
+    mCrossSize = Arrays.copyOf(mCrossSize, capacity);
+    mBaseCrossSize = Arrays.copyOf(mBaseCrossSize, capacity);
+    mItemCount = Arrays.copyOf(mItemCount, capacity);
+    mGoneItemCount = Arrays.copyOf(mGoneItemCount, capacity);
+    mFirstIndex = Arrays.copyOf(mFirstIndex, capacity);
+    mFlexLines = Arrays.copyOf(mFlexLines, capacity);
+  }
+}
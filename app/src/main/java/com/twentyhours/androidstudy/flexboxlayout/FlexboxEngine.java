@@ -0,0 +1,492 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Breaks the items of a {@link FlexContainer} into the flex lines and resolves their flexible
+ * lengths. It only sees the items through {@link FlexItem}, thus it doesn't depend on the Android
+ * view system and runs on the plain JVM, e.g. in unit tests and benchmarks.
+ *
+ * <p>The engine works in terms of the main axis and the cross axis. The reverse flex directions
+ * and {@link FlexboxLayout#FLEX_WRAP_WRAP_REVERSE} produce the same flex lines as their
+ * non-reverse counterparts, so they are left to the containers which place the items.</p>
+ */
+public class FlexboxEngine {
+
+  /** Indicates that the length of a flex item is decided by the item itself. */
+  public static final int SIZE_UNDEFINED = -1;
+
+  /** The main size of the flex container is exactly the given size. */
+  public static final int SIZE_MODE_EXACTLY = 0;
+
+  /** The main size of the flex container is up to the given size. */
+  public static final int SIZE_MODE_AT_MOST = 1;
+
+  /** The main size of the flex container isn't constrained. */
+  public static final int SIZE_MODE_UNSPECIFIED = 2;
+
+  /** Indicates that the number of the flex lines isn't limited. */
+  public static final int NOT_SET = -1;
+
+  /** Indicates that all the items fit in the flex lines. */
+  public static final int NO_HIDDEN_ITEM = -1;
+
+  /** No divider is shown. */
+  public static final int SHOW_DIVIDER_NONE = 0;
+
+  /** A divider is shown at the beginning of the flex lines or the items. */
+  public static final int SHOW_DIVIDER_BEGINNING = 1;
+
+  /** Dividers are shown between the flex lines or the items. */
+  public static final int SHOW_DIVIDER_MIDDLE = 1 << 1;
+
+  /** A divider is shown at the end of the flex lines or the items. */
+  public static final int SHOW_DIVIDER_END = 1 << 2;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  final FlexLineArray mFlexLines = new FlexLineArray();
+
+  private boolean mMainAxisHorizontal = true;
+
+  private boolean mSingleLine = true;
+
+  private int mMaxLines = NOT_SET;
+
+  /** The size of the flex container along the main axis including its padding */
+  private int mMainSize;
+
+  private int mMainSizeMode = SIZE_MODE_UNSPECIFIED;
+
+  /** The sum of the padding of the flex container along the main axis */
+  private int mMainPadding;
+
+  /** The size along the main axis of the dividers between the items in a flex line */
+  private int mMainDividerSize;
+
+  /** The flags of where the dividers are shown among the items in a flex line */
+  private int mShowMainDivider = SHOW_DIVIDER_NONE;
+
+  /**
+   * The index of the first item which doesn't fit in the flex lines because of
+   * {@link #mMaxLines}, or {@link #NO_HIDDEN_ITEM} if all the items fit in the flex lines.
+   */
+  private int mFirstHiddenItemIndex = NO_HIDDEN_ITEM;
+
+  /** The main size which the flexible lengths of the items were resolved against */
+  private int mFlexResolvedMainSize = -1;
+
+  /**
+   * The lengths of the items along the main axis before their flexible lengths are resolved,
+   * excluding their margins, indexed by the item index.
+   */
+  private int[] mFlexBaseSizes = new int[INITIAL_CAPACITY];
+
+  public boolean isMainAxisHorizontal() {
+    return mMainAxisHorizontal;
+  }
+
+  /**
+   * @param mainAxisHorizontal {@code true} if the main axis is horizontal, i.e. the main size of
+   *                           an item is its width
+   */
+  public void setMainAxisHorizontal(boolean mainAxisHorizontal) {
+    mMainAxisHorizontal = mainAxisHorizontal;
+  }
+
+  public boolean isSingleLine() {
+    return mSingleLine;
+  }
+
+  /**
+   * @param singleLine {@code true} if all the items are put in a single flex line, i.e. the flex
+   *                   wrap is {@link FlexboxLayout#FLEX_WRAP_NOWRAP}
+   */
+  public void setSingleLine(boolean singleLine) {
+    mSingleLine = singleLine;
+  }
+
+  public int getMaxLines() {
+    return mMaxLines;
+  }
+
+  /**
+   * @param maxLines the maximum number of the flex lines, or {@link #NOT_SET} not to limit the
+   *                 number of the flex lines. The items which don't fit in the flex lines are
+   *                 not measured.
+   */
+  public void setMaxLines(int maxLines) {
+    mMaxLines = maxLines;
+    mFirstHiddenItemIndex = NO_HIDDEN_ITEM;
+  }
+
+  /**
+   * Set the constraints along the main axis used by the following calculations.
+   *
+   * @param mainSize    the size of the flex container along the main axis including its padding
+   * @param sizeMode    one of {@link #SIZE_MODE_EXACTLY}, {@link #SIZE_MODE_AT_MOST} and
+   *                    {@link #SIZE_MODE_UNSPECIFIED}
+   * @param mainPadding the sum of the padding of the flex container along the main axis
+   */
+  public void setMainAxisConstraints(int mainSize, int sizeMode, int mainPadding) {
+    mMainSize = mainSize;
+    mMainSizeMode = sizeMode;
+    mMainPadding = mainPadding;
+  }
+
+  public int getMainDividerSize() {
+    return mMainDividerSize;
+  }
+
+  public int getShowMainDivider() {
+    return mShowMainDivider;
+  }
+
+  /**
+   * Set the dividers shown between the items in each flex line, which take the space along the
+   * main axis as the items do.
+   *
+   * @param dividerSize the size of a divider along the main axis
+   * @param showDivider the combination of {@link #SHOW_DIVIDER_BEGINNING},
+   *                    {@link #SHOW_DIVIDER_MIDDLE} and {@link #SHOW_DIVIDER_END}, or
+   *                    {@link #SHOW_DIVIDER_NONE}
+   */
+  public void setMainAxisDivider(int dividerSize, int showDivider) {
+    mMainDividerSize = dividerSize;
+    mShowMainDivider = showDivider;
+  }
+
+  /**
+   * @return the index of the first item which doesn't fit in the flex lines because of the
+   * {@link #getMaxLines()}, or {@link #NO_HIDDEN_ITEM} if all the items fit in the flex lines
+   */
+  public int getFirstHiddenItemIndex() {
+    return mFirstHiddenItemIndex;
+  }
+
+  /**
+   * @return a read-only list of the flex lines calculated so far
+   */
+  public List<FlexLine> getFlexLines() {
+    return mFlexLines.asList();
+  }
+
+  public void clearFlexLines() {
+    mFlexLines.clear();
+    mFirstHiddenItemIndex = NO_HIDDEN_ITEM;
+  }
+
+  /**
+   * Discard the flex lines which may change when the item at the given index is changed, added
+   * or removed. The flex line containing the item is discarded together with the one before it
+   * if the item is the first one of its flex line (or is added in front of it), since the item
+   * may fit in the previous flex line after the change. The flex lines before them are kept as
+   * they are.
+   *
+   * @param itemIndex the index of the first changed item
+   * @return the index of the item from which the flex lines are to be calculated again
+   */
+  public int discardFlexLinesFrom(int itemIndex) {
+    FlexLineArray lines = mFlexLines;
+    int lineIndex = lines.findLineIndexForChild(itemIndex);
+    if (lineIndex == -1) {
+      // The item is after the last flex line, e.g. it's appended, and may join the last one.
+      lineIndex = lines.size() - 1;
+    } else if (lineIndex > 0 && itemIndex <= lines.mFirstIndex[lineIndex]) {
+      // The flex lines after the first one always start with an item which isn't gone.
+      lineIndex--;
+    }
+    if (lineIndex <= 0) {
+      // Gone items before the first flex line are counted in it, thus start over from the
+      // first item.
+      clearFlexLines();
+      return 0;
+    }
+    int fromIndex = lines.mFirstIndex[lineIndex];
+    lines.truncate(lineIndex);
+    return fromIndex;
+  }
+
+  /**
+   * Take over the flex lines and the constraints of the given engine, e.g. the one which
+   * calculated the flex lines on another thread.
+   */
+  public void copyFrom(FlexboxEngine source) {
+    mFlexLines.copyFrom(source.mFlexLines);
+    mMainAxisHorizontal = source.mMainAxisHorizontal;
+    mSingleLine = source.mSingleLine;
+    mMaxLines = source.mMaxLines;
+    mMainSize = source.mMainSize;
+    mMainSizeMode = source.mMainSizeMode;
+    mMainPadding = source.mMainPadding;
+    mMainDividerSize = source.mMainDividerSize;
+    mShowMainDivider = source.mShowMainDivider;
+    mFirstHiddenItemIndex = source.mFirstHiddenItemIndex;
+    mFlexResolvedMainSize = source.mFlexResolvedMainSize;
+    if (mFlexBaseSizes.length < source.mFlexBaseSizes.length) {
+      mFlexBaseSizes = new int[source.mFlexBaseSizes.length];
+    }
+    System.arraycopy(source.mFlexBaseSizes, 0, mFlexBaseSizes, 0, source.mFlexBaseSizes.length);
+  }
+
+  /**
+   * Calculate the flex lines from the item at the given index, and append them to the flex lines
+   * already calculated. The flex lines containing the items after {@code fromIndex} need to be
+   * discarded beforehand.
+   *
+   * @param container the container of the items
+   * @param fromIndex the index of the first item of the flex lines to be calculated
+   * @return the index of the first item which isn't contained in the flex lines, i.e. either the
+   * number of the items or the first hidden item index
+   */
+  public int calculateFlexLines(FlexContainer container, int fromIndex) {
+    return calculateFlexLines(container, fromIndex, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Calculate a single flex line from the item at the given index, and append it to the flex
+   * lines already calculated. Used by the containers which calculate the flex lines lazily.
+   *
+   * @param container the container of the items
+   * @param fromIndex the index of the first item of the flex line to be calculated
+   * @return the index of the first item of the next flex line
+   * @see #calculateFlexLines(FlexContainer, int)
+   */
+  public int calculateFlexLine(FlexContainer container, int fromIndex) {
+    return calculateFlexLines(container, fromIndex, 1);
+  }
+
+  private int calculateFlexLines(FlexContainer container, int fromIndex, int lineLimit) {
+    if (mFirstHiddenItemIndex >= fromIndex) {
+      // Found again while the flex lines are calculated.
+      mFirstHiddenItemIndex = NO_HIDDEN_ITEM;
+    }
+    FlexLineArray lines = mFlexLines;
+    int itemCount = container.getFlexItemCount();
+    int lineCount = 0;
+    // The index of the flex line being built in lines.
+    int flexLine = lines.add(fromIndex, mMainPadding);
+    for (int i = fromIndex; i < itemCount; i++) {
+      FlexItem item = container.getFlexItemAt(i);
+      if (item.isGone()) {
+        lines.mItemCount[flexLine]++;
+        lines.mGoneItemCount[flexLine]++;
+        continue;
+      }
+
+      int basisSize = SIZE_UNDEFINED;
+      if (item.getFlexBasisPercent() != FlexItem.FLEX_BASIS_PERCENT_DEFAULT
+          && mMainSizeMode == SIZE_MODE_EXACTLY) {
+        basisSize = Math.round(mMainSize * item.getFlexBasisPercent());
+      }
+      container.measureFlexItem(i, basisSize);
+      setFlexBaseSize(i, getMainSize(item));
+      int itemMainSize = getMainSizeWithMargins(item);
+      int dividerSize = getMainDividerSize(lines.getItemCountNotGone(flexLine) == 0);
+
+      if (isWrapRequired(lines.mMainSize[flexLine], itemMainSize + dividerSize)) {
+        if (lines.getItemCountNotGone(flexLine) > 0) {
+          if (isMaxLinesReached(flexLine)) {
+            // The rest of the items are hidden, thus they don't need to be measured.
+            mFirstHiddenItemIndex = i;
+            return i;
+          }
+          if (++lineCount >= lineLimit) {
+            return i;
+          }
+          flexLine = lines.add(i, mMainPadding);
+        } else {
+          // The flex line only has gone items, reuse its slot for the new flex line.
+          lines.reset(flexLine, i, mMainPadding);
+        }
+        dividerSize = getMainDividerSize(true);
+      }
+      lines.mItemCount[flexLine]++;
+      lines.mMainSize[flexLine] += itemMainSize + dividerSize;
+      lines.mTotalFlexGrow[flexLine] += item.getFlexGrow();
+      lines.mTotalFlexShrink[flexLine] += item.getFlexShrink();
+      // Temporarily set the cross axis length as the largest item in the flex line.
+      lines.mCrossSize[flexLine] = Math.max(lines.mCrossSize[flexLine],
+          getCrossSizeWithMargins(item));
+    }
+    if (lines.getItemCountNotGone(flexLine) == 0) {
+      lines.truncate(flexLine);
+    }
+    return itemCount;
+  }
+
+  /**
+   * Resolve the flexible lengths of the items, i.e. distribute the remaining space of each flex
+   * line to its items depending on their flex grow attributes, or shrink the items depending on
+   * their flex shrink attributes when they overflow.
+   * Each item is measured again at most once here with the exact resolved length, and only when
+   * the resolved length differs from its current measured length.
+   *
+   * @param container the container of the items
+   * @param fromLine  the index of the first flex line calculated in this pass. The flex lines
+   *                  before it are reused, and need to be resolved again only if the main size
+   *                  of the flex container is changed
+   */
+  public void resolveFlexibleLengths(FlexContainer container, int fromLine) {
+    FlexLineArray lines = mFlexLines;
+    int largestBaseMainSize = Integer.MIN_VALUE;
+    for (int i = 0, size = lines.size(); i < size; i++) {
+      if (i >= fromLine) {
+        lines.mBaseMainSize[i] = lines.mMainSize[i];
+      }
+      largestBaseMainSize = Math.max(largestBaseMainSize, lines.mBaseMainSize[i]);
+    }
+    int mainSize;
+    switch (mMainSizeMode) {
+      case SIZE_MODE_EXACTLY:
+        mainSize = mMainSize;
+        break;
+      case SIZE_MODE_AT_MOST:
+        mainSize = Math.min(largestBaseMainSize, mMainSize);
+        break;
+      default:
+        mainSize = largestBaseMainSize;
+        break;
+    }
+    if (mainSize != mFlexResolvedMainSize) {
+      // The reused flex lines were resolved against a different main size.
+      mFlexResolvedMainSize = mainSize;
+      fromLine = 0;
+    }
+
+    for (int i = fromLine, size = lines.size(); i < size; i++) {
+      int freeSpace = mainSize - lines.mBaseMainSize[i];
+      boolean grow = freeSpace > 0 && lines.mTotalFlexGrow[i] > 0f;
+      boolean shrink = freeSpace < 0 && lines.mTotalFlexShrink[i] > 0f;
+      float unitSpace = grow ? freeSpace / lines.mTotalFlexGrow[i]
+          : shrink ? freeSpace / lines.mTotalFlexShrink[i] : 0f;
+      // Accumulate the round error so that the resolved lengths fill the line exactly.
+      float accumulatedRoundError = 0f;
+      int lineMainSize = mMainPadding;
+      int lineCrossSize = 0;
+      boolean firstItemInLine = true;
+      for (int j = lines.mFirstIndex[i], end = j + lines.mItemCount[i]; j < end; j++) {
+        FlexItem item = container.getFlexItemAt(j);
+        if (item.isGone()) {
+          continue;
+        }
+        lineMainSize += getMainDividerSize(firstItemInLine);
+        firstItemInLine = false;
+        int flexBaseSize = mFlexBaseSizes[j];
+        int resolvedSize = flexBaseSize;
+        float flexFactor = grow ? item.getFlexGrow() : shrink ? item.getFlexShrink() : 0f;
+        if (flexFactor > 0f) {
+          float rawSize = flexBaseSize + unitSpace * flexFactor + accumulatedRoundError;
+          resolvedSize = Math.max(Math.round(rawSize), 0);
+          accumulatedRoundError = rawSize - resolvedSize;
+        }
+        if (resolvedSize != getMainSize(item)) {
+          container.measureFlexItem(j, resolvedSize);
+        }
+        lineMainSize += getMainSizeWithMargins(item);
+        lineCrossSize = Math.max(lineCrossSize, getCrossSizeWithMargins(item));
+      }
+      lines.mMainSize[i] = lineMainSize;
+      lines.mCrossSize[i] = lineCrossSize;
+    }
+  }
+
+  /**
+   * Retrieve the largest main size of all flex lines.
+   *
+   * @return the largest main size
+   */
+  public int getLargestMainSize() {
+    int largestSize = Integer.MIN_VALUE;
+    int[] mainSizes = mFlexLines.mMainSize;
+    for (int i = 0, size = mFlexLines.size(); i < size; i++) {
+      largestSize = Math.max(largestSize, mainSizes[i]);
+    }
+    return largestSize;
+  }
+
+  /**
+   * Retrieve the sum of the cross sizes of all flex lines.
+   *
+   * @return the sum of the cross sizes
+   */
+  public int getSumOfCrossSize() {
+    int sum = 0;
+    int[] crossSizes = mFlexLines.mCrossSize;
+    for (int i = 0, size = mFlexLines.size(); i < size; i++) {
+      sum += crossSizes[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Determine if a wrap is required (add a new flex line).
+   *
+   * @param currentLength the accumulated current length of the flex line
+   * @param itemLength    the length of the item which is to be collected to the flex line
+   * @return {@code true} if a wrap is required, {@code false} otherwise
+   */
+  private boolean isWrapRequired(int currentLength, int itemLength) {
+    if (mSingleLine || mMainSizeMode == SIZE_MODE_UNSPECIFIED) {
+      return false;
+    }
+    return mMainSize < currentLength + itemLength;
+  }
+
+  /**
+   * @param flexLine the index of the current flex line in {@link #mFlexLines}
+   * @return {@code true} if a new flex line can't be started after the current one because of
+   * {@link #mMaxLines}
+   */
+  private boolean isMaxLinesReached(int flexLine) {
+    return mMaxLines != NOT_SET && flexLine + 1 >= mMaxLines;
+  }
+
+  /**
+   * @param firstItemInLine {@code true} if the item is the first item shown in its flex line
+   * @return the size of the dividers along the main axis counted with the item. The first item
+   * in a flex line takes the divider at the end of the flex line as well as the one at the
+   * beginning, so that the main size of the flex line always includes the end divider.
+   */
+  private int getMainDividerSize(boolean firstItemInLine) {
+    if (mShowMainDivider == SHOW_DIVIDER_NONE) {
+      return 0;
+    }
+    if (!firstItemInLine) {
+      return (mShowMainDivider & SHOW_DIVIDER_MIDDLE) != 0 ? mMainDividerSize : 0;
+    }
+    int size = 0;
+    if ((mShowMainDivider & SHOW_DIVIDER_BEGINNING) != 0) {
+      size += mMainDividerSize;
+    }
+    if ((mShowMainDivider & SHOW_DIVIDER_END) != 0) {
+      size += mMainDividerSize;
+    }
+    return size;
+  }
+
+  private int getMainSize(FlexItem item) {
+    return mMainAxisHorizontal ? item.getMeasuredWidth() : item.getMeasuredHeight();
+  }
+
+  private int getMainSizeWithMargins(FlexItem item) {
+    return mMainAxisHorizontal
+        ? item.getMeasuredWidth() + item.getMarginLeft() + item.getMarginRight()
+        : item.getMeasuredHeight() + item.getMarginTop() + item.getMarginBottom();
+  }
+
+  private int getCrossSizeWithMargins(FlexItem item) {
+    return mMainAxisHorizontal
+        ? item.getMeasuredHeight() + item.getMarginTop() + item.getMarginBottom()
+        : item.getMeasuredWidth() + item.getMarginLeft() + item.getMarginRight();
+  }
+
+  private void setFlexBaseSize(int index, int size) {
+    if (index >= mFlexBaseSizes.length) {
+      mFlexBaseSizes = Arrays.copyOf(mFlexBaseSizes,
+          Math.max(index + 1, mFlexBaseSizes.length * 2));
+    }
+    mFlexBaseSizes[index] = size;
+  }
+}
@@ -2,8 +2,13 @@ package com.twentyhours.androidstudy.flexboxlayout;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
 import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.os.TraceCompat;
 import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.View;
@@ -20,9 +25,30 @@ import java.util.List;
  * Created by soonhyung-imac on 3/7/17.
  */
 
-public class FlexboxLayout extends ViewGroup {
+public class FlexboxLayout extends ViewGroup implements FlexContainer {
+  /**
+   * FlexboxLayout is calculating the flex lines whose main axis is horizontal.
+   */
+  private static final String TRACE_MEASURE_HORIZONTAL_TAG = "Flexbox MeasureHorizontal";
+
+  /**
+   * FlexboxLayout is calculating the flex lines whose main axis is vertical.
+   */
+  private static final String TRACE_MEASURE_VERTICAL_TAG = "Flexbox MeasureVertical";
+
+  /**
+   * FlexboxLayout is placing the children in the flex lines whose main axis is horizontal.
+   */
+  private static final String TRACE_LAYOUT_HORIZONTAL_TAG = "Flexbox LayoutHorizontal";
+
+  /**
+   * FlexboxLayout is placing the children in the flex lines whose main axis is vertical.
+   */
+  private static final String TRACE_LAYOUT_VERTICAL_TAG = "Flexbox LayoutVertical";
+
   // its value should be one of the explicitly named constants.
-  @IntDef({FLEX_DIRECTION_ROW, FLEX_DIRECTION_COLUMN})
+  @IntDef({FLEX_DIRECTION_ROW, FLEX_DIRECTION_ROW_REVERSE, FLEX_DIRECTION_COLUMN,
+      FLEX_DIRECTION_COLUMN_REVERSE})
   // Annotations are to be discarded by the compiler.
   @Retention(RetentionPolicy.SOURCE)
   public @interface FlexDirection {
@@ -31,8 +57,12 @@ public class FlexboxLayout extends ViewGroup {
 
   public static final int FLEX_DIRECTION_ROW = 0;
 
+  public static final int FLEX_DIRECTION_ROW_REVERSE = 1;
+
   public static final int FLEX_DIRECTION_COLUMN = 2;
 
+  public static final int FLEX_DIRECTION_COLUMN_REVERSE = 3;
+
   /**
    * The direction children items are placed inside the Flexbox layout, it determines the
    * direction of the main axis (and the cross axis, perpendicular to the main axis).
@@ -43,16 +73,26 @@ public class FlexboxLayout extends ViewGroup {
    * Cross start to cross end -> Top to bottom
    * </li>
    * <li>
+   * {@link #FLEX_DIRECTION_ROW_REVERSE}: Main axis direction -> horizontal. Main start
+   * to main end -> Right to left (in LTR languages). Cross start to cross end ->
+   * Top to bottom.
+   * </li>
+   * <li>
    * {@link #FLEX_DIRECTION_COLUMN}: Main axis direction -> vertical. Main start
    * to main end -> Top to bottom. Cross start to cross end ->
    * Left to right (In LTR languages).
    * </li>
+   * <li>
+   * {@link #FLEX_DIRECTION_COLUMN_REVERSE}: Main axis direction -> vertical. Main start
+   * to main end -> Bottom to top. Cross start to cross end -> Left to right
+   * (In LTR languages)
+   * </li>
    * </ul>
    * The default value is {@link #FLEX_DIRECTION_ROW}.
    */
   private int mFlexDirection;
 
-  @IntDef({FLEX_WRAP_NOWRAP, FLEX_WRAP_WRAP})
+  @IntDef({FLEX_WRAP_NOWRAP, FLEX_WRAP_WRAP, FLEX_WRAP_WRAP_REVERSE})
   @Retention(RetentionPolicy.SOURCE)
   public @interface FlexWrap {
 
@@ -62,18 +102,232 @@ public class FlexboxLayout extends ViewGroup {
 
   public static final int FLEX_WRAP_WRAP = 1;
 
+  public static final int FLEX_WRAP_WRAP_REVERSE = 2;
+
   /**
    * This attribute controls whether the flex container is single-line or multi-line, and the
    * direction of the cross axis.
    * <ul>
    * <li>{@link #FLEX_WRAP_NOWRAP}: The flex container is single-line.</li>
    * <li>{@link #FLEX_WRAP_WRAP}: The flex container is multi-line.</li>
+   * <li>{@link #FLEX_WRAP_WRAP_REVERSE}: The flex container is multi-line. The direction of the
+   * cross axis is opposed to the direction as the {@link #FLEX_WRAP_WRAP}</li>
    * </ul>
    * The default value is {@link #FLEX_WRAP_NOWRAP}.
    */
   private int mFlexWrap;
 
-  private List<FlexLine> mFlexLines = new ArrayList<>();
+  @IntDef({JUSTIFY_CONTENT_FLEX_START, JUSTIFY_CONTENT_FLEX_END, JUSTIFY_CONTENT_CENTER,
+      JUSTIFY_CONTENT_SPACE_BETWEEN, JUSTIFY_CONTENT_SPACE_AROUND})
+  @Retention(RetentionPolicy.SOURCE)
+  public @interface JustifyContent {
+
+  }
+
+  public static final int JUSTIFY_CONTENT_FLEX_START = 0;
+
+  public static final int JUSTIFY_CONTENT_FLEX_END = 1;
+
+  public static final int JUSTIFY_CONTENT_CENTER = 2;
+
+  public static final int JUSTIFY_CONTENT_SPACE_BETWEEN = 3;
+
+  public static final int JUSTIFY_CONTENT_SPACE_AROUND = 4;
+
+  /**
+   * This attribute controls the alignment along the main axis.
+   * <ul>
+   * <li>{@link #JUSTIFY_CONTENT_FLEX_START}: Flex items are packed toward the start line.</li>
+   * <li>{@link #JUSTIFY_CONTENT_FLEX_END}: Flex items are packed toward the end line.</li>
+   * <li>{@link #JUSTIFY_CONTENT_CENTER}: Flex items are centered in the flex line.</li>
+   * <li>{@link #JUSTIFY_CONTENT_SPACE_BETWEEN}: Flex items are evenly distributed in the flex
+   * line. The first item is on the start line, the last item on the end line.</li>
+   * <li>{@link #JUSTIFY_CONTENT_SPACE_AROUND}: Flex items are evenly distributed in the flex
+   * line, with half-size spaces on either end.</li>
+   * </ul>
+   * The default value is {@link #JUSTIFY_CONTENT_FLEX_START}.
+   */
+  private int mJustifyContent;
+
+  @IntDef({ALIGN_ITEMS_FLEX_START, ALIGN_ITEMS_FLEX_END, ALIGN_ITEMS_CENTER,
+      ALIGN_ITEMS_STRETCH})
+  @Retention(RetentionPolicy.SOURCE)
+  public @interface AlignItems {
+
+  }
+
+  public static final int ALIGN_ITEMS_FLEX_START = 0;
+
+  public static final int ALIGN_ITEMS_FLEX_END = 1;
+
+  public static final int ALIGN_ITEMS_CENTER = 2;
+
+  public static final int ALIGN_ITEMS_STRETCH = 3;
+
+  /**
+   * This attribute controls the alignment along the cross axis within each flex line.
+   * <ul>
+   * <li>{@link #ALIGN_ITEMS_FLEX_START}: Flex items are placed at the cross start of the flex
+   * line.</li>
+   * <li>{@link #ALIGN_ITEMS_FLEX_END}: Flex items are placed at the cross end of the flex
+   * line.</li>
+   * <li>{@link #ALIGN_ITEMS_CENTER}: Flex items are centered along the cross axis of the flex
+   * line.</li>
+   * <li>{@link #ALIGN_ITEMS_STRETCH}: Flex items are stretched to fill the flex line. As in
+   * CSS, the items whose sizes along the cross axis are fixed in their LayoutParams keep their
+   * sizes and are placed at the cross start.</li>
+   * </ul>
+   * The default value is {@link #ALIGN_ITEMS_STRETCH}.
+   */
+  private int mAlignItems;
+
+  @IntDef({ALIGN_CONTENT_FLEX_START, ALIGN_CONTENT_FLEX_END, ALIGN_CONTENT_CENTER,
+      ALIGN_CONTENT_SPACE_BETWEEN, ALIGN_CONTENT_SPACE_AROUND, ALIGN_CONTENT_STRETCH})
+  @Retention(RetentionPolicy.SOURCE)
+  public @interface AlignContent {
+
+  }
+
+  public static final int ALIGN_CONTENT_FLEX_START = 0;
+
+  public static final int ALIGN_CONTENT_FLEX_END = 1;
+
+  public static final int ALIGN_CONTENT_CENTER = 2;
+
+  public static final int ALIGN_CONTENT_SPACE_BETWEEN = 3;
+
+  public static final int ALIGN_CONTENT_SPACE_AROUND = 4;
+
+  public static final int ALIGN_CONTENT_STRETCH = 5;
+
+  /**
+   * This attribute controls the alignment of the flex lines in the flex container.
+   * <ul>
+   * <li>{@link #ALIGN_CONTENT_FLEX_START}: Flex lines are packed to the cross start of the flex
+   * container.</li>
+   * <li>{@link #ALIGN_CONTENT_FLEX_END}: Flex lines are packed to the cross end of the flex
+   * container.</li>
+   * <li>{@link #ALIGN_CONTENT_CENTER}: Flex lines are packed to the center of the flex
+   * container.</li>
+   * <li>{@link #ALIGN_CONTENT_SPACE_BETWEEN}: Flex lines are evenly distributed in the flex
+   * container. The first line is at the cross start, the last line at the cross end.</li>
+   * <li>{@link #ALIGN_CONTENT_SPACE_AROUND}: Flex lines are evenly distributed in the flex
+   * container, with half-size spaces on either end.</li>
+   * <li>{@link #ALIGN_CONTENT_STRETCH}: Flex lines are stretched to take up the remaining space
+   * when the cross size of the flex container is exact.</li>
+   * </ul>
+   * The default value is {@link #ALIGN_CONTENT_STRETCH}.
+   */
+  private int mAlignContent;
+
+  @IntDef(flag = true,
+      value = {SHOW_DIVIDER_NONE, SHOW_DIVIDER_BEGINNING, SHOW_DIVIDER_MIDDLE, SHOW_DIVIDER_END})
+  @Retention(RetentionPolicy.SOURCE)
+  public @interface DividerMode {
+
+  }
+
+  public static final int SHOW_DIVIDER_NONE = FlexboxEngine.SHOW_DIVIDER_NONE;
+
+  public static final int SHOW_DIVIDER_BEGINNING = FlexboxEngine.SHOW_DIVIDER_BEGINNING;
+
+  public static final int SHOW_DIVIDER_MIDDLE = FlexboxEngine.SHOW_DIVIDER_MIDDLE;
+
+  public static final int SHOW_DIVIDER_END = FlexboxEngine.SHOW_DIVIDER_END;
+
+  /**
+   * The drawable drawn horizontally as a divider, i.e. between the flex lines if the main axis is
+   * horizontal, between the items in each flex line otherwise. Its intrinsic height is taken as
+   * the space of the divider.
+   */
+  private Drawable mDividerDrawableHorizontal;
+
+  /**
+   * The drawable drawn vertically as a divider, i.e. between the items in each flex line if the
+   * main axis is horizontal, between the flex lines otherwise. Its intrinsic width is taken as the
+   * space of the divider.
+   */
+  private Drawable mDividerDrawableVertical;
+
+  /** Where {@link #mDividerDrawableHorizontal} is shown, combination of the SHOW_DIVIDER flags */
+  private int mShowDividerHorizontal;
+
+  /** Where {@link #mDividerDrawableVertical} is shown, combination of the SHOW_DIVIDER flags */
+  private int mShowDividerVertical;
+
+  /** The height of {@link #mDividerDrawableHorizontal}, or 0 if it isn't set */
+  private int mDividerHorizontalHeight;
+
+  /** The width of {@link #mDividerDrawableVertical}, or 0 if it isn't set */
+  private int mDividerVerticalWidth;
+
+  /** Indicates that the number of the flex lines isn't limited. */
+  public static final int NOT_SET = FlexboxEngine.NOT_SET;
+
+  /** Indicates that all the children fit in the flex lines. */
+  public static final int NO_HIDDEN_CHILD = FlexboxEngine.NO_HIDDEN_ITEM;
+
+  /** The value of {@link #getFirstHiddenChildIndex()} last dispatched to the listener */
+  private int mDispatchedFirstHiddenChildIndex = NO_HIDDEN_CHILD;
+
+  private OnFlexLinesOverflowListener mOnFlexLinesOverflowListener;
+
+  /**
+   * Breaks the children into the flex lines and resolves their flexible lengths. It also holds
+   * the maximum number of the flex lines and the first child which doesn't fit in them.
+   */
+  private final FlexboxEngine mEngine = new FlexboxEngine();
+
+  private final FlexLineArray mFlexLines = mEngine.mFlexLines;
+
+  /** Indicates that all the flex lines calculated in the last measure pass can be reused. */
+  private static final int NO_DIRTY_CHILD = Integer.MAX_VALUE;
+
+  /**
+   * The index of the first child view which is affected since the last measure pass.
+   * The flex lines before the one containing this child are reused as they are in the next
+   * measure pass, or {@link #NO_DIRTY_CHILD} if no child is affected.
+   */
+  private int mFirstDirtyChildIndex = 0;
+
+  /**
+   * {@code true} if this layout is measured but not laid out yet. The children measured in that
+   * pass keep their layout requested flags until they are laid out, so they shouldn't be regarded
+   * as dirty again when this layout is measured more than once before the layout pass. Cleared
+   * when a layout is requested again before the layout pass, since a child may be changed then.
+   */
+  private boolean mMeasuredSinceLastLayout;
+
+  /**
+   * Incremented every time a child view is added or removed, used as a part of the key of
+   * {@link #mMeasureCache}.
+   */
+  private int mStructureGeneration;
+
+  private final MeasureCache mMeasureCache = new MeasureCache();
+
+  /** The measure specs given in the current measure pass, used to measure the children */
+  private int mWidthMeasureSpec;
+
+  private int mHeightMeasureSpec;
+
+  /** The number of the calls of child.measure in the last measure pass */
+  private int mChildMeasureCount;
+
+  /** The number of the flex lines calculated in the last measure pass */
+  private int mFlexLinesBuilt;
+
+  /** Collects the statistics of the measure and layout passes if set */
+  private FlexboxLayoutStats mStats;
+
+  /**
+   * The duration in milliseconds of the animation moving the children from their previous
+   * positions when they are placed differently in a layout pass, or 0 not to animate them.
+   */
+  private long mFlexLayoutAnimationDuration;
+
+  /** The flex lines to be applied in the next measure pass if they are still valid */
+  private PrecomputedFlexLines mPrecomputedFlexLines;
 
   public FlexboxLayout(Context context) {
     this(context, null);
@@ -90,6 +344,41 @@ public class FlexboxLayout extends ViewGroup {
         attrs, R.styleable.FlexboxLayout, defStyleAttr, 0);
     mFlexDirection = a.getInt(R.styleable.FlexboxLayout_flexDirection, FLEX_DIRECTION_ROW);
     mFlexWrap = a.getInt(R.styleable.FlexboxLayout_flexWrap, FLEX_WRAP_NOWRAP);
+    mEngine.setMaxLines(a.getInt(R.styleable.FlexboxLayout_maxLines, NOT_SET));
+    mJustifyContent = a.getInt(R.styleable.FlexboxLayout_justifyContent,
+        JUSTIFY_CONTENT_FLEX_START);
+    mAlignItems = a.getInt(R.styleable.FlexboxLayout_alignItems, ALIGN_ITEMS_STRETCH);
+    mAlignContent = a.getInt(R.styleable.FlexboxLayout_alignContent, ALIGN_CONTENT_STRETCH);
+
+    Drawable drawable = a.getDrawable(R.styleable.FlexboxLayout_dividerDrawable);
+    if (drawable != null) {
+      setDividerDrawableHorizontal(drawable);
+      setDividerDrawableVertical(drawable);
+    }
+    Drawable drawableHorizontal =
+        a.getDrawable(R.styleable.FlexboxLayout_dividerDrawableHorizontal);
+    if (drawableHorizontal != null) {
+      setDividerDrawableHorizontal(drawableHorizontal);
+    }
+    Drawable drawableVertical = a.getDrawable(R.styleable.FlexboxLayout_dividerDrawableVertical);
+    if (drawableVertical != null) {
+      setDividerDrawableVertical(drawableVertical);
+    }
+    int dividerMode = a.getInt(R.styleable.FlexboxLayout_showDivider, SHOW_DIVIDER_NONE);
+    if (dividerMode != SHOW_DIVIDER_NONE) {
+      mShowDividerHorizontal = dividerMode;
+      mShowDividerVertical = dividerMode;
+    }
+    int dividerModeHorizontal = a.getInt(R.styleable.FlexboxLayout_showDividerHorizontal,
+        SHOW_DIVIDER_NONE);
+    if (dividerModeHorizontal != SHOW_DIVIDER_NONE) {
+      mShowDividerHorizontal = dividerModeHorizontal;
+    }
+    int dividerModeVertical = a.getInt(R.styleable.FlexboxLayout_showDividerVertical,
+        SHOW_DIVIDER_NONE);
+    if (dividerModeVertical != SHOW_DIVIDER_NONE) {
+      mShowDividerVertical = dividerModeVertical;
+    }
     a.recycle();
   }
 
@@ -98,214 +387,506 @@ public class FlexboxLayout extends ViewGroup {
    */
   @Override
   protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-
-    // TODO: Only calculate the children views which are affected from the last measure.
-
-    switch (mFlexDirection) {
-      case FLEX_DIRECTION_ROW:
-        measureHorizontal(widthMeasureSpec, heightMeasureSpec);
-        break;
-      case FLEX_DIRECTION_COLUMN:
-        measureVertical(widthMeasureSpec, heightMeasureSpec);
-        break;
-      default:
-        throw new IllegalStateException(
-            "Invalid value for the flex direction is set: " + mFlexDirection);
+    FlexboxLayoutStats stats = mStats;
+    long startNanos = stats != null ? System.nanoTime() : 0L;
+    int measureCacheHitCount = mMeasureCache.mHitCount;
+    mChildMeasureCount = 0;
+    mFlexLinesBuilt = 0;
+    measureFlexContainer(widthMeasureSpec, heightMeasureSpec);
+    if (stats != null) {
+      stats.onMeasure(mChildMeasureCount, mFlexLinesBuilt,
+          mMeasureCache.mHitCount != measureCacheHitCount, System.nanoTime() - startNanos);
     }
   }
 
   /**
-   * Sub method for {@link #onMeasure(int, int)}, when the main axis direction is horizontal
-   * (either left to right or right to left).
-   *
-   * @param widthMeasureSpec  horizontal space requirements as imposed by the parent
-   * @param heightMeasureSpec vertical space requirements as imposed by the parent
-   * @see #onMeasure(int, int)
-   * @see #setFlexDirection(int)
-   * @see #setFlexWrap(int)
+   * The body of {@link #onMeasure(int, int)}. The flex lines are taken over from the precomputed
+   * ones, replayed from the last pass, or calculated from the first affected child.
    */
-  private void measureHorizontal(int widthMeasureSpec, int heightMeasureSpec) {
-    int widthMode = MeasureSpec.getMode(widthMeasureSpec);
-    int widthSize = MeasureSpec.getSize(widthMeasureSpec);
-    int childState = 0;
+  private void measureFlexContainer(int widthMeasureSpec, int heightMeasureSpec) {
+    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
 
-    mFlexLines.clear();
-
-    // Determine how many flex lines are needed in this layout by measuring each child.
-    {
-      int childCount = getChildCount();
-      int paddingStart = ViewCompat.getPaddingStart(this);
-      int paddingEnd = ViewCompat.getPaddingEnd(this);
-      int largestHeightInRow = Integer.MIN_VALUE;
-      FlexLine flexLine = new FlexLine();
-
-      // The index of the view in a same flex line.
-      int indexInFlexLine = 0;
-      flexLine.mMainSize = paddingStart + paddingEnd;
-      for (int i = 0; i < childCount; i++) {
-        View child = getChildAt(i);
-        if (child == null) {
-          addFlexLineIfLastFlexItem(i, childCount, flexLine);
-          continue;
-        } else if (child.getVisibility() == View.GONE) {
-          flexLine.mItemCount++;
-          flexLine.mGoneItemCount++;
-          addFlexLineIfLastFlexItem(i, childCount, flexLine);
-          continue;
-        }
+    if (mPrecomputedFlexLines != null) {
+      PrecomputedFlexLines precomputed = mPrecomputedFlexLines;
+      mPrecomputedFlexLines = null;
+      if (canApplyPrecomputedFlexLines(precomputed, widthMeasureSpec, heightMeasureSpec)) {
+        applyPrecomputedFlexLines(precomputed, widthMeasureSpec, heightMeasureSpec);
+        return;
+      }
+    }
 
-        FlexboxLayout.LayoutParams lp = (LayoutParams) child.getLayoutParams();
-
-        int childWidth = lp.width;
-        int childWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec,
-            getPaddingLeft() + getPaddingRight() + lp.leftMargin
-                + lp.rightMargin, childWidth);
-        int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec,
-            getPaddingTop() + getPaddingBottom() + lp.topMargin
-                + lp.bottomMargin, lp.height);
-        child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
-
-        childState = ViewCompat
-            .combineMeasuredStates(childState, ViewCompat.getMeasuredState(child));
-        largestHeightInRow = Math.max(largestHeightInRow,
-            child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
-
-        if (isWrapRequired(widthMode, widthSize, flexLine.mMainSize,
-            child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin, lp,
-            i, indexInFlexLine)) {
-          if (flexLine.getItemCountNotGone() > 0) {
-            addFlexLine(flexLine);
-          }
+    if (!mMeasureCache.hasSameConstraints(this, widthMeasureSpec, heightMeasureSpec)) {
+      markChildDirty(0);
+    }
+    findFirstDirtyChild();
+    mMeasuredSinceLastLayout = true;
+
+    if (mFirstDirtyChildIndex == NO_DIRTY_CHILD
+        && mMeasureCache.mStructureGeneration == mStructureGeneration) {
+      // Nothing is changed from the last measure, e.g. the parent measures this layout more than
+      // once in a frame. Replay the result from the flex lines calculated in the last pass.
+      mMeasureCache.mHitCount++;
+      setMeasuredDimensionForFlex(mFlexDirection, widthMeasureSpec, heightMeasureSpec,
+          mMeasureCache.mChildState);
+      return;
+    }
+    mMeasureCache.mMissCount++;
 
-          flexLine = new FlexLine();
-          flexLine.mItemCount = 1;
-          flexLine.mMainSize = paddingStart + paddingEnd;
-          largestHeightInRow = child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
-          indexInFlexLine = 0;
-        } else {
-          flexLine.mItemCount++;
-          indexInFlexLine++;
-        }
-        flexLine.mMainSize += child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin;
-        // Temporarily set the cross axis length as the largest child in the row
-        // Expand along the cross axis depending on the mAlignContent property if needed
-        // later
-        flexLine.mCrossSize = Math.max(flexLine.mCrossSize, largestHeightInRow);
+    // Only calculate the children views which are affected from the last measure.
+    int fromIndex = discardFlexLinesFrom(mFirstDirtyChildIndex);
+    measureFlexLines(widthMeasureSpec, heightMeasureSpec, fromIndex);
+    mMeasureCache.update(this, widthMeasureSpec, heightMeasureSpec);
+    mFirstDirtyChildIndex = NO_DIRTY_CHILD;
+  }
 
-        addFlexLineIfLastFlexItem(i, childCount, flexLine);
+  /**
+   * @return {@code true} if the precomputed flex lines were calculated for the current children
+   * and constraints of this layout. Only the LayoutParams of the children are compared, none of
+   * them is measured here. A child with a fixed width or height isn't resized to a different
+   * size hint, since the hinted sizes are forced on the children when the lines are applied.
+   */
+  private boolean canApplyPrecomputedFlexLines(PrecomputedFlexLines precomputed,
+                                               int widthMeasureSpec, int heightMeasureSpec) {
+    boolean mainAxisHorizontal = isMainAxisDirectionHorizontal();
+    int mainPadding = mainAxisHorizontal
+        ? ViewCompat.getPaddingStart(this) + ViewCompat.getPaddingEnd(this)
+        : getPaddingTop() + getPaddingBottom();
+    int childCount = getChildCount();
+    if (precomputed.mItemCount != childCount
+        || precomputed.mEngine.isMainAxisHorizontal() != mainAxisHorizontal
+        || (precomputed.mFlexWrap == FLEX_WRAP_NOWRAP) != (mFlexWrap == FLEX_WRAP_NOWRAP)
+        || precomputed.mMaxLines != getMaxLines()
+        || precomputed.mMainMeasureSpec != (mainAxisHorizontal ? widthMeasureSpec
+        : heightMeasureSpec)
+        || precomputed.mMainPadding != mainPadding
+        || precomputed.mEngine.getMainDividerSize() != getMainDividerSize(mainAxisHorizontal)
+        || precomputed.mEngine.getShowMainDivider() != getShowMainDivider(mainAxisHorizontal)) {
+      return false;
+    }
+    int[] margins = precomputed.mMargins;
+    for (int i = 0; i < childCount; i++) {
+      View child = getChildAt(i);
+      LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      if (child.getVisibility() == View.GONE
+          || margins[i * 4] != lp.leftMargin
+          || margins[i * 4 + 1] != lp.topMargin
+          || margins[i * 4 + 2] != lp.rightMargin
+          || margins[i * 4 + 3] != lp.bottomMargin
+          || precomputed.mFlexGrows[i] != lp.flexGrow
+          || precomputed.mFlexShrinks[i] != lp.flexShrink
+          || precomputed.mFlexBasisPercents[i] != lp.flexBasisPercent
+          || (lp.width >= 0 && lp.width != precomputed.mHintWidths[i])
+          || (lp.height >= 0 && lp.height != precomputed.mHintHeights[i])) {
+        return false;
       }
     }
+    return true;
+  }
+
+  /**
+   * Take over the precomputed flex lines, and measure each child in them once with its resolved
+   * size. The flex lines are reused in the following measure passes as if they were calculated
+   * in this pass.
+   */
+  private void applyPrecomputedFlexLines(PrecomputedFlexLines precomputed, int widthMeasureSpec,
+                                         int heightMeasureSpec) {
+    mEngine.copyFrom(precomputed.mEngine);
+    int firstHiddenChildIndex = mEngine.getFirstHiddenItemIndex();
+    int toIndex = firstHiddenChildIndex == NO_HIDDEN_CHILD ? getChildCount()
+        : firstHiddenChildIndex;
+    for (int i = 0; i < toIndex; i++) {
+      View child = getChildAt(i);
+      ((LayoutParams) child.getLayoutParams()).mGoneInLastMeasure = false;
+      measureChildForFlex(child,
+          MeasureSpec.makeMeasureSpec(precomputed.mWidths[i], MeasureSpec.EXACTLY),
+          MeasureSpec.makeMeasureSpec(precomputed.mHeights[i], MeasureSpec.EXACTLY));
+    }
+    stretchFlexLines(widthMeasureSpec, heightMeasureSpec);
+    mMeasuredSinceLastLayout = true;
+    mFirstDirtyChildIndex = NO_DIRTY_CHILD;
 
+    int childState = getMeasuredStateOfChildren(toIndex);
+    mMeasureCache.mChildState = childState;
+    mMeasureCache.update(this, widthMeasureSpec, heightMeasureSpec);
     setMeasuredDimensionForFlex(mFlexDirection, widthMeasureSpec, heightMeasureSpec,
         childState);
   }
 
   /**
-   * Sub method for {@link #onMeasure(int, int)} when the main axis direction is vertical
-   * (either from top to bottom or bottom to top).
+   * Update {@link #mFirstDirtyChildIndex} with the children which requested a layout (including
+   * the ones whose visibilities are changed from or to gone) since the last layout pass.
+   */
+  private void findFirstDirtyChild() {
+    if (mMeasuredSinceLastLayout) {
+      // The children measured in the last pass keep their layout requested flags until they are
+      // laid out.
+      return;
+    }
+    int end = Math.min(mFirstDirtyChildIndex, getChildCount());
+    int firstHiddenChildIndex = mEngine.getFirstHiddenItemIndex();
+    if (firstHiddenChildIndex != NO_HIDDEN_CHILD) {
+      // The children after the first hidden child don't affect the flex lines.
+      end = Math.min(end, firstHiddenChildIndex + 1);
+    }
+    for (int i = 0; i < end; i++) {
+      View child = getChildAt(i);
+      if (child == null) {
+        continue;
+      }
+      LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      boolean gone = child.getVisibility() == View.GONE;
+      if (gone != lp.mGoneInLastMeasure || (!gone && child.isLayoutRequested())) {
+        mFirstDirtyChildIndex = i;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Discard the flex lines which may be affected by the given child. The flex lines before them
+   * are kept as they are since none of the children in them are affected from the last measure.
+   *
+   * @param childIndex the index of the first affected child, or {@link #NO_DIRTY_CHILD}
+   * @return the index of the child view from which the flex lines are to be calculated
+   * @see FlexboxEngine#discardFlexLinesFrom(int)
+   */
+  private int discardFlexLinesFrom(int childIndex) {
+    if (childIndex == NO_DIRTY_CHILD && !mFlexLines.isEmpty()) {
+      return getChildCount();
+    }
+    return mEngine.discardFlexLinesFrom(childIndex);
+  }
+
+  /**
+   * Mark the flex lines from the one containing the child at the given index as dirty so that
+   * they are calculated again in the next measure pass.
+   *
+   * @param childIndex the index of the affected child view
+   */
+  private void markChildDirty(int childIndex) {
+    int firstHiddenChildIndex = mEngine.getFirstHiddenItemIndex();
+    if (firstHiddenChildIndex != NO_HIDDEN_CHILD && childIndex > firstHiddenChildIndex) {
+      // The children after the first hidden child don't affect the flex lines.
+      return;
+    }
+    mFirstDirtyChildIndex = Math.min(mFirstDirtyChildIndex, Math.max(childIndex, 0));
+  }
+
+  @Override
+  public void onViewAdded(View child) {
+    super.onViewAdded(child);
+    mStructureGeneration++;
+    markChildDirty(indexOfChild(child));
+  }
+
+  @Override
+  public void onViewRemoved(View child) {
+    super.onViewRemoved(child);
+    mStructureGeneration++;
+    markChildDirty(indexOfChild(child));
+  }
+
+  @Override
+  public void requestLayout() {
+    // A child may be changed after this layout is measured without being laid out, e.g. by a
+    // parent which only measures it. Scan the children still flagged in the next measure pass.
+    mMeasuredSinceLastLayout = false;
+    super.requestLayout();
+  }
+
+  @Override
+  public void forceLayout() {
+    // Called before this layout is measured again without a layout pass, e.g. as a scrap view
+    // of a list.
+    mMeasuredSinceLastLayout = false;
+    super.forceLayout();
+  }
+
+  /**
+   * Calculate the flex lines from the given child with {@link #mEngine}, and set the measured
+   * dimension of this layout. The reverse directions share the flex lines with their non-reverse
+   * counterparts, only the placement of the lines and the items in them is mirrored in onLayout.
    *
    * @param widthMeasureSpec  horizontal space requirements as imposed by the parent
    * @param heightMeasureSpec vertical space requirements as imposed by the parent
+   * @param fromIndex         the index of the child from which the flex lines are calculated.
+   *                          The flex lines containing the children before it are reused.
    * @see #onMeasure(int, int)
    * @see #setFlexDirection(int)
    * @see #setFlexWrap(int)
    */
-  private void measureVertical(int widthMeasureSpec, int heightMeasureSpec) {
-    int heightMode = MeasureSpec.getMode(heightMeasureSpec);
-    int heightSize = MeasureSpec.getSize(heightMeasureSpec);
-    int childState = 0;
+  private void measureFlexLines(int widthMeasureSpec, int heightMeasureSpec, int fromIndex) {
+    mWidthMeasureSpec = widthMeasureSpec;
+    mHeightMeasureSpec = heightMeasureSpec;
+    boolean mainAxisHorizontal = isMainAxisDirectionHorizontal();
+    TraceCompat.beginSection(mainAxisHorizontal ? TRACE_MEASURE_HORIZONTAL_TAG
+        : TRACE_MEASURE_VERTICAL_TAG);
+    int mainMeasureSpec = mainAxisHorizontal ? widthMeasureSpec : heightMeasureSpec;
+    int mainPadding = mainAxisHorizontal
+        ? ViewCompat.getPaddingStart(this) + ViewCompat.getPaddingEnd(this)
+        : getPaddingTop() + getPaddingBottom();
+    FlexboxEngine engine = mEngine;
+    engine.setMainAxisHorizontal(mainAxisHorizontal);
+    engine.setSingleLine(mFlexWrap == FLEX_WRAP_NOWRAP);
+    engine.setMainAxisConstraints(MeasureSpec.getSize(mainMeasureSpec),
+        toEngineSizeMode(MeasureSpec.getMode(mainMeasureSpec)), mainPadding);
+    engine.setMainAxisDivider(getMainDividerSize(mainAxisHorizontal),
+        getShowMainDivider(mainAxisHorizontal));
+
+    int fromLine = mFlexLines.size();
+    // The reused flex lines were stretched in the last pass, the engine may resolve them again.
+    System.arraycopy(mFlexLines.mBaseCrossSize, 0, mFlexLines.mCrossSize, 0, fromLine);
+    int toIndex = engine.calculateFlexLines(this, fromIndex);
+    engine.resolveFlexibleLengths(this, fromLine);
+    mFlexLinesBuilt = mFlexLines.size() - fromLine;
+    stretchFlexLines(widthMeasureSpec, heightMeasureSpec);
+
+    int childState = getMeasuredStateOfChildren(toIndex);
+    mMeasureCache.mChildState = childState;
+    setMeasuredDimensionForFlex(mFlexDirection, widthMeasureSpec, heightMeasureSpec,
+        childState);
+    TraceCompat.endSection();
+  }
 
-    mFlexLines.clear();
+  /**
+   * Stretch the flex lines to fill the cross size of this layout, and stretch the children in them
+   * to fill their flex lines, in a single pass over the flex lines. The dividers between the flex
+   * lines are counted in the cross sizes of the flex lines in the same pass.
+   * A single flex line is stretched when the flex wrap is {@link #FLEX_WRAP_NOWRAP}, multiple
+   * flex lines when the align content is {@link #ALIGN_CONTENT_STRETCH}, in either case only if
+   * the cross size of this layout is exact. The children are stretched when the align items is
+   * {@link #ALIGN_ITEMS_STRETCH}, and only the ones whose cross sizes actually change are
+   * measured again.
+   *
+   * @param widthMeasureSpec  horizontal space requirements as imposed by the parent
+   * @param heightMeasureSpec vertical space requirements as imposed by the parent
+   */
+  private void stretchFlexLines(int widthMeasureSpec, int heightMeasureSpec) {
+    FlexLineArray lines = mFlexLines;
+    int size = lines.size();
+    boolean mainAxisHorizontal = isMainAxisDirectionHorizontal();
+    int crossMeasureSpec = mainAxisHorizontal ? heightMeasureSpec : widthMeasureSpec;
+    int showCrossDivider = mainAxisHorizontal ? mShowDividerHorizontal : mShowDividerVertical;
+    int crossDividerSize = mainAxisHorizontal ? mDividerHorizontalHeight : mDividerVerticalWidth;
+    float extraCrossSize = 0f;
+    if (size > 0 && MeasureSpec.getMode(crossMeasureSpec) == MeasureSpec.EXACTLY) {
+      int crossPadding = mainAxisHorizontal ? getPaddingTop() + getPaddingBottom()
+          : getPaddingLeft() + getPaddingRight();
+      int dividerCount = (hasDividerBefore(showCrossDivider, true) ? 1 : 0)
+          + (hasDividerBefore(showCrossDivider, false) ? size - 1 : 0)
+          + (hasDividerAtEnd(showCrossDivider) ? 1 : 0);
+      int freeSpace = MeasureSpec.getSize(crossMeasureSpec) - crossPadding
+          - mEngine.getSumOfCrossSize() - dividerCount * crossDividerSize;
+      if (mFlexWrap == FLEX_WRAP_NOWRAP) {
+        // The single flex line takes the cross size of this layout, even if it's smaller.
+        extraCrossSize = freeSpace;
+      } else if (mAlignContent == ALIGN_CONTENT_STRETCH && freeSpace > 0) {
+        extraCrossSize = freeSpace / (float) size;
+      }
+    }
 
-    // Determine how many flex lines are needed in this layout by measuring each child.
-    int childCount = getChildCount();
-    int paddingTop = getPaddingTop();
-    int paddingBottom = getPaddingBottom();
-    int largestWidthInColumn = Integer.MIN_VALUE;
-    FlexLine flexLine = new FlexLine();
-    flexLine.mMainSize = paddingTop + paddingBottom;
-    // The index of the view in a same flex line.
-    int indexInFlexLine = 0;
-    for (int i = 0; i < childCount; i++) {
-      View child = getChildAt(i);
-      if (child == null) {
-        addFlexLineIfLastFlexItem(i, childCount, flexLine);
-        continue;
-      } else if (child.getVisibility() == View.GONE) {
-        flexLine.mItemCount++;
-        flexLine.mGoneItemCount++;
-        addFlexLineIfLastFlexItem(i, childCount, flexLine);
+    // Accumulate the round error so that the stretched flex lines fill the cross size exactly.
+    float accumulatedRoundError = 0f;
+    for (int i = 0; i < size; i++) {
+      int crossSize = lines.mCrossSize[i];
+      lines.mBaseCrossSize[i] = crossSize;
+      if (extraCrossSize != 0f) {
+        float rawCrossSize = crossSize + extraCrossSize + accumulatedRoundError;
+        crossSize = Math.max(Math.round(rawCrossSize), 0);
+        accumulatedRoundError = rawCrossSize - crossSize;
+      }
+      lines.mCrossSize[i] = crossSize + getCrossDividerSize(i, size);
+      if (mAlignItems != ALIGN_ITEMS_STRETCH) {
         continue;
       }
+      for (int j = lines.mFirstIndex[i], end = j + lines.mItemCount[i]; j < end; j++) {
+        View child = getChildAt(j);
+        if (child == null || child.getVisibility() == View.GONE) {
+          continue;
+        }
+        stretchChild(child, crossSize, mainAxisHorizontal);
+      }
+    }
+  }
+
+  /**
+   * @return the size of the dividers counted in the cross size of the flex line at the given
+   * index, i.e. the divider before the flex line, and the one at the end if it's the last one
+   */
+  private int getCrossDividerSize(int lineIndex, int lineCount) {
+    boolean mainAxisHorizontal = isMainAxisDirectionHorizontal();
+    int showCrossDivider = mainAxisHorizontal ? mShowDividerHorizontal : mShowDividerVertical;
+    int crossDividerSize = mainAxisHorizontal ? mDividerHorizontalHeight : mDividerVerticalWidth;
+    int size = 0;
+    if (hasDividerBefore(showCrossDivider, lineIndex == 0)) {
+      size += crossDividerSize;
+    }
+    if (lineIndex == lineCount - 1 && hasDividerAtEnd(showCrossDivider)) {
+      size += crossDividerSize;
+    }
+    return size;
+  }
 
-      FlexboxLayout.LayoutParams lp = (LayoutParams) child.getLayoutParams();
+  /**
+   * @param showDivider the combination of the SHOW_DIVIDER flags
+   * @param first       {@code true} if the divider is before the first flex line, or before the
+   *                    first item shown in a flex line
+   * @return {@code true} if the divider is shown
+   */
+  private static boolean hasDividerBefore(int showDivider, boolean first) {
+    return (showDivider & (first ? SHOW_DIVIDER_BEGINNING : SHOW_DIVIDER_MIDDLE)) != 0;
+  }
 
-      int childHeight = lp.height;
+  private static boolean hasDividerAtEnd(int showDivider) {
+    return (showDivider & SHOW_DIVIDER_END) != 0;
+  }
 
-      int childWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec,
-          getPaddingLeft() + getPaddingRight() + lp.leftMargin
-              + lp.rightMargin, lp.width);
-      int childHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec,
-          getPaddingTop() + getPaddingBottom() + lp.topMargin
-              + lp.bottomMargin, childHeight);
-      child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+  /**
+   * @return the size along the main axis of the dividers between the items in a flex line
+   */
+  private int getMainDividerSize(boolean mainAxisHorizontal) {
+    return mainAxisHorizontal ? mDividerVerticalWidth : mDividerHorizontalHeight;
+  }
 
-      childState = ViewCompat
-          .combineMeasuredStates(childState, ViewCompat.getMeasuredState(child));
-      largestWidthInColumn = Math.max(largestWidthInColumn,
-          child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin);
-
-      if (isWrapRequired(heightMode, heightSize, flexLine.mMainSize,
-          child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin, lp,
-          i, indexInFlexLine)) {
-        if (flexLine.getItemCountNotGone() > 0) {
-          addFlexLine(flexLine);
-        }
+  private int getShowMainDivider(boolean mainAxisHorizontal) {
+    return mainAxisHorizontal ? mShowDividerVertical : mShowDividerHorizontal;
+  }
 
-        flexLine = new FlexLine();
-        flexLine.mItemCount = 1;
-        flexLine.mMainSize = paddingTop + paddingBottom;
-        largestWidthInColumn = child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin;
-        indexInFlexLine = 0;
-      } else {
-        flexLine.mItemCount++;
-        indexInFlexLine++;
+  /**
+   * Measure the child again with its current main size and the cross size of its flex line, only
+   * if its cross size changes. The children whose cross sizes are fixed aren't stretched.
+   *
+   * @param child              the child view to be stretched
+   * @param lineCrossSize      the cross size of the flex line containing the child
+   * @param mainAxisHorizontal {@code true} if the main axis is horizontal
+   */
+  private void stretchChild(View child, int lineCrossSize, boolean mainAxisHorizontal) {
+    LayoutParams lp = (LayoutParams) child.getLayoutParams();
+    int measuredWidth = child.getMeasuredWidth();
+    int measuredHeight = child.getMeasuredHeight();
+    int widthMeasureSpec;
+    int heightMeasureSpec;
+    if (mainAxisHorizontal) {
+      int stretchedHeight = Math.max(lineCrossSize - lp.topMargin - lp.bottomMargin, 0);
+      if (lp.height >= 0 || stretchedHeight == measuredHeight) {
+        return;
       }
-      flexLine.mMainSize += child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
-      // Temporarily set the cross axis length as the largest child width in the column
-      // Expand along the cross axis depending on the mAlignContent property if needed
-      // later
-      flexLine.mCrossSize = Math.max(flexLine.mCrossSize, largestWidthInColumn);
-
-      addFlexLineIfLastFlexItem(i, childCount, flexLine);
+      widthMeasureSpec = MeasureSpec.makeMeasureSpec(measuredWidth, MeasureSpec.EXACTLY);
+      heightMeasureSpec = MeasureSpec.makeMeasureSpec(stretchedHeight, MeasureSpec.EXACTLY);
+    } else {
+      int stretchedWidth = Math.max(lineCrossSize - lp.leftMargin - lp.rightMargin, 0);
+      if (lp.width >= 0 || stretchedWidth == measuredWidth) {
+        return;
+      }
+      widthMeasureSpec = MeasureSpec.makeMeasureSpec(stretchedWidth, MeasureSpec.EXACTLY);
+      heightMeasureSpec = MeasureSpec.makeMeasureSpec(measuredHeight, MeasureSpec.EXACTLY);
     }
-
-    setMeasuredDimensionForFlex(mFlexDirection, widthMeasureSpec, heightMeasureSpec,
-        childState);
+    // Keep reporting the size before the stretch to the engine, which calculates the cross sizes
+    // of the flex lines from the sizes of their items.
+    int widthBeforeStretch = lp.mStretched ? lp.mWidthBeforeStretch : measuredWidth;
+    int heightBeforeStretch = lp.mStretched ? lp.mHeightBeforeStretch : measuredHeight;
+    measureChildForFlex(child, widthMeasureSpec, heightMeasureSpec);
+    lp.mStretched = true;
+    lp.mWidthBeforeStretch = widthBeforeStretch;
+    lp.mHeightBeforeStretch = heightBeforeStretch;
   }
 
-  private void addFlexLineIfLastFlexItem(int childIndex, int childCount, FlexLine flexLine) {
-    if (childIndex == childCount - 1 && flexLine.getItemCountNotGone() != 0) {
-      // Add the flex line if this item is the last item
-      addFlexLine(flexLine);
+  static int toEngineSizeMode(int measureSpecMode) {
+    switch (measureSpecMode) {
+      case MeasureSpec.EXACTLY:
+        return FlexboxEngine.SIZE_MODE_EXACTLY;
+      case MeasureSpec.AT_MOST:
+        return FlexboxEngine.SIZE_MODE_AT_MOST;
+      default:
+        return FlexboxEngine.SIZE_MODE_UNSPECIFIED;
     }
   }
 
-  private void addFlexLine(FlexLine flexLine) {
-    mFlexLines.add(flexLine);
+  @Override
+  public int getFlexItemCount() {
+    return getChildCount();
   }
 
   /**
-   * Set this FlexboxLayouts' width and height depending on the calculated size of main axis and
-   * cross axis.
-   *
-   * @param flexDirection     the value of the flex direction
-   * @param widthMeasureSpec  horizontal space requirements as imposed by the parent
-   * @param heightMeasureSpec vertical space requirements as imposed by the parent
-   * @param childState        the child state of the View
-   * @see #getFlexDirection()
-   * @see #setFlexDirection(int)
+   * Called by {@link #mEngine} in the measure pass. The child is bound to its LayoutParams so that
+   * the LayoutParams serves as the {@link FlexItem} of the child.
+   */
+  @Override
+  public FlexItem getFlexItemAt(int index) {
+    View child = getChildAt(index);
+    LayoutParams lp = (LayoutParams) child.getLayoutParams();
+    lp.mView = child;
+    lp.mGoneInLastMeasure = child.getVisibility() == View.GONE;
+    return lp;
+  }
+
+  @Override
+  public void measureFlexItem(int index, int mainSize) {
+    View child = getChildAt(index);
+    LayoutParams lp = (LayoutParams) child.getLayoutParams();
+    int childWidthMeasureSpec = getChildMeasureSpec(mWidthMeasureSpec,
+        getPaddingLeft() + getPaddingRight() + lp.leftMargin + lp.rightMargin, lp.width);
+    int childHeightMeasureSpec = getChildMeasureSpec(mHeightMeasureSpec,
+        getPaddingTop() + getPaddingBottom() + lp.topMargin + lp.bottomMargin, lp.height);
+    if (mainSize != FlexboxEngine.SIZE_UNDEFINED) {
+      int exactSpec = MeasureSpec.makeMeasureSpec(mainSize, MeasureSpec.EXACTLY);
+      if (isMainAxisDirectionHorizontal()) {
+        childWidthMeasureSpec = exactSpec;
+      } else {
+        childHeightMeasureSpec = exactSpec;
+      }
+    }
+    measureChildForFlex(child, childWidthMeasureSpec, childHeightMeasureSpec);
+  }
+
+  /**
+   * Measure the child unless it has a fixed size and is measured with the same measure specs as
+   * the last time. In that case its measured size can't change as long as it doesn't request a
+   * layout (including a forced layout), so the call of child.measure is skipped.
+   */
+  private void measureChildForFlex(View child, int widthMeasureSpec, int heightMeasureSpec) {
+    LayoutParams lp = (LayoutParams) child.getLayoutParams();
+    if (lp.width >= 0 && lp.height >= 0 && !child.isLayoutRequested()
+        && lp.mLastWidthMeasureSpec == widthMeasureSpec
+        && lp.mLastHeightMeasureSpec == heightMeasureSpec) {
+      return;
+    }
+    mChildMeasureCount++;
+    lp.mStretched = false;
+    child.measure(widthMeasureSpec, heightMeasureSpec);
+    lp.mLastWidthMeasureSpec = widthMeasureSpec;
+    lp.mLastHeightMeasureSpec = heightMeasureSpec;
+  }
+
+  /**
+   * Combine the measured states of the children views contained in the flex lines.
+   *
+   * @param toIndex the index of the first child not contained in the flex lines (exclusive)
+   * @return the combined measured state of the children before {@code toIndex}
+   */
+  private int getMeasuredStateOfChildren(int toIndex) {
+    int childState = 0;
+    for (int i = 0; i < toIndex; i++) {
+      View child = getChildAt(i);
+      if (child == null || child.getVisibility() == View.GONE) {
+        continue;
+      }
+      childState = ViewCompat
+          .combineMeasuredStates(childState, ViewCompat.getMeasuredState(child));
+    }
+    return childState;
+  }
+
+  /**
+   * Set this FlexboxLayouts' width and height depending on the calculated size of main axis and
+   * cross axis.
+   *
+   * @param flexDirection     the value of the flex direction
+   * @param widthMeasureSpec  horizontal space requirements as imposed by the parent
+   * @param heightMeasureSpec vertical space requirements as imposed by the parent
+   * @param childState        the child state of the View
+   * @see #getFlexDirection()
+   * @see #setFlexDirection(int)
    */
   private void setMeasuredDimensionForFlex(@FlexDirection int flexDirection, int widthMeasureSpec,
                                            int heightMeasureSpec, int childState) {
@@ -316,14 +897,16 @@ public class FlexboxLayout extends ViewGroup {
     int calculatedMaxHeight;
     int calculatedMaxWidth;
     switch (flexDirection) {
-      case FLEX_DIRECTION_ROW:
-        calculatedMaxHeight = getSumOfCrossSize() + getPaddingTop()
+      case FLEX_DIRECTION_ROW: // Intentional fall through
+      case FLEX_DIRECTION_ROW_REVERSE:
+        calculatedMaxHeight = mEngine.getSumOfCrossSize() + getPaddingTop()
             + getPaddingBottom();
-        calculatedMaxWidth = getLargestMainSize();
+        calculatedMaxWidth = mEngine.getLargestMainSize();
         break;
-      case FLEX_DIRECTION_COLUMN:
-        calculatedMaxHeight = getLargestMainSize();
-        calculatedMaxWidth = getSumOfCrossSize() + getPaddingLeft() + getPaddingRight();
+      case FLEX_DIRECTION_COLUMN: // Intentional fall through
+      case FLEX_DIRECTION_COLUMN_REVERSE:
+        calculatedMaxHeight = mEngine.getLargestMainSize();
+        calculatedMaxWidth = mEngine.getSumOfCrossSize() + getPaddingLeft() + getPaddingRight();
         break;
       default:
         throw new IllegalArgumentException("Invalid flex direction: " + flexDirection);
@@ -392,80 +975,139 @@ public class FlexboxLayout extends ViewGroup {
     setMeasuredDimension(widthSizeAndState, heightSizeAndState);
   }
 
-  /**
-   * Determine if a wrap is required (add a new flex line).
-   *
-   * @param mode          the width or height mode along the main axis direction
-   * @param maxSize       the max size along the main axis direction
-   * @param currentLength the accumulated current length
-   * @param childLength   the length of a child view which is to be collected to the flex line
-   * @param lp            the LayoutParams for the view being determined whether a new flex line
-   *                      is needed
-   * @return {@code true} if a wrap is required, {@code false} otherwise
-   * @see #getFlexWrap()
-   * @see #setFlexWrap(int)
-   */
-  private boolean isWrapRequired(int mode, int maxSize, int currentLength, int childLength,
-                                 LayoutParams lp, int childAbsoluteIndex, int childRelativeIndexInFlexLine) {
-    if (mFlexWrap == FLEX_WRAP_NOWRAP) {
-      return false;
-    }
-    if (mode == MeasureSpec.UNSPECIFIED) {
-      return false;
-    }
-
-    return maxSize < currentLength + childLength;
-  }
-
-  /**
-   * Retrieve the largest main size of all flex lines.
-   *
-   * @return the largest main size
-   */
-  private int getLargestMainSize() {
-    int largestSize = Integer.MIN_VALUE;
-    for (FlexLine flexLine : mFlexLines) {
-      largestSize = Math.max(largestSize, flexLine.mMainSize);
-    }
-    return largestSize;
-  }
-
-  /**
-   * Retrieve the sum of the cross sizes of all flex lines including divider lengths.
-   *
-   * @return the sum of the cross sizes
-   */
-  private int getSumOfCrossSize() {
-    int sum = 0;
-    for (int i = 0, size = mFlexLines.size(); i < size; i++) {
-      FlexLine flexLine = mFlexLines.get(i);
-
-      sum += flexLine.mCrossSize;
-    }
-    return sum;
-  }
-
   @Override
   protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+    FlexboxLayoutStats stats = mStats;
+    long startNanos = stats != null ? System.nanoTime() : 0L;
+    mMeasuredSinceLastLayout = false;
+    boolean animate = mFlexLayoutAnimationDuration > 0 && isLaidOut();
+    if (animate) {
+      saveChildPositions();
+    }
     int layoutDirection = ViewCompat.getLayoutDirection(this);
     boolean isRtl;
     switch (mFlexDirection) {
       case FLEX_DIRECTION_ROW:
         isRtl = layoutDirection == ViewCompat.LAYOUT_DIRECTION_RTL;
+        TraceCompat.beginSection(TRACE_LAYOUT_HORIZONTAL_TAG);
+        layoutHorizontal(isRtl, left, top, right, bottom);
+        TraceCompat.endSection();
+        break;
+      case FLEX_DIRECTION_ROW_REVERSE:
+        isRtl = layoutDirection != ViewCompat.LAYOUT_DIRECTION_RTL;
+        TraceCompat.beginSection(TRACE_LAYOUT_HORIZONTAL_TAG);
         layoutHorizontal(isRtl, left, top, right, bottom);
+        TraceCompat.endSection();
         break;
       case FLEX_DIRECTION_COLUMN:
         isRtl = layoutDirection == ViewCompat.LAYOUT_DIRECTION_RTL;
+        if (mFlexWrap == FLEX_WRAP_WRAP_REVERSE) {
+          isRtl = !isRtl;
+        }
+        TraceCompat.beginSection(TRACE_LAYOUT_VERTICAL_TAG);
         layoutVertical(isRtl, false, left, top, right, bottom);
+        TraceCompat.endSection();
+        break;
+      case FLEX_DIRECTION_COLUMN_REVERSE:
+        isRtl = layoutDirection == ViewCompat.LAYOUT_DIRECTION_RTL;
+        if (mFlexWrap == FLEX_WRAP_WRAP_REVERSE) {
+          isRtl = !isRtl;
+        }
+        TraceCompat.beginSection(TRACE_LAYOUT_VERTICAL_TAG);
+        layoutVertical(isRtl, true, left, top, right, bottom);
+        TraceCompat.endSection();
         break;
       default:
         throw new IllegalStateException("Invalid flex direction is set: " + mFlexDirection);
     }
+    layoutHiddenChildren();
+    if (animate) {
+      animateChildPositions();
+    }
+
+    int firstHiddenChildIndex = mEngine.getFirstHiddenItemIndex();
+    if (mDispatchedFirstHiddenChildIndex != firstHiddenChildIndex) {
+      mDispatchedFirstHiddenChildIndex = firstHiddenChildIndex;
+      if (mOnFlexLinesOverflowListener != null) {
+        mOnFlexLinesOverflowListener.onFlexLinesOverflow(this, firstHiddenChildIndex);
+      }
+    }
+    if (stats != null) {
+      stats.onLayout(System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Save the positions where the children are drawn now, including the translations of the ones
+   * being animated, before they are placed in a layout pass.
+   */
+  private void saveChildPositions() {
+    for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+      View child = getChildAt(i);
+      LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      // The children just added, and the ones which were hidden or gone, have no position to be
+      // animated from.
+      lp.mAnimatePosition = child.getVisibility() != View.GONE && child.isLaidOut()
+          && (child.getWidth() != 0 || child.getHeight() != 0);
+      if (lp.mAnimatePosition) {
+        lp.mPreviousX = child.getLeft() + child.getTranslationX();
+        lp.mPreviousY = child.getTop() + child.getTranslationY();
+      }
+    }
+  }
+
+  /**
+   * Move the children placed differently from the positions saved by
+   * {@link #saveChildPositions()} back to where they were drawn by their translations, and
+   * animate the translations to zero. Only the render properties of the children are animated,
+   * thus no measure or layout pass happens while animating.
+   */
+  private void animateChildPositions() {
+    for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+      View child = getChildAt(i);
+      LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      if (!lp.mAnimatePosition || child.getVisibility() == View.GONE) {
+        continue;
+      }
+      lp.mAnimatePosition = false;
+      float translationX = lp.mPreviousX - child.getLeft();
+      float translationY = lp.mPreviousY - child.getTop();
+      if (translationX == child.getTranslationX() && translationY == child.getTranslationY()) {
+        // Not moved, or still moving toward the same position.
+        continue;
+      }
+      child.setTranslationX(translationX);
+      child.setTranslationY(translationY);
+      child.animate()
+          .translationX(0f)
+          .translationY(0f)
+          .setDuration(mFlexLayoutAnimationDuration)
+          .start();
+    }
+  }
+
+  /**
+   * Lay out the children which don't fit in the flex lines as zero-size views, so that they
+   * aren't shown. They were not measured in the last measure pass.
+   */
+  private void layoutHiddenChildren() {
+    int firstHiddenChildIndex = mEngine.getFirstHiddenItemIndex();
+    if (firstHiddenChildIndex == NO_HIDDEN_CHILD) {
+      return;
+    }
+    for (int i = firstHiddenChildIndex, childCount = getChildCount(); i < childCount; i++) {
+      View child = getChildAt(i);
+      if (child == null || child.getVisibility() == View.GONE) {
+        continue;
+      }
+      child.layout(0, 0, 0, 0);
+    }
   }
 
   /**
    * Sub method for {@link #onLayout(boolean, int, int, int, int)} when the
-   * {@link #mFlexDirection} is {@link #FLEX_DIRECTION_ROW}.
+   * {@link #mFlexDirection} is either {@link #FLEX_DIRECTION_ROW} or
+   * {@link #FLEX_DIRECTION_ROW_REVERSE}.
    *
    * @param isRtl  {@code true} if the horizontal layout direction is right to left, {@code
    *               false} otherwise.
@@ -482,68 +1124,136 @@ public class FlexboxLayout extends ViewGroup {
     // Use float to reduce the round error that may happen in when justifyContent ==
     // SPACE_BETWEEN or SPACE_AROUND
     float childLeft;
-    int currentViewIndex = 0;
 
     int height = bottom - top;
     int width = right - left;
+    FlexLineArray lines = mFlexLines;
+    int size = lines.size();
+    // The flex lines are distributed by alignContent in the same pass as the children in them.
+    float freeCrossSpace = height - getPaddingTop() - getPaddingBottom()
+        - mEngine.getSumOfCrossSize();
+    float spaceBetweenLine = getSpaceBetweenFlexLines(freeCrossSpace, size);
+    float firstLineOffset = getFirstFlexLineOffset(freeCrossSpace, spaceBetweenLine);
     // childBottom is used if the mFlexWrap is FLEX_WRAP_WRAP_REVERSE otherwise
     // childTop is used to align the vertical position of the children views.
-    int childBottom = height - getPaddingBottom();
-    int childTop = getPaddingTop();
+    // Use float to reduce the round error that may happen in when alignContent ==
+    // SPACE_BETWEEN or SPACE_AROUND
+    float childBottom = height - getPaddingBottom() - firstLineOffset;
+    float childTop = getPaddingTop() + firstLineOffset;
 
     // Used only for RTL layout
     // Use float to reduce the round error that may happen in when justifyContent ==
     // SPACE_BETWEEN or SPACE_AROUND
     float childRight;
-    for (int i = 0, size = mFlexLines.size(); i < size; i++) {
-      FlexLine flexLine = mFlexLines.get(i);
+    for (int i = 0; i < size; i++) {
       float spaceBetweenItem = 0f;
-      childLeft = paddingLeft;
-      childRight = width - paddingRight;
+      int freeMainSpace = width - lines.mMainSize[i];
+      switch (mJustifyContent) {
+        case JUSTIFY_CONTENT_FLEX_START:
+          childLeft = paddingLeft;
+          childRight = width - paddingRight;
+          break;
+        case JUSTIFY_CONTENT_FLEX_END:
+          childLeft = paddingLeft + freeMainSpace;
+          childRight = width - paddingRight - freeMainSpace;
+          break;
+        case JUSTIFY_CONTENT_CENTER:
+          childLeft = paddingLeft + freeMainSpace / 2f;
+          childRight = width - paddingRight - freeMainSpace / 2f;
+          break;
+        case JUSTIFY_CONTENT_SPACE_AROUND:
+          int visibleCount = lines.getItemCountNotGone(i);
+          if (visibleCount != 0) {
+            spaceBetweenItem = freeMainSpace / (float) visibleCount;
+          }
+          childLeft = paddingLeft + spaceBetweenItem / 2f;
+          childRight = width - paddingRight - spaceBetweenItem / 2f;
+          break;
+        case JUSTIFY_CONTENT_SPACE_BETWEEN:
+          childLeft = paddingLeft;
+          int visibleItem = lines.getItemCountNotGone(i);
+          float denominator = visibleItem != 1 ? visibleItem - 1 : 1f;
+          spaceBetweenItem = freeMainSpace / denominator;
+          childRight = width - paddingRight;
+          break;
+        default:
+          throw new IllegalStateException("Invalid justifyContent is set: " + mJustifyContent);
+      }
       spaceBetweenItem = Math.max(spaceBetweenItem, 0);
+      // The flex line may be reused from the last measure pass, so reset its bounds here.
+      lines.resetBounds(i);
+      // The dividers between the flex lines are counted in their cross sizes, place the
+      // children next to the divider before the flex line.
+      int dividerBeforeLine = hasDividerBefore(mShowDividerHorizontal, i == 0)
+          ? mDividerHorizontalHeight : 0;
+      int crossSize = lines.mCrossSize[i] - getCrossDividerSize(i, size);
+      int lineTop = Math.round(childTop) + dividerBeforeLine;
+      int lineBottom = Math.round(childBottom) - dividerBeforeLine;
+      if (mFlexWrap == FLEX_WRAP_WRAP_REVERSE) {
+        lines.mTop[i] = lineBottom - crossSize;
+        lines.mBottom[i] = lineBottom;
+      } else {
+        lines.mTop[i] = lineTop;
+        lines.mBottom[i] = lineTop + crossSize;
+      }
+      boolean firstItemInLine = true;
 
-      for (int j = 0; j < flexLine.mItemCount; j++) {
-        View child = getChildAt(currentViewIndex);
-        if (child == null) {
-          continue;
-        } else if (child.getVisibility() == View.GONE) {
-          currentViewIndex++;
+      // Children in a flex line are contiguous, starting from the first index of the line.
+      for (int j = lines.mFirstIndex[i], end = j + lines.mItemCount[i]; j < end; j++) {
+        View child = getChildAt(j);
+        if (child == null || child.getVisibility() == View.GONE) {
           continue;
         }
+        if (hasDividerBefore(mShowDividerVertical, firstItemInLine)) {
+          childLeft += mDividerVerticalWidth;
+          childRight -= mDividerVerticalWidth;
+        }
+        firstItemInLine = false;
         LayoutParams lp = ((LayoutParams) child.getLayoutParams());
         childLeft += lp.leftMargin;
         childRight -= lp.rightMargin;
 
-        if (isRtl) {
-          layoutSingleChildHorizontal(child, flexLine, mFlexWrap,
-              Math.round(childRight) - child.getMeasuredWidth(), childTop,
-              Math.round(childRight), childTop + child.getMeasuredHeight());
+        if (mFlexWrap == FLEX_WRAP_WRAP_REVERSE) {
+          if (isRtl) {
+            layoutSingleChildHorizontal(child, crossSize, mFlexWrap,
+                Math.round(childRight) - child.getMeasuredWidth(),
+                lineBottom - child.getMeasuredHeight(), Math.round(childRight),
+                lineBottom);
+          } else {
+            layoutSingleChildHorizontal(child, crossSize, mFlexWrap,
+                Math.round(childLeft), lineBottom - child.getMeasuredHeight(),
+                Math.round(childLeft) + child.getMeasuredWidth(), lineBottom);
+          }
         } else {
-          layoutSingleChildHorizontal(child, flexLine, mFlexWrap,
-              Math.round(childLeft), childTop,
-              Math.round(childLeft) + child.getMeasuredWidth(),
-              childTop + child.getMeasuredHeight());
+          if (isRtl) {
+            layoutSingleChildHorizontal(child, crossSize, mFlexWrap,
+                Math.round(childRight) - child.getMeasuredWidth(), lineTop,
+                Math.round(childRight), lineTop + child.getMeasuredHeight());
+          } else {
+            layoutSingleChildHorizontal(child, crossSize, mFlexWrap,
+                Math.round(childLeft), lineTop,
+                Math.round(childLeft) + child.getMeasuredWidth(),
+                lineTop + child.getMeasuredHeight());
+          }
         }
         childLeft += child.getMeasuredWidth() + spaceBetweenItem + lp.rightMargin;
         childRight -= child.getMeasuredWidth() + spaceBetweenItem + lp.leftMargin;
-        currentViewIndex++;
 
-        flexLine.mLeft = Math.min(flexLine.mLeft, child.getLeft() - lp.leftMargin);
-        flexLine.mTop = Math.min(flexLine.mTop, child.getTop() - lp.topMargin);
-        flexLine.mRight = Math.max(flexLine.mRight, child.getRight() + lp.rightMargin);
-        flexLine.mBottom = Math.max(flexLine.mBottom, child.getBottom() + lp.bottomMargin);
+        lines.mLeft[i] = Math.min(lines.mLeft[i], child.getLeft() - lp.leftMargin);
+        lines.mRight[i] = Math.max(lines.mRight[i], child.getRight() + lp.rightMargin);
       }
-      childTop += flexLine.mCrossSize;
-      childBottom -= flexLine.mCrossSize;
+      childTop += lines.mCrossSize[i] + spaceBetweenLine;
+      childBottom -= lines.mCrossSize[i] + spaceBetweenLine;
     }
   }
 
   /**
    * Place a single View when the layout direction is horizontal ({@link #mFlexDirection} is
-   * {@link #FLEX_DIRECTION_ROW}).
+   * either {@link #FLEX_DIRECTION_ROW} or {@link #FLEX_DIRECTION_ROW_REVERSE}).
    *
    * @param view       the View to be placed
-   * @param flexLine   the {@link FlexLine} where the View belongs to
+   * @param crossSize  the cross size of the flex line where the View belongs to, excluding the
+   *                   dividers between the flex lines
    * @param flexWrap   the flex wrap attribute of this FlexboxLayout
    * @param left       the left position of the View, which the View's margin is already taken
    *                   into account
@@ -556,15 +1266,50 @@ public class FlexboxLayout extends ViewGroup {
    *                   View's bottom position is shifted depending on the flexWrap and alignItems
    *                   attributes
    */
-  private void layoutSingleChildHorizontal(View view, FlexLine flexLine, @FlexWrap int flexWrap,
+  private void layoutSingleChildHorizontal(View view, int crossSize, @FlexWrap int flexWrap,
                                            int left, int top, int right, int bottom) {
     LayoutParams lp = (LayoutParams) view.getLayoutParams();
-    view.layout(left, top + lp.topMargin, right, bottom + lp.topMargin);
+    switch (mAlignItems) {
+      case ALIGN_ITEMS_FLEX_START: // Intentional fall through
+      case ALIGN_ITEMS_STRETCH:
+        if (flexWrap != FLEX_WRAP_WRAP_REVERSE) {
+          view.layout(left, top + lp.topMargin, right, bottom + lp.topMargin);
+        } else {
+          view.layout(left, top - lp.bottomMargin, right, bottom - lp.bottomMargin);
+        }
+        break;
+      case ALIGN_ITEMS_FLEX_END:
+        if (flexWrap != FLEX_WRAP_WRAP_REVERSE) {
+          view.layout(left, top + crossSize - view.getMeasuredHeight() - lp.bottomMargin,
+              right, top + crossSize - lp.bottomMargin);
+        } else {
+          // If the flexWrap == FLEX_WRAP_WRAP_REVERSE, the direction of the
+          // flexEnd is flipped (from top to bottom).
+          view.layout(left, top - crossSize + view.getMeasuredHeight() + lp.topMargin,
+              right, bottom - crossSize + view.getMeasuredHeight() + lp.topMargin);
+        }
+        break;
+      case ALIGN_ITEMS_CENTER:
+        if (flexWrap != FLEX_WRAP_WRAP_REVERSE) {
+          int topFromCrossAxis = (crossSize - view.getMeasuredHeight()
+              + lp.topMargin - lp.bottomMargin) / 2;
+          view.layout(left, top + topFromCrossAxis,
+              right, top + topFromCrossAxis + view.getMeasuredHeight());
+        } else {
+          int bottomFromCrossAxis = (crossSize - view.getMeasuredHeight()
+              - lp.topMargin + lp.bottomMargin) / 2;
+          view.layout(left, top - bottomFromCrossAxis, right, bottom - bottomFromCrossAxis);
+        }
+        break;
+      default:
+        throw new IllegalStateException("Invalid alignItems is set: " + mAlignItems);
+    }
   }
 
   /**
    * Sub method for {@link #onLayout(boolean, int, int, int, int)} when the
-   * {@link #mFlexDirection} is {@link #FLEX_DIRECTION_COLUMN}.
+   * {@link #mFlexDirection} is either {@link #FLEX_DIRECTION_COLUMN} or
+   * {@link #FLEX_DIRECTION_COLUMN_REVERSE}.
    *
    * @param isRtl           {@code true} if the horizontal layout direction is right to left,
    *                        {@code false}
@@ -583,15 +1328,21 @@ public class FlexboxLayout extends ViewGroup {
     int paddingTop = getPaddingTop();
     int paddingBottom = getPaddingBottom();
 
-    int paddingRight = getPaddingRight();
-    int childLeft = getPaddingLeft();
-    int currentViewIndex = 0;
-
     int width = right - left;
     int height = bottom - top;
+    FlexLineArray lines = mFlexLines;
+    int size = lines.size();
+    // The flex lines are distributed by alignContent in the same pass as the children in them.
+    float freeCrossSpace = width - getPaddingLeft() - getPaddingRight()
+        - mEngine.getSumOfCrossSize();
+    float spaceBetweenLine = getSpaceBetweenFlexLines(freeCrossSpace, size);
+    float firstLineOffset = getFirstFlexLineOffset(freeCrossSpace, spaceBetweenLine);
     // childRight is used if the mFlexWrap is FLEX_WRAP_WRAP_REVERSE otherwise
     // childLeft is used to align the horizontal position of the children views.
-    int childRight = width - paddingRight;
+    // Use float to reduce the round error that may happen in when alignContent ==
+    // SPACE_BETWEEN or SPACE_AROUND
+    float childLeft = getPaddingLeft() + firstLineOffset;
+    float childRight = width - getPaddingRight() - firstLineOffset;
 
     // Use float to reduce the round error that may happen in when justifyContent ==
     // SPACE_BETWEEN or SPACE_AROUND
@@ -600,67 +1351,114 @@ public class FlexboxLayout extends ViewGroup {
     // Used only for if the direction is from bottom to top
     float childBottom;
 
-    for (int i = 0, size = mFlexLines.size(); i < size; i++) {
-      FlexLine flexLine = mFlexLines.get(i);
+    for (int i = 0; i < size; i++) {
       float spaceBetweenItem = 0f;
-      childTop = paddingTop;
-      childBottom = height - paddingBottom;
+      int freeMainSpace = height - lines.mMainSize[i];
+      switch (mJustifyContent) {
+        case JUSTIFY_CONTENT_FLEX_START:
+          childTop = paddingTop;
+          childBottom = height - paddingBottom;
+          break;
+        case JUSTIFY_CONTENT_FLEX_END:
+          childTop = paddingTop + freeMainSpace;
+          childBottom = height - paddingBottom - freeMainSpace;
+          break;
+        case JUSTIFY_CONTENT_CENTER:
+          childTop = paddingTop + freeMainSpace / 2f;
+          childBottom = height - paddingBottom - freeMainSpace / 2f;
+          break;
+        case JUSTIFY_CONTENT_SPACE_AROUND:
+          int visibleCount = lines.getItemCountNotGone(i);
+          if (visibleCount != 0) {
+            spaceBetweenItem = freeMainSpace / (float) visibleCount;
+          }
+          childTop = paddingTop + spaceBetweenItem / 2f;
+          childBottom = height - paddingBottom - spaceBetweenItem / 2f;
+          break;
+        case JUSTIFY_CONTENT_SPACE_BETWEEN:
+          childTop = paddingTop;
+          int visibleItem = lines.getItemCountNotGone(i);
+          float denominator = visibleItem != 1 ? visibleItem - 1 : 1f;
+          spaceBetweenItem = freeMainSpace / denominator;
+          childBottom = height - paddingBottom;
+          break;
+        default:
+          throw new IllegalStateException("Invalid justifyContent is set: " + mJustifyContent);
+      }
       spaceBetweenItem = Math.max(spaceBetweenItem, 0);
+      // The flex line may be reused from the last measure pass, so reset its bounds here.
+      lines.resetBounds(i);
+      // The dividers between the flex lines are counted in their cross sizes, place the
+      // children next to the divider before the flex line.
+      int dividerBeforeLine = hasDividerBefore(mShowDividerVertical, i == 0)
+          ? mDividerVerticalWidth : 0;
+      int crossSize = lines.mCrossSize[i] - getCrossDividerSize(i, size);
+      int lineLeft = Math.round(childLeft) + dividerBeforeLine;
+      int lineRight = Math.round(childRight) - dividerBeforeLine;
+      if (isRtl) {
+        lines.mLeft[i] = lineRight - crossSize;
+        lines.mRight[i] = lineRight;
+      } else {
+        lines.mLeft[i] = lineLeft;
+        lines.mRight[i] = lineLeft + crossSize;
+      }
+      boolean firstItemInLine = true;
 
-      for (int j = 0; j < flexLine.mItemCount; j++) {
-        View child = getChildAt(currentViewIndex);
-        if (child == null) {
-          continue;
-        } else if (child.getVisibility() == View.GONE) {
-          currentViewIndex++;
+      // Children in a flex line are contiguous, starting from the first index of the line.
+      for (int j = lines.mFirstIndex[i], end = j + lines.mItemCount[i]; j < end; j++) {
+        View child = getChildAt(j);
+        if (child == null || child.getVisibility() == View.GONE) {
           continue;
         }
+        if (hasDividerBefore(mShowDividerHorizontal, firstItemInLine)) {
+          childTop += mDividerHorizontalHeight;
+          childBottom -= mDividerHorizontalHeight;
+        }
+        firstItemInLine = false;
         LayoutParams lp = ((LayoutParams) child.getLayoutParams());
         childTop += lp.topMargin;
         childBottom -= lp.bottomMargin;
         if (isRtl) {
           if (fromBottomToTop) {
-            layoutSingleChildVertical(child, flexLine, true,
-                childRight - child.getMeasuredWidth(),
-                Math.round(childBottom) - child.getMeasuredHeight(), childRight,
+            layoutSingleChildVertical(child, crossSize, true,
+                lineRight - child.getMeasuredWidth(),
+                Math.round(childBottom) - child.getMeasuredHeight(), lineRight,
                 Math.round(childBottom));
           } else {
-            layoutSingleChildVertical(child, flexLine, true,
-                childRight - child.getMeasuredWidth(), Math.round(childTop),
-                childRight, Math.round(childTop) + child.getMeasuredHeight());
+            layoutSingleChildVertical(child, crossSize, true,
+                lineRight - child.getMeasuredWidth(), Math.round(childTop),
+                lineRight, Math.round(childTop) + child.getMeasuredHeight());
           }
         } else {
           if (fromBottomToTop) {
-            layoutSingleChildVertical(child, flexLine, false,
-                childLeft, Math.round(childBottom) - child.getMeasuredHeight(),
-                childLeft + child.getMeasuredWidth(), Math.round(childBottom));
+            layoutSingleChildVertical(child, crossSize, false,
+                lineLeft, Math.round(childBottom) - child.getMeasuredHeight(),
+                lineLeft + child.getMeasuredWidth(), Math.round(childBottom));
           } else {
-            layoutSingleChildVertical(child, flexLine, false,
-                childLeft, Math.round(childTop),
-                childLeft + child.getMeasuredWidth(),
+            layoutSingleChildVertical(child, crossSize, false,
+                lineLeft, Math.round(childTop),
+                lineLeft + child.getMeasuredWidth(),
                 Math.round(childTop) + child.getMeasuredHeight());
           }
         }
         childTop += child.getMeasuredHeight() + spaceBetweenItem + lp.bottomMargin;
         childBottom -= child.getMeasuredHeight() + spaceBetweenItem + lp.topMargin;
-        currentViewIndex++;
 
-        flexLine.mLeft = Math.min(flexLine.mLeft, child.getLeft() - lp.leftMargin);
-        flexLine.mTop = Math.min(flexLine.mTop, child.getTop() - lp.topMargin);
-        flexLine.mRight = Math.max(flexLine.mRight, child.getRight() + lp.rightMargin);
-        flexLine.mBottom = Math.max(flexLine.mBottom, child.getBottom() + lp.bottomMargin);
+        lines.mTop[i] = Math.min(lines.mTop[i], child.getTop() - lp.topMargin);
+        lines.mBottom[i] = Math.max(lines.mBottom[i], child.getBottom() + lp.bottomMargin);
       }
-      childLeft += flexLine.mCrossSize;
-      childRight -= flexLine.mCrossSize;
+      childLeft += lines.mCrossSize[i] + spaceBetweenLine;
+      childRight -= lines.mCrossSize[i] + spaceBetweenLine;
     }
   }
 
   /**
    * Place a single View when the layout direction is vertical ({@link #mFlexDirection} is
-   * {@link #FLEX_DIRECTION_COLUMN}).
+   * either {@link #FLEX_DIRECTION_COLUMN} or {@link #FLEX_DIRECTION_COLUMN_REVERSE}).
    *
    * @param view       the View to be placed
-   * @param flexLine   the {@link FlexLine} where the View belongs to
+   * @param crossSize  the cross size of the flex line where the View belongs to, excluding the
+   *                   dividers between the flex lines
    * @param isRtl      {@code true} if the layout direction is right to left, {@code false}
    *                   otherwise
    * @param left       the left position of the flex line where the View belongs to. The actual
@@ -674,16 +1472,232 @@ public class FlexboxLayout extends ViewGroup {
    * @param bottom     the bottom position of the View, which the View's margin is already taken
    *                   into account
    */
-  private void layoutSingleChildVertical(View view, FlexLine flexLine, boolean isRtl,
+  private void layoutSingleChildVertical(View view, int crossSize, boolean isRtl,
                                          int left, int top, int right, int bottom) {
     LayoutParams lp = (LayoutParams) view.getLayoutParams();
-    if (!isRtl) {
-      view.layout(left + lp.leftMargin, top, right + lp.leftMargin, bottom);
-    } else {
-      view.layout(left - lp.rightMargin, top, right - lp.rightMargin, bottom);
+    switch (mAlignItems) {
+      case ALIGN_ITEMS_FLEX_START: // Intentional fall through
+      case ALIGN_ITEMS_STRETCH:
+        if (!isRtl) {
+          view.layout(left + lp.leftMargin, top, right + lp.leftMargin, bottom);
+        } else {
+          view.layout(left - lp.rightMargin, top, right - lp.rightMargin, bottom);
+        }
+        break;
+      case ALIGN_ITEMS_FLEX_END:
+        if (!isRtl) {
+          view.layout(left + crossSize - view.getMeasuredWidth() - lp.rightMargin, top,
+              right + crossSize - view.getMeasuredWidth() - lp.rightMargin, bottom);
+        } else {
+          // If the isRtl is true, the direction of the flexEnd is flipped (from right to
+          // left).
+          view.layout(left - crossSize + view.getMeasuredWidth() + lp.leftMargin, top,
+              right - crossSize + view.getMeasuredWidth() + lp.leftMargin, bottom);
+        }
+        break;
+      case ALIGN_ITEMS_CENTER:
+        if (!isRtl) {
+          int leftFromCrossAxis = (crossSize - view.getMeasuredWidth()
+              + lp.leftMargin - lp.rightMargin) / 2;
+          view.layout(left + leftFromCrossAxis, top, right + leftFromCrossAxis, bottom);
+        } else {
+          int rightFromCrossAxis = (crossSize - view.getMeasuredWidth()
+              - lp.leftMargin + lp.rightMargin) / 2;
+          view.layout(left - rightFromCrossAxis, top, right - rightFromCrossAxis, bottom);
+        }
+        break;
+      default:
+        throw new IllegalStateException("Invalid alignItems is set: " + mAlignItems);
+    }
+  }
+
+  /**
+   * @param freeCrossSpace the space left along the cross axis after the flex lines are placed
+   * @param lineCount      the number of the flex lines
+   * @return the space put between the adjacent flex lines by the align content attribute
+   */
+  private float getSpaceBetweenFlexLines(float freeCrossSpace, int lineCount) {
+    if (freeCrossSpace <= 0) {
+      return 0f;
+    }
+    switch (mAlignContent) {
+      case ALIGN_CONTENT_SPACE_BETWEEN:
+        return lineCount > 1 ? freeCrossSpace / (lineCount - 1) : 0f;
+      case ALIGN_CONTENT_SPACE_AROUND:
+        return lineCount > 0 ? freeCrossSpace / lineCount : 0f;
+      default:
+        return 0f;
+    }
+  }
+
+  /**
+   * @param freeCrossSpace   the space left along the cross axis after the flex lines are placed
+   * @param spaceBetweenLine the space between the adjacent flex lines
+   * @return the offset of the first flex line from the cross start of this layout by the align
+   * content attribute. The flex lines overflowing this layout are centered when the align content
+   * is {@link #ALIGN_CONTENT_SPACE_AROUND}, as in CSS.
+   */
+  private float getFirstFlexLineOffset(float freeCrossSpace, float spaceBetweenLine) {
+    switch (mAlignContent) {
+      case ALIGN_CONTENT_FLEX_END:
+        return freeCrossSpace;
+      case ALIGN_CONTENT_CENTER:
+        return freeCrossSpace / 2f;
+      case ALIGN_CONTENT_SPACE_AROUND:
+        return freeCrossSpace > 0 ? spaceBetweenLine / 2f : freeCrossSpace / 2f;
+      default:
+        return 0f;
     }
   }
 
+  @Override
+  protected void onDraw(Canvas canvas) {
+    if (mDividerDrawableHorizontal == null && mDividerDrawableVertical == null) {
+      return;
+    }
+    int layoutDirection = ViewCompat.getLayoutDirection(this);
+    boolean isRtl;
+    switch (mFlexDirection) {
+      case FLEX_DIRECTION_ROW:
+        isRtl = layoutDirection == ViewCompat.LAYOUT_DIRECTION_RTL;
+        drawDividersHorizontal(canvas, isRtl, mFlexWrap == FLEX_WRAP_WRAP_REVERSE);
+        break;
+      case FLEX_DIRECTION_ROW_REVERSE:
+        isRtl = layoutDirection != ViewCompat.LAYOUT_DIRECTION_RTL;
+        drawDividersHorizontal(canvas, isRtl, mFlexWrap == FLEX_WRAP_WRAP_REVERSE);
+        break;
+      case FLEX_DIRECTION_COLUMN:
+        isRtl = layoutDirection == ViewCompat.LAYOUT_DIRECTION_RTL;
+        if (mFlexWrap == FLEX_WRAP_WRAP_REVERSE) {
+          isRtl = !isRtl;
+        }
+        drawDividersVertical(canvas, isRtl, false);
+        break;
+      case FLEX_DIRECTION_COLUMN_REVERSE:
+        isRtl = layoutDirection == ViewCompat.LAYOUT_DIRECTION_RTL;
+        if (mFlexWrap == FLEX_WRAP_WRAP_REVERSE) {
+          isRtl = !isRtl;
+        }
+        drawDividersVertical(canvas, isRtl, true);
+        break;
+      default:
+        throw new IllegalStateException("Invalid flex direction is set: " + mFlexDirection);
+    }
+  }
+
+  /**
+   * Sub method for {@link #onDraw(Canvas)} when the main axis direction is horizontal. The
+   * dividers are drawn in a single pass over the flex lines, from the bounds of the flex lines and
+   * the positions of the children calculated in the last layout pass.
+   *
+   * @param canvas        the canvas on which the dividers are drawn
+   * @param isRtl         {@code true} if the children are placed from right to left
+   * @param isWrapReverse {@code true} if the flex lines are placed from bottom to top
+   */
+  private void drawDividersHorizontal(Canvas canvas, boolean isRtl, boolean isWrapReverse) {
+    int paddingLeft = getPaddingLeft();
+    int horizontalDividerLength = Math.max(0, getWidth() - getPaddingRight() - paddingLeft);
+    FlexLineArray lines = mFlexLines;
+    for (int i = 0, size = lines.size(); i < size; i++) {
+      int lineTop = lines.mTop[i];
+      int lineBottom = lines.mBottom[i];
+      View lastChild = null;
+      for (int j = lines.mFirstIndex[i], end = j + lines.mItemCount[i]; j < end; j++) {
+        View child = getChildAt(j);
+        if (child == null || child.getVisibility() == View.GONE) {
+          continue;
+        }
+        if (hasDividerBefore(mShowDividerVertical, lastChild == null)) {
+          LayoutParams lp = (LayoutParams) child.getLayoutParams();
+          int dividerLeft = isRtl ? child.getRight() + lp.rightMargin
+              : child.getLeft() - lp.leftMargin - mDividerVerticalWidth;
+          drawVerticalDivider(canvas, dividerLeft, lineTop, lineBottom - lineTop);
+        }
+        lastChild = child;
+      }
+      if (lastChild != null && hasDividerAtEnd(mShowDividerVertical)) {
+        LayoutParams lp = (LayoutParams) lastChild.getLayoutParams();
+        int dividerLeft = isRtl ? lastChild.getLeft() - lp.leftMargin - mDividerVerticalWidth
+            : lastChild.getRight() + lp.rightMargin;
+        drawVerticalDivider(canvas, dividerLeft, lineTop, lineBottom - lineTop);
+      }
+
+      if (hasDividerBefore(mShowDividerHorizontal, i == 0)) {
+        int dividerTop = isWrapReverse ? lineBottom : lineTop - mDividerHorizontalHeight;
+        drawHorizontalDivider(canvas, paddingLeft, dividerTop, horizontalDividerLength);
+      }
+      if (i == size - 1 && hasDividerAtEnd(mShowDividerHorizontal)) {
+        int dividerTop = isWrapReverse ? lineTop - mDividerHorizontalHeight : lineBottom;
+        drawHorizontalDivider(canvas, paddingLeft, dividerTop, horizontalDividerLength);
+      }
+    }
+  }
+
+  /**
+   * Sub method for {@link #onDraw(Canvas)} when the main axis direction is vertical.
+   *
+   * @param canvas          the canvas on which the dividers are drawn
+   * @param isRtl           {@code true} if the flex lines are placed from right to left
+   * @param fromBottomToTop {@code true} if the children are placed from bottom to top
+   * @see #drawDividersHorizontal(Canvas, boolean, boolean)
+   */
+  private void drawDividersVertical(Canvas canvas, boolean isRtl, boolean fromBottomToTop) {
+    int paddingTop = getPaddingTop();
+    int verticalDividerLength = Math.max(0, getHeight() - getPaddingBottom() - paddingTop);
+    FlexLineArray lines = mFlexLines;
+    for (int i = 0, size = lines.size(); i < size; i++) {
+      int lineLeft = lines.mLeft[i];
+      int lineRight = lines.mRight[i];
+      View lastChild = null;
+      for (int j = lines.mFirstIndex[i], end = j + lines.mItemCount[i]; j < end; j++) {
+        View child = getChildAt(j);
+        if (child == null || child.getVisibility() == View.GONE) {
+          continue;
+        }
+        if (hasDividerBefore(mShowDividerHorizontal, lastChild == null)) {
+          LayoutParams lp = (LayoutParams) child.getLayoutParams();
+          int dividerTop = fromBottomToTop ? child.getBottom() + lp.bottomMargin
+              : child.getTop() - lp.topMargin - mDividerHorizontalHeight;
+          drawHorizontalDivider(canvas, lineLeft, dividerTop, lineRight - lineLeft);
+        }
+        lastChild = child;
+      }
+      if (lastChild != null && hasDividerAtEnd(mShowDividerHorizontal)) {
+        LayoutParams lp = (LayoutParams) lastChild.getLayoutParams();
+        int dividerTop = fromBottomToTop
+            ? lastChild.getTop() - lp.topMargin - mDividerHorizontalHeight
+            : lastChild.getBottom() + lp.bottomMargin;
+        drawHorizontalDivider(canvas, lineLeft, dividerTop, lineRight - lineLeft);
+      }
+
+      if (hasDividerBefore(mShowDividerVertical, i == 0)) {
+        int dividerLeft = isRtl ? lineRight : lineLeft - mDividerVerticalWidth;
+        drawVerticalDivider(canvas, dividerLeft, paddingTop, verticalDividerLength);
+      }
+      if (i == size - 1 && hasDividerAtEnd(mShowDividerVertical)) {
+        int dividerLeft = isRtl ? lineLeft - mDividerVerticalWidth : lineRight;
+        drawVerticalDivider(canvas, dividerLeft, paddingTop, verticalDividerLength);
+      }
+    }
+  }
+
+  private void drawVerticalDivider(Canvas canvas, int left, int top, int length) {
+    if (mDividerDrawableVertical == null) {
+      return;
+    }
+    mDividerDrawableVertical.setBounds(left, top, left + mDividerVerticalWidth, top + length);
+    mDividerDrawableVertical.draw(canvas);
+  }
+
+  private void drawHorizontalDivider(Canvas canvas, int left, int top, int length) {
+    if (mDividerDrawableHorizontal == null) {
+      return;
+    }
+    mDividerDrawableHorizontal.setBounds(left, top, left + length,
+        top + mDividerHorizontalHeight);
+    mDividerDrawableHorizontal.draw(canvas);
+  }
+
   @Override
   protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
     return p instanceof FlexboxLayout.LayoutParams;
@@ -723,34 +1737,528 @@ public class FlexboxLayout extends ViewGroup {
     }
   }
 
+  @JustifyContent
+  public int getJustifyContent() {
+    return mJustifyContent;
+  }
+
+  public void setJustifyContent(@JustifyContent int justifyContent) {
+    if (mJustifyContent != justifyContent) {
+      mJustifyContent = justifyContent;
+      requestLayout();
+    }
+  }
+
+  @AlignItems
+  public int getAlignItems() {
+    return mAlignItems;
+  }
+
+  public void setAlignItems(@AlignItems int alignItems) {
+    if (mAlignItems != alignItems) {
+      mAlignItems = alignItems;
+      requestLayout();
+    }
+  }
+
+  @AlignContent
+  public int getAlignContent() {
+    return mAlignContent;
+  }
+
+  public void setAlignContent(@AlignContent int alignContent) {
+    if (mAlignContent != alignContent) {
+      mAlignContent = alignContent;
+      requestLayout();
+    }
+  }
+
+  @Nullable
+  public Drawable getDividerDrawableHorizontal() {
+    return mDividerDrawableHorizontal;
+  }
+
+  @Nullable
+  public Drawable getDividerDrawableVertical() {
+    return mDividerDrawableVertical;
+  }
+
+  /**
+   * Set a drawable to be used as a divider both between the flex lines and between the items in
+   * each flex line.
+   *
+   * @param divider the drawable, or {@code null} to remove the dividers
+   * @see #setDividerDrawableHorizontal(Drawable)
+   * @see #setDividerDrawableVertical(Drawable)
+   */
+  public void setDividerDrawable(@Nullable Drawable divider) {
+    setDividerDrawableHorizontal(divider);
+    setDividerDrawableVertical(divider);
+  }
+
+  /**
+   * Set a drawable to be drawn horizontally as a divider, i.e. between the flex lines if the flex
+   * direction is either row or row_reverse, between the items in each flex line otherwise. The
+   * intrinsic height of the drawable is taken as the space of the divider.
+   *
+   * @param divider the drawable, or {@code null} to remove the dividers
+   */
+  public void setDividerDrawableHorizontal(@Nullable Drawable divider) {
+    if (divider == mDividerDrawableHorizontal) {
+      return;
+    }
+    mDividerDrawableHorizontal = divider;
+    mDividerHorizontalHeight = divider != null ? Math.max(divider.getIntrinsicHeight(), 0) : 0;
+    onDividersChanged();
+  }
+
+  /**
+   * Set a drawable to be drawn vertically as a divider, i.e. between the items in each flex line
+   * if the flex direction is either row or row_reverse, between the flex lines otherwise. The
+   * intrinsic width of the drawable is taken as the space of the divider.
+   *
+   * @param divider the drawable, or {@code null} to remove the dividers
+   */
+  public void setDividerDrawableVertical(@Nullable Drawable divider) {
+    if (divider == mDividerDrawableVertical) {
+      return;
+    }
+    mDividerDrawableVertical = divider;
+    mDividerVerticalWidth = divider != null ? Math.max(divider.getIntrinsicWidth(), 0) : 0;
+    onDividersChanged();
+  }
+
+  @DividerMode
+  public int getShowDividerHorizontal() {
+    return mShowDividerHorizontal;
+  }
+
+  @DividerMode
+  public int getShowDividerVertical() {
+    return mShowDividerVertical;
+  }
+
+  /**
+   * Set where the dividers are shown, both between the flex lines and between the items.
+   *
+   * @param dividerMode the combination of {@link #SHOW_DIVIDER_BEGINNING},
+   *                    {@link #SHOW_DIVIDER_MIDDLE} and {@link #SHOW_DIVIDER_END}, or
+   *                    {@link #SHOW_DIVIDER_NONE}
+   */
+  public void setShowDivider(@DividerMode int dividerMode) {
+    setShowDividerHorizontal(dividerMode);
+    setShowDividerVertical(dividerMode);
+  }
+
+  /**
+   * Set where the divider set by {@link #setDividerDrawableHorizontal(Drawable)} is shown.
+   *
+   * @see #setShowDivider(int)
+   */
+  public void setShowDividerHorizontal(@DividerMode int dividerMode) {
+    if (mShowDividerHorizontal != dividerMode) {
+      mShowDividerHorizontal = dividerMode;
+      onDividersChanged();
+    }
+  }
+
+  /**
+   * Set where the divider set by {@link #setDividerDrawableVertical(Drawable)} is shown.
+   *
+   * @see #setShowDivider(int)
+   */
+  public void setShowDividerVertical(@DividerMode int dividerMode) {
+    if (mShowDividerVertical != dividerMode) {
+      mShowDividerVertical = dividerMode;
+      onDividersChanged();
+    }
+  }
+
+  /**
+   * The dividers take the space along both of the axes, thus all the flex lines need to be
+   * calculated again.
+   */
+  private void onDividersChanged() {
+    setWillNotDraw(mDividerDrawableHorizontal == null && mDividerDrawableVertical == null);
+    markChildDirty(0);
+    requestLayout();
+  }
+
+  public int getMaxLines() {
+    return mEngine.getMaxLines();
+  }
+
+  /**
+   * Set the maximum number of the flex lines. The children which don't fit in the flex lines
+   * aren't measured and are laid out as zero-size views.
+   *
+   * @param maxLines the maximum number of the flex lines, or {@link #NOT_SET} not to limit the
+   *                 number of the flex lines
+   * @see #setOnFlexLinesOverflowListener(OnFlexLinesOverflowListener)
+   */
+  public void setMaxLines(int maxLines) {
+    if (mEngine.getMaxLines() != maxLines) {
+      // Only the flex lines from the last one still shown need to be calculated again.
+      int size = mFlexLines.size();
+      int lastLine = Math.min(maxLines == NOT_SET ? size : maxLines, size) - 1;
+      mEngine.setMaxLines(maxLines);
+      markChildDirty(lastLine >= 0 ? mFlexLines.mFirstIndex[lastLine] : 0);
+      requestLayout();
+    }
+  }
+
+  /**
+   * @return the index of the first child which doesn't fit in the flex lines because of the
+   * {@link #getMaxLines()}, or {@link #NO_HIDDEN_CHILD} if all the children are shown
+   */
+  public int getFirstHiddenChildIndex() {
+    return mEngine.getFirstHiddenItemIndex();
+  }
+
+  /**
+   * Set the flex lines calculated in advance, e.g. on a worker thread, for the children of this
+   * layout. They are applied in the next measure pass instead of calculating the flex lines
+   * there, as long as the children and the constraints are still the ones they were calculated
+   * for. Otherwise they are discarded and the flex lines are calculated as usual.
+   *
+   * @param precomputedFlexLines the flex lines calculated for the children of this layout
+   */
+  public void setPrecomputedFlexLines(PrecomputedFlexLines precomputedFlexLines) {
+    mPrecomputedFlexLines = precomputedFlexLines;
+    requestLayout();
+  }
+
+  public void setOnFlexLinesOverflowListener(OnFlexLinesOverflowListener listener) {
+    mOnFlexLinesOverflowListener = listener;
+  }
+
+  /**
+   * Interface definition for a callback to be invoked when the children which don't fit in the
+   * flex lines limited by {@link #setMaxLines(int)} are changed.
+   */
+  public interface OnFlexLinesOverflowListener {
+
+    /**
+     * Called in the layout pass when the first hidden child is changed.
+     *
+     * @param flexboxLayout         the FlexboxLayout whose flex lines overflow
+     * @param firstHiddenChildIndex the index of the first child which isn't shown, or
+     *                              {@link #NO_HIDDEN_CHILD} if all the children are shown
+     */
+    void onFlexLinesOverflow(FlexboxLayout flexboxLayout, int firstHiddenChildIndex);
+  }
+
   /**
    * @return the flex lines composing this flex container. This method returns a copy of the
    * original list excluding a dummy flex line (flex line that doesn't have any flex items in it
    * but used for the alignment along the cross axis).
-   * Thus any changes of the returned list are not reflected to the original list.
+   * Thus any changes of the returned list are not reflected to the original list. Note that the
+   * {@link FlexLine}s themselves are views over the flex lines, which reflect the latest measure
+   * and layout passes.
+   * @see #getFlexLinesInternal()
    */
   public List<FlexLine> getFlexLines() {
     List<FlexLine> result = new ArrayList<>(mFlexLines.size());
-    for (FlexLine flexLine : mFlexLines) {
-      if (flexLine.getItemCountNotGone() == 0) {
+    for (int i = 0, size = mFlexLines.size(); i < size; i++) {
+      if (mFlexLines.getItemCountNotGone(i) == 0) {
         continue;
       }
-      result.add(flexLine);
+      result.add(mFlexLines.get(i));
     }
     return result;
   }
 
+  /**
+   * @return a read-only list of the flex lines composing this flex container. Unlike
+   * {@link #getFlexLines()} this doesn't allocate anything, and the returned list always
+   * reflects the latest measure and layout passes.
+   */
+  public List<FlexLine> getFlexLinesInternal() {
+    return mFlexLines.asList();
+  }
+
+  /**
+   * @return the number of measure passes which reused the flex lines calculated in the last pass
+   * without visiting any child since the measure specs and the children were not changed.
+   */
+  public int getMeasureCacheHitCount() {
+    return mMeasureCache.mHitCount;
+  }
+
+  /**
+   * @return the number of measure passes which needed to calculate (a part of) the flex lines.
+   */
+  public int getMeasureCacheMissCount() {
+    return mMeasureCache.mMissCount;
+  }
+
+  /**
+   * Start or stop collecting the statistics of the measure and layout passes. Nothing is
+   * collected, nor is the time measured, unless the stats are set.
+   *
+   * @param stats the stats to be updated in the following passes, or {@code null} to stop
+   */
+  public void setStats(@Nullable FlexboxLayoutStats stats) {
+    mStats = stats;
+  }
+
+  @Nullable
+  public FlexboxLayoutStats getStats() {
+    return mStats;
+  }
+
+  public long getFlexLayoutAnimationDuration() {
+    return mFlexLayoutAnimationDuration;
+  }
+
+  /**
+   * Animate the children moved by a layout pass, e.g. the ones after a child added, from their
+   * previous positions. The children are measured and laid out once to their new positions, and
+   * only their translationX and translationY are animated afterwards, thus it costs no measure
+   * pass per frame unlike {@link android.animation.LayoutTransition}.
+   * The translations of the children are overwritten while they are animated, and the children
+   * just added appear at their positions without an animation.
+   *
+   * @param durationMillis the duration of the animation in milliseconds, or 0 not to animate
+   */
+  public void setFlexLayoutAnimationDuration(long durationMillis) {
+    mFlexLayoutAnimationDuration = durationMillis;
+  }
+
+  /**
+   * @return the number of the calls of child.measure in the last measure pass. Each child is
+   * measured at most twice along the main axis in a pass: once to break the flex lines, and once
+   * more with its exact length if it's flexed (see
+   * {@link FlexboxEngine#resolveFlexibleLengths(FlexContainer, int)}). With
+   * {@link #ALIGN_ITEMS_STRETCH} it may be measured a third time to stretch it along the cross
+   * axis, which can't be folded into the second one since the cross size of its flex line is
+   * only known after all the items in the flex line are resolved, and the flex lines may be
+   * stretched as well by {@link #ALIGN_CONTENT_STRETCH}.
+   */
+  @VisibleForTesting
+  int getChildMeasureCount() {
+    return mChildMeasureCount;
+  }
+
+  /**
+   * Holds the constraints the flex lines were calculated with in the last measure pass, so that
+   * a measure pass with the same constraints can be answered without visiting any child.
+   */
+  private static class MeasureCache {
+    /** {@code false} until the first measure pass is finished */
+    boolean mValid;
+
+    /**
+     * Whether the main axis was horizontal. The reverse flex directions produce the same flex
+     * lines as their non-reverse counterparts, so only the axis is compared.
+     */
+    boolean mMainAxisHorizontal;
+
+    /**
+     * Whether the flex container was single-line. {@link #FLEX_WRAP_WRAP_REVERSE} produces the
+     * same flex lines as {@link #FLEX_WRAP_WRAP}, so only the single-line-ness is compared.
+     */
+    boolean mSingleLine;
+
+    /** The align items and the align content, which change the sizes measured in the pass */
+    int mAlignItems;
+
+    int mAlignContent;
+
+    int mWidthMeasureSpec;
+
+    int mHeightMeasureSpec;
+
+    int mPaddingLeft;
+
+    int mPaddingTop;
+
+    int mPaddingRight;
+
+    int mPaddingBottom;
+
+    int mStructureGeneration;
+
+    /** The combined measured state of the children in the last measure pass */
+    int mChildState;
+
+    int mHitCount;
+
+    int mMissCount;
+
+    /**
+     * @return {@code true} if the flex lines were calculated with the same main axis, line mode,
+     * alignments, measure specs and padding as the given ones. The children still need to be
+     * checked.
+     */
+    boolean hasSameConstraints(FlexboxLayout layout, int widthMeasureSpec,
+                               int heightMeasureSpec) {
+      return mValid
+          && mMainAxisHorizontal == layout.isMainAxisDirectionHorizontal()
+          && mSingleLine == (layout.mFlexWrap == FLEX_WRAP_NOWRAP)
+          && mAlignItems == layout.mAlignItems
+          && mAlignContent == layout.mAlignContent
+          && mWidthMeasureSpec == widthMeasureSpec
+          && mHeightMeasureSpec == heightMeasureSpec
+          && mPaddingLeft == layout.getPaddingLeft()
+          && mPaddingTop == layout.getPaddingTop()
+          && mPaddingRight == layout.getPaddingRight()
+          && mPaddingBottom == layout.getPaddingBottom();
+    }
+
+    void update(FlexboxLayout layout, int widthMeasureSpec, int heightMeasureSpec) {
+      mValid = true;
+      mMainAxisHorizontal = layout.isMainAxisDirectionHorizontal();
+      mSingleLine = layout.mFlexWrap == FLEX_WRAP_NOWRAP;
+      mAlignItems = layout.mAlignItems;
+      mAlignContent = layout.mAlignContent;
+      mWidthMeasureSpec = widthMeasureSpec;
+      mHeightMeasureSpec = heightMeasureSpec;
+      mPaddingLeft = layout.getPaddingLeft();
+      mPaddingTop = layout.getPaddingTop();
+      mPaddingRight = layout.getPaddingRight();
+      mPaddingBottom = layout.getPaddingBottom();
+      mStructureGeneration = layout.mStructureGeneration;
+    }
+  }
+
+  /**
+   * @return {@code true} if the main axis direction is horizontal, {@code false} otherwise
+   */
+  private boolean isMainAxisDirectionHorizontal() {
+    return mFlexDirection == FLEX_DIRECTION_ROW || mFlexDirection == FLEX_DIRECTION_ROW_REVERSE;
+  }
+
+  /**
+   * Find the flex line which contains the child at the given index.
+   *
+   * @param childIndex the index of the child view
+   * @return the index of the flex line in {@link #getFlexLinesInternal()}, or {@code -1} if the
+   * child isn't contained in any flex line (e.g. a gone view before the first flex line)
+   */
+  public int getFlexLineIndexForChild(int childIndex) {
+    return mFlexLines.findLineIndexForChild(childIndex);
+  }
+
+  /**
+   * Find the topmost child view which is placed under the given point. Only the children in the
+   * flex line under the point are visited, which is found by a binary search over the bounds of
+   * the flex lines.
+   *
+   * @param x the horizontal position relative to this view
+   * @param y the vertical position relative to this view
+   * @return the child view under the point, or {@code null} if there isn't any
+   */
+  public View findChildUnder(int x, int y) {
+    boolean mainAxisHorizontal = isMainAxisDirectionHorizontal();
+    int lineIndex = mFlexLines.findLineIndexAt(mainAxisHorizontal ? y : x, mainAxisHorizontal);
+    if (lineIndex == -1) {
+      return null;
+    }
+    int firstIndex = mFlexLines.mFirstIndex[lineIndex];
+    for (int i = firstIndex + mFlexLines.mItemCount[lineIndex] - 1; i >= firstIndex; i--) {
+      View child = getChildAt(i);
+      if (child == null || child.getVisibility() == View.GONE) {
+        continue;
+      }
+      if (x >= child.getLeft() && x < child.getRight()
+          && y >= child.getTop() && y < child.getBottom()) {
+        return child;
+      }
+    }
+    return null;
+  }
+
   /**
    * Per child parameters for children views of the {@link FlexboxLayout}.
    */
-  public static class LayoutParams extends ViewGroup.MarginLayoutParams {
+  public static class LayoutParams extends ViewGroup.MarginLayoutParams implements FlexItem {
+
+    /** A value which no measure spec can have (both of the mode bits and all the size bits) */
+    private static final int NO_MEASURE_SPEC = -1;
+
+    /**
+     * This attribute determines how much this child will grow if positive free space is
+     * distributed relative to the rest of other flex items included in the same flex line.
+     * If not specified, {@link #FLEX_GROW_DEFAULT} is set as a default value.
+     */
+    public float flexGrow = FLEX_GROW_DEFAULT;
+
+    /**
+     * This attributes determines how much this child will shrink if negative free space is
+     * distributed relative to the rest of other flex items included in the same flex line.
+     * If not specified, {@link #FLEX_SHRINK_DEFAULT} is set as a default value.
+     */
+    public float flexShrink = FLEX_SHRINK_DEFAULT;
+
+    /**
+     * The initial length in a percentage format relative to its parent. This is similar to the
+     * flex-basis property in the original CSS specification, but accepts only a percentage
+     * value. It's effective only when the parent's length along the main axis is determined
+     * (its MeasureSpec mode is {@link MeasureSpec#EXACTLY}).
+     * If not specified, {@link #FLEX_BASIS_PERCENT_DEFAULT} is set as a default value.
+     */
+    public float flexBasisPercent = FLEX_BASIS_PERCENT_DEFAULT;
+
+    /**
+     * The view which has this LayoutParams, bound when the view is visited in a measure pass.
+     * The measured size and the visibility of the {@link FlexItem} are read from it.
+     */
+    View mView;
+
+    /**
+     * {@code true} if the view was gone when it was last visited in a measure pass. Used to
+     * detect the visibility changes from or to gone, which affect the flex lines.
+     */
+    boolean mGoneInLastMeasure;
+
+    /**
+     * The measure specs the view was measured with by this layout the last time, or
+     * {@link #NO_MEASURE_SPEC} if it hasn't been measured yet.
+     */
+    int mLastWidthMeasureSpec = NO_MEASURE_SPEC;
+
+    int mLastHeightMeasureSpec = NO_MEASURE_SPEC;
+
+    /**
+     * {@code true} if the view is stretched to fill its flex line by the align items attribute.
+     * The measured size before the stretch is reported as the measured size of the
+     * {@link FlexItem} until the view is measured again.
+     */
+    boolean mStretched;
+
+    int mWidthBeforeStretch;
+
+    int mHeightBeforeStretch;
+
+    /**
+     * {@code true} if the view is to be animated from the position saved before the current
+     * layout pass, which is the left and the top including its translation.
+     */
+    boolean mAnimatePosition;
+
+    float mPreviousX;
+
+    float mPreviousY;
 
     public LayoutParams(Context context, AttributeSet attrs) {
       super(context, attrs);
+
+      TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.FlexboxLayout_Layout);
+      flexGrow = a.getFloat(R.styleable.FlexboxLayout_Layout_layout_flexGrow, FLEX_GROW_DEFAULT);
+      flexShrink = a.getFloat(R.styleable.FlexboxLayout_Layout_layout_flexShrink,
+          FLEX_SHRINK_DEFAULT);
+      flexBasisPercent = a.getFraction(R.styleable.FlexboxLayout_Layout_layout_flexBasisPercent,
+          1, 1, FLEX_BASIS_PERCENT_DEFAULT);
+      a.recycle();
     }
 
     public LayoutParams(LayoutParams source) {
       super(source);
+
+      flexGrow = source.flexGrow;
+      flexShrink = source.flexShrink;
+      flexBasisPercent = source.flexBasisPercent;
     }
 
     public LayoutParams(ViewGroup.LayoutParams source) {
@@ -760,5 +2268,55 @@ public class FlexboxLayout extends ViewGroup {
     public LayoutParams(int width, int height) {
       super(new ViewGroup.LayoutParams(width, height));
     }
+
+    @Override
+    public float getFlexGrow() {
+      return flexGrow;
+    }
+
+    @Override
+    public float getFlexShrink() {
+      return flexShrink;
+    }
+
+    @Override
+    public float getFlexBasisPercent() {
+      return flexBasisPercent;
+    }
+
+    @Override
+    public int getMarginLeft() {
+      return leftMargin;
+    }
+
+    @Override
+    public int getMarginTop() {
+      return topMargin;
+    }
+
+    @Override
+    public int getMarginRight() {
+      return rightMargin;
+    }
+
+    @Override
+    public int getMarginBottom() {
+      return bottomMargin;
+    }
+
+    @Override
+    public int getMeasuredWidth() {
+      return mStretched ? mWidthBeforeStretch : mView.getMeasuredWidth();
+    }
+
+    @Override
+    public int getMeasuredHeight() {
+      return mStretched ? mHeightBeforeStretch : mView.getMeasuredHeight();
+    }
+
+    @Override
+    public boolean isGone() {
+      return mView.getVisibility() == View.GONE;
+    }
   }
 }
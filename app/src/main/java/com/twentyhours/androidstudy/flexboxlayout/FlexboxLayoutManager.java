@@ -0,0 +1,762 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.support.v4.view.ViewCompat;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.twentyhours.androidstudy.R;
+import com.twentyhours.androidstudy.recyclerview.RecyclerView;
+
+import static com.twentyhours.androidstudy.flexboxlayout.FlexboxLayout.FLEX_DIRECTION_COLUMN;
+import static com.twentyhours.androidstudy.flexboxlayout.FlexboxLayout.FLEX_DIRECTION_COLUMN_REVERSE;
+import static com.twentyhours.androidstudy.flexboxlayout.FlexboxLayout.FLEX_DIRECTION_ROW;
+import static com.twentyhours.androidstudy.flexboxlayout.FlexboxLayout.FLEX_DIRECTION_ROW_REVERSE;
+
+/**
+ * {@link RecyclerView.LayoutManager} which places the items as the flex items of a multi-line
+ * flex container, like a {@link FlexboxLayout} whose flex wrap is
+ * {@link FlexboxLayout#FLEX_WRAP_WRAP}. It scrolls along the cross axis.
+ *
+ * <p>Unlike {@link FlexboxLayout}, only the items in the flex lines intersecting the visible area
+ * are created, bound and attached. The flex lines are calculated lazily as they are scrolled
+ * into view, and they are cached per adapter position so that scrolling back over them doesn't
+ * break the items into the lines again.</p>
+ *
+ * <p>The measured sizes of the items are cached per adapter position too. When the adapter
+ * notifies the changes of some items, only the flex lines from the one containing the first
+ * changed item are calculated again, and only the changed items are bound to be measured.</p>
+ */
+public class FlexboxLayoutManager extends RecyclerView.LayoutManager {
+  private static final String TAG = "FlexboxLayoutManager";
+
+  private static final int NO_LINE = -1;
+
+  /**
+   * The direction of the main axis.
+   *
+   * @see FlexboxLayout#getFlexDirection()
+   */
+  private int mFlexDirection;
+
+  /** Breaks the items into the flex lines, shared with {@link FlexboxLayout} */
+  private final FlexboxEngine mEngine = new FlexboxEngine();
+
+  /**
+   * The flex lines calculated so far. The bounds of a flex line are the positions in the whole
+   * content, i.e. before the scroll offset is applied.
+   */
+  private final FlexLineArray mFlexLines = mEngine.mFlexLines;
+
+  /**
+   * The number of the items visited while the flex lines are calculated so far. The trailing
+   * gone items may not be contained in any flex line.
+   */
+  private int mCalculatedItemCount;
+
+  private final RecyclerFlexContainer mFlexContainer = new RecyclerFlexContainer();
+
+  /** The position of the start edge of the visible area along the cross axis in the content */
+  private int mScrollOffset;
+
+  /** The index of the first flex line whose items are attached, or {@link #NO_LINE} */
+  private int mFirstAttachedLine = NO_LINE;
+
+  /** The index of the last flex line whose items are attached, or {@link #NO_LINE} */
+  private int mLastAttachedLine = NO_LINE;
+
+  /** The adapter position to be scrolled to in the next layout pass */
+  private int mPendingScrollPosition = RecyclerView.NO_POSITION;
+
+  /** The main size of this layout which the flex lines were calculated against */
+  private int mLastMainSize = -1;
+
+  /**
+   * The first adapter position changed since the last layout, or
+   * {@link RecyclerView#NO_POSITION}. The flex lines which may contain it and the following ones
+   * are calculated again in the next layout.
+   */
+  private int mFirstChangedPosition = RecyclerView.NO_POSITION;
+
+  /** The sizes of the items measured so far, thus they aren't bound again to be measured */
+  private final MeasuredSizes mMeasuredSizes = new MeasuredSizes();
+
+  /**
+   * The views measured for the flex lines which are about to be laid out, keyed by their adapter
+   * positions. They are reused when the items are laid out, and the remaining ones are recycled
+   * at the end of the layout or scroll. The views measured for the other flex lines go back to
+   * the Recycler right away, thus this only holds the views of the visible area.
+   */
+  private final SparseArray<View> mViewCache = new SparseArray<>();
+
+  public FlexboxLayoutManager() {
+    this(FLEX_DIRECTION_ROW);
+  }
+
+  public FlexboxLayoutManager(@FlexboxLayout.FlexDirection int flexDirection) {
+    setFlexDirection(flexDirection);
+  }
+
+  /**
+   * Constructor used when layout manager is set in XML by RecyclerView attribute
+   * "layoutManager". The flex direction is read from the "flexDirection" attribute.
+   */
+  public FlexboxLayoutManager(Context context, AttributeSet attrs, int defStyleAttr,
+                              int defStyleRes) {
+    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.FlexboxLayout,
+        defStyleAttr, defStyleRes);
+    setFlexDirection(a.getInt(R.styleable.FlexboxLayout_flexDirection, FLEX_DIRECTION_ROW));
+    a.recycle();
+  }
+
+  @FlexboxLayout.FlexDirection
+  public int getFlexDirection() {
+    return mFlexDirection;
+  }
+
+  public void setFlexDirection(@FlexboxLayout.FlexDirection int flexDirection) {
+    if (mFlexDirection != flexDirection) {
+      assertNotInLayoutOrScroll(null);
+      mFlexDirection = flexDirection;
+      invalidateFlexLines();
+      mScrollOffset = 0;
+      requestLayout();
+    }
+  }
+
+  @Override
+  public RecyclerView.LayoutParams generateDefaultLayoutParams() {
+    return new RecyclerView.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+        ViewGroup.LayoutParams.WRAP_CONTENT);
+  }
+
+  @Override
+  public void onAdapterChanged(RecyclerView.Adapter oldAdapter,
+                               RecyclerView.Adapter newAdapter) {
+    // The views are removed by RecyclerView.
+    invalidateFlexLines();
+    mScrollOffset = 0;
+  }
+
+  @Override
+  public void onItemsChanged(RecyclerView recyclerView) {
+    // The items can't be followed over the change, thus nothing calculated for them is kept.
+    mMeasuredSizes.clear();
+    markItemsChanged(0);
+  }
+
+  @Override
+  public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
+    mMeasuredSizes.insert(positionStart, itemCount);
+    markItemsChanged(positionStart);
+  }
+
+  @Override
+  public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
+    mMeasuredSizes.remove(positionStart, itemCount);
+    markItemsChanged(positionStart);
+  }
+
+  @Override
+  public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount) {
+    // The items may be bound to different sizes.
+    mMeasuredSizes.invalidate(positionStart, itemCount);
+    markItemsChanged(positionStart);
+  }
+
+  @Override
+  public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
+    mMeasuredSizes.move(from, to, itemCount);
+    markItemsChanged(Math.min(from, to));
+  }
+
+  /**
+   * Calculate the flex lines from the one which may contain the given adapter position again in
+   * the next layout. The flex lines before it only contain the items before the position, whose
+   * positions and sizes aren't changed.
+   */
+  private void markItemsChanged(int position) {
+    if (mFirstChangedPosition == RecyclerView.NO_POSITION || position < mFirstChangedPosition) {
+      mFirstChangedPosition = position;
+    }
+  }
+
+  @Override
+  public boolean canScrollHorizontally() {
+    return !isMainAxisDirectionHorizontal();
+  }
+
+  @Override
+  public boolean canScrollVertically() {
+    return isMainAxisDirectionHorizontal();
+  }
+
+  @Override
+  public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+    if (state.getItemCount() == 0) {
+      removeAndRecycleAllViews(recycler);
+      invalidateFlexLines();
+      mScrollOffset = 0;
+      mPendingScrollPosition = RecyclerView.NO_POSITION;
+      return;
+    }
+
+    if (mPendingScrollPosition != RecyclerView.NO_POSITION
+        && (mPendingScrollPosition < 0 || mPendingScrollPosition >= state.getItemCount())) {
+      // The item count is only known here, it may be changed since scrollToPosition was called.
+      Log.e(TAG, "ignoring invalid scroll position " + mPendingScrollPosition);
+      mPendingScrollPosition = RecyclerView.NO_POSITION;
+    }
+
+    // Keep the first visible flex line at the same place if the flex lines are calculated again.
+    int anchorPosition = RecyclerView.NO_POSITION;
+    int anchorOffset = 0;
+    if (mPendingScrollPosition != RecyclerView.NO_POSITION) {
+      anchorPosition = mPendingScrollPosition;
+    } else if (mFirstAttachedLine != NO_LINE) {
+      anchorPosition = mFlexLines.mFirstIndex[mFirstAttachedLine];
+      anchorOffset = mScrollOffset - getLineCrossStart(mFirstAttachedLine);
+    }
+
+    int mainSize = getAvailableMainSize();
+    boolean linesChanged = mainSize != mLastMainSize
+        || mFirstChangedPosition != RecyclerView.NO_POSITION;
+    detachAndScrapAttachedViews(recycler);
+    mFirstAttachedLine = NO_LINE;
+    mLastAttachedLine = NO_LINE;
+    if (mainSize != mLastMainSize) {
+      // The items may be measured against the main size, e.g. if they match the parent.
+      invalidateFlexLines();
+      mLastMainSize = mainSize;
+    } else if (mFirstChangedPosition != RecyclerView.NO_POSITION) {
+      discardFlexLinesFrom(mFirstChangedPosition);
+    }
+    mFirstChangedPosition = RecyclerView.NO_POSITION;
+
+    if (anchorPosition != RecyclerView.NO_POSITION
+        && (linesChanged || mPendingScrollPosition != RecyclerView.NO_POSITION)) {
+      anchorPosition = Math.min(anchorPosition, state.getItemCount() - 1);
+      // The flex lines before the anchor can't be skipped since they decide where the anchor
+      // is placed in the content. Only their sizes are needed, thus none of their views is held.
+      ensureFlexLines(0, anchorPosition, Integer.MAX_VALUE, recycler, state);
+      int anchorLine = mFlexLines.findLineIndexForChild(anchorPosition);
+      if (anchorLine != NO_LINE) {
+        mScrollOffset = getLineCrossStart(anchorLine) + anchorOffset;
+      }
+    }
+    mPendingScrollPosition = RecyclerView.NO_POSITION;
+
+    int visibleCrossSize = getVisibleCrossSize();
+    ensureFlexLines(mScrollOffset + visibleCrossSize, RecyclerView.NO_POSITION, mScrollOffset,
+        recycler, state);
+    int maxScrollOffset = Math.max(0, getContentCrossSize() - visibleCrossSize);
+    mScrollOffset = Math.max(0, Math.min(mScrollOffset, maxScrollOffset));
+
+    fill(recycler, state);
+    recycleViewCache(recycler);
+  }
+
+  @Override
+  public int scrollHorizontallyBy(int dx, RecyclerView.Recycler recycler,
+                                  RecyclerView.State state) {
+    if (isMainAxisDirectionHorizontal()) {
+      return 0;
+    }
+    return scrollBy(dx, recycler, state);
+  }
+
+  @Override
+  public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler,
+                                RecyclerView.State state) {
+    if (!isMainAxisDirectionHorizontal()) {
+      return 0;
+    }
+    return scrollBy(dy, recycler, state);
+  }
+
+  /**
+   * Scroll along the cross axis. The attached views are only offset, and only the flex lines
+   * which become visible are laid out, thus the cost is proportional to the newly visible
+   * items rather than to the number of the items.
+   *
+   * @param delta the distance to scroll in pixels
+   * @return the distance actually scrolled
+   */
+  private int scrollBy(int delta, RecyclerView.Recycler recycler, RecyclerView.State state) {
+    if (getChildCount() == 0 || delta == 0) {
+      return 0;
+    }
+    int visibleCrossSize = getVisibleCrossSize();
+    int consumed;
+    if (delta > 0) {
+      // The flex lines scrolled over at once by a large delta aren't laid out.
+      ensureFlexLines(mScrollOffset + visibleCrossSize + delta, RecyclerView.NO_POSITION,
+          mScrollOffset + delta, recycler, state);
+      int maxScrollOffset = Math.max(0, getContentCrossSize() - visibleCrossSize);
+      consumed = Math.max(0, Math.min(delta, maxScrollOffset - mScrollOffset));
+    } else {
+      consumed = Math.max(delta, -mScrollOffset);
+    }
+    if (consumed != 0) {
+      mScrollOffset += consumed;
+      if (isMainAxisDirectionHorizontal()) {
+        offsetChildrenVertical(-consumed);
+      } else {
+        offsetChildrenHorizontal(-consumed);
+      }
+      fill(recycler, state);
+    }
+    recycleViewCache(recycler);
+    return consumed;
+  }
+
+  /**
+   * Scroll to the flex line containing the item at the given adapter position in the next
+   * layout pass. An invalid position is ignored then.
+   */
+  @Override
+  public void scrollToPosition(int position) {
+    mPendingScrollPosition = position;
+    requestLayout();
+  }
+
+  /**
+   * Attach the items in the flex lines intersecting the visible area, and recycle the ones in
+   * the flex lines out of it. The flex lines which stay attached are not touched.
+   */
+  private void fill(RecyclerView.Recycler recycler, RecyclerView.State state) {
+    FlexLineArray lines = mFlexLines;
+    int visibleEnd = Math.min(mScrollOffset + getVisibleCrossSize(), getContentCrossSize());
+    boolean mainAxisHorizontal = isMainAxisDirectionHorizontal();
+    int first = lines.findLineIndexAt(mScrollOffset, mainAxisHorizontal);
+    int last = lines.findLineIndexAt(visibleEnd - 1, mainAxisHorizontal);
+    if (first == NO_LINE || last == NO_LINE) {
+      removeAndRecycleAllViews(recycler);
+      mFirstAttachedLine = NO_LINE;
+      mLastAttachedLine = NO_LINE;
+      return;
+    }
+
+    if (mFirstAttachedLine != NO_LINE
+        && (last < mFirstAttachedLine || first > mLastAttachedLine)) {
+      // Scrolled over all the attached flex lines at once.
+      removeAndRecycleAllViews(recycler);
+      mFirstAttachedLine = NO_LINE;
+      mLastAttachedLine = NO_LINE;
+    }
+
+    if (mFirstAttachedLine == NO_LINE) {
+      int childIndex = 0;
+      for (int i = first; i <= last; i++) {
+        childIndex = layoutFlexLine(i, childIndex, recycler);
+      }
+    } else {
+      // Recycle the flex lines scrolled out.
+      for (; mFirstAttachedLine < first; mFirstAttachedLine++) {
+        for (int j = 0; j < lines.mItemCount[mFirstAttachedLine]; j++) {
+          removeAndRecycleViewAt(0, recycler);
+        }
+      }
+      for (; mLastAttachedLine > last; mLastAttachedLine--) {
+        for (int j = 0; j < lines.mItemCount[mLastAttachedLine]; j++) {
+          removeAndRecycleViewAt(getChildCount() - 1, recycler);
+        }
+      }
+      // Lay out the flex lines scrolled in.
+      int childIndex = 0;
+      for (int i = first; i < mFirstAttachedLine; i++) {
+        childIndex = layoutFlexLine(i, childIndex, recycler);
+      }
+      for (int i = mLastAttachedLine + 1; i <= last; i++) {
+        layoutFlexLine(i, getChildCount(), recycler);
+      }
+    }
+    mFirstAttachedLine = first;
+    mLastAttachedLine = last;
+  }
+
+  /**
+   * Add the items in the flex line and place them along the main axis.
+   *
+   * @param line       the index of the flex line
+   * @param childIndex the index of the child from which the items are added
+   * @return the index of the child next to the items added
+   */
+  private int layoutFlexLine(int line, int childIndex, RecyclerView.Recycler recycler) {
+    FlexLineArray lines = mFlexLines;
+    boolean mainAxisHorizontal = isMainAxisDirectionHorizontal();
+    boolean reversed = isMainAxisReversed();
+    int crossStart = (mainAxisHorizontal ? getPaddingTop() : getPaddingLeft())
+        + getLineCrossStart(line) - mScrollOffset;
+    int mainStart = mainAxisHorizontal ? getPaddingLeft() : getPaddingTop();
+    int mainEnd = mainAxisHorizontal ? getWidth() - getPaddingRight()
+        : getHeight() - getPaddingBottom();
+
+    for (int i = lines.mFirstIndex[line], end = i + lines.mItemCount[line]; i < end; i++) {
+      View child = getFlexItemView(i, recycler);
+      addView(child, childIndex++);
+      if (child.getVisibility() == View.GONE) {
+        continue;
+      }
+      // The child keeps its measured size unless it requested a layout since it was measured.
+      measureChildWithMargins(child, 0, 0);
+      int childMainSize = getDecoratedMainSize(child);
+      int childCrossSize = getDecoratedCrossSize(child);
+      int childMainStart;
+      if (reversed) {
+        mainEnd -= childMainSize;
+        childMainStart = mainEnd;
+      } else {
+        childMainStart = mainStart;
+        mainStart += childMainSize;
+      }
+      if (mainAxisHorizontal) {
+        layoutDecoratedWithMargins(child, childMainStart, crossStart,
+            childMainStart + childMainSize, crossStart + childCrossSize);
+      } else {
+        layoutDecoratedWithMargins(child, crossStart, childMainStart,
+            crossStart + childCrossSize, childMainStart + childMainSize);
+      }
+    }
+    return childIndex;
+  }
+
+  /**
+   * Calculate the flex lines following the ones already calculated, until the content covers the
+   * given position along the cross axis and the flex line containing the given adapter position
+   * is calculated, or all the items are contained in the flex lines.
+   *
+   * @param crossPosition the position along the cross axis in the content to be covered
+   * @param toPosition    the adapter position to be contained in the flex lines, or
+   *                      {@link RecyclerView#NO_POSITION}
+   * @param holdFrom      the position along the cross axis in the content from which the flex
+   *                      lines are about to be laid out. The views measured for the flex lines
+   *                      starting before it are recycled right away.
+   */
+  private void ensureFlexLines(int crossPosition, int toPosition, int holdFrom,
+                               RecyclerView.Recycler recycler, RecyclerView.State state) {
+    FlexLineArray lines = mFlexLines;
+    FlexboxEngine engine = mEngine;
+    engine.setMainAxisHorizontal(isMainAxisDirectionHorizontal());
+    engine.setSingleLine(false);
+    engine.setMainAxisConstraints(getAvailableMainSize(), FlexboxEngine.SIZE_MODE_EXACTLY, 0);
+    mFlexContainer.mRecycler = recycler;
+    mFlexContainer.mState = state;
+    int itemCount = state.getItemCount();
+    while (mCalculatedItemCount < itemCount && (getContentCrossSize() < crossPosition
+        || mCalculatedItemCount <= toPosition)) {
+      int crossStart = getContentCrossSize();
+      int line = lines.size();
+      mFlexContainer.mHoldViews = crossStart >= holdFrom;
+      mCalculatedItemCount = engine.calculateFlexLine(mFlexContainer, mCalculatedItemCount);
+      if (line == lines.size()) {
+        // Only the gone items were left.
+        continue;
+      }
+
+      if (isMainAxisDirectionHorizontal()) {
+        lines.mLeft[line] = 0;
+        lines.mRight[line] = lines.mMainSize[line];
+        lines.mTop[line] = crossStart;
+        lines.mBottom[line] = crossStart + lines.mCrossSize[line];
+      } else {
+        lines.mLeft[line] = crossStart;
+        lines.mRight[line] = crossStart + lines.mCrossSize[line];
+        lines.mTop[line] = 0;
+        lines.mBottom[line] = lines.mMainSize[line];
+      }
+    }
+    mFlexContainer.mRecycler = null;
+    mFlexContainer.mState = null;
+  }
+
+  /**
+   * @return the view for the adapter position, reusing the one measured while the flex lines
+   * were calculated if any
+   */
+  private View getFlexItemView(int position, RecyclerView.Recycler recycler) {
+    View view = mViewCache.get(position);
+    if (view == null) {
+      return recycler.getViewForPosition(position);
+    }
+    mViewCache.remove(position);
+    return view;
+  }
+
+  private void recycleViewCache(RecyclerView.Recycler recycler) {
+    for (int i = 0, size = mViewCache.size(); i < size; i++) {
+      recycler.recycleView(mViewCache.valueAt(i));
+    }
+    mViewCache.clear();
+  }
+
+  private void invalidateFlexLines() {
+    mEngine.clearFlexLines();
+    mMeasuredSizes.clear();
+    mCalculatedItemCount = 0;
+    mFirstChangedPosition = RecyclerView.NO_POSITION;
+    mFirstAttachedLine = NO_LINE;
+    mLastAttachedLine = NO_LINE;
+  }
+
+  /**
+   * Discard the flex lines which may contain the given adapter position and the following ones.
+   * The bounds of the flex lines kept stay valid since the flex lines before them are kept too.
+   */
+  private void discardFlexLinesFrom(int position) {
+    if (position > mCalculatedItemCount) {
+      // The items visited so far aren't changed. An item at mCalculatedItemCount may still join
+      // the last flex line.
+      return;
+    }
+    mCalculatedItemCount = mEngine.discardFlexLinesFrom(position);
+  }
+
+  /**
+   * @return the size of the content along the cross axis calculated so far
+   */
+  private int getContentCrossSize() {
+    int size = mFlexLines.size();
+    if (size == 0) {
+      return 0;
+    }
+    return isMainAxisDirectionHorizontal() ? mFlexLines.mBottom[size - 1]
+        : mFlexLines.mRight[size - 1];
+  }
+
+  private int getLineCrossStart(int line) {
+    return isMainAxisDirectionHorizontal() ? mFlexLines.mTop[line] : mFlexLines.mLeft[line];
+  }
+
+  private int getAvailableMainSize() {
+    return isMainAxisDirectionHorizontal() ? getWidth() - getPaddingLeft() - getPaddingRight()
+        : getHeight() - getPaddingTop() - getPaddingBottom();
+  }
+
+  private int getVisibleCrossSize() {
+    return isMainAxisDirectionHorizontal() ? getHeight() - getPaddingTop() - getPaddingBottom()
+        : getWidth() - getPaddingLeft() - getPaddingRight();
+  }
+
+  private int getDecoratedMainSize(View child) {
+    RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) child.getLayoutParams();
+    return isMainAxisDirectionHorizontal()
+        ? child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin
+        : child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+  }
+
+  private int getDecoratedCrossSize(View child) {
+    RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) child.getLayoutParams();
+    return isMainAxisDirectionHorizontal()
+        ? child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin
+        : child.getMeasuredWidth() + lp.leftMargin + lp.rightMargin;
+  }
+
+  private boolean isMainAxisDirectionHorizontal() {
+    return mFlexDirection == FLEX_DIRECTION_ROW || mFlexDirection == FLEX_DIRECTION_ROW_REVERSE;
+  }
+
+  /**
+   * @return {@code true} if the items are placed from the end of the main axis, i.e. from right
+   * to left or from bottom to top
+   */
+  private boolean isMainAxisReversed() {
+    boolean isRtl = getLayoutDirection() == ViewCompat.LAYOUT_DIRECTION_RTL;
+    switch (mFlexDirection) {
+      case FLEX_DIRECTION_ROW:
+        return isRtl;
+      case FLEX_DIRECTION_ROW_REVERSE:
+        return !isRtl;
+      case FLEX_DIRECTION_COLUMN:
+        return false;
+      case FLEX_DIRECTION_COLUMN_REVERSE:
+        return true;
+      default:
+        throw new IllegalStateException("Invalid flex direction is set: " + mFlexDirection);
+    }
+  }
+
+  /**
+   * @return the adapter position of the first attached item, or
+   * {@link RecyclerView#NO_POSITION} if no item is attached
+   */
+  public int findFirstVisibleItemPosition() {
+    return mFirstAttachedLine == NO_LINE ? RecyclerView.NO_POSITION
+        : mFlexLines.mFirstIndex[mFirstAttachedLine];
+  }
+
+  /**
+   * @return the adapter position of the last attached item, or
+   * {@link RecyclerView#NO_POSITION} if no item is attached
+   */
+  public int findLastVisibleItemPosition() {
+    return mLastAttachedLine == NO_LINE ? RecyclerView.NO_POSITION
+        : mFlexLines.mFirstIndex[mLastAttachedLine] + mFlexLines.mItemCount[mLastAttachedLine]
+            - 1;
+  }
+
+  @Override
+  public int computeHorizontalScrollExtent(RecyclerView.State state) {
+    return computeScrollExtent();
+  }
+
+  @Override
+  public int computeHorizontalScrollOffset(RecyclerView.State state) {
+    return computeScrollOffset();
+  }
+
+  @Override
+  public int computeHorizontalScrollRange(RecyclerView.State state) {
+    return computeScrollRange(state);
+  }
+
+  @Override
+  public int computeVerticalScrollExtent(RecyclerView.State state) {
+    return computeScrollExtent();
+  }
+
+  @Override
+  public int computeVerticalScrollOffset(RecyclerView.State state) {
+    return computeScrollOffset();
+  }
+
+  @Override
+  public int computeVerticalScrollRange(RecyclerView.State state) {
+    return computeScrollRange(state);
+  }
+
+  private int computeScrollExtent() {
+    return getChildCount() == 0 ? 0 : getVisibleCrossSize();
+  }
+
+  private int computeScrollOffset() {
+    return getChildCount() == 0 ? 0 : mScrollOffset;
+  }
+
+  /**
+   * The flex lines are calculated lazily, thus the range is estimated from the average cross
+   * size per item of the flex lines calculated so far until all the items are reached.
+   */
+  private int computeScrollRange(RecyclerView.State state) {
+    int calculatedItemCount = mCalculatedItemCount;
+    if (getChildCount() == 0 || calculatedItemCount == 0) {
+      return 0;
+    }
+    int contentCrossSize = getContentCrossSize();
+    if (calculatedItemCount >= state.getItemCount()) {
+      return contentCrossSize;
+    }
+    return (int) ((long) contentCrossSize * state.getItemCount() / calculatedItemCount);
+  }
+
+  /**
+   * Exposes the adapter items to {@link #mEngine} through their measured sizes. The items whose
+   * sizes aren't known yet are bound and measured with the views obtained from the Recycler
+   * given to the current layout or scroll.
+   */
+  private class RecyclerFlexContainer implements FlexContainer {
+    RecyclerView.Recycler mRecycler;
+
+    RecyclerView.State mState;
+
+    /** Whether the views measured for the current flex line are kept for the layout */
+    boolean mHoldViews;
+
+    private final MeasuredFlexItem mFlexItem = new MeasuredFlexItem();
+
+    @Override
+    public int getFlexItemCount() {
+      return mState.getItemCount();
+    }
+
+    @Override
+    public FlexItem getFlexItemAt(int index) {
+      if (!mMeasuredSizes.isMeasured(index)) {
+        View view = mRecycler.getViewForPosition(index);
+        if (view.getVisibility() == View.GONE) {
+          mMeasuredSizes.putGone(index);
+        } else {
+          measureChildWithMargins(view, 0, 0);
+          RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) view.getLayoutParams();
+          mMeasuredSizes.put(index, view.getMeasuredWidth(), view.getMeasuredHeight(),
+              lp.leftMargin, lp.topMargin, lp.rightMargin, lp.bottomMargin);
+        }
+        if (mHoldViews) {
+          mViewCache.put(index, view);
+        } else {
+          mRecycler.recycleView(view);
+        }
+      }
+      mFlexItem.mPosition = index;
+      return mFlexItem;
+    }
+
+    @Override
+    public void measureFlexItem(int index, int mainSize) {
+      // The items have neither the flex basis percent nor the flexible lengths resolved, thus
+      // they always keep the sizes measured in getFlexItemAt.
+    }
+  }
+
+  /**
+   * A {@link FlexItem} over the measured size of an adapter item, which has the default flex
+   * attributes.
+   */
+  private class MeasuredFlexItem implements FlexItem {
+    int mPosition;
+
+    @Override
+    public float getFlexGrow() {
+      return FLEX_GROW_DEFAULT;
+    }
+
+    @Override
+    public float getFlexShrink() {
+      return FLEX_SHRINK_DEFAULT;
+    }
+
+    @Override
+    public float getFlexBasisPercent() {
+      return FLEX_BASIS_PERCENT_DEFAULT;
+    }
+
+    @Override
+    public int getMarginLeft() {
+      return mMeasuredSizes.getMarginLeft(mPosition);
+    }
+
+    @Override
+    public int getMarginTop() {
+      return mMeasuredSizes.getMarginTop(mPosition);
+    }
+
+    @Override
+    public int getMarginRight() {
+      return mMeasuredSizes.getMarginRight(mPosition);
+    }
+
+    @Override
+    public int getMarginBottom() {
+      return mMeasuredSizes.getMarginBottom(mPosition);
+    }
+
+    @Override
+    public int getMeasuredWidth() {
+      return mMeasuredSizes.getWidth(mPosition);
+    }
+
+    @Override
+    public int getMeasuredHeight() {
+      return mMeasuredSizes.getHeight(mPosition);
+    }
+
+    @Override
+    public boolean isGone() {
+      return mMeasuredSizes.isGone(mPosition);
+    }
+  }
+}
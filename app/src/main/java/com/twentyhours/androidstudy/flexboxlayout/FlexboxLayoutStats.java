@@ -0,0 +1,194 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+/**
+ * Statistics of the measure and layout passes of a {@link FlexboxLayout}, collected only while it
+ * is set by {@link FlexboxLayout#setStats(FlexboxLayoutStats)}. The values of the last pass tell
+ * why a particular frame was slow, and the totals tell how the layout behaves over a session,
+ * e.g. reported from a frame metrics listener or dumped with {@link #toString()}.
+ *
+ * <p>The stats are updated on the UI thread, thus they should be read there as well. An instance
+ * may be shared by several layouts to aggregate them.</p>
+ */
+public final class FlexboxLayoutStats {
+  private int mMeasureCount;
+
+  private int mLayoutCount;
+
+  private int mMeasureCacheHitCount;
+
+  private int mTotalChildMeasureCount;
+
+  private int mTotalFlexLinesBuilt;
+
+  private long mTotalMeasureNanos;
+
+  private long mTotalLayoutNanos;
+
+  private int mLastChildMeasureCount;
+
+  private int mLastFlexLinesBuilt;
+
+  private boolean mLastMeasureCacheHit;
+
+  private long mLastMeasureNanos;
+
+  private long mLastLayoutNanos;
+
+  /**
+   * Record a measure pass.
+   *
+   * @param childMeasureCount the number of the calls of child.measure in the pass
+   * @param flexLinesBuilt    the number of the flex lines calculated in the pass, not counting
+   *                          the ones reused from the last pass
+   * @param cacheHit          {@code true} if the pass replayed the last pass without visiting
+   *                          any child
+   * @param nanos             the elapsed time of onMeasure
+   */
+  void onMeasure(int childMeasureCount, int flexLinesBuilt, boolean cacheHit, long nanos) {
+    mMeasureCount++;
+    if (cacheHit) {
+      mMeasureCacheHitCount++;
+    }
+    mTotalChildMeasureCount += childMeasureCount;
+    mTotalFlexLinesBuilt += flexLinesBuilt;
+    mTotalMeasureNanos += nanos;
+    mLastChildMeasureCount = childMeasureCount;
+    mLastFlexLinesBuilt = flexLinesBuilt;
+    mLastMeasureCacheHit = cacheHit;
+    mLastMeasureNanos = nanos;
+  }
+
+  /**
+   * Record a layout pass.
+   *
+   * @param nanos the elapsed time of onLayout
+   */
+  void onLayout(long nanos) {
+    mLayoutCount++;
+    mTotalLayoutNanos += nanos;
+    mLastLayoutNanos = nanos;
+  }
+
+  /**
+   * Clear all the values, e.g. at the start of a scenario to be inspected.
+   */
+  public void reset() {
+    mMeasureCount = 0;
+    mLayoutCount = 0;
+    mMeasureCacheHitCount = 0;
+    mTotalChildMeasureCount = 0;
+    mTotalFlexLinesBuilt = 0;
+    mTotalMeasureNanos = 0L;
+    mTotalLayoutNanos = 0L;
+    mLastChildMeasureCount = 0;
+    mLastFlexLinesBuilt = 0;
+    mLastMeasureCacheHit = false;
+    mLastMeasureNanos = 0L;
+    mLastLayoutNanos = 0L;
+  }
+
+  /**
+   * @return the number of the measure passes recorded
+   */
+  public int getMeasureCount() {
+    return mMeasureCount;
+  }
+
+  /**
+   * @return the number of the layout passes recorded
+   */
+  public int getLayoutCount() {
+    return mLayoutCount;
+  }
+
+  /**
+   * @return the number of the measure passes which replayed the last pass without visiting any
+   * child
+   */
+  public int getMeasureCacheHitCount() {
+    return mMeasureCacheHitCount;
+  }
+
+  /**
+   * @return the number of the calls of child.measure in all the measure passes
+   */
+  public int getTotalChildMeasureCount() {
+    return mTotalChildMeasureCount;
+  }
+
+  /**
+   * @return the number of the flex lines calculated in all the measure passes
+   */
+  public int getTotalFlexLinesBuilt() {
+    return mTotalFlexLinesBuilt;
+  }
+
+  /**
+   * @return the elapsed time of all the measure passes in nanoseconds
+   */
+  public long getTotalMeasureNanos() {
+    return mTotalMeasureNanos;
+  }
+
+  /**
+   * @return the elapsed time of all the layout passes in nanoseconds
+   */
+  public long getTotalLayoutNanos() {
+    return mTotalLayoutNanos;
+  }
+
+  /**
+   * @return the number of the calls of child.measure in the last measure pass
+   */
+  public int getLastChildMeasureCount() {
+    return mLastChildMeasureCount;
+  }
+
+  /**
+   * @return the number of the flex lines calculated in the last measure pass, not counting the
+   * ones reused from the pass before it
+   */
+  public int getLastFlexLinesBuilt() {
+    return mLastFlexLinesBuilt;
+  }
+
+  /**
+   * @return {@code true} if the last measure pass replayed the pass before it without visiting
+   * any child
+   */
+  public boolean isLastMeasureCacheHit() {
+    return mLastMeasureCacheHit;
+  }
+
+  /**
+   * @return the elapsed time of the last measure pass in nanoseconds
+   */
+  public long getLastMeasureNanos() {
+    return mLastMeasureNanos;
+  }
+
+  /**
+   * @return the elapsed time of the last layout pass in nanoseconds
+   */
+  public long getLastLayoutNanos() {
+    return mLastLayoutNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "FlexboxLayoutStats{"
+        + "measureCount=" + mMeasureCount
+        + ", layoutCount=" + mLayoutCount
+        + ", measureCacheHitCount=" + mMeasureCacheHitCount
+        + ", totalChildMeasureCount=" + mTotalChildMeasureCount
+        + ", totalFlexLinesBuilt=" + mTotalFlexLinesBuilt
+        + ", totalMeasureNanos=" + mTotalMeasureNanos
+        + ", totalLayoutNanos=" + mTotalLayoutNanos
+        + ", lastChildMeasureCount=" + mLastChildMeasureCount
+        + ", lastFlexLinesBuilt=" + mLastFlexLinesBuilt
+        + ", lastMeasureCacheHit=" + mLastMeasureCacheHit
+        + ", lastMeasureNanos=" + mLastMeasureNanos
+        + ", lastLayoutNanos=" + mLastLayoutNanos
+        + '}';
+  }
+}
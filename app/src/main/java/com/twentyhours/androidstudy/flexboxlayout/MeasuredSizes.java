@@ -0,0 +1,177 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+/**
+ * The measured sizes and margins of the items of {@link FlexboxLayoutManager} per adapter
+ * position, packed into a single array. The sizes are moved along with the items when the
+ * adapter notifies the structural changes, so that only the inserted and changed items need to
+ * be measured again.
+ *
+ * <p>Only the positions up to the last one ever measured are covered. The positions after them
+ * are regarded as not measured.</p>
+ */
+class MeasuredSizes {
+  /** The width, height, left, top, right and bottom margins of an item */
+  private static final int STRIDE = 6;
+
+  /** Set to the width of an item which isn't measured */
+  private static final int UNMEASURED = -1;
+
+  /** Set to the width of an item which is gone */
+  private static final int GONE = -2;
+
+  private int[] mSizes = new int[0];
+
+  /** Holds the sizes of the item being moved */
+  private final int[] mMoved = new int[STRIDE];
+
+  /** The number of the positions which the array covers */
+  private int mCount;
+
+  /**
+   * @return the number of the positions covered, i.e. the last position ever measured plus one
+   * unless the positions are moved since
+   */
+  int size() {
+    return mCount;
+  }
+
+  boolean isMeasured(int position) {
+    return position < mCount && mSizes[position * STRIDE] != UNMEASURED;
+  }
+
+  /**
+   * Set the measured size and the margins of the item at the position.
+   */
+  void put(int position, int width, int height, int marginLeft, int marginTop, int marginRight,
+           int marginBottom) {
+    int offset = cover(position) * STRIDE;
+    mSizes[offset] = width;
+    mSizes[offset + 1] = height;
+    mSizes[offset + 2] = marginLeft;
+    mSizes[offset + 3] = marginTop;
+    mSizes[offset + 4] = marginRight;
+    mSizes[offset + 5] = marginBottom;
+  }
+
+  /**
+   * Set the item at the position as gone, which has no size.
+   */
+  void putGone(int position) {
+    // cover() may replace the array, thus it's called before the array is read.
+    int offset = cover(position) * STRIDE;
+    mSizes[offset] = GONE;
+  }
+
+  // The following getters are only valid for the measured positions.
+
+  boolean isGone(int position) {
+    return mSizes[position * STRIDE] == GONE;
+  }
+
+  // The sizes are only valid for the items which aren't gone.
+
+  int getWidth(int position) {
+    return mSizes[position * STRIDE];
+  }
+
+  int getHeight(int position) {
+    return mSizes[position * STRIDE + 1];
+  }
+
+  int getMarginLeft(int position) {
+    return mSizes[position * STRIDE + 2];
+  }
+
+  int getMarginTop(int position) {
+    return mSizes[position * STRIDE + 3];
+  }
+
+  int getMarginRight(int position) {
+    return mSizes[position * STRIDE + 4];
+  }
+
+  int getMarginBottom(int position) {
+    return mSizes[position * STRIDE + 5];
+  }
+
+  /**
+   * Shift the sizes of the items from the position for the inserted items, which aren't
+   * measured.
+   */
+  void insert(int positionStart, int itemCount) {
+    if (positionStart >= mCount) {
+      return;
+    }
+    ensureCapacity(mCount + itemCount);
+    System.arraycopy(mSizes, positionStart * STRIDE, mSizes,
+        (positionStart + itemCount) * STRIDE, (mCount - positionStart) * STRIDE);
+    mCount += itemCount;
+    invalidate(positionStart, itemCount);
+  }
+
+  void remove(int positionStart, int itemCount) {
+    if (positionStart >= mCount) {
+      return;
+    }
+    int end = Math.min(positionStart + itemCount, mCount);
+    System.arraycopy(mSizes, end * STRIDE, mSizes, positionStart * STRIDE,
+        (mCount - end) * STRIDE);
+    mCount -= end - positionStart;
+  }
+
+  void move(int from, int to, int itemCount) {
+    if (itemCount != 1 || Math.max(from, to) >= mCount) {
+      // RecyclerView only moves a single item at a time. Otherwise forget the sizes of the
+      // items between the positions, which are measured again when they are visited.
+      invalidate(Math.min(from, to), Math.abs(to - from) + itemCount);
+      return;
+    }
+    int[] sizes = mSizes;
+    int[] moved = mMoved;
+    System.arraycopy(sizes, from * STRIDE, moved, 0, STRIDE);
+    if (from < to) {
+      System.arraycopy(sizes, (from + 1) * STRIDE, sizes, from * STRIDE, (to - from) * STRIDE);
+    } else {
+      System.arraycopy(sizes, to * STRIDE, sizes, (to + 1) * STRIDE, (from - to) * STRIDE);
+    }
+    System.arraycopy(moved, 0, sizes, to * STRIDE, STRIDE);
+  }
+
+  /**
+   * Forget the sizes of the items, e.g. when they are bound to different contents.
+   */
+  void invalidate(int positionStart, int itemCount) {
+    for (int i = positionStart, end = Math.min(positionStart + itemCount, mCount); i < end;
+         i++) {
+      mSizes[i * STRIDE] = UNMEASURED;
+    }
+  }
+
+  void clear() {
+    mCount = 0;
+  }
+
+  /**
+   * Extend the covered positions to the given one, the positions added aren't measured.
+   *
+   * @return the position
+   */
+  private int cover(int position) {
+    if (position >= mCount) {
+      ensureCapacity(position + 1);
+      for (int i = mCount; i < position; i++) {
+        mSizes[i * STRIDE] = UNMEASURED;
+      }
+      mCount = position + 1;
+    }
+    return position;
+  }
+
+  private void ensureCapacity(int count) {
+    if (mSizes.length < count * STRIDE) {
+      int[] sizes = new int[Math.max(count, mCount * 2) * STRIDE];
+      System.arraycopy(mSizes, 0, sizes, 0, mCount * STRIDE);
+      mSizes = sizes;
+    }
+  }
+}
@@ -0,0 +1,344 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+import android.support.annotation.VisibleForTesting;
+import android.view.View.MeasureSpec;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The flex lines of a {@link FlexboxLayout} calculated in advance from the sizes of its children,
+ * e.g. the sizes of texts measured with {@code Paint#measureText} or {@code StaticLayout} on a
+ * worker thread before the children views are created.
+ *
+ * <p>Once set by {@link FlexboxLayout#setPrecomputedFlexLines(PrecomputedFlexLines)}, the next
+ * measure pass of the layout verifies that the children and the constraints are the ones the flex
+ * lines were calculated for, and applies the flex lines by measuring each child once with its
+ * resolved size. Otherwise the flex lines are calculated as usual.</p>
+ *
+ * <p>Instances are immutable, and may be built on any thread.</p>
+ */
+public final class PrecomputedFlexLines {
+  /**
+   * The bits of the mode in a {@link MeasureSpec}. The measure spec is decoded here instead of
+   * through MeasureSpec, so that the flex lines can be calculated without the framework, e.g. in
+   * the JVM tests.
+   */
+  private static final int MEASURE_SPEC_MODE_MASK = 0x3 << 30;
+
+  final int mFlexDirection;
+
+  final int mFlexWrap;
+
+  final int mMaxLines;
+
+  final int mMainMeasureSpec;
+
+  final int mMainPadding;
+
+  final int mItemCount;
+
+  /** The margins of the items, four values (left, top, right and bottom) per item */
+  final int[] mMargins;
+
+  final float[] mFlexGrows;
+
+  final float[] mFlexShrinks;
+
+  final float[] mFlexBasisPercents;
+
+  /** The sizes of the items given to the builder */
+  final int[] mHintWidths;
+
+  final int[] mHintHeights;
+
+  /** The sizes of the items whose flexible lengths are resolved, excluding their margins */
+  final int[] mWidths;
+
+  final int[] mHeights;
+
+  /** Holds the calculated flex lines */
+  final FlexboxEngine mEngine = new FlexboxEngine();
+
+  private PrecomputedFlexLines(Builder builder) {
+    mFlexDirection = builder.mFlexDirection;
+    mFlexWrap = builder.mFlexWrap;
+    mMaxLines = builder.mMaxLines;
+    mMainMeasureSpec = builder.mMainMeasureSpec;
+    mMainPadding = builder.mMainPadding;
+    mItemCount = builder.mItemCount;
+    mMargins = Arrays.copyOf(builder.mMargins, mItemCount * 4);
+    mFlexGrows = Arrays.copyOf(builder.mFlexGrows, mItemCount);
+    mFlexShrinks = Arrays.copyOf(builder.mFlexShrinks, mItemCount);
+    mFlexBasisPercents = Arrays.copyOf(builder.mFlexBasisPercents, mItemCount);
+    mHintWidths = Arrays.copyOf(builder.mWidths, mItemCount);
+    mHintHeights = Arrays.copyOf(builder.mHeights, mItemCount);
+    mWidths = Arrays.copyOf(builder.mWidths, mItemCount);
+    mHeights = Arrays.copyOf(builder.mHeights, mItemCount);
+
+    FlexboxEngine engine = mEngine;
+    engine.setMainAxisHorizontal(mFlexDirection == FlexboxLayout.FLEX_DIRECTION_ROW
+        || mFlexDirection == FlexboxLayout.FLEX_DIRECTION_ROW_REVERSE);
+    engine.setSingleLine(mFlexWrap == FlexboxLayout.FLEX_WRAP_NOWRAP);
+    engine.setMaxLines(mMaxLines);
+    engine.setMainAxisConstraints(mMainMeasureSpec & ~MEASURE_SPEC_MODE_MASK,
+        FlexboxLayout.toEngineSizeMode(mMainMeasureSpec & MEASURE_SPEC_MODE_MASK), mMainPadding);
+    engine.setMainAxisDivider(builder.mMainDividerSize, builder.mShowMainDivider);
+    HintFlexContainer container = new HintFlexContainer();
+    engine.calculateFlexLines(container, 0);
+    engine.resolveFlexibleLengths(container, 0);
+  }
+
+  /**
+   * @return a read-only list of the precomputed flex lines
+   */
+  public List<FlexLine> getFlexLines() {
+    return mEngine.getFlexLines();
+  }
+
+  /**
+   * @return the index of the first item which doesn't fit in the flex lines because of the
+   * maximum number of the flex lines, or {@link FlexboxLayout#NO_HIDDEN_CHILD} if all the items
+   * fit in the flex lines
+   */
+  public int getFirstHiddenItemIndex() {
+    return mEngine.getFirstHiddenItemIndex();
+  }
+
+  public int getItemCount() {
+    return mItemCount;
+  }
+
+  /**
+   * @return the width of the item after its flexible length is resolved, excluding its margins
+   */
+  public int getWidth(int index) {
+    return mWidths[index];
+  }
+
+  /**
+   * @return the height of the item after its flexible length is resolved, excluding its margins
+   */
+  public int getHeight(int index) {
+    return mHeights[index];
+  }
+
+  /**
+   * Exposes the items given to the builder to {@link #mEngine}. Measuring an item only resolves
+   * its size from the given size and the exact main size.
+   */
+  private class HintFlexContainer implements FlexContainer, FlexItem {
+    private int mIndex;
+
+    @Override
+    public int getFlexItemCount() {
+      return mItemCount;
+    }
+
+    @Override
+    public FlexItem getFlexItemAt(int index) {
+      mIndex = index;
+      return this;
+    }
+
+    @Override
+    public void measureFlexItem(int index, int mainSize) {
+      mWidths[index] = mHintWidths[index];
+      mHeights[index] = mHintHeights[index];
+      if (mainSize != FlexboxEngine.SIZE_UNDEFINED) {
+        if (mEngine.isMainAxisHorizontal()) {
+          mWidths[index] = mainSize;
+        } else {
+          mHeights[index] = mainSize;
+        }
+      }
+    }
+
+    @Override
+    public float getFlexGrow() {
+      return mFlexGrows[mIndex];
+    }
+
+    @Override
+    public float getFlexShrink() {
+      return mFlexShrinks[mIndex];
+    }
+
+    @Override
+    public float getFlexBasisPercent() {
+      return mFlexBasisPercents[mIndex];
+    }
+
+    @Override
+    public int getMarginLeft() {
+      return mMargins[mIndex * 4];
+    }
+
+    @Override
+    public int getMarginTop() {
+      return mMargins[mIndex * 4 + 1];
+    }
+
+    @Override
+    public int getMarginRight() {
+      return mMargins[mIndex * 4 + 2];
+    }
+
+    @Override
+    public int getMarginBottom() {
+      return mMargins[mIndex * 4 + 3];
+    }
+
+    @Override
+    public int getMeasuredWidth() {
+      return mWidths[mIndex];
+    }
+
+    @Override
+    public int getMeasuredHeight() {
+      return mHeights[mIndex];
+    }
+
+    @Override
+    public boolean isGone() {
+      return false;
+    }
+  }
+
+  /**
+   * Builder of {@link PrecomputedFlexLines}. The items are added in the order of the children
+   * of the FlexboxLayout.
+   */
+  public static final class Builder {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int mFlexDirection;
+
+    private final int mFlexWrap;
+
+    private final int mMainMeasureSpec;
+
+    private int mMaxLines = FlexboxLayout.NOT_SET;
+
+    private int mMainPadding;
+
+    private int mMainDividerSize;
+
+    private int mShowMainDivider = FlexboxLayout.SHOW_DIVIDER_NONE;
+
+    private int mItemCount;
+
+    private int[] mWidths = new int[INITIAL_CAPACITY];
+
+    private int[] mHeights = new int[INITIAL_CAPACITY];
+
+    private int[] mMargins = new int[INITIAL_CAPACITY * 4];
+
+    private float[] mFlexGrows = new float[INITIAL_CAPACITY];
+
+    private float[] mFlexShrinks = new float[INITIAL_CAPACITY];
+
+    private float[] mFlexBasisPercents = new float[INITIAL_CAPACITY];
+
+    /**
+     * @param flexDirection   the flex direction of the FlexboxLayout
+     * @param flexWrap        the flex wrap of the FlexboxLayout
+     * @param mainMeasureSpec the measure spec which the FlexboxLayout will be given along the
+     *                        main axis, i.e. the width measure spec if the flex direction is
+     *                        either row or row_reverse
+     */
+    public Builder(@FlexboxLayout.FlexDirection int flexDirection,
+                   @FlexboxLayout.FlexWrap int flexWrap, int mainMeasureSpec) {
+      mFlexDirection = flexDirection;
+      mFlexWrap = flexWrap;
+      mMainMeasureSpec = mainMeasureSpec;
+    }
+
+    /**
+     * @see FlexboxLayout#setMaxLines(int)
+     */
+    public Builder setMaxLines(int maxLines) {
+      mMaxLines = maxLines;
+      return this;
+    }
+
+    /**
+     * Set the padding of the FlexboxLayout along the main axis, e.g. the start and the end
+     * padding if the flex direction is either row or row_reverse.
+     */
+    public Builder setMainPadding(int paddingStart, int paddingEnd) {
+      mMainPadding = paddingStart + paddingEnd;
+      return this;
+    }
+
+    /**
+     * Set the dividers between the items in each flex line, e.g. the width and the show divider
+     * flags of the vertical divider if the flex direction is either row or row_reverse.
+     *
+     * @see FlexboxLayout#setDividerDrawableVertical(android.graphics.drawable.Drawable)
+     * @see FlexboxLayout#setShowDividerVertical(int)
+     */
+    public Builder setMainAxisDivider(int dividerSize, @FlexboxLayout.DividerMode int showDivider) {
+      mMainDividerSize = dividerSize;
+      mShowMainDivider = showDivider;
+      return this;
+    }
+
+    /**
+     * Add an item which has no margin and the default flex attributes.
+     *
+     * @param width  the width the child will be measured to, excluding its margins
+     * @param height the height the child will be measured to, excluding its margins
+     */
+    public Builder addItem(int width, int height) {
+      return addItem(width, height, 0, 0, 0, 0, FlexItem.FLEX_GROW_DEFAULT,
+          FlexItem.FLEX_SHRINK_DEFAULT, FlexItem.FLEX_BASIS_PERCENT_DEFAULT);
+    }
+
+    /**
+     * Add an item with the margins and the flex attributes of the LayoutParams the child will
+     * have.
+     *
+     * @param width  the width the child will be measured to, excluding its margins
+     * @param height the height the child will be measured to, excluding its margins
+     * @param lp     the LayoutParams the child will have
+     */
+    public Builder addItem(int width, int height, FlexboxLayout.LayoutParams lp) {
+      return addItem(width, height, lp.leftMargin, lp.topMargin, lp.rightMargin, lp.bottomMargin,
+          lp.flexGrow, lp.flexShrink, lp.flexBasisPercent);
+    }
+
+    @VisibleForTesting
+    Builder addItem(int width, int height, int marginLeft, int marginTop, int marginRight,
+                    int marginBottom, float flexGrow, float flexShrink, float flexBasisPercent) {
+      if (mItemCount == mWidths.length) {
+        int capacity = mWidths.length * 2;
+        mWidths = Arrays.copyOf(mWidths, capacity);
+        mHeights = Arrays.copyOf(mHeights, capacity);
+        mMargins = Arrays.copyOf(mMargins, capacity * 4);
+        mFlexGrows = Arrays.copyOf(mFlexGrows, capacity);
+        mFlexShrinks = Arrays.copyOf(mFlexShrinks, capacity);
+        mFlexBasisPercents = Arrays.copyOf(mFlexBasisPercents, capacity);
+      }
+      int index = mItemCount++;
+      mWidths[index] = width;
+      mHeights[index] = height;
+      mMargins[index * 4] = marginLeft;
+      mMargins[index * 4 + 1] = marginTop;
+      mMargins[index * 4 + 2] = marginRight;
+      mMargins[index * 4 + 3] = marginBottom;
+      mFlexGrows[index] = flexGrow;
+      mFlexShrinks[index] = flexShrink;
+      mFlexBasisPercents[index] = flexBasisPercent;
+      return this;
+    }
+
+    /**
+     * Calculate the flex lines from the items added so far. This may take a while for many
+     * items, thus it's better to be called on a worker thread.
+     */
+    public PrecomputedFlexLines build() {
+      return new PrecomputedFlexLines(this);
+    }
+  }
+}
@@ -1,14 +1,36 @@
 package com.twentyhours.androidstudy.recyclerview;
 
+import android.support.v4.util.Pools;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Created by soonhyung-imac on 4/5/17.
+ *
+ * Helper class that can enqueue and process adapter update operations.
+ * <p>
+ * The notifications of the adapter are queued as {@link UpdateOp}s and applied to the
+ * ViewHolders at once in the next layout pass. An operation which continues the last pending
+ * one of the same kind (e.g. notifyItemChanged for the next position) extends it instead of
+ * being queued, and the operations are obtained from a pool, thus a burst of notifications
+ * collapses into a few operations without allocating anything in the steady state.
+ * <p>
+ * Predictive animations are not supported yet, thus the operations are always consumed in one
+ * pass, after the moves are reordered to the end of the queue by {@link OpReorderer}.
  */
 
 public class AdapterHelper implements OpReorderer.Callback {
+  private Pools.Pool<UpdateOp> mUpdateOpPool = new Pools.SimplePool<>(UpdateOp.POOL_SIZE);
+
+  final ArrayList<UpdateOp> mPendingUpdates = new ArrayList<>();
+
   final Callback mCallback;
   final boolean mDisableRecycler;
   final OpReorderer mOpReorderer;
 
+  private int mExistingUpdateTypes = 0;
+
   AdapterHelper(Callback callback) {
     this(callback, false);
   }
@@ -19,18 +41,331 @@ public class AdapterHelper implements OpReorderer.Callback {
     mOpReorderer = new OpReorderer(this);
   }
 
+  /**
+   * Discard the pending operations, e.g. when the whole data set is changed.
+   */
+  void reset() {
+    recycleUpdateOpsAndClearList(mPendingUpdates);
+    mExistingUpdateTypes = 0;
+  }
+
+  boolean hasPendingUpdates() {
+    return mPendingUpdates.size() > 0;
+  }
+
+  boolean hasAnyUpdateTypes(int updateTypes) {
+    return (mExistingUpdateTypes & updateTypes) != 0;
+  }
+
+  /**
+   * Apply the pending operations to the ViewHolders and notify the LayoutManager of them.
+   */
+  void consumeUpdatesInOnePass() {
+    mOpReorderer.reorderOps(mPendingUpdates);
+    final int count = mPendingUpdates.size();
+    for (int i = 0; i < count; i++) {
+      UpdateOp op = mPendingUpdates.get(i);
+      switch (op.cmd) {
+        case UpdateOp.ADD:
+          mCallback.onDispatchSecondPass(op);
+          mCallback.offsetPositionsForAdd(op.positionStart, op.itemCount);
+          break;
+        case UpdateOp.REMOVE:
+          mCallback.onDispatchSecondPass(op);
+          mCallback.offsetPositionsForRemovingInvisible(op.positionStart, op.itemCount);
+          break;
+        case UpdateOp.UPDATE:
+          mCallback.onDispatchSecondPass(op);
+          mCallback.markViewHoldersUpdated(op.positionStart, op.itemCount, op.payload);
+          break;
+        case UpdateOp.MOVE:
+          mCallback.onDispatchSecondPass(op);
+          mCallback.offsetPositionsForMove(op.positionStart, op.itemCount);
+          break;
+      }
+    }
+    recycleUpdateOpsAndClearList(mPendingUpdates);
+    mExistingUpdateTypes = 0;
+  }
+
+  /**
+   * Calculate the position of the item after the pending operations are applied.
+   *
+   * @param position The position of the item in the last layout pass
+   * @return The position in the adapter, or {@link RecyclerView#NO_POSITION} if the item is
+   * removed by a pending operation
+   */
+  int applyPendingUpdatesToPosition(int position) {
+    final int size = mPendingUpdates.size();
+    for (int i = 0; i < size; i++) {
+      UpdateOp op = mPendingUpdates.get(i);
+      switch (op.cmd) {
+        case UpdateOp.ADD:
+          if (op.positionStart <= position) {
+            position += op.itemCount;
+          }
+          break;
+        case UpdateOp.REMOVE:
+          if (op.positionStart <= position) {
+            final int end = op.positionStart + op.itemCount;
+            if (end > position) {
+              return RecyclerView.NO_POSITION;
+            }
+            position -= op.itemCount;
+          }
+          break;
+        case UpdateOp.MOVE:
+          if (op.positionStart == position) {
+            position = op.itemCount; //position end
+          } else {
+            if (op.positionStart < position) {
+              position -= 1;
+            }
+            if (op.itemCount <= position) {
+              position += 1;
+            }
+          }
+          break;
+      }
+    }
+    return position;
+  }
+
+  /**
+   * @return True if updates should be processed.
+   */
+  boolean onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+    if (itemCount < 1) {
+      return false;
+    }
+    return enqueueUpdateOp(UpdateOp.UPDATE, positionStart, itemCount, payload);
+  }
+
+  /**
+   * @return True if updates should be processed.
+   */
+  boolean onItemRangeInserted(int positionStart, int itemCount) {
+    if (itemCount < 1) {
+      return false;
+    }
+    return enqueueUpdateOp(UpdateOp.ADD, positionStart, itemCount, null);
+  }
+
+  /**
+   * @return True if updates should be processed.
+   */
+  boolean onItemRangeRemoved(int positionStart, int itemCount) {
+    if (itemCount < 1) {
+      return false;
+    }
+    return enqueueUpdateOp(UpdateOp.REMOVE, positionStart, itemCount, null);
+  }
+
+  /**
+   * @return True if updates should be processed.
+   */
+  boolean onItemRangeMoved(int from, int to, int itemCount) {
+    if (from == to) {
+      return false; // no-op
+    }
+    if (itemCount != 1) {
+      throw new IllegalArgumentException("Moving more than 1 item is not supported yet");
+    }
+    return enqueueUpdateOp(UpdateOp.MOVE, from, to, null);
+  }
+
+  /**
+   * Queue an operation, or merge it into the last pending one if possible.
+   *
+   * @return True if the operation is the first pending one, thus a layout pass has to be
+   * scheduled to process it.
+   */
+  private boolean enqueueUpdateOp(int cmd, int positionStart, int itemCount, Object payload) {
+    final boolean wasEmpty = mPendingUpdates.isEmpty();
+    if (!wasEmpty
+        && coalesce(mPendingUpdates.get(mPendingUpdates.size() - 1), cmd, positionStart,
+        itemCount, payload)) {
+      return false;
+    }
+    mPendingUpdates.add(obtainUpdateOp(cmd, positionStart, itemCount, payload));
+    mExistingUpdateTypes |= cmd;
+    return wasEmpty;
+  }
+
+  /**
+   * Merge an operation into the given one if both are of the same kind and the ranges are
+   * adjacent or overlapping, so that applying the merged operation gives the same result as
+   * applying both in order. The positions of the new operation are relative to the data set
+   * after the given one is applied.
+   *
+   * @return True if the operation is merged, false if it has to be queued separately.
+   */
+  private static boolean coalesce(UpdateOp last, int cmd, int positionStart, int itemCount,
+                                  Object payload) {
+    if (last.cmd != cmd) {
+      return false;
+    }
+    switch (cmd) {
+      case UpdateOp.ADD:
+        // Inserting into or right after an inserted range makes it longer.
+        if (positionStart >= last.positionStart
+            && positionStart <= last.positionStart + last.itemCount) {
+          last.itemCount += itemCount;
+          return true;
+        }
+        return false;
+      case UpdateOp.REMOVE:
+        // The items after a removed range shift to its start, thus a range touching the start
+        // is adjacent to the removed range in the original positions.
+        if (positionStart <= last.positionStart
+            && positionStart + itemCount >= last.positionStart) {
+          last.positionStart = positionStart;
+          last.itemCount += itemCount;
+          return true;
+        }
+        return false;
+      case UpdateOp.UPDATE:
+        if (payload != last.payload) {
+          return false;
+        }
+        final int end = positionStart + itemCount;
+        final int lastEnd = last.positionStart + last.itemCount;
+        if (positionStart <= lastEnd && end >= last.positionStart) {
+          last.positionStart = Math.min(positionStart, last.positionStart);
+          last.itemCount = Math.max(end, lastEnd) - last.positionStart;
+          return true;
+        }
+        return false;
+      default:
+        return false;
+    }
+  }
+
   @Override
-  public UpdateOp obtainUpdateOp(int cmd, int startPosition, int itemCount, Object payload) {
-    return null;
+  public UpdateOp obtainUpdateOp(int cmd, int positionStart, int itemCount, Object payload) {
+    UpdateOp op = mUpdateOpPool.acquire();
+    if (op == null) {
+      op = new UpdateOp(cmd, positionStart, itemCount, payload);
+    } else {
+      op.cmd = cmd;
+      op.positionStart = positionStart;
+      op.itemCount = itemCount;
+      op.payload = payload;
+    }
+    return op;
   }
 
   @Override
   public void recycleUpdateOp(UpdateOp op) {
+    if (!mDisableRecycler) {
+      op.payload = null;
+      mUpdateOpPool.release(op);
+    }
+  }
 
+  void recycleUpdateOpsAndClearList(List<UpdateOp> ops) {
+    final int count = ops.size();
+    for (int i = 0; i < count; i++) {
+      recycleUpdateOp(ops.get(i));
+    }
+    ops.clear();
   }
 
+  /**
+   * Queued operation to happen when child views are updated.
+   */
   static class UpdateOp {
+    static final int ADD = 1;
+
+    static final int REMOVE = 1 << 1;
+
+    static final int UPDATE = 1 << 2;
+
+    static final int MOVE = 1 << 3;
+
+    static final int POOL_SIZE = 30;
+
+    int cmd;
+
+    int positionStart;
+
+    Object payload;
+
+    // holds the target position if this is a MOVE
+    int itemCount;
+
+    UpdateOp(int cmd, int positionStart, int itemCount, Object payload) {
+      this.cmd = cmd;
+      this.positionStart = positionStart;
+      this.itemCount = itemCount;
+      this.payload = payload;
+    }
+
+    String cmdToString() {
+      switch (cmd) {
+        case ADD:
+          return "add";
+        case REMOVE:
+          return "rm";
+        case UPDATE:
+          return "up";
+        case MOVE:
+          return "mv";
+      }
+      return "??";
+    }
+
+    @Override
+    public String toString() {
+      return Integer.toHexString(System.identityHashCode(this))
+          + "[" + cmdToString() + ",s:" + positionStart + "c:" + itemCount
+          + ",p:" + payload + "]";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+
+      UpdateOp op = (UpdateOp) o;
+
+      if (cmd != op.cmd) {
+        return false;
+      }
+      if (cmd == MOVE && Math.abs(itemCount - positionStart) == 1) {
+        // reverse of this is also true
+        if (itemCount == op.positionStart && positionStart == op.itemCount) {
+          return true;
+        }
+      }
+      if (itemCount != op.itemCount) {
+        return false;
+      }
+      if (positionStart != op.positionStart) {
+        return false;
+      }
+      if (payload != null) {
+        if (!payload.equals(op.payload)) {
+          return false;
+        }
+      } else if (op.payload != null) {
+        return false;
+      }
+
+      return true;
+    }
 
+    @Override
+    public int hashCode() {
+      int result = cmd;
+      result = 31 * result + positionStart;
+      result = 31 * result + itemCount;
+      return result;
+    }
   }
 
   interface Callback {
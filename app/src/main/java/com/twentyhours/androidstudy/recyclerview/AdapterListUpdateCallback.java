@@ -0,0 +1,43 @@
+package com.twentyhours.androidstudy.recyclerview;
+
+/**
+ * ListUpdateCallback that dispatches update events to the given adapter.
+ * <p>
+ * The events are queued by the adapter helper of the RecyclerView, which merges the adjacent
+ * ones and applies them all in the next layout pass.
+ *
+ * @see RecyclerView.Adapter
+ */
+public final class AdapterListUpdateCallback implements ListUpdateCallback {
+  private final RecyclerView.Adapter mAdapter;
+
+  /**
+   * Creates an AdapterListUpdateCallback that will dispatch update events to the given
+   * adapter.
+   *
+   * @param adapter The Adapter to send updates to.
+   */
+  public AdapterListUpdateCallback(RecyclerView.Adapter adapter) {
+    mAdapter = adapter;
+  }
+
+  @Override
+  public void onInserted(int position, int count) {
+    mAdapter.notifyItemRangeInserted(position, count);
+  }
+
+  @Override
+  public void onRemoved(int position, int count) {
+    mAdapter.notifyItemRangeRemoved(position, count);
+  }
+
+  @Override
+  public void onMoved(int fromPosition, int toPosition) {
+    mAdapter.notifyItemMoved(fromPosition, toPosition);
+  }
+
+  @Override
+  public void onChanged(int position, int count, Object payload) {
+    mAdapter.notifyItemRangeChanged(position, count, payload);
+  }
+}
@@ -0,0 +1,253 @@
+package com.twentyhours.androidstudy.recyclerview;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Helper for computing the difference between two lists via {@link DiffUtil} on a background
+ * thread.
+ * <p>
+ * AsyncListDiffer can consume the values from a {@link RecyclerView.Adapter} through
+ * {@link #submitList(List)}. Each new list is diffed against the current one on a background
+ * executor, and the resulting insert, remove, move and change events are posted back to the
+ * main thread, where the adapter helper of the RecyclerView queues them and applies them all
+ * in the next layout pass.
+ * <p>
+ * If a new list is submitted while a diff is still running, the older diff is considered stale:
+ * its result is dropped instead of being dispatched, so only the latest list is ever shown.
+ * <p>
+ * The Adapter should read its items through {@link #getCurrentList()}, which is only swapped on
+ * the main thread right before the updates are dispatched.
+ *
+ * @param <T> Type of the lists this AsyncListDiffer will receive.
+ */
+public class AsyncListDiffer<T> {
+  private static final Object sExecutorLock = new Object();
+  private static Executor sDiffExecutor = null;
+  private static Executor sMainThreadExecutor = null;
+
+  private final ListUpdateCallback mUpdateCallback;
+  private final DiffUtil.ItemCallback<T> mItemCallback;
+  private final Executor mBackgroundThreadExecutor;
+  private final Executor mMainThreadExecutor;
+
+  @Nullable
+  private List<T> mList;
+
+  /**
+   * Non-null, unmodifiable version of mList.
+   * <p>
+   * Collections.emptyList when mList is null, wrapped by Collections.unmodifiableList otherwise.
+   */
+  @NonNull
+  private List<T> mReadOnlyList = Collections.emptyList();
+
+  // Max generation of currently scheduled runnable. Written on the main thread, read by the
+  // diff runnables so a stale diff can bail out before it starts.
+  private volatile int mMaxScheduledGeneration;
+
+  /**
+   * Convenience for
+   * {@code AsyncListDiffer(new AdapterListUpdateCallback(adapter), itemCallback, ...)} with the
+   * default background and main thread executors.
+   *
+   * @param adapter      Adapter to dispatch position updates to.
+   * @param itemCallback ItemCallback that compares items.
+   */
+  public AsyncListDiffer(@NonNull RecyclerView.Adapter adapter,
+                         @NonNull DiffUtil.ItemCallback<T> itemCallback) {
+    this(new AdapterListUpdateCallback(adapter), itemCallback, getDiffExecutor(),
+        getMainThreadExecutor());
+  }
+
+  /**
+   * Create an AsyncListDiffer with the given callbacks and executors.
+   *
+   * @param listUpdateCallback       Callback to dispatch updates to.
+   * @param itemCallback             ItemCallback that compares items.
+   * @param backgroundThreadExecutor Executor the diffs are computed on.
+   * @param mainThreadExecutor       Executor the results are dispatched on. Must run its tasks
+   *                                 on the thread that owns the RecyclerView.
+   */
+  public AsyncListDiffer(@NonNull ListUpdateCallback listUpdateCallback,
+                         @NonNull DiffUtil.ItemCallback<T> itemCallback,
+                         @NonNull Executor backgroundThreadExecutor,
+                         @NonNull Executor mainThreadExecutor) {
+    mUpdateCallback = listUpdateCallback;
+    mItemCallback = itemCallback;
+    mBackgroundThreadExecutor = backgroundThreadExecutor;
+    mMainThreadExecutor = mainThreadExecutor;
+  }
+
+  private static Executor getDiffExecutor() {
+    synchronized (sExecutorLock) {
+      if (sDiffExecutor == null) {
+        sDiffExecutor = Executors.newFixedThreadPool(2);
+      }
+      return sDiffExecutor;
+    }
+  }
+
+  private static Executor getMainThreadExecutor() {
+    synchronized (sExecutorLock) {
+      if (sMainThreadExecutor == null) {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        sMainThreadExecutor = new Executor() {
+          @Override
+          public void execute(@NonNull Runnable command) {
+            handler.post(command);
+          }
+        };
+      }
+      return sMainThreadExecutor;
+    }
+  }
+
+  /**
+   * Get the current List - any diffing to present this list has already been computed and
+   * dispatched via the ListUpdateCallback.
+   * <p>
+   * If a <code>null</code> List, or no List has been submitted, an empty list will be returned.
+   * <p>
+   * The returned list may not be mutated - mutations to content must be done through
+   * {@link #submitList(List)}.
+   *
+   * @return current List.
+   */
+  @NonNull
+  public List<T> getCurrentList() {
+    return mReadOnlyList;
+  }
+
+  /**
+   * Pass a new List to the AsyncListDiffer. Adapter updates will be computed on a background
+   * thread.
+   * <p>
+   * If a List is already present, a diff will be computed asynchronously on a background
+   * thread. When the diff is computed, it will be applied (dispatched to the
+   * {@link ListUpdateCallback}), and the new List will be swapped in.
+   * <p>
+   * The submitted list must not be mutated afterwards, since the diff may still be reading it.
+   * <p>
+   * This method must be called on the main thread.
+   *
+   * @param newList The new List.
+   */
+  public void submitList(@Nullable final List<T> newList) {
+    // incrementing generation means any currently-running diffs are discarded when they finish
+    final int runGeneration = ++mMaxScheduledGeneration;
+
+    if (newList == mList) {
+      // nothing to do
+      return;
+    }
+
+    // fast simple remove all
+    if (newList == null) {
+      //noinspection ConstantConditions
+      int countRemoved = mList.size();
+      mList = null;
+      mReadOnlyList = Collections.emptyList();
+      // notify last, after list is updated
+      mUpdateCallback.onRemoved(0, countRemoved);
+      return;
+    }
+
+    // fast simple first insert
+    if (mList == null || mList.isEmpty()) {
+      mList = newList;
+      mReadOnlyList = Collections.unmodifiableList(newList);
+      // notify last, after list is updated
+      mUpdateCallback.onInserted(0, newList.size());
+      return;
+    }
+
+    final List<T> oldList = mList;
+    mBackgroundThreadExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        if (mMaxScheduledGeneration != runGeneration) {
+          // a newer list was submitted before this diff started, skip the work entirely
+          return;
+        }
+        final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+          @Override
+          public int getOldListSize() {
+            return oldList.size();
+          }
+
+          @Override
+          public int getNewListSize() {
+            return newList.size();
+          }
+
+          @Override
+          public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            T oldItem = oldList.get(oldItemPosition);
+            T newItem = newList.get(newItemPosition);
+            if (oldItem != null && newItem != null) {
+              return mItemCallback.areItemsTheSame(oldItem, newItem);
+            }
+            // If both items are null we consider them the same.
+            return oldItem == null && newItem == null;
+          }
+
+          @Override
+          public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            T oldItem = oldList.get(oldItemPosition);
+            T newItem = newList.get(newItemPosition);
+            if (oldItem != null && newItem != null) {
+              return mItemCallback.areContentsTheSame(oldItem, newItem);
+            }
+            if (oldItem == null && newItem == null) {
+              return true;
+            }
+            // There is an implementation bug if we reach this point. Per the docs, this
+            // method should only be invoked when areItemsTheSame returns true. That
+            // only occurs when both items are non-null or both are null and both of
+            // those cases are handled above.
+            throw new AssertionError();
+          }
+
+          @Nullable
+          @Override
+          public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+            T oldItem = oldList.get(oldItemPosition);
+            T newItem = newList.get(newItemPosition);
+            if (oldItem != null && newItem != null) {
+              return mItemCallback.getChangePayload(oldItem, newItem);
+            }
+            // There is an implementation bug if we reach this point. Per the docs, this
+            // method should only be invoked when areItemsTheSame returns true AND
+            // areContentsTheSame returns false. That only occurs when both items are
+            // non-null which is the only case handled above.
+            throw new AssertionError();
+          }
+        });
+
+        mMainThreadExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            if (mMaxScheduledGeneration == runGeneration) {
+              latchList(newList, result);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private void latchList(@NonNull List<T> newList, @NonNull DiffUtil.DiffResult diffResult) {
+    mList = newList;
+    // notify last, after list is updated
+    mReadOnlyList = Collections.unmodifiableList(newList);
+    diffResult.dispatchUpdatesTo(mUpdateCallback);
+  }
+}
@@ -1,42 +1,1560 @@
 package com.twentyhours.androidstudy.recyclerview;
 
+import static com.twentyhours.androidstudy.recyclerview.RecyclerView.NO_POSITION;
+
 import android.content.Context;
-import android.support.v7.widget.OrientationHelper;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.helper.ItemTouchHelper;
 import android.util.AttributeSet;
+import android.util.Log;
 import android.view.View;
+import android.view.ViewGroup;
 
 /**
  * Created by soonhyung-imac on 4/4/17.
+ *
+ * A {@link RecyclerView.LayoutManager} implementation which provides similar functionality to
+ * {@link android.widget.ListView}.
+ * <p>
+ * The children are laid out from an anchor (a position and a coordinate) towards both ends of
+ * the RecyclerView until the visible space is filled. While scrolling, only the newly exposed
+ * space is filled and the children scrolled out of the visible area are recycled.
+ * <p>
+ * The auto-measure, the saved state, the smooth scroll and the predictive animations of the
+ * support library are not ported yet.
  */
 
 public class LinearLayoutManager extends RecyclerView.LayoutManager implements
     ItemTouchHelper.ViewDropHandler, RecyclerView.SmoothScroller.ScrollVectorProvider {
+  private static final String TAG = "LinearLayoutManager";
+
+  static final boolean DEBUG = false;
+
   public static final int HORIZONTAL = OrientationHelper.HORIZONTAL;
 
   public static final int VERTICAL = OrientationHelper.VERTICAL;
 
+  public static final int INVALID_OFFSET = Integer.MIN_VALUE;
+
+  /**
+   * Current orientation. Either {@link #HORIZONTAL} or {@link #VERTICAL}
+   */
+  int mOrientation;
+
+  /**
+   * Helper class that keeps temporary layout state.
+   * It does not keep state after layout is complete but we still keep a reference to re-use
+   * the same object.
+   */
+  private LayoutState mLayoutState;
+
+  /**
+   * Many calculations are made depending on orientation. To keep it clean, this interface
+   * helps {@link LinearLayoutManager} make those decisions.
+   * Based on {@link #mOrientation}, an implementation is lazily created in
+   * {@link #ensureLayoutState} method.
+   */
+  OrientationHelper mOrientationHelper;
+
+  /**
+   * We need to track this so that we can ignore current position when it changes.
+   */
+  private boolean mLastStackFromEnd;
+
+  /**
+   * Defines if layout should be calculated from end to start.
+   *
+   * @see #mShouldReverseLayout
+   */
+  private boolean mReverseLayout = false;
+
+  /**
+   * This keeps the final value for how LayoutManager should start laying out views.
+   * It is calculated by checking {@link #getReverseLayout()} and View's layout direction.
+   * {@link #onLayoutChildren(RecyclerView.Recycler, RecyclerView.State)} is run.
+   */
+  boolean mShouldReverseLayout = false;
+
+  /**
+   * Works the same way as {@link android.widget.AbsListView#setStackFromBottom(boolean)} and
+   * it supports both orientations.
+   * see {@link android.widget.AbsListView#setStackFromBottom(boolean)}
+   */
+  private boolean mStackFromEnd = false;
+
+  /**
+   * When LayoutManager needs to scroll to a position, it sets this variable and requests a
+   * layout which will check this variable and re-layout accordingly.
+   */
+  int mPendingScrollPosition = NO_POSITION;
+
+  /**
+   * Used to keep the offset value when {@link #scrollToPositionWithOffset(int, int)} is
+   * called.
+   */
+  int mPendingScrollPositionOffset = INVALID_OFFSET;
+
+  private boolean mRecycleChildrenOnDetach;
+
+  /**
+   * Re-used variable to keep anchor information on re-layout.
+   * Anchor position and coordinate defines the reference point for LLM while doing a layout.
+   */
+  final AnchorInfo mAnchorInfo = new AnchorInfo();
+
+  /**
+   * Stashed to avoid allocation, currently only used in #fill()
+   */
+  private final LayoutChunkResult mLayoutChunkResult = new LayoutChunkResult();
+
+  /**
+   * Creates a vertical LinearLayoutManager
+   *
+   * @param context Current context, will be used to access resources.
+   */
   public LinearLayoutManager(Context context) {
     this(context, VERTICAL, false);
   }
 
+  /**
+   * @param context       Current context, will be used to access resources.
+   * @param orientation   Layout orientation. Should be {@link #HORIZONTAL} or {@link
+   *                      #VERTICAL}.
+   * @param reverseLayout When set to true, layouts from end to start.
+   */
   public LinearLayoutManager(Context context, int orientation, boolean reverseLayout) {
-//    setOrientation(orientation);
-//    setReverseLayout(reverseLayout);
-//    setAutoMeasureEnabled(true);
+    setOrientation(orientation);
+    setReverseLayout(reverseLayout);
   }
 
+  /**
+   * Constructor used when layout manager is set in XML by RecyclerView attribute
+   * "layoutManager". The attributes are not parsed yet, thus it creates a vertical layout.
+   */
   public LinearLayoutManager(Context context, AttributeSet attrs, int defStyleAttr,
                              int defStyleRes) {
-//    Properties properties = getProperties(context, attrs, defStyleAttr, defStyleRes);
-//    setOrientation(properties.orientation);
-//    setReverseLayout(properties.reverseLayout);
-//    setStackFromEnd(properties.stackFromEnd);
-//    setAutoMeasureEnabled(true);
+    this(context, VERTICAL, false);
+  }
+
+  @Override
+  public RecyclerView.LayoutParams generateDefaultLayoutParams() {
+    return new RecyclerView.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+        ViewGroup.LayoutParams.WRAP_CONTENT);
+  }
+
+  /**
+   * Returns whether LayoutManager will recycle its children when it is detached from
+   * RecyclerView.
+   *
+   * @return true if LayoutManager will recycle its children when it is detached from
+   * RecyclerView.
+   */
+  public boolean getRecycleChildrenOnDetach() {
+    return mRecycleChildrenOnDetach;
+  }
+
+  /**
+   * Set whether LayoutManager will recycle its children when it is detached from
+   * RecyclerView.
+   * <p>
+   * If you are using a {@link RecyclerView.RecycledViewPool}, it might be a good idea to set
+   * this flag to <code>true</code> so that views will be available to other RecyclerViews
+   * immediately.
+   * <p>
+   * Note that, setting this flag will result in a performance drop if RecyclerView
+   * is restored.
+   *
+   * @param recycleChildrenOnDetach Whether children should be recycled in detach or not.
+   */
+  public void setRecycleChildrenOnDetach(boolean recycleChildrenOnDetach) {
+    mRecycleChildrenOnDetach = recycleChildrenOnDetach;
+  }
+
+  @Override
+  public void onDetachedFromWindow(RecyclerView view, RecyclerView.Recycler recycler) {
+    super.onDetachedFromWindow(view, recycler);
+    if (mRecycleChildrenOnDetach) {
+      removeAndRecycleAllViews(recycler);
+      recycler.clear();
+    }
+  }
+
+  /**
+   * @return true if {@link #getOrientation()} is {@link #HORIZONTAL}
+   */
+  @Override
+  public boolean canScrollHorizontally() {
+    return mOrientation == HORIZONTAL;
+  }
+
+  /**
+   * @return true if {@link #getOrientation()} is {@link #VERTICAL}
+   */
+  @Override
+  public boolean canScrollVertically() {
+    return mOrientation == VERTICAL;
+  }
+
+  /**
+   * Compatibility support for {@link android.widget.AbsListView#setStackFromBottom(boolean)}
+   */
+  public void setStackFromEnd(boolean stackFromEnd) {
+    assertNotInLayoutOrScroll(null);
+    if (mStackFromEnd == stackFromEnd) {
+      return;
+    }
+    mStackFromEnd = stackFromEnd;
+    requestLayout();
+  }
+
+  public boolean getStackFromEnd() {
+    return mStackFromEnd;
+  }
+
+  /**
+   * Returns the current orientation of the layout.
+   *
+   * @return Current orientation,  either {@link #HORIZONTAL} or {@link #VERTICAL}
+   * @see #setOrientation(int)
+   */
+  public int getOrientation() {
+    return mOrientation;
+  }
+
+  /**
+   * Sets the orientation of the layout. {@link LinearLayoutManager}
+   * will do its best to keep scroll position.
+   *
+   * @param orientation {@link #HORIZONTAL} or {@link #VERTICAL}
+   */
+  public void setOrientation(int orientation) {
+    if (orientation != HORIZONTAL && orientation != VERTICAL) {
+      throw new IllegalArgumentException("invalid orientation:" + orientation);
+    }
+    assertNotInLayoutOrScroll(null);
+    if (orientation == mOrientation) {
+      return;
+    }
+    mOrientation = orientation;
+    mOrientationHelper = null;
+    requestLayout();
+  }
+
+  /**
+   * Calculates the view layout order. (e.g. from end to start or start to end)
+   * RTL layout support is applied automatically. So if layout is RTL and
+   * {@link #getReverseLayout()} is {@code true}, elements will be laid out starting from left.
+   */
+  private void resolveShouldLayoutReverse() {
+    // A == B is the same result, but we rather keep it readable
+    if (mOrientation == VERTICAL || !isLayoutRTL()) {
+      mShouldReverseLayout = mReverseLayout;
+    } else {
+      mShouldReverseLayout = !mReverseLayout;
+    }
+  }
+
+  /**
+   * Returns if views are laid out from the opposite direction of the layout.
+   *
+   * @return If layout is reversed or not.
+   * @see #setReverseLayout(boolean)
+   */
+  public boolean getReverseLayout() {
+    return mReverseLayout;
+  }
+
+  /**
+   * Used to reverse item traversal and layout order.
+   * This behaves similar to the layout change for RTL views. When set to true, first item is
+   * laid out at the end of the UI, second item is laid out before it etc.
+   *
+   * For horizontal layouts, it depends on the layout direction.
+   * When set to true, If {@link RecyclerView} is LTR, than it will
+   * layout from RTL, if {@link RecyclerView}} is RTL, it will layout
+   * from LTR.
+   *
+   * If you are looking for the exact same behavior of
+   * {@link android.widget.AbsListView#setStackFromBottom(boolean)}, use
+   * {@link #setStackFromEnd(boolean)}
+   */
+  public void setReverseLayout(boolean reverseLayout) {
+    assertNotInLayoutOrScroll(null);
+    if (reverseLayout == mReverseLayout) {
+      return;
+    }
+    mReverseLayout = reverseLayout;
+    requestLayout();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public View findViewByPosition(int position) {
+    final int childCount = getChildCount();
+    if (childCount == 0) {
+      return null;
+    }
+    final int firstChild = getPosition(getChildAt(0));
+    final int viewPosition = position - firstChild;
+    if (viewPosition >= 0 && viewPosition < childCount) {
+      final View child = getChildAt(viewPosition);
+      if (getPosition(child) == position) {
+        return child; // in pre-layout, this may not match
+      }
+    }
+    // fallback to traversal. This might be necessary in pre-layout.
+    return super.findViewByPosition(position);
+  }
+
+  /**
+   * <p>Returns the amount of extra space that should be laid out by LayoutManager.</p>
+   *
+   * <p>By default, {@link LinearLayoutManager} lays out 1 extra page
+   * of items while smooth scrolling and 0 otherwise. Smooth scrolling is not ported yet, thus
+   * it always returns 0. You can override this method to implement your custom layout
+   * pre-cache logic.</p>
+   *
+   * <p><strong>Note:</strong>Laying out invisible elements generally comes with significant
+   * performance cost. It's typically only desirable in places like smooth scrolling to an
+   * unknown location, where 1) the extra content helps LinearLayoutManager know in advance when
+   * its target is approaching, so it can decelerate early and smoothly and 2) while motion is
+   * continuous.</p>
+   *
+   * @return The extra space that should be laid out (in pixels).
+   */
+  protected int getExtraLayoutSpace(RecyclerView.State state) {
+    return 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+    // layout algorithm:
+    // 1) by checking children and other variables, find an anchor coordinate and an anchor
+    //  item position.
+    // 2) fill towards start, stacking from bottom
+    // 3) fill towards end, stacking from top
+    if (mPendingScrollPosition != NO_POSITION) {
+      if (state.getItemCount() == 0) {
+        removeAndRecycleAllViews(recycler);
+        return;
+      }
+    }
+    ensureLayoutState();
+    mLayoutState.mRecycle = false;
+    // resolve layout direction
+    resolveShouldLayoutReverse();
+
+    if (!mAnchorInfo.mValid || mPendingScrollPosition != NO_POSITION) {
+      mAnchorInfo.reset();
+      mAnchorInfo.mLayoutFromEnd = mShouldReverseLayout ^ mStackFromEnd;
+      // calculate anchor position and coordinate
+      updateAnchorInfoForLayout(recycler, state, mAnchorInfo);
+      mAnchorInfo.mValid = true;
+    }
+    if (DEBUG) {
+      Log.d(TAG, "Anchor info:" + mAnchorInfo);
+    }
+
+    // LLM may decide to layout items for "extra" pixels to account for scrolling target,
+    // caching or predictive animations.
+    int extraForStart;
+    int extraForEnd;
+    final int extra = getExtraLayoutSpace(state);
+    // If the previous scroll delta was less than zero, the extra space should be laid out
+    // at the start. Otherwise, it should be at the end.
+    if (mLayoutState.mLastScrollDelta >= 0) {
+      extraForEnd = extra;
+      extraForStart = 0;
+    } else {
+      extraForStart = extra;
+      extraForEnd = 0;
+    }
+    extraForStart += mOrientationHelper.getStartAfterPadding();
+    extraForEnd += mOrientationHelper.getEndPadding();
+    if (mPendingScrollPosition != NO_POSITION
+        && mPendingScrollPositionOffset != INVALID_OFFSET) {
+      // if the child is visible and we are going to move it around, we should layout
+      // extra items in the opposite direction to make sure new items animate nicely
+      // instead of just fading in
+      final View existing = findViewByPosition(mPendingScrollPosition);
+      if (existing != null) {
+        final int current;
+        final int upcomingOffset;
+        if (mShouldReverseLayout) {
+          current = mOrientationHelper.getEndAfterPadding()
+              - mOrientationHelper.getDecoratedEnd(existing);
+          upcomingOffset = current - mPendingScrollPositionOffset;
+        } else {
+          current = mOrientationHelper.getDecoratedStart(existing)
+              - mOrientationHelper.getStartAfterPadding();
+          upcomingOffset = mPendingScrollPositionOffset - current;
+        }
+        if (upcomingOffset > 0) {
+          extraForStart += upcomingOffset;
+        } else {
+          extraForEnd -= upcomingOffset;
+        }
+      }
+    }
+    int startOffset;
+    int endOffset;
+    detachAndScrapAttachedViews(recycler);
+    mLayoutState.mInfinite = resolveIsInfinite();
+    if (mAnchorInfo.mLayoutFromEnd) {
+      // fill towards start
+      updateLayoutStateToFillStart(mAnchorInfo);
+      mLayoutState.mExtra = extraForStart;
+      fill(recycler, mLayoutState, state, false);
+      startOffset = mLayoutState.mOffset;
+      final int firstElement = mLayoutState.mCurrentPosition;
+      if (mLayoutState.mAvailable > 0) {
+        extraForEnd += mLayoutState.mAvailable;
+      }
+      // fill towards end
+      updateLayoutStateToFillEnd(mAnchorInfo);
+      mLayoutState.mExtra = extraForEnd;
+      mLayoutState.mCurrentPosition += mLayoutState.mItemDirection;
+      fill(recycler, mLayoutState, state, false);
+      endOffset = mLayoutState.mOffset;
+
+      if (mLayoutState.mAvailable > 0) {
+        // end could not consume all. add more items towards start
+        extraForStart = mLayoutState.mAvailable;
+        updateLayoutStateToFillStart(firstElement, startOffset);
+        mLayoutState.mExtra = extraForStart;
+        fill(recycler, mLayoutState, state, false);
+        startOffset = mLayoutState.mOffset;
+      }
+    } else {
+      // fill towards end
+      updateLayoutStateToFillEnd(mAnchorInfo);
+      mLayoutState.mExtra = extraForEnd;
+      fill(recycler, mLayoutState, state, false);
+      endOffset = mLayoutState.mOffset;
+      final int lastElement = mLayoutState.mCurrentPosition;
+      if (mLayoutState.mAvailable > 0) {
+        extraForStart += mLayoutState.mAvailable;
+      }
+      // fill towards start
+      updateLayoutStateToFillStart(mAnchorInfo);
+      mLayoutState.mExtra = extraForStart;
+      mLayoutState.mCurrentPosition += mLayoutState.mItemDirection;
+      fill(recycler, mLayoutState, state, false);
+      startOffset = mLayoutState.mOffset;
+
+      if (mLayoutState.mAvailable > 0) {
+        extraForEnd = mLayoutState.mAvailable;
+        // start could not consume all it should. add more items towards end
+        updateLayoutStateToFillEnd(lastElement, endOffset);
+        mLayoutState.mExtra = extraForEnd;
+        fill(recycler, mLayoutState, state, false);
+        endOffset = mLayoutState.mOffset;
+      }
+    }
+
+    // changes may cause gaps on the UI, try to fix them.
+    if (getChildCount() > 0) {
+      // because layout from end may be changed by scroll to position
+      // we re-calculate it.
+      // find which side we should check for gaps.
+      if (mShouldReverseLayout ^ mStackFromEnd) {
+        int fixOffset = fixLayoutEndGap(endOffset, recycler, state, true);
+        startOffset += fixOffset;
+        endOffset += fixOffset;
+        fixOffset = fixLayoutStartGap(startOffset, recycler, state, false);
+        startOffset += fixOffset;
+        endOffset += fixOffset;
+      } else {
+        int fixOffset = fixLayoutStartGap(startOffset, recycler, state, true);
+        startOffset += fixOffset;
+        endOffset += fixOffset;
+        fixOffset = fixLayoutEndGap(endOffset, recycler, state, false);
+        startOffset += fixOffset;
+        endOffset += fixOffset;
+      }
+    }
+    mOrientationHelper.onLayoutComplete();
+    mLastStackFromEnd = mStackFromEnd;
+    // The layout is complete, the next one starts from the children again.
+    mPendingScrollPosition = NO_POSITION;
+    mPendingScrollPositionOffset = INVALID_OFFSET;
+    mAnchorInfo.reset();
+    if (DEBUG) {
+      validateChildOrder();
+    }
+  }
+
+  private void updateAnchorInfoForLayout(RecyclerView.Recycler recycler, RecyclerView.State state,
+                                         AnchorInfo anchorInfo) {
+    if (updateAnchorFromPendingData(state, anchorInfo)) {
+      if (DEBUG) {
+        Log.d(TAG, "updated anchor info from pending information");
+      }
+      return;
+    }
+
+    if (updateAnchorFromChildren(recycler, state, anchorInfo)) {
+      if (DEBUG) {
+        Log.d(TAG, "updated anchor info from existing children");
+      }
+      return;
+    }
+    if (DEBUG) {
+      Log.d(TAG, "deciding anchor info for fresh state");
+    }
+    anchorInfo.assignCoordinateFromPadding();
+    anchorInfo.mPosition = mStackFromEnd ? state.getItemCount() - 1 : 0;
+  }
+
+  /**
+   * Finds an anchor child from existing Views. Most of the time, this is the view closest to
+   * start or end that has a valid position (e.g. not removed).
+   * <p>
+   * If a child has focus, it is given priority.
+   */
+  private boolean updateAnchorFromChildren(RecyclerView.Recycler recycler,
+                                           RecyclerView.State state, AnchorInfo anchorInfo) {
+    if (getChildCount() == 0) {
+      return false;
+    }
+    if (mLastStackFromEnd != mStackFromEnd) {
+      return false;
+    }
+    View referenceChild = anchorInfo.mLayoutFromEnd
+        ? findReferenceChildClosestToEnd(recycler, state)
+        : findReferenceChildClosestToStart(recycler, state);
+    if (referenceChild != null) {
+      anchorInfo.assignFromView(referenceChild);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * If there is a pending scroll position, updates the anchor info from that data and returns
+   * true. Otherwise, returns false.
+   */
+  private boolean updateAnchorFromPendingData(RecyclerView.State state, AnchorInfo anchorInfo) {
+    if (mPendingScrollPosition == NO_POSITION) {
+      return false;
+    }
+    // validate scroll position
+    if (mPendingScrollPosition < 0 || mPendingScrollPosition >= state.getItemCount()) {
+      mPendingScrollPosition = NO_POSITION;
+      mPendingScrollPositionOffset = INVALID_OFFSET;
+      if (DEBUG) {
+        Log.e(TAG, "ignoring invalid scroll position " + mPendingScrollPosition);
+      }
+      return false;
+    }
+
+    // if child is visible, try to make it a reference child and ensure it is fully visible.
+    // if child is not visible, align it depending on its virtual position.
+    anchorInfo.mPosition = mPendingScrollPosition;
+    if (mPendingScrollPositionOffset == INVALID_OFFSET) {
+      View child = findViewByPosition(mPendingScrollPosition);
+      if (child != null) {
+        final int childSize = mOrientationHelper.getDecoratedMeasurement(child);
+        if (childSize > mOrientationHelper.getTotalSpace()) {
+          // item does not fit. fix depending on layout direction
+          anchorInfo.assignCoordinateFromPadding();
+          return true;
+        }
+        final int startGap = mOrientationHelper.getDecoratedStart(child)
+            - mOrientationHelper.getStartAfterPadding();
+        if (startGap < 0) {
+          anchorInfo.mCoordinate = mOrientationHelper.getStartAfterPadding();
+          anchorInfo.mLayoutFromEnd = false;
+          return true;
+        }
+        final int endGap = mOrientationHelper.getEndAfterPadding()
+            - mOrientationHelper.getDecoratedEnd(child);
+        if (endGap < 0) {
+          anchorInfo.mCoordinate = mOrientationHelper.getEndAfterPadding();
+          anchorInfo.mLayoutFromEnd = true;
+          return true;
+        }
+        anchorInfo.mCoordinate = anchorInfo.mLayoutFromEnd
+            ? (mOrientationHelper.getDecoratedEnd(child) + mOrientationHelper
+            .getTotalSpaceChange())
+            : mOrientationHelper.getDecoratedStart(child);
+      } else { // item is not visible.
+        if (getChildCount() > 0) {
+          // get position of any child, does not matter
+          int pos = getPosition(getChildAt(0));
+          anchorInfo.mLayoutFromEnd = mPendingScrollPosition < pos == mShouldReverseLayout;
+        }
+        anchorInfo.assignCoordinateFromPadding();
+      }
+      return true;
+    }
+    // override layout from end values for consistency
+    anchorInfo.mLayoutFromEnd = mShouldReverseLayout;
+    // if this changes, we should update prepareForDrop as well
+    if (mShouldReverseLayout) {
+      anchorInfo.mCoordinate = mOrientationHelper.getEndAfterPadding()
+          - mPendingScrollPositionOffset;
+    } else {
+      anchorInfo.mCoordinate = mOrientationHelper.getStartAfterPadding()
+          + mPendingScrollPositionOffset;
+    }
+    return true;
+  }
+
+  /**
+   * @return The final offset amount for children
+   */
+  private int fixLayoutEndGap(int endOffset, RecyclerView.Recycler recycler,
+                              RecyclerView.State state, boolean canOffsetChildren) {
+    int gap = mOrientationHelper.getEndAfterPadding() - endOffset;
+    int fixOffset = 0;
+    if (gap > 0) {
+      fixOffset = -scrollBy(-gap, recycler, state);
+    } else {
+      return 0; // nothing to fix
+    }
+    // move offset according to scroll amount
+    endOffset += fixOffset;
+    if (canOffsetChildren) {
+      // re-calculate gap, see if we could fix it
+      gap = mOrientationHelper.getEndAfterPadding() - endOffset;
+      if (gap > 0) {
+        mOrientationHelper.offsetChildren(gap);
+        return gap + fixOffset;
+      }
+    }
+    return fixOffset;
+  }
+
+  /**
+   * @return The final offset amount for children
+   */
+  private int fixLayoutStartGap(int startOffset, RecyclerView.Recycler recycler,
+                                RecyclerView.State state, boolean canOffsetChildren) {
+    int gap = startOffset - mOrientationHelper.getStartAfterPadding();
+    int fixOffset = 0;
+    if (gap > 0) {
+      // check if we should fix this gap.
+      fixOffset = -scrollBy(gap, recycler, state);
+    } else {
+      return 0; // nothing to fix
+    }
+    startOffset += fixOffset;
+    if (canOffsetChildren) {
+      // re-calculate gap, see if we could fix it
+      gap = startOffset - mOrientationHelper.getStartAfterPadding();
+      if (gap > 0) {
+        mOrientationHelper.offsetChildren(-gap);
+        return fixOffset - gap;
+      }
+    }
+    return fixOffset;
+  }
+
+  private void updateLayoutStateToFillEnd(AnchorInfo anchorInfo) {
+    updateLayoutStateToFillEnd(anchorInfo.mPosition, anchorInfo.mCoordinate);
+  }
+
+  private void updateLayoutStateToFillEnd(int itemPosition, int offset) {
+    mLayoutState.mAvailable = mOrientationHelper.getEndAfterPadding() - offset;
+    mLayoutState.mItemDirection = mShouldReverseLayout ? LayoutState.ITEM_DIRECTION_HEAD :
+        LayoutState.ITEM_DIRECTION_TAIL;
+    mLayoutState.mCurrentPosition = itemPosition;
+    mLayoutState.mLayoutDirection = LayoutState.LAYOUT_END;
+    mLayoutState.mOffset = offset;
+    mLayoutState.mScrollingOffset = LayoutState.SCROLLING_OFFSET_NaN;
+  }
+
+  private void updateLayoutStateToFillStart(AnchorInfo anchorInfo) {
+    updateLayoutStateToFillStart(anchorInfo.mPosition, anchorInfo.mCoordinate);
+  }
+
+  private void updateLayoutStateToFillStart(int itemPosition, int offset) {
+    mLayoutState.mAvailable = offset - mOrientationHelper.getStartAfterPadding();
+    mLayoutState.mCurrentPosition = itemPosition;
+    mLayoutState.mItemDirection = mShouldReverseLayout ? LayoutState.ITEM_DIRECTION_TAIL :
+        LayoutState.ITEM_DIRECTION_HEAD;
+    mLayoutState.mLayoutDirection = LayoutState.LAYOUT_START;
+    mLayoutState.mOffset = offset;
+    mLayoutState.mScrollingOffset = LayoutState.SCROLLING_OFFSET_NaN;
+  }
+
+  protected boolean isLayoutRTL() {
+    return getLayoutDirection() == ViewCompat.LAYOUT_DIRECTION_RTL;
+  }
+
+  void ensureLayoutState() {
+    if (mLayoutState == null) {
+      mLayoutState = createLayoutState();
+    }
+    if (mOrientationHelper == null) {
+      mOrientationHelper = OrientationHelper.createOrientationHelper(this, mOrientation);
+    }
+  }
+
+  /**
+   * Test overrides this to plug some tracking and verification.
+   *
+   * @return A new LayoutState
+   */
+  LayoutState createLayoutState() {
+    return new LayoutState();
+  }
+
+  /**
+   * <p>Scroll the RecyclerView to make the position visible.</p>
+   *
+   * <p>RecyclerView will scroll the minimum amount that is necessary to make the
+   * target position visible. If you are looking for a similar behavior to
+   * {@link android.widget.ListView#setSelection(int)} or
+   * {@link android.widget.ListView#setSelectionFromTop(int, int)}, use
+   * {@link #scrollToPositionWithOffset(int, int)}.</p>
+   *
+   * <p>Note that scroll position change will not be reflected until the next layout call.</p>
+   *
+   * @param position Scroll to this adapter position
+   * @see #scrollToPositionWithOffset(int, int)
+   */
+  @Override
+  public void scrollToPosition(int position) {
+    mPendingScrollPosition = position;
+    mPendingScrollPositionOffset = INVALID_OFFSET;
+    requestLayout();
+  }
+
+  /**
+   * Scroll to the specified adapter position with the given offset from resolved layout
+   * start. Resolved layout start depends on {@link #getReverseLayout()},
+   * {@link ViewCompat#getLayoutDirection(android.view.View)} and {@link #getStackFromEnd()}.
+   * <p>
+   * For example, if layout is {@link #VERTICAL} and {@link #getStackFromEnd()} is true, calling
+   * <code>scrollToPositionWithOffset(10, 20)</code> will layout such that
+   * <code>item[10]</code>'s bottom is 20 pixels above the RecyclerView's bottom.
+   * <p>
+   * Note that scroll position change will not be reflected until the next layout call.
+   * <p>
+   * If you are just trying to make a position visible, use {@link #scrollToPosition(int)}.
+   *
+   * @param position Index (starting at 0) of the reference item.
+   * @param offset   The distance (in pixels) between the start edge of the item view and
+   *                 start edge of the RecyclerView.
+   * @see #setReverseLayout(boolean)
+   * @see #scrollToPosition(int)
+   */
+  public void scrollToPositionWithOffset(int position, int offset) {
+    mPendingScrollPosition = position;
+    mPendingScrollPositionOffset = offset;
+    requestLayout();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int scrollHorizontallyBy(int dx, RecyclerView.Recycler recycler,
+                                  RecyclerView.State state) {
+    if (mOrientation == VERTICAL) {
+      return 0;
+    }
+    return scrollBy(dx, recycler, state);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler,
+                                RecyclerView.State state) {
+    if (mOrientation == HORIZONTAL) {
+      return 0;
+    }
+    return scrollBy(dy, recycler, state);
+  }
+
+  @Override
+  public void collectAdjacentPrefetchPositions(int dx, int dy, RecyclerView.State state,
+                                               LayoutPrefetchRegistry layoutPrefetchRegistry) {
+    int delta = (mOrientation == HORIZONTAL) ? dx : dy;
+    if (getChildCount() == 0 || delta == 0) {
+      // can't support this scroll, so don't bother prefetching
+      return;
+    }
+
+    ensureLayoutState();
+    final int layoutDirection = delta > 0 ? LayoutState.LAYOUT_END : LayoutState.LAYOUT_START;
+    final int absDy = Math.abs(delta);
+    updateLayoutState(layoutDirection, absDy, true, state);
+    collectPrefetchPositionsForLayoutState(state, mLayoutState, absDy, layoutPrefetchRegistry);
+  }
+
+  /**
+   * Adds the positions the next scroll of the given amount is expected to bring in, starting
+   * from the one next to the edge child. The items which are not laid out yet are assumed to
+   * be as large as the edge child, thus a fast scroll prefetches a few items while a slow one
+   * prefetches only the next item.
+   */
+  void collectPrefetchPositionsForLayoutState(RecyclerView.State state, LayoutState layoutState,
+                                              int scrollDistance,
+                                              LayoutPrefetchRegistry layoutPrefetchRegistry) {
+    final View edgeChild = layoutState.mLayoutDirection == LayoutState.LAYOUT_END
+        ? getChildClosestToEnd() : getChildClosestToStart();
+    final int itemSize = mOrientationHelper.getDecoratedMeasurement(edgeChild);
+    int pos = layoutState.mCurrentPosition;
+    int distance = Math.max(0, layoutState.mScrollingOffset);
+    while (pos >= 0 && pos < state.getItemCount()) {
+      layoutPrefetchRegistry.addPosition(pos, distance);
+      distance += itemSize;
+      if (itemSize <= 0 || distance >= scrollDistance) {
+        break;
+      }
+      pos += layoutState.mItemDirection;
+    }
+  }
+
+  private void updateLayoutState(int layoutDirection, int requiredSpace,
+                                 boolean canUseExistingSpace, RecyclerView.State state) {
+    // If parent provides a hint, don't measure unlimited.
+    mLayoutState.mInfinite = resolveIsInfinite();
+    mLayoutState.mExtra = getExtraLayoutSpace(state);
+    mLayoutState.mLayoutDirection = layoutDirection;
+    int scrollingOffset;
+    if (layoutDirection == LayoutState.LAYOUT_END) {
+      mLayoutState.mExtra += mOrientationHelper.getEndPadding();
+      // get the first child in the direction we are going
+      final View child = getChildClosestToEnd();
+      // the direction in which we are traversing children
+      mLayoutState.mItemDirection = mShouldReverseLayout ? LayoutState.ITEM_DIRECTION_HEAD
+          : LayoutState.ITEM_DIRECTION_TAIL;
+      mLayoutState.mCurrentPosition = getPosition(child) + mLayoutState.mItemDirection;
+      mLayoutState.mOffset = mOrientationHelper.getDecoratedEnd(child);
+      // calculate how much we can scroll without adding new children (independent of layout)
+      scrollingOffset = mOrientationHelper.getDecoratedEnd(child)
+          - mOrientationHelper.getEndAfterPadding();
+
+    } else {
+      final View child = getChildClosestToStart();
+      mLayoutState.mExtra += mOrientationHelper.getStartAfterPadding();
+      mLayoutState.mItemDirection = mShouldReverseLayout ? LayoutState.ITEM_DIRECTION_TAIL
+          : LayoutState.ITEM_DIRECTION_HEAD;
+      mLayoutState.mCurrentPosition = getPosition(child) + mLayoutState.mItemDirection;
+      mLayoutState.mOffset = mOrientationHelper.getDecoratedStart(child);
+      scrollingOffset = -mOrientationHelper.getDecoratedStart(child)
+          + mOrientationHelper.getStartAfterPadding();
+    }
+    mLayoutState.mAvailable = requiredSpace;
+    if (canUseExistingSpace) {
+      mLayoutState.mAvailable -= scrollingOffset;
+    }
+    mLayoutState.mScrollingOffset = scrollingOffset;
+  }
+
+  boolean resolveIsInfinite() {
+    return mOrientationHelper.getMode() == View.MeasureSpec.UNSPECIFIED
+        && mOrientationHelper.getEnd() == 0;
+  }
+
+  /**
+   * Scrolls the children by the given amount. The space exposed by the scroll is filled with
+   * new children and the children which go out of the visible area are recycled, thus only
+   * the items entering the RecyclerView are laid out.
+   */
+  int scrollBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
+    if (getChildCount() == 0 || dy == 0) {
+      return 0;
+    }
+    ensureLayoutState();
+    mLayoutState.mRecycle = true;
+    final int layoutDirection = dy > 0 ? LayoutState.LAYOUT_END : LayoutState.LAYOUT_START;
+    final int absDy = Math.abs(dy);
+    updateLayoutState(layoutDirection, absDy, true, state);
+    final int consumed = mLayoutState.mScrollingOffset
+        + fill(recycler, mLayoutState, state, false);
+    if (consumed < 0) {
+      if (DEBUG) {
+        Log.d(TAG, "Don't have any more elements to scroll");
+      }
+      return 0;
+    }
+    final int scrolled = absDy > consumed ? layoutDirection * consumed : dy;
+    mOrientationHelper.offsetChildren(-scrolled);
+    if (DEBUG) {
+      Log.d(TAG, "scroll req: " + dy + " scrolled: " + scrolled);
+    }
+    mLayoutState.mLastScrollDelta = scrolled;
+    return scrolled;
+  }
+
+  /**
+   * Recycles children between given indices.
+   *
+   * @param startIndex inclusive
+   * @param endIndex   exclusive
+   */
+  private void recycleChildren(RecyclerView.Recycler recycler, int startIndex, int endIndex) {
+    if (startIndex == endIndex) {
+      return;
+    }
+    if (DEBUG) {
+      Log.d(TAG, "Recycling " + Math.abs(startIndex - endIndex) + " items");
+    }
+    if (endIndex > startIndex) {
+      for (int i = endIndex - 1; i >= startIndex; i--) {
+        removeAndRecycleViewAt(i, recycler);
+      }
+    } else {
+      for (int i = startIndex; i > endIndex; i--) {
+        removeAndRecycleViewAt(i, recycler);
+      }
+    }
+  }
+
+  /**
+   * Recycles views that went out of bounds after scrolling towards the end of the layout.
+   * <p>
+   * Checks both layout position and visible position to guarantee that the view is not
+   * visible.
+   *
+   * @param recycler Recycler instance of {@link RecyclerView}
+   * @param dt       This can be used to add additional padding to the visible area. This is
+   *                 used to detect children that will go out of bounds after scrolling, without
+   *                 actually moving them.
+   */
+  private void recycleViewsFromStart(RecyclerView.Recycler recycler, int dt) {
+    if (dt < 0) {
+      if (DEBUG) {
+        Log.d(TAG, "Called recycle from start with a negative value. This might happen"
+            + " during layout changes but may be sign of a bug");
+      }
+      return;
+    }
+    // ignore padding, ViewGroup may not clip children.
+    final int limit = dt;
+    final int childCount = getChildCount();
+    if (mShouldReverseLayout) {
+      for (int i = childCount - 1; i >= 0; i--) {
+        View child = getChildAt(i);
+        if (mOrientationHelper.getDecoratedEnd(child) > limit) {
+          // stop here
+          recycleChildren(recycler, childCount - 1, i);
+          return;
+        }
+      }
+    } else {
+      for (int i = 0; i < childCount; i++) {
+        View child = getChildAt(i);
+        if (mOrientationHelper.getDecoratedEnd(child) > limit) {
+          // stop here
+          recycleChildren(recycler, 0, i);
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Recycles views that went out of bounds after scrolling towards the start of the layout.
+   * <p>
+   * Checks both layout position and visible position to guarantee that the view is not
+   * visible.
+   *
+   * @param recycler Recycler instance of {@link RecyclerView}
+   * @param dt       This can be used to add additional padding to the visible area. This is
+   *                 used to detect children that will go out of bounds after scrolling, without
+   *                 actually moving them.
+   */
+  private void recycleViewsFromEnd(RecyclerView.Recycler recycler, int dt) {
+    final int childCount = getChildCount();
+    if (dt < 0) {
+      if (DEBUG) {
+        Log.d(TAG, "Called recycle from end with a negative value. This might happen"
+            + " during layout changes but may be sign of a bug");
+      }
+      return;
+    }
+    final int limit = mOrientationHelper.getEnd() - dt;
+    if (mShouldReverseLayout) {
+      for (int i = 0; i < childCount; i++) {
+        View child = getChildAt(i);
+        if (mOrientationHelper.getDecoratedStart(child) < limit) {
+          // stop here
+          recycleChildren(recycler, 0, i);
+          return;
+        }
+      }
+    } else {
+      for (int i = childCount - 1; i >= 0; i--) {
+        View child = getChildAt(i);
+        if (mOrientationHelper.getDecoratedStart(child) < limit) {
+          // stop here
+          recycleChildren(recycler, childCount - 1, i);
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Helper method to call appropriate recycle method depending on current layout direction
+   *
+   * @param recycler    Current recycler that is attached to RecyclerView
+   * @param layoutState Current layout state. Right now, this object does not change but
+   *                    we may consider moving it out of this view so passing around as a
+   *                    parameter for now, rather than accessing {@link #mLayoutState}
+   * @see #recycleViewsFromStart(RecyclerView.Recycler, int)
+   * @see #recycleViewsFromEnd(RecyclerView.Recycler, int)
+   * @see LayoutState#mLayoutDirection
+   */
+  private void recycleByLayoutState(RecyclerView.Recycler recycler, LayoutState layoutState) {
+    if (!layoutState.mRecycle || layoutState.mInfinite) {
+      return;
+    }
+    if (layoutState.mLayoutDirection == LayoutState.LAYOUT_START) {
+      recycleViewsFromEnd(recycler, layoutState.mScrollingOffset);
+    } else {
+      recycleViewsFromStart(recycler, layoutState.mScrollingOffset);
+    }
+  }
+
+  /**
+   * The magic functions :). Fills the given layout, defined by the layoutState. This is fairly
+   * independent from the rest of the {@link LinearLayoutManager}
+   * and with little change, can be made publicly available as a helper class.
+   *
+   * @param recycler        Current recycler that is attached to RecyclerView
+   * @param layoutState     Configuration on how we should fill out the available space.
+   * @param state           Context passed by the RecyclerView to control scroll steps.
+   * @param stopOnFocusable If true, filling stops in the first focusable new child
+   * @return Number of pixels that it added. Useful for scroll functions.
+   */
+  int fill(RecyclerView.Recycler recycler, LayoutState layoutState,
+           RecyclerView.State state, boolean stopOnFocusable) {
+    // max offset we should set is mFastScroll + available
+    final int start = layoutState.mAvailable;
+    if (layoutState.mScrollingOffset != LayoutState.SCROLLING_OFFSET_NaN) {
+      // A scroll smaller than the part of the edge child that is already out of the bounds
+      // leaves mAvailable negative (see updateLayoutState), since no new child is needed.
+      // Only the scrolled distance, not the whole scrolling offset, may be recycled then.
+      if (layoutState.mAvailable < 0) {
+        layoutState.mScrollingOffset += layoutState.mAvailable;
+      }
+      recycleByLayoutState(recycler, layoutState);
+    }
+    int remainingSpace = layoutState.mAvailable + layoutState.mExtra;
+    LayoutChunkResult layoutChunkResult = mLayoutChunkResult;
+    while ((layoutState.mInfinite || remainingSpace > 0) && layoutState.hasMore(state)) {
+      layoutChunkResult.resetInternal();
+      layoutChunk(recycler, state, layoutState, layoutChunkResult);
+      if (layoutChunkResult.mFinished) {
+        break;
+      }
+      layoutState.mOffset += layoutChunkResult.mConsumed * layoutState.mLayoutDirection;
+      /**
+       * Consume the available space if:
+       * * layoutChunk did not request to be ignored
+       * * OR we are laying out scrap children
+       */
+      if (!layoutChunkResult.mIgnoreConsumed) {
+        layoutState.mAvailable -= layoutChunkResult.mConsumed;
+        // we keep a separate remaining space because mAvailable is important for recycling
+        remainingSpace -= layoutChunkResult.mConsumed;
+      }
+
+      if (layoutState.mScrollingOffset != LayoutState.SCROLLING_OFFSET_NaN) {
+        layoutState.mScrollingOffset += layoutChunkResult.mConsumed;
+        if (layoutState.mAvailable < 0) {
+          layoutState.mScrollingOffset += layoutState.mAvailable;
+        }
+        recycleByLayoutState(recycler, layoutState);
+      }
+      if (stopOnFocusable && layoutChunkResult.mFocusable) {
+        break;
+      }
+    }
+    if (DEBUG) {
+      validateChildOrder();
+    }
+    return start - layoutState.mAvailable;
+  }
+
+  void layoutChunk(RecyclerView.Recycler recycler, RecyclerView.State state,
+                   LayoutState layoutState, LayoutChunkResult result) {
+    View view = layoutState.next(recycler);
+    if (view == null) {
+      if (DEBUG) {
+        Log.d(TAG, "LinearLayoutManager: no more items to layout");
+      }
+      // if we are laying out views in scrap, this may return null which means there is
+      // no more items to layout.
+      result.mFinished = true;
+      return;
+    }
+    if (mShouldReverseLayout == (layoutState.mLayoutDirection == LayoutState.LAYOUT_START)) {
+      addView(view);
+    } else {
+      addView(view, 0);
+    }
+    measureChildWithMargins(view, 0, 0);
+    result.mConsumed = mOrientationHelper.getDecoratedMeasurement(view);
+    int left, top, right, bottom;
+    if (mOrientation == VERTICAL) {
+      if (isLayoutRTL()) {
+        right = getWidth() - getPaddingRight();
+        left = right - mOrientationHelper.getDecoratedMeasurementInOther(view);
+      } else {
+        left = getPaddingLeft();
+        right = left + mOrientationHelper.getDecoratedMeasurementInOther(view);
+      }
+      if (layoutState.mLayoutDirection == LayoutState.LAYOUT_START) {
+        bottom = layoutState.mOffset;
+        top = layoutState.mOffset - result.mConsumed;
+      } else {
+        top = layoutState.mOffset;
+        bottom = layoutState.mOffset + result.mConsumed;
+      }
+    } else {
+      top = getPaddingTop();
+      bottom = top + mOrientationHelper.getDecoratedMeasurementInOther(view);
+
+      if (layoutState.mLayoutDirection == LayoutState.LAYOUT_START) {
+        right = layoutState.mOffset;
+        left = layoutState.mOffset - result.mConsumed;
+      } else {
+        left = layoutState.mOffset;
+        right = layoutState.mOffset + result.mConsumed;
+      }
+    }
+    // We calculate everything with View's bounding box (which includes decor and margins)
+    // To calculate correct layout position, we subtract margins.
+    layoutDecoratedWithMargins(view, left, top, right, bottom);
+    if (DEBUG) {
+      Log.d(TAG, "laid out child at position " + getPosition(view) + ", with l:"
+          + (left + ((RecyclerView.LayoutParams) view.getLayoutParams()).leftMargin)
+          + ", t:" + (top + ((RecyclerView.LayoutParams) view.getLayoutParams()).topMargin)
+          + ", r:" + (right - ((RecyclerView.LayoutParams) view.getLayoutParams()).rightMargin)
+          + ", b:" + (bottom - ((RecyclerView.LayoutParams) view.getLayoutParams())
+          .bottomMargin));
+    }
+  }
+
+  /**
+   * Convenience method to find the child closes to start. Caller should check it has enough
+   * children.
+   *
+   * @return The child closes to start of the layout from user's perspective.
+   */
+  private View getChildClosestToStart() {
+    return getChildAt(mShouldReverseLayout ? getChildCount() - 1 : 0);
+  }
+
+  /**
+   * Convenience method to find the child closes to end. Caller should check it has enough
+   * children.
+   *
+   * @return The child closes to end of the layout from user's perspective.
+   */
+  private View getChildClosestToEnd() {
+    return getChildAt(mShouldReverseLayout ? 0 : getChildCount() - 1);
+  }
+
+  /**
+   * Among the children, picks the one closest to the end of the layout.
+   * <p>
+   * Due to ambiguous adapter updates or children being removed, some children's positions may
+   * be invalid. This method is a best effort to find a position within adapter bounds if
+   * possible.
+   *
+   * @return A View that can be used an an anchor View.
+   */
+  private View findReferenceChildClosestToEnd(RecyclerView.Recycler recycler,
+                                              RecyclerView.State state) {
+    return mShouldReverseLayout ? findFirstReferenceChild(recycler, state) :
+        findLastReferenceChild(recycler, state);
+  }
+
+  /**
+   * Among the children, picks the one closest to the start of the layout.
+   * <p>
+   * Due to ambiguous adapter updates or children being removed, some children's positions may
+   * be invalid. This method is a best effort to find a position within adapter bounds if
+   * possible.
+   *
+   * @return A View that can be used an an anchor View.
+   */
+  private View findReferenceChildClosestToStart(RecyclerView.Recycler recycler,
+                                                RecyclerView.State state) {
+    return mShouldReverseLayout ? findLastReferenceChild(recycler, state) :
+        findFirstReferenceChild(recycler, state);
+  }
+
+  private View findFirstReferenceChild(RecyclerView.Recycler recycler, RecyclerView.State state) {
+    return findReferenceChild(recycler, state, 0, getChildCount(), state.getItemCount());
+  }
+
+  private View findLastReferenceChild(RecyclerView.Recycler recycler, RecyclerView.State state) {
+    return findReferenceChild(recycler, state, getChildCount() - 1, -1, state.getItemCount());
+  }
+
+  // overridden by GridLayoutManager
+  View findReferenceChild(RecyclerView.Recycler recycler, RecyclerView.State state,
+                          int start, int end, int itemCount) {
+    ensureLayoutState();
+    View invalidMatch = null;
+    View outOfBoundsMatch = null;
+    final int boundsStart = mOrientationHelper.getStartAfterPadding();
+    final int boundsEnd = mOrientationHelper.getEndAfterPadding();
+    final int diff = end > start ? 1 : -1;
+    for (int i = start; i != end; i += diff) {
+      final View view = getChildAt(i);
+      final int position = getPosition(view);
+      if (position >= 0 && position < itemCount) {
+        if (((RecyclerView.LayoutParams) view.getLayoutParams()).isItemRemoved()) {
+          if (invalidMatch == null) {
+            invalidMatch = view; // removed item, least preferred
+          }
+        } else if (mOrientationHelper.getDecoratedStart(view) >= boundsEnd
+            || mOrientationHelper.getDecoratedEnd(view) < boundsStart) {
+          if (outOfBoundsMatch == null) {
+            outOfBoundsMatch = view; // item is not visible, less preferred
+          }
+        } else {
+          return view;
+        }
+      }
+    }
+    return outOfBoundsMatch != null ? outOfBoundsMatch : invalidMatch;
+  }
+
+  /**
+   * Returns the adapter position of the first visible view. This position does not include
+   * adapter changes that were dispatched after the last layout pass.
+   *
+   * @return The adapter position of the first visible item or {@link RecyclerView#NO_POSITION}
+   * if there aren't any visible items.
+   * @see #findFirstCompletelyVisibleItemPosition()
+   * @see #findLastVisibleItemPosition()
+   */
+  public int findFirstVisibleItemPosition() {
+    final View child = findOneVisibleChild(0, getChildCount(), false, true);
+    return child == null ? NO_POSITION : getPosition(child);
+  }
+
+  /**
+   * Returns the adapter position of the first fully visible view. This position does not
+   * include adapter changes that were dispatched after the last layout pass.
+   *
+   * @return The adapter position of the first fully visible item or
+   * {@link RecyclerView#NO_POSITION} if there aren't any visible items.
+   * @see #findFirstVisibleItemPosition()
+   * @see #findLastCompletelyVisibleItemPosition()
+   */
+  public int findFirstCompletelyVisibleItemPosition() {
+    final View child = findOneVisibleChild(0, getChildCount(), true, false);
+    return child == null ? NO_POSITION : getPosition(child);
+  }
+
+  /**
+   * Returns the adapter position of the last visible view. This position does not include
+   * adapter changes that were dispatched after the last layout pass.
+   *
+   * @return The adapter position of the last visible view or {@link RecyclerView#NO_POSITION}
+   * if there aren't any visible items.
+   * @see #findLastCompletelyVisibleItemPosition()
+   * @see #findFirstVisibleItemPosition()
+   */
+  public int findLastVisibleItemPosition() {
+    final View child = findOneVisibleChild(getChildCount() - 1, -1, false, true);
+    return child == null ? NO_POSITION : getPosition(child);
+  }
+
+  /**
+   * Returns the adapter position of the last fully visible view. This position does not
+   * include adapter changes that were dispatched after the last layout pass.
+   *
+   * @return The adapter position of the last fully visible view or
+   * {@link RecyclerView#NO_POSITION} if there aren't any visible items.
+   * @see #findFirstCompletelyVisibleItemPosition()
+   * @see #findLastVisibleItemPosition()
+   */
+  public int findLastCompletelyVisibleItemPosition() {
+    final View child = findOneVisibleChild(getChildCount() - 1, -1, true, false);
+    return child == null ? NO_POSITION : getPosition(child);
+  }
+
+  View findOneVisibleChild(int fromIndex, int toIndex, boolean completelyVisible,
+                           boolean acceptPartiallyVisible) {
+    ensureLayoutState();
+    final int start = mOrientationHelper.getStartAfterPadding();
+    final int end = mOrientationHelper.getEndAfterPadding();
+    final int next = toIndex > fromIndex ? 1 : -1;
+    View partiallyVisible = null;
+    for (int i = fromIndex; i != toIndex; i += next) {
+      final View child = getChildAt(i);
+      final int childStart = mOrientationHelper.getDecoratedStart(child);
+      final int childEnd = mOrientationHelper.getDecoratedEnd(child);
+      if (childStart < end && childEnd > start) {
+        if (completelyVisible) {
+          if (childStart >= start && childEnd <= end) {
+            return child;
+          } else if (acceptPartiallyVisible && partiallyVisible == null) {
+            partiallyVisible = child;
+          }
+        } else {
+          return child;
+        }
+      }
+    }
+    return partiallyVisible;
+  }
+
+  /**
+   * Used for debugging.
+   * Validates that child views are laid out in correct order. This is important because rest
+   * of the algorithm relies on this constraint.
+   *
+   * In default layout, child 0 should be closest to screen position 0 and last child should be
+   * closest to position WIDTH or HEIGHT.
+   * In reverse layout, last child should be closes to screen position 0 and first child should
+   * be closest to position WIDTH  or HEIGHT
+   */
+  void validateChildOrder() {
+    Log.d(TAG, "validating child count " + getChildCount());
+    if (getChildCount() < 1) {
+      return;
+    }
+    int lastPos = getPosition(getChildAt(0));
+    int lastScreenLoc = mOrientationHelper.getDecoratedStart(getChildAt(0));
+    if (mShouldReverseLayout) {
+      for (int i = 1; i < getChildCount(); i++) {
+        View child = getChildAt(i);
+        int pos = getPosition(child);
+        int screenLoc = mOrientationHelper.getDecoratedStart(child);
+        if (pos < lastPos) {
+          throw new RuntimeException("detected invalid position. loc invalid? "
+              + (screenLoc < lastScreenLoc));
+        }
+        if (screenLoc > lastScreenLoc) {
+          throw new RuntimeException("detected invalid location");
+        }
+      }
+    } else {
+      for (int i = 1; i < getChildCount(); i++) {
+        View child = getChildAt(i);
+        int pos = getPosition(child);
+        int screenLoc = mOrientationHelper.getDecoratedStart(child);
+        if (pos < lastPos) {
+          throw new RuntimeException("detected invalid position. loc invalid? "
+              + (screenLoc < lastScreenLoc));
+        }
+        if (screenLoc < lastScreenLoc) {
+          throw new RuntimeException("detected invalid location");
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
   @Override
   public void prepareForDrop(View view, View target, int x, int y) {
+    assertNotInLayoutOrScroll("Cannot drop a view during a scroll or layout calculation");
+    ensureLayoutState();
+    resolveShouldLayoutReverse();
+    final int myPos = getPosition(view);
+    final int targetPos = getPosition(target);
+    final int dropDirection = myPos < targetPos ? LayoutState.ITEM_DIRECTION_TAIL
+        : LayoutState.ITEM_DIRECTION_HEAD;
+    if (mShouldReverseLayout) {
+      if (dropDirection == LayoutState.ITEM_DIRECTION_TAIL) {
+        scrollToPositionWithOffset(targetPos,
+            mOrientationHelper.getEndAfterPadding()
+                - (mOrientationHelper.getDecoratedStart(target)
+                + mOrientationHelper.getDecoratedMeasurement(view)));
+      } else {
+        scrollToPositionWithOffset(targetPos,
+            mOrientationHelper.getEndAfterPadding()
+                - mOrientationHelper.getDecoratedEnd(target));
+      }
+    } else {
+      if (dropDirection == LayoutState.ITEM_DIRECTION_HEAD) {
+        scrollToPositionWithOffset(targetPos, mOrientationHelper.getDecoratedStart(target));
+      } else {
+        scrollToPositionWithOffset(targetPos,
+            mOrientationHelper.getDecoratedEnd(target)
+                - mOrientationHelper.getDecoratedMeasurement(view));
+      }
+    }
+  }
+
+  /**
+   * Helper class that keeps temporary state while {LayoutManager} is filling out the empty
+   * space.
+   */
+  static class LayoutState {
+    static final String TAG = "LLM#LayoutState";
+
+    static final int LAYOUT_START = -1;
+
+    static final int LAYOUT_END = 1;
+
+    static final int INVALID_LAYOUT = Integer.MIN_VALUE;
+
+    static final int ITEM_DIRECTION_HEAD = -1;
+
+    static final int ITEM_DIRECTION_TAIL = 1;
+
+    static final int SCROLLING_OFFSET_NaN = Integer.MIN_VALUE;
+
+    /**
+     * We may not want to recycle children in some cases (e.g. layout)
+     */
+    boolean mRecycle = true;
+
+    /**
+     * Pixel offset where layout should start
+     */
+    int mOffset;
+
+    /**
+     * Number of pixels that we should fill, in the layout direction.
+     */
+    int mAvailable;
+
+    /**
+     * Current position on the adapter to get the next item.
+     */
+    int mCurrentPosition;
+
+    /**
+     * Defines the direction in which the data adapter is traversed.
+     * Should be {@link #ITEM_DIRECTION_HEAD} or {@link #ITEM_DIRECTION_TAIL}
+     */
+    int mItemDirection;
+
+    /**
+     * Defines the direction in which the layout is filled.
+     * Should be {@link #LAYOUT_START} or {@link #LAYOUT_END}
+     */
+    int mLayoutDirection;
+
+    /**
+     * Used when LayoutState is constructed in a scrolling state.
+     * It should be set the amount of scrolling we can make without creating a new view.
+     * Settings this is required for efficient view recycling.
+     */
+    int mScrollingOffset;
+
+    /**
+     * Used if you want to pre-layout items that are not yet visible.
+     * The difference with {@link #mAvailable} is that, when recycling, distance laid out for
+     * {@link #mExtra} is not considered to avoid recycling visible children.
+     */
+    int mExtra = 0;
+
+    /**
+     * The most recent {@link #scrollBy(int, RecyclerView.Recycler, RecyclerView.State)}
+     * amount.
+     */
+    int mLastScrollDelta;
+
+    /**
+     * Used when there is no limit in how many views can be laid out.
+     */
+    boolean mInfinite;
+
+    /**
+     * @return true if there are more items in the data adapter
+     */
+    boolean hasMore(RecyclerView.State state) {
+      return mCurrentPosition >= 0 && mCurrentPosition < state.getItemCount();
+    }
+
+    /**
+     * Gets the view for the next element that we should layout.
+     * Also updates current item index to the next item, based on {@link #mItemDirection}
+     *
+     * @return The next element that we should layout.
+     */
+    View next(RecyclerView.Recycler recycler) {
+      final View view = recycler.getViewForPosition(mCurrentPosition);
+      mCurrentPosition += mItemDirection;
+      return view;
+    }
+
+    void log() {
+      Log.d(TAG, "avail:" + mAvailable + ", ind:" + mCurrentPosition + ", dir:"
+          + mItemDirection + ", offset:" + mOffset + ", layoutDir:" + mLayoutDirection);
+    }
+  }
+
+  /**
+   * Simple data class to keep Anchor information
+   */
+  class AnchorInfo {
+    int mPosition;
+    int mCoordinate;
+    boolean mLayoutFromEnd;
+    boolean mValid;
+
+    AnchorInfo() {
+      reset();
+    }
+
+    void reset() {
+      mPosition = NO_POSITION;
+      mCoordinate = INVALID_OFFSET;
+      mLayoutFromEnd = false;
+      mValid = false;
+    }
+
+    /**
+     * assigns anchor coordinate from the RecyclerView's padding depending on current
+     * layoutFromEnd value
+     */
+    void assignCoordinateFromPadding() {
+      mCoordinate = mLayoutFromEnd
+          ? mOrientationHelper.getEndAfterPadding()
+          : mOrientationHelper.getStartAfterPadding();
+    }
+
+    @Override
+    public String toString() {
+      return "AnchorInfo{"
+          + "mPosition=" + mPosition
+          + ", mCoordinate=" + mCoordinate
+          + ", mLayoutFromEnd=" + mLayoutFromEnd
+          + ", mValid=" + mValid
+          + '}';
+    }
+
+    public void assignFromView(View child) {
+      if (mLayoutFromEnd) {
+        mCoordinate = mOrientationHelper.getDecoratedEnd(child)
+            + mOrientationHelper.getTotalSpaceChange();
+      } else {
+        mCoordinate = mOrientationHelper.getDecoratedStart(child);
+      }
+
+      mPosition = getPosition(child);
+    }
+  }
+
+  protected static class LayoutChunkResult {
+    public int mConsumed;
+    public boolean mFinished;
+    public boolean mIgnoreConsumed;
+    public boolean mFocusable;
 
+    void resetInternal() {
+      mConsumed = 0;
+      mFinished = false;
+      mIgnoreConsumed = false;
+      mFocusable = false;
+    }
   }
 }
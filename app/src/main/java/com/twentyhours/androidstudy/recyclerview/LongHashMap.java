@@ -0,0 +1,153 @@
+package com.twentyhours.androidstudy.recyclerview;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive long keys to objects, used by the {@link RecyclerView.Recycler} to find
+ * the ViewHolders by their stable ids without boxing the ids.
+ * <p>
+ * The entries are kept in two parallel arrays with open addressing and linear probing. A
+ * {@code null} value marks an empty slot, thus {@code null} values cannot be stored. Removal
+ * shifts the following entries of the probe sequence back instead of leaving tombstones, so
+ * lookups never scan past removed entries.
+ *
+ * @param <V> Type of the values
+ */
+class LongHashMap<V> {
+  private static final int MIN_CAPACITY = 16;
+
+  // 64 bit golden ratio, spreads sequential ids over the table
+  private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  private long[] mKeys;
+
+  private Object[] mValues;
+
+  private int mSize;
+
+  LongHashMap() {
+    mKeys = new long[MIN_CAPACITY];
+    mValues = new Object[MIN_CAPACITY];
+  }
+
+  int size() {
+    return mSize;
+  }
+
+  /**
+   * @return The value mapped to the key or null if there is none.
+   */
+  @SuppressWarnings("unchecked")
+  V get(long key) {
+    final int mask = mValues.length - 1;
+    int index = indexFor(key, mask);
+    while (mValues[index] != null) {
+      if (mKeys[index] == key) {
+        return (V) mValues[index];
+      }
+      index = (index + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * Maps the value to the key, replacing the previous value of the key if any.
+   */
+  void put(long key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("value may not be null");
+    }
+    int mask = mValues.length - 1;
+    int index = indexFor(key, mask);
+    while (mValues[index] != null) {
+      if (mKeys[index] == key) {
+        mValues[index] = value;
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+    mKeys[index] = key;
+    mValues[index] = value;
+    mSize++;
+    // keep the load factor under 1/2 so the probe sequences stay short
+    if (mSize * 2 > mValues.length) {
+      resize(mValues.length * 2);
+    }
+  }
+
+  /**
+   * Removes the mapping of the key only if it is mapped to the given value. A stale value of a
+   * duplicate key thus does not remove the entry which replaced it.
+   *
+   * @return True if the mapping is removed.
+   */
+  boolean remove(long key, V value) {
+    final int mask = mValues.length - 1;
+    int index = indexFor(key, mask);
+    while (mValues[index] != null) {
+      if (mKeys[index] == key) {
+        if (mValues[index] != value) {
+          return false;
+        }
+        removeAt(index, mask);
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  void clear() {
+    if (mSize > 0) {
+      Arrays.fill(mValues, null);
+      mSize = 0;
+    }
+  }
+
+  private void removeAt(int index, int mask) {
+    int hole = index;
+    int next = index;
+    while (true) {
+      next = (next + 1) & mask;
+      if (mValues[next] == null) {
+        break;
+      }
+      final int home = indexFor(mKeys[next], mask);
+      // The entry stays if its home slot is cyclically within (hole, next], otherwise moving
+      // it into the hole keeps it reachable from its home slot.
+      final boolean stays = hole <= next
+          ? hole < home && home <= next
+          : hole < home || home <= next;
+      if (!stays) {
+        mKeys[hole] = mKeys[next];
+        mValues[hole] = mValues[next];
+        hole = next;
+      }
+    }
+    mValues[hole] = null;
+    mSize--;
+  }
+
+  private void resize(int capacity) {
+    final long[] oldKeys = mKeys;
+    final Object[] oldValues = mValues;
+    mKeys = new long[capacity];
+    mValues = new Object[capacity];
+    final int mask = capacity - 1;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] == null) {
+        continue;
+      }
+      int index = indexFor(oldKeys[i], mask);
+      while (mValues[index] != null) {
+        index = (index + 1) & mask;
+      }
+      mKeys[index] = oldKeys[i];
+      mValues[index] = oldValues[i];
+    }
+  }
+
+  private static int indexFor(long key, int mask) {
+    return (int) ((key * HASH_MULTIPLIER) >>> 32) & mask;
+  }
+}
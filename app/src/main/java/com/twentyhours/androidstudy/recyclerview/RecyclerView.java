@@ -13,15 +13,24 @@ import android.support.v4.view.ScrollingView;
 import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.util.SparseArray;
+import android.view.Display;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.animation.Interpolator;
+import android.widget.OverScroller;
 
 import com.twentyhours.androidstudy.R;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Created by soonhyung-imac on 4/4/17.
@@ -38,6 +47,66 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
   public static final int SCROLL_STATE_DRAGGING = 1;
   public static final int SCROLL_STATE_SETTLING = 2;
 
+  public static final int NO_POSITION = -1;
+  public static final long NO_ID = -1;
+  public static final int INVALID_TYPE = -1;
+  private static final int INVALID_POINTER = -1;
+
+  /**
+   * The max number of the views cached in addition to the requested cache size, used by a
+   * fling at the max velocity.
+   */
+  static final int MAX_FLING_CACHE_EXTRA = 8;
+
+  /**
+   * RecyclerView is calculating a scroll.
+   */
+  static final String TRACE_SCROLL_TAG = "RV Scroll";
+
+  /**
+   * OnLayout has been called by the View system.
+   */
+  private static final String TRACE_ON_LAYOUT_TAG = "RV OnLayout";
+
+  /**
+   * NotifyDataSetChanged or equal has been called.
+   * If this is taking a long time, try sending granular notify adapter changes instead of just
+   * calling notifyDataSetChanged or setAdapter / swapAdapter. Adding stable ids to your adapter
+   * might help.
+   */
+  private static final String TRACE_ON_DATA_SET_CHANGE_LAYOUT_TAG = "RV FullInvalidate";
+
+  /**
+   * RecyclerView is creating a new View.
+   */
+  static final String TRACE_CREATE_VIEW_TAG = "RV CreateView";
+
+  /**
+   * RecyclerView is rebinding a View.
+   */
+  static final String TRACE_BIND_VIEW_TAG = "RV OnBindView";
+
+  /**
+   * RecyclerView is attempting to pre-populate off screen views.
+   */
+  static final String TRACE_PREFETCH_TAG = "RV Prefetch";
+
+  /**
+   * On L+, with RenderThread, the UI thread has idle time after it has passed a frame off to
+   * RenderThread but before the next frame begins. We schedule prefetch work in this window.
+   */
+  static final boolean ALLOW_THREAD_GAP_WORK = Build.VERSION.SDK_INT >= 21;
+
+  static final long FOREVER_NS = Long.MAX_VALUE;
+
+  static final Interpolator sQuinticInterpolator = new Interpolator() {
+    @Override
+    public float getInterpolation(float t) {
+      t -= 1.0f;
+      return t * t * t * t * t + 1.0f;
+    }
+  };
+
   private static final int[] CLIP_TO_PADDING_ATTR = {android.R.attr.clipToPadding};
   boolean mClipToPadding;
   private int mTouchSlop;
@@ -58,6 +127,37 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
   private int mLayoutOrScrollCounter = 0;
   private final RecyclerViewDataObserver mObserver = new RecyclerViewDataObserver();
   final Recycler mRecycler = new Recycler();
+  final State mState = new State();
+  boolean mIsAttached;
+  boolean mFirstLayoutComplete;
+
+  /**
+   * True after an event occurs that signals that the entire data set has changed. In that
+   * case, the attached views and the item count of the state cannot be trusted until the next
+   * layout.
+   */
+  boolean mDataSetHasChangedAfterLayout = false;
+
+  /**
+   * True if {@link LayoutManager#onItemsChanged(RecyclerView)} should be called in the next
+   * layout, i.e. the adapter notified that its whole data set changed. Not set when the adapter
+   * itself is swapped, since {@link LayoutManager#onAdapterChanged} is called for that.
+   */
+  boolean mDispatchItemsChangedEvent = false;
+  private int mEatRequestLayout = 0;
+
+  private int mScrollState = SCROLL_STATE_IDLE;
+  private int mScrollPointerId = INVALID_POINTER;
+  private VelocityTracker mVelocityTracker;
+  private int mInitialTouchX;
+  private int mInitialTouchY;
+  private int mLastTouchX;
+  private int mLastTouchY;
+  final ViewFlinger mViewFlinger = new ViewFlinger();
+
+  GapWorker mGapWorker;
+  final GapWorker.LayoutPrefetchRegistryImpl mPrefetchRegistry =
+      ALLOW_THREAD_GAP_WORK ? new GapWorker.LayoutPrefetchRegistryImpl() : null;
 
   public RecyclerView(Context context) {
     this(context, null);
@@ -191,43 +291,98 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
 
   private void setAdapterInternal(Adapter adapter, boolean compatibleWithPrevious,
                                   boolean removeAndRecycleViews) {
-//    if (mAdapter != null) {
-//      mAdapter.unregisterAdapterDataObserver(mObserver);
-//      mAdapter.onDetachedFromRecyclerView(this);
-//    }
-//    if (!compatibleWithPrevious || removeAndRecycleViews) {
-//      removeAndRecycleViews();
-//    }
-//    mAdapterHelper.reset();
-//    final Adapter oldAdapter = mAdapter;
-//    mAdapter = adapter;
-//    if (adapter != null) {
-//      adapter.registerAdapterDataObserver(mObserver);
-//      adapter.onAttachedToRecyclerView(this);
-//    }
-//    if (mLayout != null) {
-//      mLayout.onAdapterChanged(oldAdapter, mAdapter);
-//    }
-//    mRecycler.onAdapterChanged(oldAdapter, mAdapter, compatibleWithPrevious);
-//    mState.mStructureChanged = true;
-//    markKnownViewsInvalid();
-//  }
-//
-//  void removeAndRecycleViews() {
-//    // end all running animations
-//    if (mItemAnimator != null) {
-//      mItemAnimator.endAnimations();
-//    }
-//    // Since animations are ended, mLayout.children should be equal to
-//    // recyclerView.children. This may not be true if item animator's end does not work as
-//    // expected. (e.g. not release children instantly). It is safer to use mLayout's child
-//    // count.
-//    if (mLayout != null) {
-//      mLayout.removeAndRecycleAllViews(mRecycler);
-//      mLayout.removeAndRecycleScrapInt(mRecycler);
-//    }
-//    // we should clear it here before adapters are swapped to ensure correct callbacks.
-//    mRecycler.clear();
+    if (mAdapter != null) {
+      mAdapter.unregisterAdapterDataObserver(mObserver);
+      mAdapter.onDetachedFromRecyclerView(this);
+    }
+    if (!compatibleWithPrevious || removeAndRecycleViews) {
+      removeAndRecycleViews();
+    }
+    mAdapterHelper.reset();
+    final Adapter oldAdapter = mAdapter;
+    mAdapter = adapter;
+    if (adapter != null) {
+      adapter.registerAdapterDataObserver(mObserver);
+      adapter.onAttachedToRecyclerView(this);
+    }
+    if (mLayout != null) {
+      mLayout.onAdapterChanged(oldAdapter, mAdapter);
+    }
+    mRecycler.onAdapterChanged(oldAdapter, mAdapter, compatibleWithPrevious);
+    mState.mStructureChanged = true;
+    mDataSetHasChangedAfterLayout = true;
+    markKnownViewsInvalid();
+  }
+
+  void removeAndRecycleViews() {
+    // Since animations are not supported yet, mLayout.children should be equal to
+    // recyclerView.children.
+    if (mLayout != null) {
+      mLayout.removeAndRecycleAllViews(mRecycler);
+      mLayout.removeAndRecycleScrapInt(mRecycler);
+    }
+    // we should clear it here before adapters are swapped to ensure correct callbacks.
+    mRecycler.clear();
+  }
+
+  public Adapter getAdapter() {
+    return mAdapter;
+  }
+
+  /**
+   * Recycled view pools allow multiple RecyclerViews to share a common pool of scrap views.
+   * This can be useful if you have multiple RecyclerViews with adapters that use the same
+   * view types, for example if you have several data sets with the same kinds of item views
+   * displayed by a {@link android.support.v4.view.ViewPager ViewPager}, or horizontal rows
+   * nested in a vertical list.
+   *
+   * @param pool Pool to set. If this parameter is null a new pool will be created and used.
+   */
+  public void setRecycledViewPool(RecycledViewPool pool) {
+    mRecycler.setRecycledViewPool(pool);
+  }
+
+  /**
+   * Retrieve this RecyclerView's {@link RecycledViewPool}. This method will never return null;
+   * if no pool is set for this view a new one will be created. See
+   * {@link #setRecycledViewPool(RecycledViewPool) setRecycledViewPool} for more information.
+   *
+   * @return The pool used to store recycled item views for reuse.
+   * @see #setRecycledViewPool(RecycledViewPool)
+   */
+  public RecycledViewPool getRecycledViewPool() {
+    return mRecycler.getRecycledViewPool();
+  }
+
+  /**
+   * Set the number of offscreen views to retain before adding them to the potentially shared
+   * {@link #getRecycledViewPool() recycled view pool}.
+   *
+   * <p>The offscreen view cache stays aware of changes in the attached adapter, allowing
+   * a LayoutManager to reuse those views unmodified without needing to return to the adapter
+   * to rebind them.</p>
+   *
+   * @param size Number of views to cache offscreen before returning them to the general
+   *             recycled view pool
+   */
+  public void setItemViewCacheSize(int size) {
+    mRecycler.setViewCacheSize(size);
+  }
+
+  /**
+   * Mark all known views as invalid. Used in response to a, "the whole world might have changed"
+   * data change event.
+   */
+  void markKnownViewsInvalid() {
+    final int childCount = mChildHelper.getUnfilteredChildCount();
+    for (int i = 0; i < childCount; i++) {
+      final ViewHolder holder = getChildViewHolderInt(mChildHelper.getUnfilteredChildAt(i));
+      if (holder != null) {
+        holder.addFlags(ViewHolder.FLAG_UPDATE | ViewHolder.FLAG_INVALID
+            | ViewHolder.FLAG_ADAPTER_FULLUPDATE);
+      }
+    }
+    mRecycler.markKnownViewsInvalid();
   }
 
   public void setLayoutFrozen(boolean frozen) {
@@ -272,306 +427,325 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
     return mLayoutOrScrollCounter > 0;
   }
 
+  void onEnterLayoutOrScroll() {
+    mLayoutOrScrollCounter++;
+  }
+
+  void onExitLayoutOrScroll() {
+    mLayoutOrScrollCounter--;
+    if (mLayoutOrScrollCounter < 0) {
+      if (DEBUG) {
+        throw new IllegalStateException("layout or scroll counter cannot go below zero."
+            + "Some calls are not matching");
+      }
+      mLayoutOrScrollCounter = 0;
+    }
+  }
+
   public void stopScroll() {
-//    setScrollState(SCROLL_STATE_IDLE);
-//    stopScrollersInternal();
+    setScrollState(SCROLL_STATE_IDLE);
+    stopScrollersInternal();
+  }
+
+  /**
+   * Similar to {@link #stopScroll()} but does not set the state.
+   */
+  private void stopScrollersInternal() {
+    mViewFlinger.stop();
+  }
+
+  void setScrollState(int state) {
+    if (state == mScrollState) {
+      return;
+    }
+    if (DEBUG) {
+      Log.d(TAG, "setting scroll state to " + state + " from " + mScrollState,
+          new Exception());
+    }
+    mScrollState = state;
+    if (state != SCROLL_STATE_SETTLING) {
+      stopScrollersInternal();
+    }
+    if (state == SCROLL_STATE_IDLE) {
+      // The views no longer scroll back and forth, thus the extra cached views are released.
+      mRecycler.setFlingCacheExtra(0);
+    }
+    if (mLayout != null) {
+      mLayout.onScrollStateChanged(state);
+    }
+  }
+
+  public int getScrollState() {
+    return mScrollState;
   }
 
   public void setLayoutManager(LayoutManager layout) {
-//    if (layout == mLayout) {
-//      return;
-//    }
-//    stopScroll();
-//    // TODO We should do this switch a dispatchLayout pass and animate children. There is a good
-//    // chance that LayoutManagers will re-use views.
-//    if (mLayout != null) {
-//      // end all running animations
-//      if (mItemAnimator != null) {
-//        mItemAnimator.endAnimations();
-//      }
-//      mLayout.removeAndRecycleAllViews(mRecycler);
-//      mLayout.removeAndRecycleScrapInt(mRecycler);
-//      mRecycler.clear();
-//
-//      if (mIsAttached) {
-//        mLayout.dispatchDetachedFromWindow(this, mRecycler);
-//      }
-//      mLayout.setRecyclerView(null);
-//      mLayout = null;
-//    } else {
-//      mRecycler.clear();
-//    }
-//    // this is just a defensive measure for faulty item animators.
-//    mChildHelper.removeAllViewsUnfiltered();
-//    mLayout = layout;
-//    if (layout != null) {
-//      if (layout.mRecyclerView != null) {
-//        throw new IllegalArgumentException("LayoutManager " + layout +
-//            " is already attached to a RecyclerView: " + layout.mRecyclerView);
-//      }
-//      mLayout.setRecyclerView(this);
-//      if (mIsAttached) {
-//        mLayout.dispatchAttachedToWindow(this);
-//      }
-//    }
-//    mRecycler.updateViewCacheSize();
-//    requestLayout();
+    if (layout == mLayout) {
+      return;
+    }
+    stopScroll();
+    if (mLayout != null) {
+      mLayout.removeAndRecycleAllViews(mRecycler);
+      mLayout.removeAndRecycleScrapInt(mRecycler);
+      mRecycler.clear();
+
+      if (mIsAttached) {
+        mLayout.dispatchDetachedFromWindow(this, mRecycler);
+      }
+      mLayout.setRecyclerView(null);
+      mLayout = null;
+    } else {
+      mRecycler.clear();
+    }
+    mChildHelper.removeAllViewsUnfiltered();
+    mLayout = layout;
+    if (layout != null) {
+      if (layout.mRecyclerView != null) {
+        throw new IllegalArgumentException("LayoutManager " + layout +
+            " is already attached to a RecyclerView: " + layout.mRecyclerView);
+      }
+      mLayout.setRecyclerView(this);
+      if (mIsAttached) {
+        mLayout.dispatchAttachedToWindow(this);
+      }
+    }
+    mRecycler.updateViewCacheSize();
+    requestLayout();
+  }
+
+  public LayoutManager getLayoutManager() {
+    return mLayout;
+  }
+
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    mLayoutOrScrollCounter = 0;
+    mIsAttached = true;
+    mFirstLayoutComplete = mFirstLayoutComplete && !isLayoutRequested();
+    if (mLayout != null) {
+      mLayout.dispatchAttachedToWindow(this);
+    }
+
+    if (ALLOW_THREAD_GAP_WORK) {
+      // Register with gap worker
+      mGapWorker = GapWorker.sGapWorker.get();
+      if (mGapWorker == null) {
+        mGapWorker = new GapWorker();
+
+        // break 60 fps assumption if data from display appears valid
+        // NOTE: we only do this query once, statically, because it's very expensive (> 1ms)
+        Display display = ViewCompat.getDisplay(this);
+        float refreshRate = 60.0f;
+        if (!isInEditMode() && display != null) {
+          float displayRefreshRate = display.getRefreshRate();
+          if (displayRefreshRate >= 30.0f) {
+            refreshRate = displayRefreshRate;
+          }
+        }
+        mGapWorker.mFrameIntervalNs = (long) (1000000000 / refreshRate);
+        GapWorker.sGapWorker.set(mGapWorker);
+      }
+      mGapWorker.add(this);
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    stopScroll();
+    mIsAttached = false;
+    if (mLayout != null) {
+      mLayout.dispatchDetachedFromWindow(this, mRecycler);
+    }
+
+    if (ALLOW_THREAD_GAP_WORK) {
+      // Unregister with gap worker
+      mGapWorker.remove(this);
+      mGapWorker = null;
+    }
   }
 
 
 
   private void initChildrenHelper() {
-//    mChildHelper = new ChildHelper(new ChildHelper.Callback() {
-//      @Override
-//      public int getChildCount() {
-//        return RecyclerView.this.getChildCount();
-//      }
-//
-//      @Override
-//      public void addView(View child, int index) {
-//        RecyclerView.this.addView(child, index);
-//        dispatchChildAttached(child);
-//      }
-//
-//      @Override
-//      public int indexOfChild(View view) {
-//        return RecyclerView.this.indexOfChild(view);
-//      }
-//
-//      @Override
-//      public void removeViewAt(int index) {
-//        final View child = RecyclerView.this.getChildAt(index);
-//        if (child != null) {
-//          dispatchChildDetached(child);
-//        }
-//        RecyclerView.this.removeViewAt(index);
-//      }
-//
-//      @Override
-//      public View getChildAt(int offset) {
-//        return RecyclerView.this.getChildAt(offset);
-//      }
-//
-//      @Override
-//      public void removeAllViews() {
-//        final int count = getChildCount();
-//        for (int i = 0; i < count; i ++) {
-//          dispatchChildDetached(getChildAt(i));
-//        }
-//        RecyclerView.this.removeAllViews();
-//      }
-//
-//      @Override
-//      public ViewHolder getChildViewHolder(View view) {
-//        return getChildViewHolderInt(view);
-//      }
-//
-//      @Override
-//      public void attachViewToParent(View child, int index,
-//                                     ViewGroup.LayoutParams layoutParams) {
-//        final ViewHolder vh = getChildViewHolderInt(child);
-//        if (vh != null) {
-//          if (!vh.isTmpDetached() && !vh.shouldIgnore()) {
-//            throw new IllegalArgumentException("Called attach on a child which is not"
-//                + " detached: " + vh);
-//          }
-//          if (DEBUG) {
-//            Log.d(TAG, "reAttach " + vh);
-//          }
-//          vh.clearTmpDetachFlag();
-//        }
-//        RecyclerView.this.attachViewToParent(child, index, layoutParams);
-//      }
-//
-//      @Override
-//      public void detachViewFromParent(int offset) {
-//        final View view = getChildAt(offset);
-//        if (view != null) {
-//          final ViewHolder vh = getChildViewHolderInt(view);
-//          if (vh != null) {
-//            if (vh.isTmpDetached() && !vh.shouldIgnore()) {
-//              throw new IllegalArgumentException("called detach on an already"
-//                  + " detached child " + vh);
-//            }
-//            if (DEBUG) {
-//              Log.d(TAG, "tmpDetach " + vh);
-//            }
-//            vh.addFlags(ViewHolder.FLAG_TMP_DETACHED);
-//          }
-//        }
-//        RecyclerView.this.detachViewFromParent(offset);
-//      }
-//
-//      @Override
-//      public void onEnteredHiddenState(View child) {
+    mChildHelper = new ChildHelper(new ChildHelper.Callback() {
+      @Override
+      public int getChildCount() {
+        return RecyclerView.this.getChildCount();
+      }
+
+      @Override
+      public void addView(View child, int index) {
+        RecyclerView.this.addView(child, index);
+        dispatchChildAttached(child);
+      }
+
+      @Override
+      public int indexOfChild(View view) {
+        return RecyclerView.this.indexOfChild(view);
+      }
+
+      @Override
+      public void removeViewAt(int index) {
+        final View child = RecyclerView.this.getChildAt(index);
+        if (child != null) {
+          dispatchChildDetached(child);
+        }
+        RecyclerView.this.removeViewAt(index);
+      }
+
+      @Override
+      public View getChildAt(int offset) {
+        return RecyclerView.this.getChildAt(offset);
+      }
+
+      @Override
+      public void removeAllViews() {
+        final int count = getChildCount();
+        for (int i = 0; i < count; i++) {
+          dispatchChildDetached(getChildAt(i));
+        }
+        RecyclerView.this.removeAllViews();
+      }
+
+      @Override
+      public ViewHolder getChildViewHolder(View view) {
+        return getChildViewHolderInt(view);
+      }
+
+      @Override
+      public void attachViewToParent(View child, int index,
+                                     ViewGroup.LayoutParams layoutParams) {
+        final ViewHolder vh = getChildViewHolderInt(child);
+        if (vh != null) {
+          if (!vh.isTmpDetached()) {
+            throw new IllegalArgumentException("Called attach on a child which is not"
+                + " detached: " + vh);
+          }
+          if (DEBUG) {
+            Log.d(TAG, "reAttach " + vh);
+          }
+          vh.clearTmpDetachFlag();
+        }
+        RecyclerView.this.attachViewToParent(child, index, layoutParams);
+      }
+
+      @Override
+      public void detachViewFromParent(int offset) {
+        final View view = getChildAt(offset);
+        if (view != null) {
+          final ViewHolder vh = getChildViewHolderInt(view);
+          if (vh != null) {
+            if (vh.isTmpDetached()) {
+              throw new IllegalArgumentException("called detach on an already"
+                  + " detached child " + vh);
+            }
+            if (DEBUG) {
+              Log.d(TAG, "tmpDetach " + vh);
+            }
+            vh.addFlags(ViewHolder.FLAG_TMP_DETACHED);
+          }
+        }
+        RecyclerView.this.detachViewFromParent(offset);
+      }
+
+      @Override
+      public void onEnteredHiddenState(View child) {
 //        final ViewHolder vh = getChildViewHolderInt(child);
 //        if (vh != null) {
 //          vh.onEnteredHiddenState(RecyclerView.this);
 //        }
-//      }
-//
-//      @Override
-//      public void onLeftHiddenState(View child) {
+      }
+
+      @Override
+      public void onLeftHiddenState(View child) {
 //        final ViewHolder vh = getChildViewHolderInt(child);
 //        if (vh != null) {
 //          vh.onLeftHiddenState(RecyclerView.this);
 //        }
-//      }
-//    });
+      }
+    });
   }
 
   void initAdapterManager() {
-//    mAdapterHelper = new AdapterHelper(new AdapterHelper.Callback() {
-//      @Override
-//      public ViewHolder findViewHolder(int position) {
-//        final ViewHolder vh = findViewHolderForPosition(position, true);
-//        if (vh == null) {
-//          return null;
-//        }
-//        // ensure it is not hidden because for adapter helper, the only thing matter is that
-//        // LM thinks view is a child.
-//        if (mChildHelper.isHidden(vh.itemView)) {
-//          if (DEBUG) {
-//            Log.d(TAG, "assuming view holder cannot be find because it is hidden");
-//          }
-//          return null;
-//        }
-//        return vh;
-//      }
-//
-//      @Override
-//      public void offsetPositionsForRemovingInvisible(int start, int count) {
-//        offsetPositionRecordsForRemove(start, count, true);
-//        mItemsAddedOrRemoved = true;
-//        mState.mDeletedInvisibleItemCountSincePreviousLayout += count;
-//      }
-//
-//      @Override
-//      public void offsetPositionsForRemovingLaidOutOrNewView(int positionStart, int itemCount) {
-//        offsetPositionRecordsForRemove(positionStart, itemCount, false);
-//        mItemsAddedOrRemoved = true;
-//      }
-//
-//      @Override
-//      public void markViewHoldersUpdated(int positionStart, int itemCount, Object payload) {
-//        viewRangeUpdate(positionStart, itemCount, payload);
-//        mItemsChanged = true;
-//      }
-//
-//      @Override
-//      public void onDispatchFirstPass(AdapterHelper.UpdateOp op) {
-//        dispatchUpdate(op);
-//      }
-//
-//      void dispatchUpdate(AdapterHelper.UpdateOp op) {
-//        switch (op.cmd) {
-//          case AdapterHelper.UpdateOp.ADD:
-//            mLayout.onItemsAdded(RecyclerView.this, op.positionStart, op.itemCount);
-//            break;
-//          case AdapterHelper.UpdateOp.REMOVE:
-//            mLayout.onItemsRemoved(RecyclerView.this, op.positionStart, op.itemCount);
-//            break;
-//          case AdapterHelper.UpdateOp.UPDATE:
-//            mLayout.onItemsUpdated(RecyclerView.this, op.positionStart, op.itemCount,
-//                op.payload);
-//            break;
-//          case AdapterHelper.UpdateOp.MOVE:
-//            mLayout.onItemsMoved(RecyclerView.this, op.positionStart, op.itemCount, 1);
-//            break;
-//        }
-//      }
-//
-//      @Override
-//      public void onDispatchSecondPass(AdapterHelper.UpdateOp op) {
-//        dispatchUpdate(op);
-//      }
-//
-//      @Override
-//      public void offsetPositionsForAdd(int positionStart, int itemCount) {
-//        offsetPositionRecordsForInsert(positionStart, itemCount);
-//        mItemsAddedOrRemoved = true;
-//      }
-//
-//      @Override
-//      public void offsetPositionsForMove(int from, int to) {
-//        offsetPositionRecordsForMove(from, to);
-//        // should we create mItemsMoved ?
-//        mItemsAddedOrRemoved = true;
-//      }
-//    });
+    mAdapterHelper = new AdapterHelper(new AdapterHelper.Callback() {
+      @Override
+      public ViewHolder findViewHolder(int position) {
+        return findViewHolderForPosition(position);
+      }
+
+      @Override
+      public void offsetPositionsForRemovingInvisible(int start, int count) {
+        offsetPositionRecordsForRemove(start, count);
+      }
+
+      @Override
+      public void offsetPositionsForRemovingLaidOutOrNewView(int positionStart, int itemCount) {
+        offsetPositionRecordsForRemove(positionStart, itemCount);
+      }
+
+      @Override
+      public void markViewHoldersUpdated(int positionStart, int itemCount, Object payload) {
+        viewRangeUpdate(positionStart, itemCount, payload);
+      }
+
+      @Override
+      public void onDispatchFirstPass(AdapterHelper.UpdateOp op) {
+        dispatchUpdate(op);
+      }
+
+      void dispatchUpdate(AdapterHelper.UpdateOp op) {
+        switch (op.cmd) {
+          case AdapterHelper.UpdateOp.ADD:
+            mLayout.onItemsAdded(RecyclerView.this, op.positionStart, op.itemCount);
+            break;
+          case AdapterHelper.UpdateOp.REMOVE:
+            mLayout.onItemsRemoved(RecyclerView.this, op.positionStart, op.itemCount);
+            break;
+          case AdapterHelper.UpdateOp.UPDATE:
+            mLayout.onItemsUpdated(RecyclerView.this, op.positionStart, op.itemCount,
+                op.payload);
+            break;
+          case AdapterHelper.UpdateOp.MOVE:
+            mLayout.onItemsMoved(RecyclerView.this, op.positionStart, op.itemCount, 1);
+            break;
+        }
+      }
+
+      @Override
+      public void onDispatchSecondPass(AdapterHelper.UpdateOp op) {
+        dispatchUpdate(op);
+      }
+
+      @Override
+      public void offsetPositionsForAdd(int positionStart, int itemCount) {
+        offsetPositionRecordsForInsert(positionStart, itemCount);
+      }
+
+      @Override
+      public void offsetPositionsForMove(int from, int to) {
+        offsetPositionRecordsForMove(from, to);
+      }
+    });
   }
 
+
   @Override
   protected void onMeasure(int widthSpec, int heightSpec) {
-//    if (mLayout == null) {
-//      defaultOnMeasure(widthSpec, heightSpec);
-//      return;
-//    }
-//    if (mLayout.mAutoMeasure) {
-//      final int widthMode = MeasureSpec.getMode(widthSpec);
-//      final int heightMode = MeasureSpec.getMode(heightSpec);
-//      final boolean skipMeasure = widthMode == MeasureSpec.EXACTLY
-//          && heightMode == MeasureSpec.EXACTLY;
-//      mLayout.onMeasure(mRecycler, mState, widthSpec, heightSpec);
-//      if (skipMeasure || mAdapter == null) {
-//        return;
-//      }
-//      if (mState.mLayoutStep == State.STEP_START) {
-//        dispatchLayoutStep1();
-//      }
-//      // set dimensions in 2nd step. Pre-layout should happen with old dimensions for
-//      // consistency
-//      mLayout.setMeasureSpecs(widthSpec, heightSpec);
-//      mState.mIsMeasuring = true;
-//      dispatchLayoutStep2();
-//
-//      // now we can get the width and height from the children.
-//      mLayout.setMeasuredDimensionFromChildren(widthSpec, heightSpec);
-//
-//      // if RecyclerView has non-exact width and height and if there is at least one child
-//      // which also has non-exact width & height, we have to re-measure.
-//      if (mLayout.shouldMeasureTwice()) {
-//        mLayout.setMeasureSpecs(
-//            MeasureSpec.makeMeasureSpec(getMeasuredWidth(), MeasureSpec.EXACTLY),
-//            MeasureSpec.makeMeasureSpec(getMeasuredHeight(), MeasureSpec.EXACTLY));
-//        mState.mIsMeasuring = true;
-//        dispatchLayoutStep2();
-//        // now we can get the width and height from the children.
-//        mLayout.setMeasuredDimensionFromChildren(widthSpec, heightSpec);
-//      }
-//    } else {
-//      if (mHasFixedSize) {
-//        mLayout.onMeasure(mRecycler, mState, widthSpec, heightSpec);
-//        return;
-//      }
-//      // custom onMeasure
-//      if (mAdapterUpdateDuringMeasure) {
-//        eatRequestLayout();
-//        onEnterLayoutOrScroll();
-//        processAdapterUpdatesAndSetAnimationFlags();
-//        onExitLayoutOrScroll();
-//
-//        if (mState.mRunPredictiveAnimations) {
-//          mState.mInPreLayout = true;
-//        } else {
-//          // consume remaining updates to provide a consistent state with the layout pass.
-//          mAdapterHelper.consumeUpdatesInOnePass();
-//          mState.mInPreLayout = false;
-//        }
-//        mAdapterUpdateDuringMeasure = false;
-//        resumeRequestLayout(false);
-//      }
-//
-//      if (mAdapter != null) {
-//        mState.mItemCount = mAdapter.getItemCount();
-//      } else {
-//        mState.mItemCount = 0;
-//      }
-//      eatRequestLayout();
-//      mLayout.onMeasure(mRecycler, mState, widthSpec, heightSpec);
-//      resumeRequestLayout(false);
-//      mState.mInPreLayout = false; // clear
-//    }
+    if (mLayout == null) {
+      defaultOnMeasure(widthSpec, heightSpec);
+      return;
+    }
+    // The auto measure is not ported yet, thus the LayoutManager measures RecyclerView by itself.
+    if (mAdapter != null) {
+      mState.mItemCount = mAdapter.getItemCount();
+    } else {
+      mState.mItemCount = 0;
+    }
+    eatRequestLayout();
+    mLayout.onMeasure(mRecycler, mState, widthSpec, heightSpec);
+    resumeRequestLayout(false);
   }
 
   void defaultOnMeasure(int widthSpec, int heightSpec) {
@@ -598,119 +772,1496 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
 
   @Override
   protected void onLayout(boolean changed, int l, int t, int r, int b) {
-//    TraceCompat.beginSection(TRACE_ON_LAYOUT_TAG);
-//    dispatchLayout();
-//    TraceCompat.endSection();
-//    mFirstLayoutComplete = true;
+    TraceCompat.beginSection(TRACE_ON_LAYOUT_TAG);
+    dispatchLayout();
+    TraceCompat.endSection();
+    mFirstLayoutComplete = true;
   }
 
-  void dispatchLayout() {
-//    if (mAdapter == null) {
-//      Log.e(TAG, "No adapter attached; skipping layout");
-//      // leave the state in START
-//      return;
-//    }
-//    if (mLayout == null) {
-//      Log.e(TAG, "No layout manager attached; skipping layout");
-//      // leave the state in START
-//      return;
-//    }
-//    mState.mIsMeasuring = false;
-//    if (mState.mLayoutStep == State.STEP_START) {
-//      dispatchLayoutStep1();
-//      mLayout.setExactMeasureSpecsFrom(this);
-//      dispatchLayoutStep2();
-//    } else if (mAdapterHelper.hasUpdates() || mLayout.getWidth() != getWidth() ||
-//        mLayout.getHeight() != getHeight()) {
-//      // First 2 steps are done in onMeasure but looks like we have to run again due to
-//      // changed size.
-//      mLayout.setExactMeasureSpecsFrom(this);
-//      dispatchLayoutStep2();
-//    } else {
-//      // always make sure we sync them (to ensure mode is exact)
-//      mLayout.setExactMeasureSpecsFrom(this);
-//    }
-//    dispatchLayoutStep3();
+  @Override
+  public void requestLayout() {
+    if (mEatRequestLayout == 0 && !mLayoutFrozen) {
+      super.requestLayout();
+    } else {
+      mLayoutRequestEaten = true;
+    }
   }
 
-  @Override
-  public int computeHorizontalScrollRange() {
-    return 0;
+  void eatRequestLayout() {
+    mEatRequestLayout++;
+    if (mEatRequestLayout == 1 && !mLayoutFrozen) {
+      mLayoutRequestEaten = false;
+    }
   }
 
-  @Override
-  public int computeHorizontalScrollOffset() {
-    return 0;
+  void resumeRequestLayout(boolean performLayoutChildren) {
+    if (mEatRequestLayout < 1) {
+      //noinspection PointlessBooleanExpression
+      if (DEBUG) {
+        throw new IllegalStateException("invalid eat request layout count");
+      }
+      mEatRequestLayout = 1;
+    }
+    if (!performLayoutChildren) {
+      // Reset the layout request eaten counter.
+      // This is necessary since eatRequest calls can be nested in which case the other
+      // call will override the inner one.
+      // for instance:
+      // eat layout for process adapter updates
+      //   eat layout for dispatchLayout
+      //     a bunch of req layout calls arrive
+      mLayoutRequestEaten = false;
+    }
+    if (mEatRequestLayout == 1) {
+      // when layout is frozen we should delay dispatchLayout()
+      if (performLayoutChildren && mLayoutRequestEaten && !mLayoutFrozen
+          && mLayout != null && mAdapter != null) {
+        dispatchLayout();
+      }
+      if (!mLayoutFrozen) {
+        mLayoutRequestEaten = false;
+      }
+    }
+    mEatRequestLayout--;
   }
 
-  @Override
-  public int computeHorizontalScrollExtent() {
-    return 0;
+  /**
+   * Apply the pending adapter updates to the ViewHolders before the LayoutManager lays out
+   * the children with their new positions.
+   */
+  private void processAdapterUpdates() {
+    if (mDispatchItemsChangedEvent) {
+      mDispatchItemsChangedEvent = false;
+      mLayout.onItemsChanged(this);
+    }
+    if (mAdapterHelper.hasPendingUpdates()) {
+      mAdapterHelper.consumeUpdatesInOnePass();
+    }
   }
 
-  @Override
-  public int computeVerticalScrollRange() {
-    return 0;
+  /**
+   * Helper method reflect data changes to the state.
+   * <p>
+   * Adapter changes during a scroll may trigger a crash because scroll assumes no data change
+   * but data actually changed.
+   * <p>
+   * This method consumes all deferred changes to avoid that case.
+   */
+  void consumePendingUpdateOperations() {
+    if (!mFirstLayoutComplete
+        || (!mDataSetHasChangedAfterLayout && !mAdapterHelper.hasPendingUpdates())) {
+      return;
+    }
+    TraceCompat.beginSection(TRACE_ON_DATA_SET_CHANGE_LAYOUT_TAG);
+    dispatchLayout();
+    TraceCompat.endSection();
+  }
+
+  /**
+   * Returns whether there are pending adapter updates which are not yet applied to the layout.
+   * <p>
+   * If this method returns <code>true</code>, it means that what user is currently seeing may
+   * not reflect them adapter contents (depending on what has changed).
+   *
+   * @return True if there are some adapter updates which are not yet reflected to layout or
+   * false if layout is up to date.
+   */
+  public boolean hasPendingAdapterUpdates() {
+    return !mFirstLayoutComplete || mDataSetHasChangedAfterLayout
+        || mAdapterHelper.hasPendingUpdates();
+  }
+
+  /**
+   * Wrapper around layoutChildren() that handles animating changes caused by layout.
+   * The pre-layout and the animations are not ported yet, thus this is only the actual layout
+   * step (step 2 in the support library).
+   */
+  void dispatchLayout() {
+    if (mAdapter == null) {
+      Log.e(TAG, "No adapter attached; skipping layout");
+      return;
+    }
+    if (mLayout == null) {
+      Log.e(TAG, "No layout manager attached; skipping layout");
+      return;
+    }
+    // always make sure we sync them (to ensure mode is exact)
+    mLayout.setExactMeasureSpecsFrom(this);
+    eatRequestLayout();
+    onEnterLayoutOrScroll();
+    processAdapterUpdates();
+    mState.mItemCount = mAdapter.getItemCount();
+    mLayout.onLayoutChildren(mRecycler, mState);
+    mState.mStructureChanged = false;
+    mDataSetHasChangedAfterLayout = false;
+    // Recycle the scrapped views which are not laid out again.
+    mLayout.removeAndRecycleScrapInt(mRecycler);
+    onExitLayoutOrScroll();
+    resumeRequestLayout(false);
   }
 
   @Override
-  public int computeVerticalScrollOffset() {
-    return 0;
+  protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+    return (p instanceof LayoutParams) && mLayout.checkLayoutParams((LayoutParams) p);
   }
 
   @Override
-  public int computeVerticalScrollExtent() {
-    return 0;
+  protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
+    if (mLayout == null) {
+      throw new IllegalStateException("RecyclerView has no LayoutManager");
+    }
+    return mLayout.generateDefaultLayoutParams();
   }
 
-  public static abstract class Adapter<VH extends ViewHolder> {
-    private final AdapterDataObservable mObservable = new AdapterDataObservable();
+  @Override
+  public ViewGroup.LayoutParams generateLayoutParams(AttributeSet attrs) {
+    if (mLayout == null) {
+      throw new IllegalStateException("RecyclerView has no LayoutManager");
+    }
+    return mLayout.generateLayoutParams(getContext(), attrs);
+  }
 
-    public abstract VH onCreateViewHolder(ViewGroup parent, int viewType);
+  @Override
+  protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+    if (mLayout == null) {
+      throw new IllegalStateException("RecyclerView has no LayoutManager");
+    }
+    return mLayout.generateLayoutParams(p);
+  }
 
-    public abstract void onBindViewHolder(VH holder, int position);
+  /**
+   * Retrieve the {@link ViewHolder} for the given child view.
+   *
+   * @param child Child of this RecyclerView to query for its ViewHolder
+   * @return The child view's ViewHolder
+   */
+  public ViewHolder getChildViewHolder(View child) {
+    final ViewParent parent = child.getParent();
+    if (parent != null && parent != this) {
+      throw new IllegalArgumentException("View " + child + " is not a direct child of "
+          + this);
+    }
+    return getChildViewHolderInt(child);
+  }
 
-    public abstract int getItemCount();
+  static ViewHolder getChildViewHolderInt(View child) {
+    if (child == null) {
+      return null;
+    }
+    return ((LayoutParams) child.getLayoutParams()).mViewHolder;
+  }
 
-    public int getItemViewType(int position) {
+  /**
+   * Time source of the prefetch deadlines and of the create/bind time averages. The time is
+   * not measured when the prefetch is disabled.
+   */
+  static long getNanoTime() {
+    if (ALLOW_THREAD_GAP_WORK) {
+      return System.nanoTime();
+    } else {
       return 0;
     }
+  }
 
-    public final void notifyDataSetChanged() {
-      mObservable.notifyChanged();
-    }
+  /**
+   * Return the adapter position that the given child view corresponds to.
+   *
+   * @param child Child View to query
+   * @return Adapter position corresponding to the given view or {@link #NO_POSITION}
+   */
+  public int getChildAdapterPosition(View child) {
+    final ViewHolder holder = getChildViewHolderInt(child);
+    return holder != null ? holder.getAdapterPosition() : NO_POSITION;
+  }
 
-    public void registerAdapterDataObserver(AdapterDataObserver observer) {
-      mObservable.registerObserver(observer);
-    }
+  /**
+   * Return the adapter position of the given child view as of the latest completed layout pass.
+   *
+   * @param child Child View to query
+   * @return Adapter position of the given View as of last layout pass or {@link #NO_POSITION} if
+   * the View is representing a removed item.
+   */
+  public int getChildLayoutPosition(View child) {
+    final ViewHolder holder = getChildViewHolderInt(child);
+    return holder != null ? holder.getLayoutPosition() : NO_POSITION;
+  }
 
-    public void unregisterAdapterDataObserver(AdapterDataObserver observer) {
-      mObservable.unregisterObserver(observer);
+  /**
+   * Offset the bounds of all child views by <code>dx</code> pixels.
+   * Useful for implementing simple scrolling in {@link LayoutManager LayoutManagers}.
+   *
+   * @param dx Horizontal pixel offset to apply to the bounds of all child views
+   */
+  public void offsetChildrenHorizontal(int dx) {
+    final int childCount = mChildHelper.getChildCount();
+    for (int i = 0; i < childCount; i++) {
+      mChildHelper.getChildAt(i).offsetLeftAndRight(dx);
     }
+  }
 
-    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+  /**
+   * Offset the bounds of all child views by <code>dy</code> pixels.
+   * Useful for implementing simple scrolling in {@link LayoutManager LayoutManagers}.
+   *
+   * @param dy Vertical pixel offset to apply to the bounds of all child views
+   */
+  public void offsetChildrenVertical(int dy) {
+    final int childCount = mChildHelper.getChildCount();
+    for (int i = 0; i < childCount; i++) {
+      mChildHelper.getChildAt(i).offsetTopAndBottom(dy);
     }
+  }
 
-    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+  /**
+   * Return the ViewHolder for the item in the given position of the data set as of the latest
+   * layout pass. Removed items are not returned.
+   *
+   * @param position The position of the item in the data set of the adapter
+   * @return The ViewHolder at <code>position</code> or null if there is no such item
+   */
+  ViewHolder findViewHolderForPosition(int position) {
+    final int childCount = mChildHelper.getChildCount();
+    for (int i = 0; i < childCount; i++) {
+      final ViewHolder holder = getChildViewHolderInt(mChildHelper.getChildAt(i));
+      if (holder != null && !holder.isRemoved() && holder.getLayoutPosition() == position) {
+        return holder;
+      }
     }
+    return null;
   }
 
-  public static abstract class ViewHolder {
-    public final View itemView;
+  int getAdapterPositionFor(ViewHolder viewHolder) {
+    if (viewHolder.isInvalid() || viewHolder.isRemoved() || !viewHolder.isBound()) {
+      return RecyclerView.NO_POSITION;
+    }
+    return mAdapterHelper.applyPendingUpdatesToPosition(viewHolder.mPosition);
+  }
+
+  void offsetPositionRecordsForMove(int from, int to) {
+    final int childCount = mChildHelper.getUnfilteredChildCount();
+    final int start, end, inBetweenOffset;
+    if (from < to) {
+      start = from;
+      end = to;
+      inBetweenOffset = -1;
+    } else {
+      start = to;
+      end = from;
+      inBetweenOffset = 1;
+    }
+
+    for (int i = 0; i < childCount; i++) {
+      final ViewHolder holder = getChildViewHolderInt(mChildHelper.getUnfilteredChildAt(i));
+      if (holder == null || holder.mPosition < start || holder.mPosition > end) {
+        continue;
+      }
+      if (DEBUG) {
+        Log.d(TAG, "offsetPositionRecordsForMove attached child " + i + " holder " + holder);
+      }
+      if (holder.mPosition == from) {
+        holder.offsetPosition(to - from);
+      } else {
+        holder.offsetPosition(inBetweenOffset);
+      }
+      mState.mStructureChanged = true;
+    }
+    mRecycler.offsetPositionRecordsForMove(from, to);
+    requestLayout();
+  }
+
+  void offsetPositionRecordsForInsert(int positionStart, int itemCount) {
+    final int childCount = mChildHelper.getUnfilteredChildCount();
+    for (int i = 0; i < childCount; i++) {
+      final ViewHolder holder = getChildViewHolderInt(mChildHelper.getUnfilteredChildAt(i));
+      if (holder != null && holder.mPosition >= positionStart) {
+        if (DEBUG) {
+          Log.d(TAG, "offsetPositionRecordsForInsert attached child " + i + " holder "
+              + holder + " now at position " + (holder.mPosition + itemCount));
+        }
+        holder.offsetPosition(itemCount);
+        mState.mStructureChanged = true;
+      }
+    }
+    mRecycler.offsetPositionRecordsForInsert(positionStart, itemCount);
+    requestLayout();
+  }
+
+  void offsetPositionRecordsForRemove(int positionStart, int itemCount) {
+    final int positionEnd = positionStart + itemCount;
+    final int childCount = mChildHelper.getUnfilteredChildCount();
+    for (int i = 0; i < childCount; i++) {
+      final ViewHolder holder = getChildViewHolderInt(mChildHelper.getUnfilteredChildAt(i));
+      if (holder != null) {
+        if (holder.mPosition >= positionEnd) {
+          if (DEBUG) {
+            Log.d(TAG, "offsetPositionRecordsForRemove attached child " + i
+                + " holder " + holder + " now at position "
+                + (holder.mPosition - itemCount));
+          }
+          holder.offsetPosition(-itemCount);
+          mState.mStructureChanged = true;
+        } else if (holder.mPosition >= positionStart) {
+          if (DEBUG) {
+            Log.d(TAG, "offsetPositionRecordsForRemove attached child " + i
+                + " holder " + holder + " now REMOVED");
+          }
+          holder.flagRemovedAndOffsetPosition(positionStart - 1, -itemCount);
+          mState.mStructureChanged = true;
+        }
+      }
+    }
+    mRecycler.offsetPositionRecordsForRemove(positionStart, itemCount);
+    requestLayout();
+  }
+
+  /**
+   * Rebind existing views for the given range, or create as needed.
+   *
+   * @param positionStart Adapter position to start at
+   * @param itemCount     Number of views that must explicitly be rebound
+   */
+  void viewRangeUpdate(int positionStart, int itemCount, Object payload) {
+    final int childCount = mChildHelper.getUnfilteredChildCount();
+    final int positionEnd = positionStart + itemCount;
+
+    for (int i = 0; i < childCount; i++) {
+      final View child = mChildHelper.getUnfilteredChildAt(i);
+      final ViewHolder holder = getChildViewHolderInt(child);
+      if (holder == null) {
+        continue;
+      }
+      if (holder.mPosition >= positionStart && holder.mPosition < positionEnd) {
+        // We re-bind these view holders after pre-processing is complete so that
+        // ViewHolders have their final positions assigned.
+        holder.addFlags(ViewHolder.FLAG_UPDATE);
+        holder.addChangePayload(payload);
+      }
+    }
+    mRecycler.viewRangeUpdate(positionStart, itemCount);
+  }
+
+  @Override
+  protected void removeDetachedView(View child, boolean animate) {
+    ViewHolder vh = getChildViewHolderInt(child);
+    if (vh != null) {
+      // The holder is no longer tmp detached once its view is removed, thus it can be recycled.
+      vh.clearTmpDetachFlag();
+    }
+    dispatchChildDetached(child);
+    super.removeDetachedView(child, animate);
+  }
+
+  void dispatchChildAttached(View child) {
+    final ViewHolder viewHolder = getChildViewHolderInt(child);
+    if (mAdapter != null && viewHolder != null) {
+      mAdapter.onViewAttachedToWindow(viewHolder);
+    }
+  }
+
+  void dispatchChildDetached(View child) {
+    final ViewHolder viewHolder = getChildViewHolderInt(child);
+    if (mAdapter != null && viewHolder != null) {
+      mAdapter.onViewDetachedFromWindow(viewHolder);
+    }
+  }
+
+  @Override
+  public void scrollTo(int x, int y) {
+    Log.w(TAG, "RecyclerView does not support scrolling to an absolute position. "
+        + "Use scrollToPosition instead");
+  }
+
+  @Override
+  public void scrollBy(int x, int y) {
+    if (mLayout == null) {
+      Log.e(TAG, "Cannot scroll without a LayoutManager set. "
+          + "Call setLayoutManager with a non-null argument.");
+      return;
+    }
+    if (mLayoutFrozen) {
+      return;
+    }
+    final boolean canScrollHorizontal = mLayout.canScrollHorizontally();
+    final boolean canScrollVertical = mLayout.canScrollVertically();
+    if (canScrollHorizontal || canScrollVertical) {
+      scrollByInternal(canScrollHorizontal ? x : 0, canScrollVertical ? y : 0);
+    }
+  }
+
+  /**
+   * Convenience method to scroll to a certain position.
+   *
+   * RecyclerView does not implement scrolling logic, rather forwards the call to
+   * {@link LayoutManager#scrollToPosition(int)}
+   *
+   * @param position Scroll to this adapter position
+   * @see LayoutManager#scrollToPosition(int)
+   */
+  public void scrollToPosition(int position) {
+    if (mLayoutFrozen) {
+      return;
+    }
+    stopScroll();
+    if (mLayout == null) {
+      Log.e(TAG, "Cannot scroll to position a LayoutManager set. "
+          + "Call setLayoutManager with a non-null argument.");
+      return;
+    }
+    mLayout.scrollToPosition(position);
+    awakenScrollBars();
+  }
+
+  /**
+   * Does not perform bounds checking. Used by internal methods that have already validated input.
+   *
+   * @param x The amount of horizontal scroll request
+   * @param y The amount of vertical scroll request
+   * @return Whether any scroll was consumed in either direction.
+   */
+  boolean scrollByInternal(int x, int y) {
+    int consumedX = 0;
+    int consumedY = 0;
+    consumePendingUpdateOperations();
+    if (mAdapter != null) {
+      eatRequestLayout();
+      onEnterLayoutOrScroll();
+      TraceCompat.beginSection(TRACE_SCROLL_TAG);
+      if (x != 0) {
+        consumedX = mLayout.scrollHorizontallyBy(x, mRecycler, mState);
+      }
+      if (y != 0) {
+        consumedY = mLayout.scrollVerticallyBy(y, mRecycler, mState);
+      }
+      TraceCompat.endSection();
+      // Recycle the views which are scrapped in the scroll.
+      mLayout.removeAndRecycleScrapInt(mRecycler);
+      onExitLayoutOrScroll();
+      resumeRequestLayout(false);
+    }
+    if (consumedX != 0 || consumedY != 0) {
+      if (!awakenScrollBars()) {
+        invalidate();
+      }
+    }
+    return consumedX != 0 || consumedY != 0;
+  }
+
+  /**
+   * Begin a standard fling with an initial velocity along each axis in pixels per second.
+   * If the velocity given is below the system-defined minimum this method will return false
+   * and no fling will occur.
+   *
+   * @param velocityX Initial horizontal velocity in pixels per second
+   * @param velocityY Initial vertical velocity in pixels per second
+   * @return true if the fling was started, false if the velocity was too low to fling or
+   * LayoutManager does not support scrolling in the axis fling is issued.
+   */
+  public boolean fling(int velocityX, int velocityY) {
+    if (mLayout == null) {
+      Log.e(TAG, "Cannot fling without a LayoutManager set. "
+          + "Call setLayoutManager with a non-null argument.");
+      return false;
+    }
+    if (mLayoutFrozen) {
+      return false;
+    }
+
+    final boolean canScrollHorizontal = mLayout.canScrollHorizontally();
+    final boolean canScrollVertical = mLayout.canScrollVertically();
+
+    if (!canScrollHorizontal || Math.abs(velocityX) < mMinFlingVelocity) {
+      velocityX = 0;
+    }
+    if (!canScrollVertical || Math.abs(velocityY) < mMinFlingVelocity) {
+      velocityY = 0;
+    }
+    if (velocityX == 0 && velocityY == 0) {
+      // If we don't have any velocity, return false
+      return false;
+    }
+
+    velocityX = Math.max(-mMaxFlingVelocity, Math.min(velocityX, mMaxFlingVelocity));
+    velocityY = Math.max(-mMaxFlingVelocity, Math.min(velocityY, mMaxFlingVelocity));
+    mRecycler.setFlingCacheExtra(getFlingCacheExtra(velocityX, velocityY));
+    mViewFlinger.fling(velocityX, velocityY);
+    return true;
+  }
+
+  /**
+   * Calculate the number of the views cached in addition to the requested cache size for a
+   * fling, which is proportional to the velocity. A fast fling detaches many views which are
+   * likely to be shown again when the user flings back.
+   */
+  private int getFlingCacheExtra(int velocityX, int velocityY) {
+    final int velocity = Math.max(Math.abs(velocityX), Math.abs(velocityY));
+    return Math.round(MAX_FLING_CACHE_EXTRA * velocity / (float) mMaxFlingVelocity);
+  }
+
+  @Override
+  public boolean onInterceptTouchEvent(MotionEvent e) {
+    if (mLayoutFrozen) {
+      // When layout is frozen,  RV does not intercept the motion event.
+      // A child view e.g. a button may still get the click.
+      return false;
+    }
+    if (mLayout == null) {
+      return false;
+    }
+
+    final boolean canScrollHorizontally = mLayout.canScrollHorizontally();
+    final boolean canScrollVertically = mLayout.canScrollVertically();
+
+    if (mVelocityTracker == null) {
+      mVelocityTracker = VelocityTracker.obtain();
+    }
+    mVelocityTracker.addMovement(e);
+
+    final int action = e.getActionMasked();
+    final int actionIndex = e.getActionIndex();
+
+    switch (action) {
+      case MotionEvent.ACTION_DOWN:
+        if (mIgnoreMotionEventTillDown) {
+          mIgnoreMotionEventTillDown = false;
+        }
+        mScrollPointerId = e.getPointerId(0);
+        mInitialTouchX = mLastTouchX = (int) (e.getX() + 0.5f);
+        mInitialTouchY = mLastTouchY = (int) (e.getY() + 0.5f);
+
+        if (mScrollState == SCROLL_STATE_SETTLING) {
+          getParent().requestDisallowInterceptTouchEvent(true);
+          setScrollState(SCROLL_STATE_DRAGGING);
+        }
+        break;
+
+      case MotionEvent.ACTION_POINTER_DOWN:
+        mScrollPointerId = e.getPointerId(actionIndex);
+        mInitialTouchX = mLastTouchX = (int) (e.getX(actionIndex) + 0.5f);
+        mInitialTouchY = mLastTouchY = (int) (e.getY(actionIndex) + 0.5f);
+        break;
+
+      case MotionEvent.ACTION_MOVE: {
+        final int index = e.findPointerIndex(mScrollPointerId);
+        if (index < 0) {
+          Log.e(TAG, "Error processing scroll; pointer index for id "
+              + mScrollPointerId + " not found. Did any MotionEvents get skipped?");
+          return false;
+        }
+
+        final int x = (int) (e.getX(index) + 0.5f);
+        final int y = (int) (e.getY(index) + 0.5f);
+        if (mScrollState != SCROLL_STATE_DRAGGING) {
+          final int dx = x - mInitialTouchX;
+          final int dy = y - mInitialTouchY;
+          boolean startScroll = false;
+          if (canScrollHorizontally && Math.abs(dx) > mTouchSlop) {
+            mLastTouchX = mInitialTouchX + mTouchSlop * (dx < 0 ? -1 : 1);
+            startScroll = true;
+          }
+          if (canScrollVertically && Math.abs(dy) > mTouchSlop) {
+            mLastTouchY = mInitialTouchY + mTouchSlop * (dy < 0 ? -1 : 1);
+            startScroll = true;
+          }
+          if (startScroll) {
+            setScrollState(SCROLL_STATE_DRAGGING);
+          }
+        }
+      }
+      break;
+
+      case MotionEvent.ACTION_POINTER_UP: {
+        onPointerUp(e);
+      }
+      break;
+
+      case MotionEvent.ACTION_UP: {
+        mVelocityTracker.clear();
+      }
+      break;
+
+      case MotionEvent.ACTION_CANCEL: {
+        cancelTouch();
+      }
+    }
+    return mScrollState == SCROLL_STATE_DRAGGING;
+  }
+
+  @Override
+  public boolean onTouchEvent(MotionEvent e) {
+    if (mLayoutFrozen || mIgnoreMotionEventTillDown) {
+      return false;
+    }
+    if (mLayout == null) {
+      return false;
+    }
+
+    final boolean canScrollHorizontally = mLayout.canScrollHorizontally();
+    final boolean canScrollVertically = mLayout.canScrollVertically();
+
+    if (mVelocityTracker == null) {
+      mVelocityTracker = VelocityTracker.obtain();
+    }
+    boolean eventAddedToVelocityTracker = false;
+
+    final int action = e.getActionMasked();
+    final int actionIndex = e.getActionIndex();
+
+    switch (action) {
+      case MotionEvent.ACTION_DOWN: {
+        mScrollPointerId = e.getPointerId(0);
+        mInitialTouchX = mLastTouchX = (int) (e.getX() + 0.5f);
+        mInitialTouchY = mLastTouchY = (int) (e.getY() + 0.5f);
+      }
+      break;
+
+      case MotionEvent.ACTION_POINTER_DOWN: {
+        mScrollPointerId = e.getPointerId(actionIndex);
+        mInitialTouchX = mLastTouchX = (int) (e.getX(actionIndex) + 0.5f);
+        mInitialTouchY = mLastTouchY = (int) (e.getY(actionIndex) + 0.5f);
+      }
+      break;
+
+      case MotionEvent.ACTION_MOVE: {
+        final int index = e.findPointerIndex(mScrollPointerId);
+        if (index < 0) {
+          Log.e(TAG, "Error processing scroll; pointer index for id "
+              + mScrollPointerId + " not found. Did any MotionEvents get skipped?");
+          return false;
+        }
+
+        final int x = (int) (e.getX(index) + 0.5f);
+        final int y = (int) (e.getY(index) + 0.5f);
+        int dx = mLastTouchX - x;
+        int dy = mLastTouchY - y;
+
+        if (mScrollState != SCROLL_STATE_DRAGGING) {
+          boolean startScroll = false;
+          if (canScrollHorizontally && Math.abs(dx) > mTouchSlop) {
+            if (dx > 0) {
+              dx -= mTouchSlop;
+            } else {
+              dx += mTouchSlop;
+            }
+            startScroll = true;
+          }
+          if (canScrollVertically && Math.abs(dy) > mTouchSlop) {
+            if (dy > 0) {
+              dy -= mTouchSlop;
+            } else {
+              dy += mTouchSlop;
+            }
+            startScroll = true;
+          }
+          if (startScroll) {
+            setScrollState(SCROLL_STATE_DRAGGING);
+          }
+        }
+
+        if (mScrollState == SCROLL_STATE_DRAGGING) {
+          mLastTouchX = x;
+          mLastTouchY = y;
+
+          if (scrollByInternal(
+              canScrollHorizontally ? dx : 0,
+              canScrollVertically ? dy : 0)) {
+            getParent().requestDisallowInterceptTouchEvent(true);
+          }
+          if (mGapWorker != null && (dx != 0 || dy != 0)) {
+            mGapWorker.postFromTraversal(this, dx, dy);
+          }
+        }
+      }
+      break;
+
+      case MotionEvent.ACTION_POINTER_UP: {
+        onPointerUp(e);
+      }
+      break;
+
+      case MotionEvent.ACTION_UP: {
+        mVelocityTracker.addMovement(e);
+        eventAddedToVelocityTracker = true;
+        mVelocityTracker.computeCurrentVelocity(1000, mMaxFlingVelocity);
+        final float xvel = canScrollHorizontally
+            ? -mVelocityTracker.getXVelocity(mScrollPointerId) : 0;
+        final float yvel = canScrollVertically
+            ? -mVelocityTracker.getYVelocity(mScrollPointerId) : 0;
+        if (!((xvel != 0 || yvel != 0) && fling((int) xvel, (int) yvel))) {
+          setScrollState(SCROLL_STATE_IDLE);
+        }
+        resetTouch();
+      }
+      break;
+
+      case MotionEvent.ACTION_CANCEL: {
+        cancelTouch();
+      }
+      break;
+    }
+
+    if (!eventAddedToVelocityTracker) {
+      mVelocityTracker.addMovement(e);
+    }
+    return true;
+  }
+
+  private void resetTouch() {
+    if (mVelocityTracker != null) {
+      mVelocityTracker.clear();
+    }
+  }
+
+  private void cancelTouch() {
+    resetTouch();
+    setScrollState(SCROLL_STATE_IDLE);
+  }
+
+  private void onPointerUp(MotionEvent e) {
+    final int actionIndex = e.getActionIndex();
+    if (e.getPointerId(actionIndex) == mScrollPointerId) {
+      // Pick a new pointer to pick up the slack.
+      final int newIndex = actionIndex == 0 ? 1 : 0;
+      mScrollPointerId = e.getPointerId(newIndex);
+      mInitialTouchX = mLastTouchX = (int) (e.getX(newIndex) + 0.5f);
+      mInitialTouchY = mLastTouchY = (int) (e.getY(newIndex) + 0.5f);
+    }
+  }
+
+  @Override
+  public int computeHorizontalScrollRange() {
+    if (mLayout == null) {
+      return 0;
+    }
+    return mLayout.canScrollHorizontally() ? mLayout.computeHorizontalScrollRange(mState) : 0;
+  }
+
+  @Override
+  public int computeHorizontalScrollOffset() {
+    if (mLayout == null) {
+      return 0;
+    }
+    return mLayout.canScrollHorizontally() ? mLayout.computeHorizontalScrollOffset(mState) : 0;
+  }
+
+  @Override
+  public int computeHorizontalScrollExtent() {
+    if (mLayout == null) {
+      return 0;
+    }
+    return mLayout.canScrollHorizontally() ? mLayout.computeHorizontalScrollExtent(mState) : 0;
+  }
+
+  @Override
+  public int computeVerticalScrollRange() {
+    if (mLayout == null) {
+      return 0;
+    }
+    return mLayout.canScrollVertically() ? mLayout.computeVerticalScrollRange(mState) : 0;
+  }
+
+  @Override
+  public int computeVerticalScrollOffset() {
+    if (mLayout == null) {
+      return 0;
+    }
+    return mLayout.canScrollVertically() ? mLayout.computeVerticalScrollOffset(mState) : 0;
+  }
+
+  @Override
+  public int computeVerticalScrollExtent() {
+    if (mLayout == null) {
+      return 0;
+    }
+    return mLayout.canScrollVertically() ? mLayout.computeVerticalScrollExtent(mState) : 0;
+  }
+
+  public static abstract class Adapter<VH extends ViewHolder> {
+    private final AdapterDataObservable mObservable = new AdapterDataObservable();
+    private boolean mHasStableIds = false;
+
+    public abstract VH onCreateViewHolder(ViewGroup parent, int viewType);
+
+    public abstract void onBindViewHolder(VH holder, int position);
+
+    /**
+     * Called by RecyclerView to display the data at the specified position. This method
+     * should update the contents of the {@link ViewHolder#itemView} to reflect the item at
+     * the given position.
+     * <p>
+     * The payloads parameter is a merge list from {@link #notifyItemChanged(int, Object)} or
+     * {@link #notifyItemRangeChanged(int, int, Object)}. If the payloads list is not empty,
+     * the ViewHolder is currently bound to old data and Adapter may run an efficient partial
+     * update using the payload info. If the payload is empty, Adapter must run a full bind.
+     * Adapter should not assume that the payload passed in notify methods will be received by
+     * onBindViewHolder(). For example when the view is not attached to the screen, the
+     * payload in notifyItemChange() will be simply dropped.
+     *
+     * @param holder   The ViewHolder which should be updated to represent the contents of the
+     *                 item at the given position in the data set.
+     * @param position The position of the item within the adapter's data set.
+     * @param payloads A non-null list of merged payloads. Can be empty list if requires full
+     *                 update.
+     */
+    public void onBindViewHolder(VH holder, int position, List<Object> payloads) {
+      onBindViewHolder(holder, position);
+    }
+
+    public abstract int getItemCount();
+
+    public int getItemViewType(int position) {
+      return 0;
+    }
+
+    /**
+     * Indicates whether each item in the data set can be represented with a unique identifier
+     * of type {@link java.lang.Long}.
+     * <p>
+     * With stable ids, {@link #notifyDataSetChanged()} does not throw the attached and cached
+     * ViewHolders away. RecyclerView matches them back to their items by id in the next layout
+     * pass, so the views are reused in place and only rebound.
+     *
+     * @param hasStableIds Whether items in data set have unique identifiers or not.
+     * @see #hasStableIds()
+     * @see #getItemId(int)
+     */
+    public void setHasStableIds(boolean hasStableIds) {
+      if (hasObservers()) {
+        throw new IllegalStateException("Cannot change whether this adapter has "
+            + "stable IDs while the adapter has registered observers.");
+      }
+      mHasStableIds = hasStableIds;
+    }
+
+    /**
+     * Return the stable ID for the item at <code>position</code>. If {@link #hasStableIds()}
+     * would return false this method should return {@link #NO_ID}. The default implementation
+     * of this method returns {@link #NO_ID}.
+     *
+     * @param position Adapter position to query
+     * @return the stable ID of the item at position
+     */
+    public long getItemId(int position) {
+      return NO_ID;
+    }
+
+    /**
+     * Returns true if this adapter publishes a unique <code>long</code> value that can
+     * act as a key for the item at a given position in the data set. If that item is relocated
+     * in the data set, the ID returned for that item should be the same.
+     *
+     * @return true if this adapter's items have stable IDs
+     */
+    public final boolean hasStableIds() {
+      return mHasStableIds;
+    }
+
+    /**
+     * This method calls {@link #onCreateViewHolder(ViewGroup, int)} to create a new
+     * {@link ViewHolder} and initializes some private fields to be used by RecyclerView.
+     *
+     * @see #onCreateViewHolder(ViewGroup, int)
+     */
+    public final VH createViewHolder(ViewGroup parent, int viewType) {
+      TraceCompat.beginSection(TRACE_CREATE_VIEW_TAG);
+      final VH holder = onCreateViewHolder(parent, viewType);
+      holder.mItemViewType = viewType;
+      TraceCompat.endSection();
+      return holder;
+    }
+
+    /**
+     * This method internally calls {@link #onBindViewHolder(ViewHolder, int)} to update the
+     * {@link ViewHolder} contents with the item at the given position and also sets up some
+     * private fields to be used by RecyclerView.
+     *
+     * @see #onBindViewHolder(ViewHolder, int)
+     */
+    public final void bindViewHolder(VH holder, int position) {
+      holder.mPosition = position;
+      if (hasStableIds()) {
+        holder.mItemId = getItemId(position);
+      }
+      holder.setFlags(ViewHolder.FLAG_BOUND,
+          ViewHolder.FLAG_BOUND | ViewHolder.FLAG_UPDATE | ViewHolder.FLAG_INVALID);
+      TraceCompat.beginSection(TRACE_BIND_VIEW_TAG);
+      onBindViewHolder(holder, position, holder.getUnmodifiedPayloads());
+      holder.clearPayload();
+      TraceCompat.endSection();
+    }
+
+    /**
+     * Called when a view created by this adapter has been recycled.
+     *
+     * @param holder The ViewHolder for the view being recycled
+     */
+    public void onViewRecycled(VH holder) {
+    }
+
+    /**
+     * Called when a view created by this adapter has been attached to a window.
+     *
+     * @param holder Holder of the view being attached
+     */
+    public void onViewAttachedToWindow(VH holder) {
+    }
+
+    /**
+     * Called when a view created by this adapter has been detached from its window.
+     *
+     * @param holder Holder of the view being detached
+     */
+    public void onViewDetachedFromWindow(VH holder) {
+    }
+
+    /**
+     * Returns true if one or more observers are attached to this adapter.
+     *
+     * @return true if this adapter has observers
+     */
+    public final boolean hasObservers() {
+      return mObservable.hasObservers();
+    }
+
+    /**
+     * Notify any registered observers that the data set has changed.
+     *
+     * <p>This event does not specify what about the data set has changed, forcing
+     * any observers to assume that all existing items and structure may no longer be valid.
+     * LayoutManagers will be forced to fully rebind and relayout all visible views.</p>
+     *
+     * <p>If you are writing an adapter it will always be more efficient to use the more
+     * specific change events if you can. Rely on <code>notifyDataSetChanged()</code>
+     * as a last resort.</p>
+     *
+     * @see #notifyItemChanged(int)
+     * @see #notifyItemInserted(int)
+     * @see #notifyItemRemoved(int)
+     * @see #notifyItemRangeChanged(int, int)
+     * @see #notifyItemRangeInserted(int, int)
+     * @see #notifyItemRangeRemoved(int, int)
+     */
+    public final void notifyDataSetChanged() {
+      mObservable.notifyChanged();
+    }
+
+    /**
+     * Notify any registered observers that the item at <code>position</code> has changed.
+     * Equivalent to calling <code>notifyItemChanged(position, null);</code>.
+     *
+     * <p>This is an item change event, not a structural change event. It indicates that any
+     * reflection of the data at <code>position</code> is out of date and should be updated.
+     * The item at <code>position</code> retains the same identity.</p>
+     *
+     * @param position Position of the item that has changed
+     * @see #notifyItemRangeChanged(int, int)
+     */
+    public final void notifyItemChanged(int position) {
+      mObservable.notifyItemRangeChanged(position, 1);
+    }
+
+    /**
+     * Notify any registered observers that the item at <code>position</code> has changed with
+     * an optional payload object.
+     *
+     * <p>Client can optionally pass a payload for partial change. These payloads will be merged
+     * and may be passed to adapter's {@link #onBindViewHolder(ViewHolder, int, List)} if the
+     * item is already represented by a ViewHolder and it will be rebound to the same
+     * ViewHolder. A notifyItemRangeChanged() with null payload will clear all existing
+     * payloads on that item and prevent future payload until
+     * {@link #onBindViewHolder(ViewHolder, int, List)} is called. Adapter should not assume
+     * that the payload will always be passed to onBindViewHolder(), e.g. when the view is not
+     * attached, the payload will be simply dropped.
+     *
+     * @param position Position of the item that has changed
+     * @param payload  Optional parameter, use null to identify a "full" update
+     * @see #notifyItemRangeChanged(int, int)
+     */
+    public final void notifyItemChanged(int position, Object payload) {
+      mObservable.notifyItemRangeChanged(position, 1, payload);
+    }
+
+    /**
+     * Notify any registered observers that the <code>itemCount</code> items starting at
+     * position <code>positionStart</code> have changed.
+     * Equivalent to calling <code>notifyItemRangeChanged(position, itemCount, null);</code>.
+     *
+     * @param positionStart Position of the first item that has changed
+     * @param itemCount     Number of items that have changed
+     * @see #notifyItemChanged(int)
+     */
+    public final void notifyItemRangeChanged(int positionStart, int itemCount) {
+      mObservable.notifyItemRangeChanged(positionStart, itemCount);
+    }
+
+    /**
+     * Notify any registered observers that the <code>itemCount</code> items starting at
+     * position <code>positionStart</code> have changed. An optional payload can be
+     * passed to each changed item.
+     *
+     * @param positionStart Position of the first item that has changed
+     * @param itemCount     Number of items that have changed
+     * @param payload       Optional parameter, use null to identify a "full" update
+     * @see #notifyItemChanged(int, Object)
+     */
+    public final void notifyItemRangeChanged(int positionStart, int itemCount, Object payload) {
+      mObservable.notifyItemRangeChanged(positionStart, itemCount, payload);
+    }
+
+    /**
+     * Notify any registered observers that the item reflected at <code>position</code>
+     * has been newly inserted. The item previously at <code>position</code> is now at
+     * position <code>position + 1</code>.
+     *
+     * @param position Position of the newly inserted item in the data set
+     * @see #notifyItemRangeInserted(int, int)
+     */
+    public final void notifyItemInserted(int position) {
+      mObservable.notifyItemRangeInserted(position, 1);
+    }
+
+    /**
+     * Notify any registered observers that the item reflected at <code>fromPosition</code>
+     * has been moved to <code>toPosition</code>.
+     *
+     * @param fromPosition Previous position of the item.
+     * @param toPosition   New position of the item.
+     */
+    public final void notifyItemMoved(int fromPosition, int toPosition) {
+      mObservable.notifyItemMoved(fromPosition, toPosition);
+    }
+
+    /**
+     * Notify any registered observers that the currently reflected <code>itemCount</code>
+     * items starting at <code>positionStart</code> have been newly inserted. The items
+     * previously located at <code>positionStart</code> and beyond can now be found starting
+     * at position <code>positionStart + itemCount</code>.
+     *
+     * <p>This is a structural change event. Representations of other existing items in the
+     * data set are still considered up to date and will not be rebound, though their positions
+     * may be altered.</p>
+     *
+     * @param positionStart Position of the first item that was inserted
+     * @param itemCount     Number of items inserted
+     * @see #notifyItemInserted(int)
+     */
+    public final void notifyItemRangeInserted(int positionStart, int itemCount) {
+      mObservable.notifyItemRangeInserted(positionStart, itemCount);
+    }
+
+    /**
+     * Notify any registered observers that the item previously located at
+     * <code>position</code> has been removed from the data set. The items previously located
+     * at and after <code>position</code> may now be found at <code>oldPosition - 1</code>.
+     *
+     * @param position Position of the item that has now been removed
+     * @see #notifyItemRangeRemoved(int, int)
+     */
+    public final void notifyItemRemoved(int position) {
+      mObservable.notifyItemRangeRemoved(position, 1);
+    }
+
+    /**
+     * Notify any registered observers that the <code>itemCount</code> items previously
+     * located at <code>positionStart</code> have been removed from the data set. The items
+     * previously located at and after <code>positionStart + itemCount</code> may now be found
+     * at <code>oldPosition - itemCount</code>.
+     *
+     * @param positionStart Previous position of the first item that was removed
+     * @param itemCount     Number of items removed from the data set
+     */
+    public final void notifyItemRangeRemoved(int positionStart, int itemCount) {
+      mObservable.notifyItemRangeRemoved(positionStart, itemCount);
+    }
+
+    public void registerAdapterDataObserver(AdapterDataObserver observer) {
+      mObservable.registerObserver(observer);
+    }
+
+    public void unregisterAdapterDataObserver(AdapterDataObserver observer) {
+      mObservable.unregisterObserver(observer);
+    }
+
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+    }
+
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+    }
+  }
+
+  public static abstract class ViewHolder {
+    public final View itemView;
+    int mPosition = NO_POSITION;
+    long mItemId = NO_ID;
+    int mItemViewType = INVALID_TYPE;
+
+    /**
+     * This ViewHolder has been bound to a position; mPosition, mItemId and mItemViewType
+     * are all valid.
+     */
+    static final int FLAG_BOUND = 1 << 0;
+
+    /**
+     * The data this ViewHolder's view reflects is stale and needs to be rebound
+     * by the adapter. mPosition and mItemId are consistent.
+     */
+    static final int FLAG_UPDATE = 1 << 1;
+
+    /**
+     * This ViewHolder's data is invalid. The identity implied by mPosition and mItemId
+     * are not to be trusted and may no longer match the item view type.
+     * This ViewHolder must be fully rebound to different data.
+     */
+    static final int FLAG_INVALID = 1 << 2;
+
+    /**
+     * This ViewHolder points at data that represents an item previously removed from the
+     * data set. Its view may still be used for things like outgoing animations.
+     */
+    static final int FLAG_REMOVED = 1 << 3;
+
+    /**
+     * The ViewHolder is returned from the scrap which means we are expecting an addView call
+     * for this itemView. When returned from scrap, ViewHolder stays in the scrap list until
+     * the end of the layout pass and then recycled by RecyclerView if it is not added back to
+     * the RecyclerView.
+     */
+    static final int FLAG_RETURNED_FROM_SCRAP = 1 << 5;
+
+    /**
+     * The View has been temporarily detached from its parent by the LayoutManager and is
+     * expected to be attached back or recycled in the same layout pass.
+     */
+    static final int FLAG_TMP_DETACHED = 1 << 8;
+
+    /**
+     * Set when a addChangePayload(null) is called
+     */
+    static final int FLAG_ADAPTER_FULLUPDATE = 1 << 10;
+
+    private int mFlags;
+
+    private static final List<Object> FULLUPDATE_PAYLOADS = Collections.emptyList();
+
+    List<Object> mPayloads = null;
+
+    List<Object> mUnmodifiedPayloads = null;
+
+    // If non-null, view is currently considered scrap and may be reused for other data by the
+    // scrap container.
+    Recycler mScrapContainer = null;
+
+    RecyclerView mOwnerRecyclerView;
 
     public ViewHolder(View itemView) {
       if (itemView == null) {
         throw new IllegalArgumentException("itemView may not be null");
       }
-      this.itemView = itemView;
+      this.itemView = itemView;
+    }
+
+    /**
+     * Returns the position of the ViewHolder in terms of the latest layout pass.
+     *
+     * @return Returns the adapter position of the ViewHolder in the latest layout pass.
+     */
+    public final int getLayoutPosition() {
+      return mPosition;
+    }
+
+    /**
+     * Returns the Adapter position of the item represented by this ViewHolder.
+     *
+     * @return The adapter position of the item if it still exists in the adapter.
+     * {@link RecyclerView#NO_POSITION} if {@link RecyclerView.Adapter#notifyDataSetChanged()}
+     * has been called after the last layout pass or the ViewHolder has already been recycled.
+     */
+    public final int getAdapterPosition() {
+      if (mOwnerRecyclerView == null) {
+        return NO_POSITION;
+      }
+      return mOwnerRecyclerView.getAdapterPositionFor(this);
+    }
+
+    /**
+     * Returns The itemId represented by this ViewHolder.
+     *
+     * @return The item's id if adapter has stable ids, {@link RecyclerView#NO_ID}
+     * otherwise
+     */
+    public final long getItemId() {
+      return mItemId;
+    }
+
+    /**
+     * @return The view type of this ViewHolder.
+     */
+    public final int getItemViewType() {
+      return mItemViewType;
+    }
+
+    boolean isScrap() {
+      return mScrapContainer != null;
+    }
+
+    void unScrap() {
+      mScrapContainer.unscrapView(this);
+    }
+
+    boolean wasReturnedFromScrap() {
+      return (mFlags & FLAG_RETURNED_FROM_SCRAP) != 0;
+    }
+
+    void clearReturnedFromScrapFlag() {
+      mFlags = mFlags & ~FLAG_RETURNED_FROM_SCRAP;
+    }
+
+    void clearTmpDetachFlag() {
+      mFlags = mFlags & ~FLAG_TMP_DETACHED;
+    }
+
+    void setScrapContainer(Recycler recycler) {
+      mScrapContainer = recycler;
+    }
+
+    boolean isInvalid() {
+      return (mFlags & FLAG_INVALID) != 0;
+    }
+
+    boolean needsUpdate() {
+      return (mFlags & FLAG_UPDATE) != 0;
+    }
+
+    boolean isBound() {
+      return (mFlags & FLAG_BOUND) != 0;
+    }
+
+    boolean isRemoved() {
+      return (mFlags & FLAG_REMOVED) != 0;
+    }
+
+    void flagRemovedAndOffsetPosition(int mNewPosition, int offset) {
+      addFlags(ViewHolder.FLAG_REMOVED);
+      offsetPosition(offset);
+      mPosition = mNewPosition;
+    }
+
+    void offsetPosition(int offset) {
+      mPosition += offset;
+    }
+
+    boolean isTmpDetached() {
+      return (mFlags & FLAG_TMP_DETACHED) != 0;
+    }
+
+    void setFlags(int flags, int mask) {
+      mFlags = (mFlags & ~mask) | (flags & mask);
+    }
+
+    void addFlags(int flags) {
+      mFlags |= flags;
+    }
+
+    void addChangePayload(Object payload) {
+      if (payload == null) {
+        addFlags(FLAG_ADAPTER_FULLUPDATE);
+      } else if ((mFlags & FLAG_ADAPTER_FULLUPDATE) == 0) {
+        createPayloadsIfNeeded();
+        mPayloads.add(payload);
+      }
+    }
+
+    private void createPayloadsIfNeeded() {
+      if (mPayloads == null) {
+        mPayloads = new ArrayList<>();
+        mUnmodifiedPayloads = Collections.unmodifiableList(mPayloads);
+      }
+    }
+
+    void clearPayload() {
+      if (mPayloads != null) {
+        mPayloads.clear();
+      }
+      mFlags = mFlags & ~FLAG_ADAPTER_FULLUPDATE;
+    }
+
+    List<Object> getUnmodifiedPayloads() {
+      if ((mFlags & FLAG_ADAPTER_FULLUPDATE) == 0) {
+        if (mPayloads == null || mPayloads.size() == 0) {
+          // Initial state,  no update being called.
+          return FULLUPDATE_PAYLOADS;
+        }
+        // there are none-null payloads
+        return mUnmodifiedPayloads;
+      } else {
+        // a full update has been called.
+        return FULLUPDATE_PAYLOADS;
+      }
+    }
+
+    void resetInternal() {
+      mFlags = 0;
+      mPosition = NO_POSITION;
+      mItemId = NO_ID;
+      clearPayload();
+      mOwnerRecyclerView = null;
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder sb = new StringBuilder("ViewHolder{"
+          + Integer.toHexString(hashCode()) + " position=" + mPosition + " id=" + mItemId
+          + ", type=" + mItemViewType);
+      if (isScrap()) {
+        sb.append(" scrap");
+      }
+      if (isInvalid()) {
+        sb.append(" invalid");
+      }
+      if (isRemoved()) {
+        sb.append(" removed");
+      }
+      if (!isBound()) {
+        sb.append(" unbound");
+      }
+      if (needsUpdate()) {
+        sb.append(" update");
+      }
+      if (isTmpDetached()) {
+        sb.append(" tmpDetached");
+      }
+      if (itemView.getParent() == null) {
+        sb.append(" no parent");
+      }
+      sb.append("}");
+      return sb.toString();
+    }
+  }
+
+  /**
+   * {@link android.view.ViewGroup.MarginLayoutParams LayoutParams} subclass for children of
+   * {@link RecyclerView}. Custom {@link LayoutManager layout managers} are encouraged
+   * to create their own subclass of this <code>LayoutParams</code> class
+   * to store any additional required per-child view metadata about the layout.
+   */
+  public static class LayoutParams extends android.view.ViewGroup.MarginLayoutParams {
+    ViewHolder mViewHolder;
+
+    public LayoutParams(Context c, AttributeSet attrs) {
+      super(c, attrs);
+    }
+
+    public LayoutParams(int width, int height) {
+      super(width, height);
+    }
+
+    public LayoutParams(MarginLayoutParams source) {
+      super(source);
+    }
+
+    public LayoutParams(ViewGroup.LayoutParams source) {
+      super(source);
+    }
+
+    public LayoutParams(LayoutParams source) {
+      super((ViewGroup.LayoutParams) source);
+    }
+
+    /**
+     * Returns the adapter position that the view this LayoutParams is attached to corresponds
+     * to as of latest layout calculation.
+     *
+     * @return the adapter position this view as of latest layout pass
+     */
+    public int getViewLayoutPosition() {
+      return mViewHolder.getLayoutPosition();
+    }
+
+    /**
+     * Returns the up-to-date adapter position that the view this LayoutParams is attached to
+     * corresponds to.
+     *
+     * @return the up-to-date adapter position this view. It may return
+     * {@link RecyclerView#NO_POSITION} if its up-to-date position cannot be calculated.
+     */
+    public int getViewAdapterPosition() {
+      return mViewHolder.getAdapterPosition();
+    }
+
+    /**
+     * Returns true if the view this LayoutParams is attached to needs to have its content
+     * updated from the corresponding adapter.
+     *
+     * @return true if the view should have its content updated
+     */
+    public boolean viewNeedsUpdate() {
+      return mViewHolder.needsUpdate();
+    }
+
+    /**
+     * Returns true if the view this LayoutParams is attached to is now representing
+     * potentially invalid data. A LayoutManager should scrap/recycle it.
+     *
+     * @return true if the view is invalid
+     */
+    public boolean isViewInvalid() {
+      return mViewHolder.isInvalid();
+    }
+
+    /**
+     * Returns true if the adapter data item corresponding to the view this LayoutParams
+     * is attached to has been removed from the data set. A LayoutManager may choose to
+     * treat it differently in order to animate its outgoing or disappearing state.
+     *
+     * @return true if the item the view corresponds to was removed from the data set
+     */
+    public boolean isItemRemoved() {
+      return mViewHolder.isRemoved();
     }
   }
 
+  /**
+   * A <code>LayoutManager</code> is responsible for measuring and positioning item views
+   * within a <code>RecyclerView</code> as well as determining the policy for when to recycle
+   * item views that are no longer visible to the user.
+   */
   public static abstract class LayoutManager {
     RecyclerView mRecyclerView;
     private int mWidthMode, mHeightMode;
     private int mWidth, mHeight;
     ChildHelper mChildHelper;
+    boolean mIsAttachedToWindow = false;
+
+    /**
+     * Written by {@link GapWorker} when prefetches occur to track largest number of view ever
+     * requested by a {@link #collectAdjacentPrefetchPositions(int, int, State,
+     * LayoutPrefetchRegistry)} call.
+     *
+     * If expanded by a {@link #collectAdjacentPrefetchPositions(int, int, State,
+     * LayoutPrefetchRegistry)}, the view cache grows by the count, so that the prefetched views
+     * are not retired before they are attached.
+     */
+    int mPrefetchMaxCountObserved;
+
+    private boolean mItemPrefetchEnabled = true;
+
+    /**
+     * Interface for LayoutManagers to request items to be prefetched.
+     * <p>
+     * Prefetch requests are sent as adapter positions with the distance (in pixels) from the
+     * edge of the RecyclerView, which is used to prioritize the work when there is not enough
+     * time to prefetch every item before the next frame.
+     */
+    public interface LayoutPrefetchRegistry {
+      /**
+       * Requests an an item to be prefetched, based on position, with a specified distance,
+       * indicating priority.
+       *
+       * @param layoutPosition Position of the item to prefetch.
+       * @param pixelDistance  Distance from the current viewport to the bounds of the item,
+       *                       must be non-negative.
+       */
+      void addPosition(int layoutPosition, int pixelDistance);
+    }
 
     public static class Properties {
 
@@ -752,6 +2303,940 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
       mWidthMode = MeasureSpec.EXACTLY;
       mHeightMode = MeasureSpec.EXACTLY;
     }
+
+    void setMeasureSpecs(int wSpec, int hSpec) {
+      mWidth = MeasureSpec.getSize(wSpec);
+      mWidthMode = MeasureSpec.getMode(wSpec);
+      mHeight = MeasureSpec.getSize(hSpec);
+      mHeightMode = MeasureSpec.getMode(hSpec);
+    }
+
+    /**
+     * Sets the measure specs to the exact size of the RecyclerView.
+     */
+    void setExactMeasureSpecsFrom(RecyclerView recyclerView) {
+      setMeasureSpecs(
+          MeasureSpec.makeMeasureSpec(recyclerView.getWidth(), MeasureSpec.EXACTLY),
+          MeasureSpec.makeMeasureSpec(recyclerView.getHeight(), MeasureSpec.EXACTLY)
+      );
+    }
+
+    /**
+     * Calls {@code RecyclerView#requestLayout} on the underlying RecyclerView
+     */
+    public void requestLayout() {
+      if (mRecyclerView != null) {
+        mRecyclerView.requestLayout();
+      }
+    }
+
+    /**
+     * Checks if RecyclerView is in the middle of a layout or scroll and throws an
+     * {@link IllegalStateException} if it <b>is</b>.
+     *
+     * @param message The message for the exception. Can be null.
+     */
+    public void assertNotInLayoutOrScroll(String message) {
+      if (mRecyclerView != null) {
+        mRecyclerView.assertNotInLayoutOrScroll(message);
+      }
+    }
+
+    void dispatchAttachedToWindow(RecyclerView view) {
+      mIsAttachedToWindow = true;
+      onAttachedToWindow(view);
+    }
+
+    void dispatchDetachedFromWindow(RecyclerView view, Recycler recycler) {
+      mIsAttachedToWindow = false;
+      onDetachedFromWindow(view, recycler);
+    }
+
+    /**
+     * Returns whether LayoutManager is currently attached to a RecyclerView which is attached
+     * to a window.
+     *
+     * @return True if this LayoutManager is controlling a RecyclerView and the RecyclerView
+     * is attached to window.
+     */
+    public boolean isAttachedToWindow() {
+      return mIsAttachedToWindow;
+    }
+
+    /**
+     * Called when this LayoutManager is both attached to a RecyclerView and that RecyclerView
+     * is attached to a window.
+     *
+     * @param view The RecyclerView this LayoutManager is bound to
+     */
+    public void onAttachedToWindow(RecyclerView view) {
+    }
+
+    /**
+     * Called when this LayoutManager is detached from its parent RecyclerView or when
+     * its parent RecyclerView is detached from its window.
+     *
+     * @param view     The RecyclerView this LayoutManager is bound to
+     * @param recycler The recycler to use if you prefer to recycle your children instead of
+     *                 keeping them around.
+     */
+    public void onDetachedFromWindow(RecyclerView view, Recycler recycler) {
+    }
+
+    /**
+     * Called when items have been added to the adapter. The LayoutManager may choose to
+     * requestLayout if the inserted items would require refreshing the currently visible set
+     * of child views. (e.g. currently empty space would be filled by appended items, etc.)
+     *
+     * @param recyclerView  The RecyclerView this LayoutManager is bound to
+     * @param positionStart The position of the first added item
+     * @param itemCount     The number of the added items
+     */
+    public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
+    }
+
+    /**
+     * Called in response to a call to {@link Adapter#notifyDataSetChanged()}, before the next
+     * layout. The positions of the items can't be tracked over such a change, thus anything the
+     * LayoutManager keeps per adapter position should be dropped.
+     *
+     * @param recyclerView The RecyclerView this LayoutManager is bound to
+     */
+    public void onItemsChanged(RecyclerView recyclerView) {
+    }
+
+    /**
+     * Called when items have been removed from the adapter.
+     *
+     * @param recyclerView  The RecyclerView this LayoutManager is bound to
+     * @param positionStart The position of the first removed item
+     * @param itemCount     The number of the removed items
+     */
+    public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
+    }
+
+    /**
+     * Called when items have been changed in the adapter.
+     * To receive payload, override {@link #onItemsUpdated(RecyclerView, int, int, Object)}
+     * instead, then this callback will not be invoked.
+     *
+     * @param recyclerView  The RecyclerView this LayoutManager is bound to
+     * @param positionStart The position of the first changed item
+     * @param itemCount     The number of the changed items
+     */
+    public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount) {
+    }
+
+    /**
+     * Called when items have been changed in the adapter and with optional payload.
+     * Default implementation calls {@link #onItemsUpdated(RecyclerView, int, int)}.
+     *
+     * @param recyclerView  The RecyclerView this LayoutManager is bound to
+     * @param positionStart The position of the first changed item
+     * @param itemCount     The number of the changed items
+     * @param payload       The payload of the change, or null
+     */
+    public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount,
+                               Object payload) {
+      onItemsUpdated(recyclerView, positionStart, itemCount);
+    }
+
+    /**
+     * Called when an item is moved within the adapter.
+     * <p>
+     * Note that, an item may also change position in response to another ADD/REMOVE/MOVE
+     * operation. This callback is only called if and only if {@link Adapter#notifyItemMoved}
+     * is called.
+     *
+     * @param recyclerView The RecyclerView this LayoutManager is bound to
+     * @param from         The position of the item before the move
+     * @param to           The position of the item after the move
+     * @param itemCount    The number of the moved items
+     */
+    public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
+
+    }
+
+    /**
+     * Lay out all relevant child views from the given adapter.
+     *
+     * @param recycler Recycler to use for fetching potentially cached views for a
+     *                 position
+     * @param state    Transient state of RecyclerView
+     */
+    public void onLayoutChildren(Recycler recycler, State state) {
+      Log.e(TAG, "You must override onLayoutChildren(Recycler recycler, State state) ");
+    }
+
+    /**
+     * Create a default <code>LayoutParams</code> object for a child of the RecyclerView.
+     *
+     * @return A new LayoutParams for a child view
+     */
+    public abstract LayoutParams generateDefaultLayoutParams();
+
+    /**
+     * Determines the validity of the supplied LayoutParams object.
+     *
+     * @param lp LayoutParams object to check
+     * @return true if this LayoutParams object is valid, false otherwise
+     */
+    public boolean checkLayoutParams(LayoutParams lp) {
+      return lp != null;
+    }
+
+    /**
+     * Create a LayoutParams object suitable for this LayoutManager, copying relevant
+     * values from the supplied LayoutParams object if possible.
+     *
+     * @param lp Source LayoutParams object to copy values from
+     * @return a new LayoutParams object
+     */
+    public LayoutParams generateLayoutParams(ViewGroup.LayoutParams lp) {
+      if (lp instanceof LayoutParams) {
+        return new LayoutParams((LayoutParams) lp);
+      } else if (lp instanceof MarginLayoutParams) {
+        return new LayoutParams((MarginLayoutParams) lp);
+      } else {
+        return new LayoutParams(lp);
+      }
+    }
+
+    /**
+     * Create a LayoutParams object suitable for this LayoutManager from
+     * an inflated layout resource.
+     *
+     * @param c     Context for obtaining styled attributes
+     * @param attrs AttributeSet describing the supplied arguments
+     * @return a new LayoutParams object
+     */
+    public LayoutParams generateLayoutParams(Context c, AttributeSet attrs) {
+      return new LayoutParams(c, attrs);
+    }
+
+    /**
+     * Scroll horizontally by dx pixels in screen coordinates and return the distance traveled.
+     * The default implementation does nothing and returns 0.
+     *
+     * @param dx       distance to scroll by in pixels. X increases as scroll position
+     *                 approaches the right.
+     * @param recycler Recycler to use for fetching potentially cached views for a
+     *                 position
+     * @param state    Transient state of RecyclerView
+     * @return The actual distance scrolled. The return value will be negative if dx was
+     * negative and scrolling proceeeded in that direction.
+     * <code>Math.abs(result)</code> may be less than dx if a boundary was reached.
+     */
+    public int scrollHorizontallyBy(int dx, Recycler recycler, State state) {
+      return 0;
+    }
+
+    /**
+     * Scroll vertically by dy pixels in screen coordinates and return the distance traveled.
+     * The default implementation does nothing and returns 0.
+     *
+     * @param dy       distance to scroll in pixels. Y increases as scroll position
+     *                 approaches the bottom.
+     * @param recycler Recycler to use for fetching potentially cached views for a
+     *                 position
+     * @param state    Transient state of RecyclerView
+     * @return The actual distance scrolled. The return value will be negative if dy was
+     * negative and scrolling proceeeded in that direction.
+     * <code>Math.abs(result)</code> may be less than dy if a boundary was reached.
+     */
+    public int scrollVerticallyBy(int dy, Recycler recycler, State state) {
+      return 0;
+    }
+
+    /**
+     * Query if horizontal scrolling is currently supported. The default implementation
+     * returns false.
+     *
+     * @return True if this LayoutManager can scroll the current contents horizontally
+     */
+    public boolean canScrollHorizontally() {
+      return false;
+    }
+
+    /**
+     * Query if vertical scrolling is currently supported. The default implementation
+     * returns false.
+     *
+     * @return True if this LayoutManager can scroll the current contents vertically
+     */
+    public boolean canScrollVertically() {
+      return false;
+    }
+
+    /**
+     * Scroll to the specified adapter position.
+     *
+     * Actual position of the item on the screen depends on the LayoutManager implementation.
+     *
+     * @param position Scroll to this adapter position.
+     */
+    public void scrollToPosition(int position) {
+      if (DEBUG) {
+        Log.e(TAG, "You MUST implement scrollToPosition. It will soon become abstract");
+      }
+    }
+
+    /**
+     * RecyclerView calls this method to notify LayoutManager that scroll state has changed.
+     *
+     * @param state The new scroll state for RecyclerView
+     */
+    public void onScrollStateChanged(int state) {
+    }
+
+    /**
+     * Sets whether the LayoutManager should be queried for views outside of
+     * its viewport while the UI thread is idle between frames.
+     *
+     * <p>If enabled, the LayoutManager will be queried for items to inflate/bind in between
+     * view system traversals on devices running API 21 or greater. Default value is true.</p>
+     *
+     * <p>On platforms API level 21 and higher, the UI thread is idle between passing a frame
+     * to RenderThread and the starting up its next frame at the next VSync pulse. By
+     * prefetching out of window views in this time period, delays from inflation and view
+     * binding are much less likely to cause jank and stuttering during scrolls and flings.</p>
+     *
+     * @param enabled True if items should be prefetched in between traversals.
+     * @see #isItemPrefetchEnabled()
+     */
+    public final void setItemPrefetchEnabled(boolean enabled) {
+      if (enabled != mItemPrefetchEnabled) {
+        mItemPrefetchEnabled = enabled;
+        mPrefetchMaxCountObserved = 0;
+        if (mRecyclerView != null) {
+          mRecyclerView.mRecycler.updateViewCacheSize();
+        }
+      }
+    }
+
+    /**
+     * Sets whether the LayoutManager should be queried for views outside of
+     * its viewport while the UI thread is idle between frames.
+     *
+     * @return true if item prefetch is enabled, false otherwise
+     * @see #setItemPrefetchEnabled(boolean)
+     */
+    public final boolean isItemPrefetchEnabled() {
+      return mItemPrefetchEnabled;
+    }
+
+    /**
+     * Gather all positions from the LayoutManager to be prefetched, given specified momentum.
+     *
+     * <p>If item prefetch is enabled, this method is called in between traversals to gather
+     * which positions the LayoutManager will soon need, given upcoming movement in subsequent
+     * traversals.</p>
+     *
+     * <p>The LayoutManager should call {@link LayoutPrefetchRegistry#addPosition(int, int)} for
+     * each item to be prepared, and these positions will have their ViewHolders created and
+     * bound, if there is sufficient time available, in advance of being needed by a
+     * scroll or layout.</p>
+     *
+     * @param dx                     X movement component.
+     * @param dy                     Y movement component.
+     * @param state                  State of RecyclerView
+     * @param layoutPrefetchRegistry PrefetchRegistry to add prefetch entries into.
+     * @see #isItemPrefetchEnabled()
+     */
+    public void collectAdjacentPrefetchPositions(int dx, int dy, State state,
+                                                 LayoutPrefetchRegistry layoutPrefetchRegistry) {
+    }
+
+    /**
+     * Add a view to the currently attached RecyclerView if needed. LayoutManagers should
+     * use this method to add views obtained from a {@link Recycler} using
+     * {@link Recycler#getViewForPosition(int)}.
+     *
+     * @param child View to add
+     */
+    public void addView(View child) {
+      addView(child, -1);
+    }
+
+    /**
+     * Add a view to the currently attached RecyclerView if needed. LayoutManagers should
+     * use this method to add views obtained from a {@link Recycler} using
+     * {@link Recycler#getViewForPosition(int)}.
+     *
+     * @param child View to add
+     * @param index Index to add child at
+     */
+    public void addView(View child, int index) {
+      final ViewHolder holder = getChildViewHolderInt(child);
+      if (holder.wasReturnedFromScrap() || holder.isScrap()) {
+        if (holder.isScrap()) {
+          holder.unScrap();
+        } else {
+          holder.clearReturnedFromScrapFlag();
+        }
+        mChildHelper.attachViewToParent(child, index, child.getLayoutParams());
+      } else if (child.getParent() == mRecyclerView) { // it was not a scrap but a valid child
+        // ensure in correct position
+        int currentIndex = mChildHelper.indexOfChild(child);
+        if (index == -1) {
+          index = mChildHelper.getChildCount();
+        }
+        if (currentIndex == -1) {
+          throw new IllegalStateException("Added View has RecyclerView as parent but"
+              + " view is not a real child. Unfiltered index:"
+              + mRecyclerView.indexOfChild(child));
+        }
+        if (currentIndex != index) {
+          moveView(currentIndex, index);
+        }
+      } else {
+        mChildHelper.addView(child, index);
+      }
+    }
+
+    /**
+     * Remove a view from the currently attached RecyclerView if needed. LayoutManagers should
+     * use this method to completely remove a child view that is no longer needed.
+     * LayoutManagers should strongly consider recycling removed views using
+     * {@link Recycler#recycleView(android.view.View)}.
+     *
+     * @param child View to remove
+     */
+    public void removeView(View child) {
+      mChildHelper.removeView(child);
+    }
+
+    /**
+     * Remove a view from the currently attached RecyclerView if needed. LayoutManagers should
+     * use this method to completely remove a child view that is no longer needed.
+     * LayoutManagers should strongly consider recycling removed views using
+     * {@link Recycler#recycleView(android.view.View)}.
+     *
+     * @param index Index of the child view to remove
+     */
+    public void removeViewAt(int index) {
+      final View child = getChildAt(index);
+      if (child != null) {
+        mChildHelper.removeViewAt(index);
+      }
+    }
+
+    /**
+     * Returns the adapter position of the item represented by the given View. This does not
+     * contain any adapter changes that might have happened after the last layout.
+     *
+     * @param view The view to query
+     * @return The adapter position of the item which is rendered by this View.
+     */
+    public int getPosition(View view) {
+      return ((RecyclerView.LayoutParams) view.getLayoutParams()).getViewLayoutPosition();
+    }
+
+    /**
+     * Finds the view which represents the given adapter position.
+     *
+     * @param position Position of the item in adapter
+     * @return The child view that represents the given position or null if the position is not
+     * laid out
+     */
+    public View findViewByPosition(int position) {
+      final int childCount = getChildCount();
+      for (int i = 0; i < childCount; i++) {
+        View child = getChildAt(i);
+        ViewHolder vh = getChildViewHolderInt(child);
+        if (vh == null) {
+          continue;
+        }
+        if (vh.getLayoutPosition() == position) {
+          return child;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Detach a child view and add it to a {@link Recycler Recycler's} scrap heap.
+     *
+     * @param index    Index of child to detach and scrap
+     * @param recycler Recycler to deposit the new scrap view into
+     */
+    public void detachAndScrapViewAt(int index, Recycler recycler) {
+      final View child = getChildAt(index);
+      scrapOrRecycleView(recycler, index, child);
+    }
+
+    /**
+     * Temporarily detach and scrap all currently attached child views. Views will be scrapped
+     * into the given Recycler. The Recycler may prefer to reuse scrap views before
+     * other views that were previously recycled.
+     *
+     * @param recycler Recycler to scrap views into
+     */
+    public void detachAndScrapAttachedViews(Recycler recycler) {
+      final int childCount = getChildCount();
+      for (int i = childCount - 1; i >= 0; i--) {
+        final View v = getChildAt(i);
+        scrapOrRecycleView(recycler, i, v);
+      }
+    }
+
+    private void scrapOrRecycleView(Recycler recycler, int index, View view) {
+      final ViewHolder viewHolder = getChildViewHolderInt(view);
+      if (viewHolder.isInvalid() && !viewHolder.isRemoved()
+          && !mRecyclerView.mAdapter.hasStableIds()) {
+        removeViewAt(index);
+        recycler.recycleViewHolderInternal(viewHolder);
+      } else {
+        detachViewAt(index);
+        recycler.scrapView(view);
+      }
+    }
+
+    /**
+     * Recycles the scrapped views.
+     *
+     * @param recycler Recycler
+     */
+    void removeAndRecycleScrapInt(Recycler recycler) {
+      final int scrapCount = recycler.getScrapCount();
+      // Loop backward, recycler might be changed by removeDetachedView()
+      for (int i = scrapCount - 1; i >= 0; i--) {
+        final View scrap = recycler.getScrapViewAt(i);
+        final ViewHolder vh = getChildViewHolderInt(scrap);
+        if (vh.isTmpDetached()) {
+          mRecyclerView.removeDetachedView(scrap, false);
+        }
+        recycler.quickRecycleScrapView(scrap);
+      }
+      recycler.clearScrap();
+      if (scrapCount > 0) {
+        mRecyclerView.invalidate();
+      }
+    }
+
+    /**
+     * Detach a child view.
+     *
+     * @param index Index of the child to detach
+     */
+    public void detachViewAt(int index) {
+      mChildHelper.detachViewFromParent(index);
+    }
+
+    /**
+     * Moves a View from one position to another.
+     *
+     * @param fromIndex The View's initial index
+     * @param toIndex   The View's target index
+     */
+    public void moveView(int fromIndex, int toIndex) {
+      View view = getChildAt(fromIndex);
+      if (view == null) {
+        throw new IllegalArgumentException("Cannot move a child from non-existing index:"
+            + fromIndex);
+      }
+      detachViewAt(fromIndex);
+      mChildHelper.attachViewToParent(view, toIndex, view.getLayoutParams());
+    }
+
+    /**
+     * Remove a child view and recycle it using the given Recycler.
+     *
+     * @param child    Child to remove and recycle
+     * @param recycler Recycler to use to recycle child
+     */
+    public void removeAndRecycleView(View child, Recycler recycler) {
+      removeView(child);
+      recycler.recycleView(child);
+    }
+
+    /**
+     * Remove a child view and recycle it using the given Recycler.
+     *
+     * @param index    Index of child to remove and recycle
+     * @param recycler Recycler to use to recycle child
+     */
+    public void removeAndRecycleViewAt(int index, Recycler recycler) {
+      final View view = getChildAt(index);
+      removeViewAt(index);
+      recycler.recycleView(view);
+    }
+
+    /**
+     * Removes all views and recycles them using the given recycler.
+     *
+     * @param recycler Recycler to use to recycle children
+     */
+    public void removeAndRecycleAllViews(Recycler recycler) {
+      for (int i = getChildCount() - 1; i >= 0; i--) {
+        removeAndRecycleViewAt(i, recycler);
+      }
+    }
+
+    /**
+     * Return the current number of child views attached to the parent RecyclerView.
+     *
+     * @return Number of attached children
+     */
+    public int getChildCount() {
+      return mChildHelper != null ? mChildHelper.getChildCount() : 0;
+    }
+
+    /**
+     * Return the child view at the given index
+     *
+     * @param index Index of child to return
+     * @return Child view at index
+     */
+    public View getChildAt(int index) {
+      return mChildHelper != null ? mChildHelper.getChildAt(index) : null;
+    }
+
+    /**
+     * Return the width measurement spec mode of the RecyclerView.
+     *
+     * @return Width measure spec mode.
+     */
+    public int getWidthMode() {
+      return mWidthMode;
+    }
+
+    /**
+     * Return the height measurement spec mode of the RecyclerView.
+     *
+     * @return Height measure spec mode.
+     */
+    public int getHeightMode() {
+      return mHeightMode;
+    }
+
+    /**
+     * Return the width of the parent RecyclerView
+     *
+     * @return Width in pixels
+     */
+    public int getWidth() {
+      return mWidth;
+    }
+
+    /**
+     * Return the height of the parent RecyclerView
+     *
+     * @return Height in pixels
+     */
+    public int getHeight() {
+      return mHeight;
+    }
+
+    /**
+     * Return the left padding of the parent RecyclerView
+     *
+     * @return Padding in pixels
+     */
+    public int getPaddingLeft() {
+      return mRecyclerView != null ? mRecyclerView.getPaddingLeft() : 0;
+    }
+
+    /**
+     * Return the top padding of the parent RecyclerView
+     *
+     * @return Padding in pixels
+     */
+    public int getPaddingTop() {
+      return mRecyclerView != null ? mRecyclerView.getPaddingTop() : 0;
+    }
+
+    /**
+     * Return the right padding of the parent RecyclerView
+     *
+     * @return Padding in pixels
+     */
+    public int getPaddingRight() {
+      return mRecyclerView != null ? mRecyclerView.getPaddingRight() : 0;
+    }
+
+    /**
+     * Return the bottom padding of the parent RecyclerView
+     *
+     * @return Padding in pixels
+     */
+    public int getPaddingBottom() {
+      return mRecyclerView != null ? mRecyclerView.getPaddingBottom() : 0;
+    }
+
+    /**
+     * Returns the resolved layout direction for this RecyclerView.
+     *
+     * @return {@link android.support.v4.view.ViewCompat#LAYOUT_DIRECTION_RTL} if the layout
+     * direction is RTL or returns
+     * {@link android.support.v4.view.ViewCompat#LAYOUT_DIRECTION_LTR} if the layout direction
+     * is not RTL.
+     */
+    public int getLayoutDirection() {
+      return ViewCompat.getLayoutDirection(mRecyclerView);
+    }
+
+    /**
+     * Returns the number of items in the adapter bound to the parent RecyclerView.
+     *
+     * @return The number of items in the bound adapter
+     */
+    public int getItemCount() {
+      final Adapter a = mRecyclerView != null ? mRecyclerView.getAdapter() : null;
+      return a != null ? a.getItemCount() : 0;
+    }
+
+    /**
+     * Offset all child views attached to the parent RecyclerView by dx pixels along
+     * the horizontal axis.
+     *
+     * @param dx Pixels to offset by
+     */
+    public void offsetChildrenHorizontal(int dx) {
+      if (mRecyclerView != null) {
+        mRecyclerView.offsetChildrenHorizontal(dx);
+      }
+    }
+
+    /**
+     * Offset all child views attached to the parent RecyclerView by dy pixels along
+     * the vertical axis.
+     *
+     * @param dy Pixels to offset by
+     */
+    public void offsetChildrenVertical(int dy) {
+      if (mRecyclerView != null) {
+        mRecyclerView.offsetChildrenVertical(dy);
+      }
+    }
+
+    /**
+     * Measure a child view using standard measurement policy, taking the padding
+     * of the parent RecyclerView, any added item decorations and the child margins
+     * into account.
+     *
+     * @param child      Child view to measure
+     * @param widthUsed  Width in pixels currently consumed by other views, if relevant
+     * @param heightUsed Height in pixels currently consumed by other views, if relevant
+     */
+    public void measureChildWithMargins(View child, int widthUsed, int heightUsed) {
+      final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+
+      final int widthSpec = getChildMeasureSpec(getWidth(), getWidthMode(),
+          getPaddingLeft() + getPaddingRight()
+              + lp.leftMargin + lp.rightMargin + widthUsed, lp.width,
+          canScrollHorizontally());
+      final int heightSpec = getChildMeasureSpec(getHeight(), getHeightMode(),
+          getPaddingTop() + getPaddingBottom()
+              + lp.topMargin + lp.bottomMargin + heightUsed, lp.height,
+          canScrollVertically());
+      child.measure(widthSpec, heightSpec);
+    }
+
+    /**
+     * Calculate a MeasureSpec value for measuring a child view in one dimension.
+     *
+     * @param parentSize     Size of the parent view where the child will be placed
+     * @param parentMode     The measurement spec mode of the parent
+     * @param padding        Total space currently consumed by other elements of parent
+     * @param childDimension Desired size of the child view, or MATCH_PARENT/WRAP_CONTENT.
+     *                       Generally obtained from the child view's LayoutParams
+     * @param canScroll      true if the parent RecyclerView can scroll in this dimension
+     * @return a MeasureSpec value for the child view
+     */
+    public static int getChildMeasureSpec(int parentSize, int parentMode, int padding,
+                                          int childDimension, boolean canScroll) {
+      int size = Math.max(0, parentSize - padding);
+      int resultSize = 0;
+      int resultMode = 0;
+      if (canScroll) {
+        if (childDimension >= 0) {
+          resultSize = childDimension;
+          resultMode = MeasureSpec.EXACTLY;
+        } else if (childDimension == LayoutParams.MATCH_PARENT) {
+          switch (parentMode) {
+            case MeasureSpec.AT_MOST:
+            case MeasureSpec.EXACTLY:
+              resultSize = size;
+              resultMode = parentMode;
+              break;
+            case MeasureSpec.UNSPECIFIED:
+              resultSize = 0;
+              resultMode = MeasureSpec.UNSPECIFIED;
+              break;
+          }
+        } else if (childDimension == LayoutParams.WRAP_CONTENT) {
+          resultSize = 0;
+          resultMode = MeasureSpec.UNSPECIFIED;
+        }
+      } else {
+        if (childDimension >= 0) {
+          resultSize = childDimension;
+          resultMode = MeasureSpec.EXACTLY;
+        } else if (childDimension == LayoutParams.MATCH_PARENT) {
+          resultSize = size;
+          resultMode = parentMode;
+        } else if (childDimension == LayoutParams.WRAP_CONTENT) {
+          resultSize = size;
+          if (parentMode == MeasureSpec.AT_MOST || parentMode == MeasureSpec.EXACTLY) {
+            resultMode = MeasureSpec.AT_MOST;
+          } else {
+            resultMode = MeasureSpec.UNSPECIFIED;
+          }
+        }
+      }
+      return MeasureSpec.makeMeasureSpec(resultSize, resultMode);
+    }
+
+    /**
+     * Returns the measured width of the given child, plus the additional size of
+     * any insets applied by item decorations. Item decorations are not ported yet, thus it is
+     * the measured width of the child.
+     *
+     * @param child Child view to query
+     * @return child's measured width plus item decoration insets
+     */
+    public int getDecoratedMeasuredWidth(View child) {
+      return child.getMeasuredWidth();
+    }
+
+    /**
+     * Returns the measured height of the given child, plus the additional size of
+     * any insets applied by item decorations.
+     *
+     * @param child Child view to query
+     * @return child's measured height plus item decoration insets
+     */
+    public int getDecoratedMeasuredHeight(View child) {
+      return child.getMeasuredHeight();
+    }
+
+    /**
+     * Returns the left edge of the given child view within its parent, offset by any applied
+     * item decorations.
+     *
+     * @param child Child to query
+     * @return Child left edge with offsets applied
+     */
+    public int getDecoratedLeft(View child) {
+      return child.getLeft();
+    }
+
+    /**
+     * Returns the top edge of the given child view within its parent, offset by any applied
+     * item decorations.
+     *
+     * @param child Child to query
+     * @return Child top edge with offsets applied
+     */
+    public int getDecoratedTop(View child) {
+      return child.getTop();
+    }
+
+    /**
+     * Returns the right edge of the given child view within its parent, offset by any applied
+     * item decorations.
+     *
+     * @param child Child to query
+     * @return Child right edge with offsets applied
+     */
+    public int getDecoratedRight(View child) {
+      return child.getRight();
+    }
+
+    /**
+     * Returns the bottom edge of the given child view within its parent, offset by any applied
+     * item decorations.
+     *
+     * @param child Child to query
+     * @return Child bottom edge with offsets applied
+     */
+    public int getDecoratedBottom(View child) {
+      return child.getBottom();
+    }
+
+    /**
+     * Lay out the given child view within the RecyclerView using coordinates that
+     * include the margins.
+     *
+     * @param child Child to lay out
+     * @param left  Left edge, with item decoration insets and left margin included
+     * @param top   Top edge, with item decoration insets and top margin included
+     * @param right Right edge, with item decoration insets and right margin included
+     * @param bottom Bottom edge, with item decoration insets and bottom margin included
+     */
+    public void layoutDecoratedWithMargins(View child, int left, int top, int right,
+                                           int bottom) {
+      final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+      child.layout(left + lp.leftMargin, top + lp.topMargin, right - lp.rightMargin,
+          bottom - lp.bottomMargin);
+    }
+
+    /**
+     * <p>Override this method if you want to support scroll bars.</p>
+     *
+     * @param state Current state of RecyclerView
+     * @return The horizontal extent of the scrollbar's thumb
+     * @see RecyclerView#computeHorizontalScrollExtent()
+     */
+    public int computeHorizontalScrollExtent(State state) {
+      return 0;
+    }
+
+    /**
+     * <p>Override this method if you want to support scroll bars.</p>
+     *
+     * @param state Current State of RecyclerView where you can find total item count
+     * @return The horizontal offset of the scrollbar's thumb
+     * @see RecyclerView#computeHorizontalScrollOffset()
+     */
+    public int computeHorizontalScrollOffset(State state) {
+      return 0;
+    }
+
+    /**
+     * <p>Override this method if you want to support scroll bars.</p>
+     *
+     * @param state Current State of RecyclerView where you can find total item count
+     * @return The total horizontal range represented by the vertical scrollbar
+     * @see RecyclerView#computeHorizontalScrollRange()
+     */
+    public int computeHorizontalScrollRange(State state) {
+      return 0;
+    }
+
+    /**
+     * <p>Override this method if you want to support scroll bars.</p>
+     *
+     * @param state Current state of RecyclerView
+     * @return The vertical extent of the scrollbar's thumb
+     * @see RecyclerView#computeVerticalScrollExtent()
+     */
+    public int computeVerticalScrollExtent(State state) {
+      return 0;
+    }
+
+    /**
+     * <p>Override this method if you want to support scroll bars.</p>
+     *
+     * @param state Current State of RecyclerView where you can find total item count
+     * @return The vertical offset of the scrollbar's thumb
+     * @see RecyclerView#computeVerticalScrollOffset()
+     */
+    public int computeVerticalScrollOffset(State state) {
+      return 0;
+    }
+
+    /**
+     * <p>Override this method if you want to support scroll bars.</p>
+     *
+     * @param state Current State of RecyclerView where you can find total item count
+     * @return The total vertical range represented by the vertical scrollbar
+     * @see RecyclerView#computeVerticalScrollRange()
+     */
+    public int computeVerticalScrollRange(State state) {
+      return 0;
+    }
   }
 
   public static abstract class SmoothScroller {
@@ -767,15 +3252,85 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
       // an iterator is used on the ArrayList {@link mObservers}.
       // to avoid such problems, just march thru the list in the reverse order.
       for (int i = mObservers.size() - 1; i >= 0; i--) {
-        mObservers.get(i).onChanged();
+        mObservers.get(i).onChanged();
+      }
+    }
+
+    public boolean hasObservers() {
+      return !mObservers.isEmpty();
+    }
+
+    public void notifyItemRangeChanged(int positionStart, int itemCount) {
+      notifyItemRangeChanged(positionStart, itemCount, null);
+    }
+
+    public void notifyItemRangeChanged(int positionStart, int itemCount, Object payload) {
+      // since onItemRangeChanged() is implemented by the app, it could do anything, including
+      // removing itself from {@link mObservers} - and that could cause problems if
+      // an iterator is used on the ArrayList {@link mObservers}.
+      // to avoid such problems, just march thru the list in the reverse order.
+      for (int i = mObservers.size() - 1; i >= 0; i--) {
+        mObservers.get(i).onItemRangeChanged(positionStart, itemCount, payload);
+      }
+    }
+
+    public void notifyItemRangeInserted(int positionStart, int itemCount) {
+      // since onItemRangeInserted() is implemented by the app, it could do anything,
+      // including removing itself from {@link mObservers} - and that could cause problems if
+      // an iterator is used on the ArrayList {@link mObservers}.
+      // to avoid such problems, just march thru the list in the reverse order.
+      for (int i = mObservers.size() - 1; i >= 0; i--) {
+        mObservers.get(i).onItemRangeInserted(positionStart, itemCount);
+      }
+    }
+
+    public void notifyItemRangeRemoved(int positionStart, int itemCount) {
+      // since onItemRangeRemoved() is implemented by the app, it could do anything, including
+      // removing itself from {@link mObservers} - and that could cause problems if
+      // an iterator is used on the ArrayList {@link mObservers}.
+      // to avoid such problems, just march thru the list in the reverse order.
+      for (int i = mObservers.size() - 1; i >= 0; i--) {
+        mObservers.get(i).onItemRangeRemoved(positionStart, itemCount);
+      }
+    }
+
+    public void notifyItemMoved(int fromPosition, int toPosition) {
+      for (int i = mObservers.size() - 1; i >= 0; i--) {
+        mObservers.get(i).onItemRangeMoved(fromPosition, toPosition, 1);
       }
     }
   }
 
+  /**
+   * Observer base class for watching changes to an {@link Adapter}.
+   * See {@link Adapter#registerAdapterDataObserver(AdapterDataObserver)}.
+   */
   public static abstract class AdapterDataObserver {
     public void onChanged() {
       // Do nothing
     }
+
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+      // do nothing
+    }
+
+    public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+      // fallback to onItemRangeChanged(positionStart, itemCount) if app
+      // does not override this method.
+      onItemRangeChanged(positionStart, itemCount);
+    }
+
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+      // do nothing
+    }
+
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+      // do nothing
+    }
+
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+      // do nothing
+    }
   }
 
   private class RecyclerViewDataObserver extends AdapterDataObserver {
@@ -784,13 +3339,55 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
 
     @Override
     public void onChanged() {
-//      assertNotInLayoutOrScroll(null);
-//      mState.mStructureChanged = true;
-//
-//      setDataSetChangedAfterLayout();
-//      if (!mAdapterHelper.hasPendingUpdates()) {
-//        requestLayout();
-//      }
+      assertNotInLayoutOrScroll(null);
+      mState.mStructureChanged = true;
+      // The pending operations are obsolete since every item is rebound.
+      mAdapterHelper.reset();
+      mDataSetHasChangedAfterLayout = true;
+      mDispatchItemsChangedEvent = true;
+
+      markKnownViewsInvalid();
+      requestLayout();
+    }
+
+    @Override
+    public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+      assertNotInLayoutOrScroll(null);
+      if (mAdapterHelper.onItemRangeChanged(positionStart, itemCount, payload)) {
+        triggerUpdateProcessor();
+      }
+    }
+
+    @Override
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+      assertNotInLayoutOrScroll(null);
+      if (mAdapterHelper.onItemRangeInserted(positionStart, itemCount)) {
+        triggerUpdateProcessor();
+      }
+    }
+
+    @Override
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+      assertNotInLayoutOrScroll(null);
+      if (mAdapterHelper.onItemRangeRemoved(positionStart, itemCount)) {
+        triggerUpdateProcessor();
+      }
+    }
+
+    @Override
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+      assertNotInLayoutOrScroll(null);
+      if (mAdapterHelper.onItemRangeMoved(fromPosition, toPosition, itemCount)) {
+        triggerUpdateProcessor();
+      }
+    }
+
+    /**
+     * Schedule a layout pass for the first pending update. The following updates are queued
+     * in the AdapterHelper until the pass processes all of them at once.
+     */
+    void triggerUpdateProcessor() {
+      requestLayout();
     }
   }
 
@@ -828,15 +3425,907 @@ public class RecyclerView extends ViewGroup implements ScrollingView, NestedScro
     }
   }
 
+  /**
+   * RecycledViewPool lets you share Views between multiple RecyclerViews.
+   * <p>
+   * If you want to recycle views across RecyclerViews, create an instance of RecycledViewPool
+   * and use {@link RecyclerView#setRecycledViewPool(RecycledViewPool)}, e.g. for the rows of a
+   * vertical list which are horizontal RecyclerViews showing the same kinds of items.
+   * <p>
+   * RecyclerView automatically creates a pool for itself if you don't provide one.
+   */
+  public static class RecycledViewPool {
+    private static final int DEFAULT_MAX_SCRAP = 5;
+
+    /**
+     * Tracks both pooled holders, as well as the max number of holders of a single view type.
+     */
+    static class ScrapData {
+      final ArrayList<ViewHolder> mScrapHeap = new ArrayList<>();
+      int mMaxScrap = DEFAULT_MAX_SCRAP;
+      long mCreateRunningAverageNs = 0;
+      long mBindRunningAverageNs = 0;
+    }
+
+    SparseArray<ScrapData> mScrap = new SparseArray<>();
+
+    private int mAttachCount = 0;
+
+    /**
+     * Discard all ViewHolders.
+     */
+    public void clear() {
+      for (int i = 0; i < mScrap.size(); i++) {
+        ScrapData data = mScrap.valueAt(i);
+        data.mScrapHeap.clear();
+      }
+    }
+
+    /**
+     * Sets the maximum number of ViewHolders to hold in the pool before discarding.
+     *
+     * @param viewType ViewHolder Type
+     * @param max      Maximum number
+     */
+    public void setMaxRecycledViews(int viewType, int max) {
+      ScrapData scrapData = getScrapDataForType(viewType);
+      scrapData.mMaxScrap = max;
+      final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
+      while (scrapHeap.size() > max) {
+        scrapHeap.remove(scrapHeap.size() - 1);
+      }
+    }
+
+    /**
+     * Returns the current number of Views held by the RecycledViewPool of the given view type.
+     */
+    public int getRecycledViewCount(int viewType) {
+      return getScrapDataForType(viewType).mScrapHeap.size();
+    }
+
+    /**
+     * Acquire a ViewHolder of the specified type from the pool, or {@code null} if none are
+     * present.
+     *
+     * @param viewType ViewHolder type.
+     * @return ViewHolder of the specified type acquired from the pool, or {@code null} if none
+     * are present.
+     */
+    @Nullable
+    public ViewHolder getRecycledView(int viewType) {
+      final ScrapData scrapData = mScrap.get(viewType);
+      if (scrapData != null && !scrapData.mScrapHeap.isEmpty()) {
+        final ArrayList<ViewHolder> scrapHeap = scrapData.mScrapHeap;
+        return scrapHeap.remove(scrapHeap.size() - 1);
+      }
+      return null;
+    }
+
+    /**
+     * Total number of ViewHolders held by the pool.
+     *
+     * @return Number of ViewHolders held by the pool.
+     */
+    int size() {
+      int count = 0;
+      for (int i = 0; i < mScrap.size(); i++) {
+        ArrayList<ViewHolder> viewHolders = mScrap.valueAt(i).mScrapHeap;
+        if (viewHolders != null) {
+          count += viewHolders.size();
+        }
+      }
+      return count;
+    }
+
+    /**
+     * Add a scrap ViewHolder to the pool.
+     * <p>
+     * If the pool is already full for that ViewHolder's type, it will be immediately discarded.
+     *
+     * @param scrap ViewHolder to be added to the pool.
+     */
+    public void putRecycledView(ViewHolder scrap) {
+      final int viewType = scrap.getItemViewType();
+      final ArrayList<ViewHolder> scrapHeap = getScrapDataForType(viewType).mScrapHeap;
+      if (mScrap.get(viewType).mMaxScrap <= scrapHeap.size()) {
+        return;
+      }
+      if (DEBUG && scrapHeap.contains(scrap)) {
+        throw new IllegalArgumentException("this scrap item already exists");
+      }
+      scrap.resetInternal();
+      scrapHeap.add(scrap);
+    }
+
+    void attach(Adapter adapter) {
+      mAttachCount++;
+    }
+
+    void detach() {
+      mAttachCount--;
+    }
+
+    /**
+     * Detaches the old adapter and attaches the new one.
+     * <p>
+     * RecycledViewPool will clear its cache if it has only one adapter attached and the new
+     * adapter uses a different ViewHolder than the oldAdapter.
+     *
+     * @param oldAdapter             The previous adapter instance. Will be detached.
+     * @param newAdapter             The new adapter instance. Will be attached.
+     * @param compatibleWithPrevious True if both oldAdapter and newAdapter are using the same
+     *                               ViewHolder and view types.
+     */
+    void onAdapterChanged(Adapter oldAdapter, Adapter newAdapter,
+                          boolean compatibleWithPrevious) {
+      if (oldAdapter != null) {
+        detach();
+      }
+      if (!compatibleWithPrevious && mAttachCount == 0) {
+        clear();
+      }
+      if (newAdapter != null) {
+        attach(newAdapter);
+      }
+    }
+
+    long runningAverage(long oldAverage, long newValue) {
+      if (oldAverage == 0) {
+        return newValue;
+      }
+      return (oldAverage / 4 * 3) + (newValue / 4);
+    }
+
+    void factorInCreateTime(int viewType, long createTimeNs) {
+      ScrapData scrapData = getScrapDataForType(viewType);
+      scrapData.mCreateRunningAverageNs = runningAverage(
+          scrapData.mCreateRunningAverageNs, createTimeNs);
+    }
+
+    void factorInBindTime(int viewType, long bindTimeNs) {
+      ScrapData scrapData = getScrapDataForType(viewType);
+      scrapData.mBindRunningAverageNs = runningAverage(
+          scrapData.mBindRunningAverageNs, bindTimeNs);
+    }
+
+    /**
+     * @return True if a ViewHolder of the type is expected to be created before the deadline,
+     * or if there is no measurement for the type yet.
+     */
+    boolean willCreateInTime(int viewType, long approxCurrentNs, long deadlineNs) {
+      long expectedDurationNs = getScrapDataForType(viewType).mCreateRunningAverageNs;
+      return expectedDurationNs == 0 || (approxCurrentNs + expectedDurationNs < deadlineNs);
+    }
+
+    /**
+     * @return True if a ViewHolder of the type is expected to be bound before the deadline,
+     * or if there is no measurement for the type yet.
+     */
+    boolean willBindInTime(int viewType, long approxCurrentNs, long deadlineNs) {
+      long expectedDurationNs = getScrapDataForType(viewType).mBindRunningAverageNs;
+      return expectedDurationNs == 0 || (approxCurrentNs + expectedDurationNs < deadlineNs);
+    }
+
+    private ScrapData getScrapDataForType(int viewType) {
+      ScrapData scrapData = mScrap.get(viewType);
+      if (scrapData == null) {
+        scrapData = new ScrapData();
+        mScrap.put(viewType, scrapData);
+      }
+      return scrapData;
+    }
+  }
+
+  /**
+   * A Recycler is responsible for managing scrapped or detached item views for reuse.
+   *
+   * <p>A "scrapped" view is a view that is still attached to its parent RecyclerView but
+   * that has been marked for removal or reuse.</p>
+   *
+   * <p>Typical use of a Recycler by a {@link LayoutManager} will be to obtain views for
+   * an adapter's data set representing the data at a given position or item ID.
+   * If the view to be reused is considered "dirty" the adapter will be asked to rebind it.
+   * If not, the view can be quickly reused by the LayoutManager with no further work.</p>
+   */
   public final class Recycler {
+    final ArrayList<ViewHolder> mAttachedScrap = new ArrayList<>();
+
+    /**
+     * Views detached from the RecyclerView which are still bound to their positions, thus they
+     * can be attached back without being rebound by the adapter, e.g. when the user scrolls
+     * back and forth. The views are kept in the order they are detached, thus the least
+     * recently used view is the first one and it is the first to be retired to the pool.
+     */
+    final ArrayList<ViewHolder> mCachedViews = new ArrayList<>();
+
+    private int mRequestedCacheMax = DEFAULT_CACHE_SIZE;
+    int mViewCacheMax = DEFAULT_CACHE_SIZE;
+
+    /**
+     * The number of the views cached in addition to the requested cache size while the
+     * RecyclerView is flinging, which grows with the fling velocity.
+     */
+    int mFlingCacheExtra = 0;
+
+    private int mCacheHitCount;
+    private int mCacheMissCount;
+
+    /**
+     * The attached scrap and the cached views by their stable ids, only maintained while the
+     * adapter has stable ids. After a full data set change the views can't be found by their
+     * positions, thus they are matched back to their items by id.
+     */
+    final LongHashMap<ViewHolder> mHoldersById = new LongHashMap<>();
+
+    RecycledViewPool mRecyclerPool;
+
+    static final int DEFAULT_CACHE_SIZE = 2;
+
+    /**
+     * Clear scrap views out of this recycler. Detached views contained within a
+     * recycled view pool will remain.
+     */
+    public void clear() {
+      mAttachedScrap.clear();
+      recycleAndClearCachedViews();
+      mHoldersById.clear();
+    }
+
+    /**
+     * Set the maximum number of detached, valid views we should retain for later use.
+     *
+     * @param viewCount Number of views to keep before sending views to the shared pool
+     */
+    public void setViewCacheSize(int viewCount) {
+      mRequestedCacheMax = viewCount;
+      updateViewCacheSize();
+    }
+
+    /**
+     * Set the number of the views cached in addition to the requested cache size. The cache
+     * shrinks back to the requested size when it is set to 0.
+     *
+     * @param extra Number of the extra views to keep before sending views to the shared pool
+     */
+    void setFlingCacheExtra(int extra) {
+      if (extra != mFlingCacheExtra) {
+        mFlingCacheExtra = extra;
+        updateViewCacheSize();
+      }
+    }
+
+    void updateViewCacheSize() {
+      int extraCache = mLayout != null ? mLayout.mPrefetchMaxCountObserved : 0;
+      mViewCacheMax = mRequestedCacheMax + mFlingCacheExtra + extraCache;
+      // retire the oldest cached views first
+      while (mCachedViews.size() > mViewCacheMax) {
+        recycleCachedViewAt(0);
+      }
+    }
+
+    /**
+     * Obtain a view initialized for the given position.
+     *
+     * This method should be used by {@link LayoutManager} implementations to obtain
+     * views to represent data from an {@link Adapter}.
+     * <p>
+     * The Recycler may reuse a scrap or detached view from a shared pool if one is
+     * available for the correct view type. If the adapter has not indicated that the
+     * data at the given position has changed, the Recycler will attempt to hand back
+     * a scrap view that was previously initialized for that data without rebinding.
+     *
+     * @param position Position to obtain a view for
+     * @return A view representing the data at <code>position</code> from <code>adapter</code>
+     */
+    public View getViewForPosition(int position) {
+      return tryGetViewHolderForPositionByDeadline(position, FOREVER_NS, true).itemView;
+    }
+
+    /**
+     * Attempts to get the ViewHolder for the given position, either from the Recycler scrap,
+     * cache, the RecycledViewPool, or creating it directly.
+     * <p>
+     * If a deadlineNs other than {@link #FOREVER_NS} is passed, this method early return
+     * rather than constructing or binding a ViewHolder if it doesn't think it has time.
+     * If a ViewHolder must be constructed and not enough time remains, null is returned. If a
+     * ViewHolder is acquired and must be bound but not enough time remains, an unbound holder
+     * is returned. Use {@link ViewHolder#isBound()} on the returned object to check for this.
+     *
+     * @param position        Position of ViewHolder to be returned.
+     * @param deadlineNs      Time, relative to getNanoTime(), by which bind/create work should
+     *                        complete. If FOREVER_NS is passed, this method will not fail to
+     *                        create/bind the holder if needed.
+     * @param countCacheStats Whether the lookup is counted as a hit or a miss of the view
+     *                        cache. False for the prefetches, whose positions are counted when
+     *                        they are actually laid out.
+     * @return ViewHolder for requested position
+     */
+    @Nullable
+    ViewHolder tryGetViewHolderForPositionByDeadline(int position, long deadlineNs,
+                                                     boolean countCacheStats) {
+      if (position < 0 || position >= mState.getItemCount()) {
+        throw new IndexOutOfBoundsException("Invalid item position " + position
+            + "(" + position + "). Item count:" + mState.getItemCount());
+      }
+      final int type = mAdapter.getItemViewType(position);
+      // 1) Find by position from scrap or cache
+      ViewHolder holder = getScrapOrCachedViewForPosition(position);
+      // 2) Find by id from scrap or cache, which needs to be rebound if invalid
+      if (holder == null && mAdapter.hasStableIds()) {
+        holder = getScrapOrCachedViewForId(mAdapter.getItemId(position));
+        if (holder != null && holder.mPosition != position) {
+          // make sure the holder is bound to the new position
+          holder.addFlags(ViewHolder.FLAG_UPDATE);
+        }
+      }
+      if (holder != null && holder.getItemViewType() != type) {
+        // The view type is changed without a notification, recycle it and look for another one.
+        holder.itemView.setVisibility(View.VISIBLE);
+        if (holder.isScrap() || holder.wasReturnedFromScrap()) {
+          recycleView(holder.itemView);
+        } else {
+          recycleViewHolderInternal(holder);
+        }
+        holder = null;
+      }
+      if (countCacheStats) {
+        // Counted once per request, after both the lookups. A holder from the attached scrap
+        // is neither a hit nor a miss.
+        if (holder == null) {
+          mCacheMissCount++;
+        } else if (!holder.isScrap() && !holder.wasReturnedFromScrap()) {
+          mCacheHitCount++;
+        }
+      }
+      // 3) Find from the recycled view pool, which needs to be rebound
+      if (holder == null) {
+        holder = getRecycledViewPool().getRecycledView(type);
+      }
+      if (holder == null) {
+        long start = getNanoTime();
+        if (deadlineNs != FOREVER_NS
+            && !mRecyclerPool.willCreateInTime(type, start, deadlineNs)) {
+          // abort - we have a deadline we can't meet
+          return null;
+        }
+        holder = mAdapter.createViewHolder(RecyclerView.this, type);
+        long end = getNanoTime();
+        mRecyclerPool.factorInCreateTime(type, end - start);
+      }
+      if (!holder.isBound() || holder.needsUpdate() || holder.isInvalid()) {
+        tryBindViewHolderByDeadline(holder, position, deadlineNs);
+      }
+
+      final ViewGroup.LayoutParams lp = holder.itemView.getLayoutParams();
+      final LayoutParams rvLayoutParams;
+      if (lp == null) {
+        rvLayoutParams = (LayoutParams) generateDefaultLayoutParams();
+        holder.itemView.setLayoutParams(rvLayoutParams);
+      } else if (!checkLayoutParams(lp)) {
+        rvLayoutParams = (LayoutParams) generateLayoutParams(lp);
+        holder.itemView.setLayoutParams(rvLayoutParams);
+      } else {
+        rvLayoutParams = (LayoutParams) lp;
+      }
+      rvLayoutParams.mViewHolder = holder;
+      return holder;
+    }
+
+    /**
+     * Binds the holder to the position unless the bind time average of its view type says
+     * that it would not finish before the deadline.
+     *
+     * @return True if the holder is bound.
+     */
+    private boolean tryBindViewHolderByDeadline(ViewHolder holder, int position,
+                                                long deadlineNs) {
+      holder.mOwnerRecyclerView = RecyclerView.this;
+      final int viewType = holder.getItemViewType();
+      long startBindNs = getNanoTime();
+      if (deadlineNs != FOREVER_NS
+          && !mRecyclerPool.willBindInTime(viewType, startBindNs, deadlineNs)) {
+        // abort - we have a deadline we can't meet
+        return false;
+      }
+      mAdapter.bindViewHolder(holder, position);
+      long endBindNs = getNanoTime();
+      mRecyclerPool.factorInBindTime(viewType, endBindNs - startBindNs);
+      return true;
+    }
+
+    /**
+     * Returns a view for the position either from attach scrap or from the cache.
+     *
+     * <p>A view from the attached scrap is still valid and is expected to be added back in the
+     * layout pass. A view from the cache was detached, but it is still bound to the position,
+     * thus it is removed from the cache and handed back without being rebound.</p>
+     *
+     * @param position Item position
+     * @return a ViewHolder that can be re-used for this position.
+     */
+    ViewHolder getScrapOrCachedViewForPosition(int position) {
+      final int scrapCount = mAttachedScrap.size();
+
+      // Try first for an exact, non-invalid match from scrap.
+      for (int i = 0; i < scrapCount; i++) {
+        final ViewHolder holder = mAttachedScrap.get(i);
+        if (!holder.wasReturnedFromScrap() && holder.getLayoutPosition() == position
+            && !holder.isInvalid() && !holder.isRemoved()) {
+          holder.addFlags(ViewHolder.FLAG_RETURNED_FROM_SCRAP);
+          return holder;
+        }
+      }
+
+      // Search in our first-level recycled view cache.
+      final int cacheSize = mCachedViews.size();
+      for (int i = 0; i < cacheSize; i++) {
+        final ViewHolder holder = mCachedViews.get(i);
+        if (!holder.isInvalid() && holder.getLayoutPosition() == position) {
+          mCachedViews.remove(i);
+          unindexHolder(holder);
+          return holder;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Returns a view for the stable id either from attach scrap or from the cache. Unlike
+     * {@link #getScrapOrCachedViewForPosition(int)}, invalid views are also returned since
+     * their ids are still valid; the caller should rebind them to their new positions.
+     *
+     * @param id The stable id of the item
+     * @return a ViewHolder that can be re-used for the item, or null if there is none.
+     */
+    ViewHolder getScrapOrCachedViewForId(long id) {
+      final ViewHolder holder = mHoldersById.get(id);
+      if (holder == null || holder.isRemoved() || holder.wasReturnedFromScrap()) {
+        return null;
+      }
+      mHoldersById.remove(id, holder);
+      if (holder.isScrap()) {
+        holder.addFlags(ViewHolder.FLAG_RETURNED_FROM_SCRAP);
+      } else {
+        mCachedViews.remove(holder);
+      }
+      return holder;
+    }
+
+    private void indexHolder(ViewHolder holder) {
+      if (mAdapter != null && mAdapter.hasStableIds()) {
+        mHoldersById.put(holder.mItemId, holder);
+      }
+    }
+
+    private void unindexHolder(ViewHolder holder) {
+      if (mHoldersById.size() > 0) {
+        mHoldersById.remove(holder.mItemId, holder);
+      }
+    }
+
+    /**
+     * @return The number of the views obtained from the view cache by their positions or
+     * stable ids, since the last {@link #resetViewCacheStats()}. The ones found by position are
+     * not rebound. Prefetches aren't counted.
+     */
+    public int getViewCacheHitCount() {
+      return mCacheHitCount;
+    }
+
+    /**
+     * @return The number of the views neither in the attached scrap nor in the view cache when
+     * they are requested, thus they are rebound or created, since the last
+     * {@link #resetViewCacheStats()}. Prefetches aren't counted.
+     */
+    public int getViewCacheMissCount() {
+      return mCacheMissCount;
+    }
+
+    /**
+     * Reset the hit and the miss counts of the view cache.
+     */
+    public void resetViewCacheStats() {
+      mCacheHitCount = 0;
+      mCacheMissCount = 0;
+    }
+
+    /**
+     * Recycle a detached view. The specified view will be added to a pool of views
+     * for later rebinding and reuse.
+     *
+     * <p>A view must be fully detached (removed from parent) before it may be recycled. If the
+     * View is scrapped, it will be removed from scrap list.</p>
+     *
+     * @param view Removed view for recycling
+     * @see LayoutManager#removeAndRecycleView(View, Recycler)
+     */
+    public void recycleView(View view) {
+      ViewHolder holder = getChildViewHolderInt(view);
+      if (holder.isTmpDetached()) {
+        removeDetachedView(view, false);
+      }
+      if (holder.isScrap()) {
+        holder.unScrap();
+      } else if (holder.wasReturnedFromScrap()) {
+        holder.clearReturnedFromScrapFlag();
+      }
+      recycleViewHolderInternal(holder);
+    }
+
+    void recycleAndClearCachedViews() {
+      final int count = mCachedViews.size();
+      for (int i = count - 1; i >= 0; i--) {
+        recycleCachedViewAt(i);
+      }
+      mCachedViews.clear();
+      if (ALLOW_THREAD_GAP_WORK) {
+        mPrefetchRegistry.clearPrefetchPositions();
+      }
+    }
+
+    /**
+     * Recycles a cached view into the pool and removes the view from the list. Views are added
+     * to cache if and only if they are valid, so this method does not check it again.
+     *
+     * @param cachedViewIndex The index of the view in cached views list
+     */
+    void recycleCachedViewAt(int cachedViewIndex) {
+      if (DEBUG) {
+        Log.d(TAG, "Recycling cached view at index " + cachedViewIndex);
+      }
+      ViewHolder viewHolder = mCachedViews.get(cachedViewIndex);
+      if (DEBUG) {
+        Log.d(TAG, "CachedViewHolder to be recycled: " + viewHolder);
+      }
+      unindexHolder(viewHolder);
+      addViewHolderToRecycledViewPool(viewHolder, true);
+      mCachedViews.remove(cachedViewIndex);
+    }
+
+    /**
+     * internal implementation checks if view is scrapped or attached and throws an exception
+     * if so.
+     * Public version un-scraps before calling recycle.
+     */
+    void recycleViewHolderInternal(ViewHolder holder) {
+      if (holder.isScrap() || holder.itemView.getParent() != null) {
+        throw new IllegalArgumentException(
+            "Scrapped or attached views may not be recycled. isScrap:"
+                + holder.isScrap() + " isAttached:"
+                + (holder.itemView.getParent() != null));
+      }
+      if (holder.isTmpDetached()) {
+        throw new IllegalArgumentException("Tmp detached view should be removed "
+            + "from RecyclerView before it can be recycled: " + holder);
+      }
+      boolean cached = false;
+      if (mViewCacheMax > 0 && holder.isBound() && !holder.isInvalid()
+          && !holder.isRemoved() && !holder.needsUpdate()) {
+        // Retire oldest cached view
+        int cachedViewSize = mCachedViews.size();
+        if (cachedViewSize >= mViewCacheMax && cachedViewSize > 0) {
+          recycleCachedViewAt(0);
+          cachedViewSize--;
+        }
+
+        int targetCacheIndex = cachedViewSize;
+        if (ALLOW_THREAD_GAP_WORK && cachedViewSize > 0
+            && !mPrefetchRegistry.lastPrefetchIncludedPosition(holder.mPosition)) {
+          // when adding the view, skip past most recently prefetched views
+          int cacheIndex = cachedViewSize - 1;
+          while (cacheIndex >= 0) {
+            int cachedPos = mCachedViews.get(cacheIndex).mPosition;
+            if (!mPrefetchRegistry.lastPrefetchIncludedPosition(cachedPos)) {
+              break;
+            }
+            cacheIndex--;
+          }
+          targetCacheIndex = cacheIndex + 1;
+        }
+        mCachedViews.add(targetCacheIndex, holder);
+        indexHolder(holder);
+        cached = true;
+      }
+      if (!cached) {
+        addViewHolderToRecycledViewPool(holder, true);
+      }
+    }
+
+    /**
+     * Prepares the ViewHolder to be removed/recycled, and inserts it into the RecycledViewPool.
+     *
+     * @param holder           Holder to be added to the pool.
+     * @param dispatchRecycled True to dispatch View recycled callbacks.
+     */
+    void addViewHolderToRecycledViewPool(ViewHolder holder, boolean dispatchRecycled) {
+      if (dispatchRecycled) {
+        dispatchViewRecycled(holder);
+      }
+      holder.mOwnerRecyclerView = null;
+      getRecycledViewPool().putRecycledView(holder);
+    }
+
+    /**
+     * Used as a fast path for unscrapping and recycling a view during a bulk operation.
+     * The caller must call {@link #clearScrap()} when it's done to update the recycler's
+     * internal bookkeeping.
+     */
+    void quickRecycleScrapView(View view) {
+      final ViewHolder holder = getChildViewHolderInt(view);
+      unindexHolder(holder);
+      holder.mScrapContainer = null;
+      holder.clearReturnedFromScrapFlag();
+      recycleViewHolderInternal(holder);
+    }
+
+    /**
+     * Mark an attached view as scrap.
+     *
+     * <p>"Scrap" views are still attached to their parent RecyclerView but are eligible
+     * for rebinding and reuse. Requests for a view for a given position may return a
+     * reused or rebound scrap view instance.</p>
+     *
+     * @param view View to scrap
+     */
+    void scrapView(View view) {
+      final ViewHolder holder = getChildViewHolderInt(view);
+      if (holder.isInvalid() && !holder.isRemoved() && !mAdapter.hasStableIds()) {
+        throw new IllegalArgumentException("Called scrap view with an invalid view."
+            + " Invalid views cannot be reused from scrap, they should rebound from"
+            + " recycler pool.");
+      }
+      holder.setScrapContainer(this);
+      mAttachedScrap.add(holder);
+      indexHolder(holder);
+    }
+
+    /**
+     * Remove a previously scrapped view from the pool of eligible scrap.
+     *
+     * <p>This view will no longer be eligible for reuse until re-scrapped or
+     * until it is explicitly removed and recycled.</p>
+     */
+    void unscrapView(ViewHolder holder) {
+      mAttachedScrap.remove(holder);
+      unindexHolder(holder);
+      holder.mScrapContainer = null;
+      holder.clearReturnedFromScrapFlag();
+    }
+
+    int getScrapCount() {
+      return mAttachedScrap.size();
+    }
+
+    View getScrapViewAt(int index) {
+      return mAttachedScrap.get(index).itemView;
+    }
+
+    void clearScrap() {
+      if (mHoldersById.size() > 0) {
+        for (int i = mAttachedScrap.size() - 1; i >= 0; i--) {
+          final ViewHolder holder = mAttachedScrap.get(i);
+          if (holder.isScrap()) {
+            unindexHolder(holder);
+          }
+        }
+      }
+      mAttachedScrap.clear();
+    }
+
+    void dispatchViewRecycled(ViewHolder holder) {
+      if (mAdapter != null) {
+        mAdapter.onViewRecycled(holder);
+      }
+      if (DEBUG) {
+        Log.d(TAG, "dispatchViewRecycled: " + holder);
+      }
+    }
+
     void onAdapterChanged(Adapter oldAdapter, Adapter newAdapter,
                           boolean compatibleWithPrevious) {
-//      clear();
-//      getRecycledViewPool().onAdapterChanged(oldAdapter, newAdapter, compatibleWithPrevious);
+      clear();
+      getRecycledViewPool().onAdapterChanged(oldAdapter, newAdapter, compatibleWithPrevious);
+    }
+
+    RecycledViewPool getRecycledViewPool() {
+      if (mRecyclerPool == null) {
+        mRecyclerPool = new RecycledViewPool();
+      }
+      return mRecyclerPool;
+    }
+
+    void setRecycledViewPool(RecycledViewPool pool) {
+      if (mRecyclerPool != null) {
+        mRecyclerPool.detach();
+      }
+      mRecyclerPool = pool;
+      if (pool != null) {
+        mRecyclerPool.attach(getAdapter());
+      }
+    }
+
+    void offsetPositionRecordsForMove(int from, int to) {
+      final int start, end, inBetweenOffset;
+      if (from < to) {
+        start = from;
+        end = to;
+        inBetweenOffset = -1;
+      } else {
+        start = to;
+        end = from;
+        inBetweenOffset = 1;
+      }
+      final int cachedCount = mCachedViews.size();
+      for (int i = 0; i < cachedCount; i++) {
+        final ViewHolder holder = mCachedViews.get(i);
+        if (holder == null || holder.mPosition < start || holder.mPosition > end) {
+          continue;
+        }
+        if (holder.mPosition == from) {
+          holder.offsetPosition(to - from);
+        } else {
+          holder.offsetPosition(inBetweenOffset);
+        }
+      }
+    }
+
+    void offsetPositionRecordsForInsert(int insertedAt, int count) {
+      final int cachedCount = mCachedViews.size();
+      for (int i = 0; i < cachedCount; i++) {
+        final ViewHolder holder = mCachedViews.get(i);
+        if (holder != null && holder.mPosition >= insertedAt) {
+          holder.offsetPosition(count);
+        }
+      }
+    }
+
+    void offsetPositionRecordsForRemove(int removedFrom, int count) {
+      final int removedEnd = removedFrom + count;
+      final int cachedCount = mCachedViews.size();
+      for (int i = cachedCount - 1; i >= 0; i--) {
+        final ViewHolder holder = mCachedViews.get(i);
+        if (holder != null) {
+          if (holder.mPosition >= removedEnd) {
+            holder.offsetPosition(-count);
+          } else if (holder.mPosition >= removedFrom) {
+            // Item for this view was removed. Dump it from the cache.
+            holder.addFlags(ViewHolder.FLAG_REMOVED);
+            recycleCachedViewAt(i);
+          }
+        }
+      }
+    }
+
+    void viewRangeUpdate(int positionStart, int itemCount) {
+      final int positionEnd = positionStart + itemCount;
+      final int cachedCount = mCachedViews.size();
+      for (int i = cachedCount - 1; i >= 0; i--) {
+        final ViewHolder holder = mCachedViews.get(i);
+        if (holder == null) {
+          continue;
+        }
+
+        final int pos = holder.getLayoutPosition();
+        if (pos >= positionStart && pos < positionEnd) {
+          holder.addFlags(ViewHolder.FLAG_UPDATE);
+          recycleCachedViewAt(i);
+          // cached views should not be flagged as changed because this will cause them
+          // to animate when they are returned from cache.
+        }
+      }
+    }
+
+    void markKnownViewsInvalid() {
+      final int cachedCount = mCachedViews.size();
+      for (int i = 0; i < cachedCount; i++) {
+        final ViewHolder holder = mCachedViews.get(i);
+        if (holder != null) {
+          holder.addFlags(ViewHolder.FLAG_UPDATE | ViewHolder.FLAG_INVALID);
+          holder.addChangePayload(null);
+        }
+      }
+      if (mAdapter == null || !mAdapter.hasStableIds()) {
+        // The positions of the cached views can't be trusted anymore, thus they are rebound
+        // from the pool. With stable ids they are kept, to be matched by id.
+        recycleAndClearCachedViews();
+      }
     }
   }
 
+  /**
+   * <p>Contains useful information about the current RecyclerView state like target scroll
+   * position or view focus. State object can also keep arbitrary data, identified by resource
+   * ids.</p>
+   */
   public static class State {
+    /**
+     * Number of items adapter has.
+     */
+    int mItemCount = 0;
+
+    boolean mStructureChanged = false;
+
+    /**
+     * Returns the total number of items that can be laid out. Note that this number is not
+     * necessarily equal to the number of items in the adapter.
+     *
+     * @return The number of items currently available
+     */
+    public int getItemCount() {
+      return mItemCount;
+    }
+
+    /**
+     * @return true if the structure of the data set has changed since the last call to
+     * onLayoutChildren.
+     */
+    public boolean didStructureChange() {
+      return mStructureChanged;
+    }
+
+    @Override
+    public String toString() {
+      return "State{"
+          + "mItemCount=" + mItemCount
+          + ", mStructureChanged=" + mStructureChanged
+          + '}';
+    }
+  }
 
+  class ViewFlinger implements Runnable {
+    private int mLastFlingX;
+    private int mLastFlingY;
+    private OverScroller mScroller;
+
+    ViewFlinger() {
+      mScroller = new OverScroller(getContext(), sQuinticInterpolator);
+    }
+
+    @Override
+    public void run() {
+      if (mLayout == null) {
+        stop();
+        return; // no layout, cannot scroll.
+      }
+      final OverScroller scroller = mScroller;
+      if (scroller.computeScrollOffset()) {
+        final int x = scroller.getCurrX();
+        final int y = scroller.getCurrY();
+        final int dx = x - mLastFlingX;
+        final int dy = y - mLastFlingY;
+        mLastFlingX = x;
+        mLastFlingY = y;
+
+        boolean scrolled = true;
+        if (dx != 0 || dy != 0) {
+          scrolled = scrollByInternal(dx, dy);
+        }
+        if (!scrolled || scroller.isFinished()) {
+          // A boundary is reached or the fling is finished.
+          scroller.abortAnimation();
+          setScrollState(SCROLL_STATE_IDLE);
+        } else {
+          ViewCompat.postOnAnimation(RecyclerView.this, this);
+          if (mGapWorker != null) {
+            mGapWorker.postFromTraversal(RecyclerView.this, dx, dy);
+          }
+        }
+      } else {
+        setScrollState(SCROLL_STATE_IDLE);
+      }
+    }
+
+    public void fling(int velocityX, int velocityY) {
+      setScrollState(SCROLL_STATE_SETTLING);
+      mLastFlingX = mLastFlingY = 0;
+      mScroller.fling(0, 0, velocityX, velocityY,
+          Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE);
+      ViewCompat.postOnAnimation(RecyclerView.this, this);
+    }
+
+    public void stop() {
+      removeCallbacks(this);
+      mScroller.abortAnimation();
+    }
   }
 }
@@ -40,7 +40,6 @@ public class RecyclerViewActivity extends AppCompatActivity {
     items.add("Red");
     items.add("Black");
 
-    adapter.addAll(items);
-    adapter.notifyDataSetChanged();
+    adapter.submitList(items);
   }
 }
@@ -7,7 +7,6 @@ import android.widget.TextView;
 
 import com.twentyhours.androidstudy.R;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -15,10 +14,23 @@ import java.util.List;
  */
 
 public class RecyclerViewAdapter extends RecyclerView.Adapter<RecyclerViewAdapter.ViewHolder> {
-  private List<String> items = new ArrayList<>();
+  private static final DiffUtil.ItemCallback<String> DIFF_CALLBACK =
+      new DiffUtil.ItemCallback<String>() {
+        @Override
+        public boolean areItemsTheSame(String oldItem, String newItem) {
+          return oldItem.equals(newItem);
+        }
 
-  public void addAll(List<String> list) {
-    items.addAll(list);
+        @Override
+        public boolean areContentsTheSame(String oldItem, String newItem) {
+          return oldItem.equals(newItem);
+        }
+      };
+
+  private final AsyncListDiffer<String> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+
+  public void submitList(List<String> list) {
+    differ.submitList(list);
   }
 
   @Override
@@ -30,12 +42,12 @@ public class RecyclerViewAdapter extends RecyclerView.Adapter<RecyclerViewAdapte
 
   @Override
   public void onBindViewHolder(ViewHolder holder, int position) {
-    holder.bind(items.get(position));
+    holder.bind(differ.getCurrentList().get(position));
   }
 
   @Override
   public int getItemCount() {
-    return items.size();
+    return differ.getCurrentList().size();
   }
 
   public static class ViewHolder extends RecyclerView.ViewHolder {
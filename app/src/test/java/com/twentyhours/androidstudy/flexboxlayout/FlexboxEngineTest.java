@@ -0,0 +1,407 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link FlexboxEngine}, which run on the plain JVM.
+ */
+public class FlexboxEngineTest {
+  private FlexboxEngine mEngine;
+
+  private TestFlexContainer mContainer;
+
+  @Before
+  public void setUp() throws Exception {
+    mEngine = new FlexboxEngine();
+    mEngine.setMainAxisHorizontal(true);
+    mEngine.setSingleLine(false);
+    mEngine.setMainAxisConstraints(100, FlexboxEngine.SIZE_MODE_EXACTLY, 0);
+    mContainer = new TestFlexContainer();
+  }
+
+  @Test
+  public void calculateFlexLines_wrapsByMainSize() throws Exception {
+    mContainer.addItems(5, 40, 10);
+    assertEquals(5, mEngine.calculateFlexLines(mContainer, 0));
+
+    List<FlexLine> lines = mEngine.getFlexLines();
+    assertEquals(3, lines.size());
+    assertEquals(2, lines.get(0).getItemCount());
+    assertEquals(2, lines.get(1).getItemCount());
+    assertEquals(1, lines.get(2).getItemCount());
+    assertEquals(80, lines.get(0).getMainSize());
+    assertEquals(30, mEngine.getSumOfCrossSize());
+    assertEquals(80, mEngine.getLargestMainSize());
+  }
+
+  @Test
+  public void calculateFlexLines_singleLine() throws Exception {
+    mEngine.setSingleLine(true);
+    mContainer.addItems(5, 40, 10);
+    mEngine.calculateFlexLines(mContainer, 0);
+
+    assertEquals(1, mEngine.getFlexLines().size());
+    assertEquals(200, mEngine.getLargestMainSize());
+  }
+
+  @Test
+  public void calculateFlexLines_marginsAndGoneItems() throws Exception {
+    mContainer.addItems(3, 30, 10);
+    mContainer.mItems.get(0).mMarginLeft = 10;
+    mContainer.mItems.get(1).mGone = true;
+    mEngine.calculateFlexLines(mContainer, 0);
+
+    List<FlexLine> lines = mEngine.getFlexLines();
+    assertEquals(1, lines.size());
+    assertEquals(3, lines.get(0).getItemCount());
+    assertEquals(70, lines.get(0).getMainSize());
+    // The gone item is never measured.
+    assertEquals(2, mContainer.mMeasureCount);
+  }
+
+  @Test
+  public void calculateFlexLine_calculatesOneLine() throws Exception {
+    mContainer.addItems(5, 40, 10);
+    assertEquals(2, mEngine.calculateFlexLine(mContainer, 0));
+    assertEquals(4, mEngine.calculateFlexLine(mContainer, 2));
+    assertEquals(5, mEngine.calculateFlexLine(mContainer, 4));
+    assertEquals(3, mEngine.getFlexLines().size());
+  }
+
+  @Test
+  public void calculateFlexLines_maxLines() throws Exception {
+    mEngine.setMaxLines(2);
+    mContainer.addItems(10, 40, 10);
+    assertEquals(4, mEngine.calculateFlexLines(mContainer, 0));
+
+    assertEquals(2, mEngine.getFlexLines().size());
+    assertEquals(4, mEngine.getFirstHiddenItemIndex());
+    // The items after the first hidden one are not measured.
+    assertEquals(5, mContainer.mMeasureCount);
+  }
+
+  @Test
+  public void resolveFlexibleLengths_grow() throws Exception {
+    mContainer.addItems(2, 20, 10);
+    mContainer.mItems.get(0).mFlexGrow = 1f;
+    mContainer.mItems.get(1).mFlexGrow = 3f;
+    mEngine.calculateFlexLines(mContainer, 0);
+    mEngine.resolveFlexibleLengths(mContainer, 0);
+
+    assertEquals(35, mContainer.mItems.get(0).mMeasuredWidth);
+    assertEquals(65, mContainer.mItems.get(1).mMeasuredWidth);
+    assertEquals(100, mEngine.getFlexLines().get(0).getMainSize());
+  }
+
+  @Test
+  public void resolveFlexibleLengths_shrink() throws Exception {
+    mEngine.setSingleLine(true);
+    mContainer.addItems(2, 80, 10);
+    mEngine.calculateFlexLines(mContainer, 0);
+    mEngine.resolveFlexibleLengths(mContainer, 0);
+
+    assertEquals(50, mContainer.mItems.get(0).mMeasuredWidth);
+    assertEquals(50, mContainer.mItems.get(1).mMeasuredWidth);
+    assertEquals(100, mEngine.getLargestMainSize());
+  }
+
+  @Test
+  public void calculateFlexLines_flexBasisPercent() throws Exception {
+    mContainer.addItems(3, 10, 10);
+    mContainer.mItems.get(0).mFlexBasisPercent = 0.5f;
+    mContainer.mItems.get(1).mFlexBasisPercent = 0.6f;
+    mEngine.calculateFlexLines(mContainer, 0);
+
+    List<FlexLine> lines = mEngine.getFlexLines();
+    assertEquals(2, lines.size());
+    assertEquals(50, lines.get(0).getMainSize());
+    assertEquals(70, lines.get(1).getMainSize());
+  }
+
+  @Test
+  public void calculateFlexLines_mainAxisDividers() throws Exception {
+    mEngine.setMainAxisDivider(5, FlexboxEngine.SHOW_DIVIDER_BEGINNING
+        | FlexboxEngine.SHOW_DIVIDER_MIDDLE | FlexboxEngine.SHOW_DIVIDER_END);
+    mContainer.addItems(5, 25, 10);
+    mEngine.calculateFlexLines(mContainer, 0);
+
+    // 5 + 25 + 5 + 25 + 5 + 25 + 5 = 95, the fourth item doesn't fit with its divider.
+    List<FlexLine> lines = mEngine.getFlexLines();
+    assertEquals(2, lines.size());
+    assertEquals(3, lines.get(0).getItemCount());
+    assertEquals(95, lines.get(0).getMainSize());
+    assertEquals(65, lines.get(1).getMainSize());
+  }
+
+  @Test
+  public void resolveFlexibleLengths_growWithDividers() throws Exception {
+    mEngine.setMainAxisDivider(10, FlexboxEngine.SHOW_DIVIDER_MIDDLE);
+    mContainer.addItems(2, 30, 10);
+    mContainer.mItems.get(0).mFlexGrow = 1f;
+    mEngine.calculateFlexLines(mContainer, 0);
+    mEngine.resolveFlexibleLengths(mContainer, 0);
+
+    // The divider takes its space before the remaining space is distributed.
+    assertEquals(60, mContainer.mItems.get(0).mMeasuredWidth);
+    assertEquals(100, mEngine.getFlexLines().get(0).getMainSize());
+  }
+
+  @Test
+  public void calculateFlexLines_vertical() throws Exception {
+    mEngine.setMainAxisHorizontal(false);
+    mContainer.addItems(3, 10, 40);
+    mEngine.calculateFlexLines(mContainer, 0);
+
+    assertEquals(2, mEngine.getFlexLines().size());
+    assertEquals(20, mEngine.getSumOfCrossSize());
+  }
+
+  @Test
+  public void resolveFlexibleLengths_growMeasuresEachItemAtMostTwice() throws Exception {
+    mContainer.addItems(7, 30, 10);
+    mContainer.mItems.get(0).mFlexGrow = 1f;
+    mContainer.mItems.get(2).mFlexGrow = 2f;
+    mContainer.mItems.get(4).mFlexGrow = 1f;
+    mEngine.calculateFlexLines(mContainer, 0);
+    mEngine.resolveFlexibleLengths(mContainer, 0);
+
+    for (int i = 0; i < mContainer.mItems.size(); i++) {
+      TestFlexItem item = mContainer.mItems.get(i);
+      // Measured once to break the flex lines, and once more only if its length is flexed.
+      assertEquals(item.mFlexGrow > 0f ? 2 : 1, item.mMeasureCount);
+    }
+    assertEquals(10, mContainer.mMeasureCount);
+  }
+
+  @Test
+  public void resolveFlexibleLengths_shrinkMeasuresEachItemAtMostTwice() throws Exception {
+    mEngine.setSingleLine(true);
+    mContainer.addItems(4, 40, 10);
+    mContainer.mItems.get(3).mFlexShrink = 0f;
+    mEngine.calculateFlexLines(mContainer, 0);
+    mEngine.resolveFlexibleLengths(mContainer, 0);
+
+    for (int i = 0; i < mContainer.mItems.size(); i++) {
+      TestFlexItem item = mContainer.mItems.get(i);
+      assertEquals(item.mFlexShrink > 0f ? 2 : 1, item.mMeasureCount);
+    }
+    assertEquals(40, mContainer.mItems.get(3).mMeasuredWidth);
+    assertEquals(100, mEngine.getLargestMainSize());
+  }
+
+  @Test
+  public void resolveFlexibleLengths_reusedLinesAreNotMeasuredAgain() throws Exception {
+    mContainer.addItems(6, 40, 10);
+    for (TestFlexItem item : mContainer.mItems) {
+      item.mFlexGrow = 1f;
+    }
+    mEngine.calculateFlexLines(mContainer, 0);
+    mEngine.resolveFlexibleLengths(mContainer, 0);
+    mContainer.mMeasureCount = 0;
+
+    mContainer.mItems.get(5).mWidth = 30;
+    int fromIndex = mEngine.discardFlexLinesFrom(5);
+    int fromLine = mEngine.getFlexLines().size();
+    mEngine.calculateFlexLines(mContainer, fromIndex);
+    mEngine.resolveFlexibleLengths(mContainer, fromLine);
+
+    // Only the two items of the last flex line are measured, twice each.
+    assertEquals(4, fromIndex);
+    assertEquals(4, mContainer.mMeasureCount);
+  }
+
+  @Test
+  public void discardFlexLinesFrom_firstItemShrinksIntoPreviousLine() throws Exception {
+    mContainer.addItems(3, 40, 10);
+    mEngine.calculateFlexLines(mContainer, 0);
+    assertEquals(2, mEngine.getFlexLines().size());
+
+    // The first item of the second flex line now fits in the first one.
+    mContainer.mItems.get(2).mWidth = 20;
+    int fromIndex = mEngine.discardFlexLinesFrom(2);
+    mEngine.calculateFlexLines(mContainer, fromIndex);
+
+    assertEquals(1, mEngine.getFlexLines().size());
+    assertEquals(100, mEngine.getFlexLines().get(0).getMainSize());
+  }
+
+  @Test
+  public void discardFlexLinesFrom_keepsLinesBeforeChangedItem() throws Exception {
+    mContainer.addItems(8, 40, 10);
+    mEngine.calculateFlexLines(mContainer, 0);
+    mContainer.mMeasureCount = 0;
+
+    mContainer.mItems.get(5).mWidth = 50;
+    assertEquals(4, mEngine.discardFlexLinesFrom(5));
+    assertEquals(2, mEngine.getFlexLines().size());
+    mEngine.calculateFlexLines(mContainer, 4);
+    // Only the items from the discarded flex line are measured again.
+    assertEquals(4, mContainer.mMeasureCount);
+  }
+
+  @Test
+  public void discardFlexLinesFrom_incrementalMatchesFull() throws Exception {
+    final Random random = new Random(0);
+    mContainer.addItems(30, 30, 10);
+    for (int i = 0; i < 30; i++) {
+      randomize(random, mContainer.mItems.get(i));
+    }
+    mEngine.calculateFlexLines(mContainer, 0);
+    for (int round = 0; round < 2000; round++) {
+      int index;
+      switch (random.nextInt(4)) {
+        case 0:
+          index = random.nextInt(mContainer.mItems.size() + 1);
+          TestFlexItem item = new TestFlexItem();
+          randomize(random, item);
+          mContainer.mItems.add(index, item);
+          break;
+        case 1:
+          if (mContainer.mItems.size() <= 1) {
+            continue;
+          }
+          index = random.nextInt(mContainer.mItems.size());
+          mContainer.mItems.remove(index);
+          break;
+        default:
+          index = random.nextInt(mContainer.mItems.size());
+          randomize(random, mContainer.mItems.get(index));
+          break;
+      }
+      mEngine.calculateFlexLines(mContainer, mEngine.discardFlexLinesFrom(index));
+
+      FlexboxEngine full = new FlexboxEngine();
+      full.setMainAxisHorizontal(true);
+      full.setSingleLine(false);
+      full.setMainAxisConstraints(100, FlexboxEngine.SIZE_MODE_EXACTLY, 0);
+      full.calculateFlexLines(mContainer, 0);
+      assertSameFlexLines(full.getFlexLines(), mEngine.getFlexLines());
+    }
+  }
+
+  private static void randomize(Random random, TestFlexItem item) {
+    item.mWidth = 10 + random.nextInt(60);
+    item.mHeight = 5 + random.nextInt(20);
+    item.mGone = random.nextInt(8) == 0;
+  }
+
+  private static void assertSameFlexLines(List<FlexLine> expected, List<FlexLine> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getFirstIndex(), actual.get(i).getFirstIndex());
+      assertEquals(expected.get(i).getItemCount(), actual.get(i).getItemCount());
+      assertEquals(expected.get(i).getMainSize(), actual.get(i).getMainSize());
+      assertEquals(expected.get(i).getCrossSize(), actual.get(i).getCrossSize());
+    }
+  }
+
+  private static class TestFlexItem implements FlexItem {
+    int mWidth;
+    int mHeight;
+    int mMeasuredWidth;
+    int mMeasuredHeight;
+    int mMarginLeft;
+    float mFlexGrow = FLEX_GROW_DEFAULT;
+    float mFlexShrink = FLEX_SHRINK_DEFAULT;
+    float mFlexBasisPercent = FLEX_BASIS_PERCENT_DEFAULT;
+    boolean mGone;
+    int mMeasureCount;
+
+    @Override
+    public float getFlexGrow() {
+      return mFlexGrow;
+    }
+
+    @Override
+    public float getFlexShrink() {
+      return mFlexShrink;
+    }
+
+    @Override
+    public float getFlexBasisPercent() {
+      return mFlexBasisPercent;
+    }
+
+    @Override
+    public int getMarginLeft() {
+      return mMarginLeft;
+    }
+
+    @Override
+    public int getMarginTop() {
+      return 0;
+    }
+
+    @Override
+    public int getMarginRight() {
+      return 0;
+    }
+
+    @Override
+    public int getMarginBottom() {
+      return 0;
+    }
+
+    @Override
+    public int getMeasuredWidth() {
+      return mMeasuredWidth;
+    }
+
+    @Override
+    public int getMeasuredHeight() {
+      return mMeasuredHeight;
+    }
+
+    @Override
+    public boolean isGone() {
+      return mGone;
+    }
+  }
+
+  private class TestFlexContainer implements FlexContainer {
+    final List<TestFlexItem> mItems = new ArrayList<>();
+    int mMeasureCount;
+
+    void addItems(int count, int width, int height) {
+      for (int i = 0; i < count; i++) {
+        TestFlexItem item = new TestFlexItem();
+        item.mWidth = width;
+        item.mHeight = height;
+        mItems.add(item);
+      }
+    }
+
+    @Override
+    public int getFlexItemCount() {
+      return mItems.size();
+    }
+
+    @Override
+    public FlexItem getFlexItemAt(int index) {
+      return mItems.get(index);
+    }
+
+    @Override
+    public void measureFlexItem(int index, int mainSize) {
+      mMeasureCount++;
+      TestFlexItem item = mItems.get(index);
+      item.mMeasureCount++;
+      item.mMeasuredWidth = item.mWidth;
+      item.mMeasuredHeight = item.mHeight;
+      if (mainSize != FlexboxEngine.SIZE_UNDEFINED) {
+        if (mEngine.isMainAxisHorizontal()) {
+          item.mMeasuredWidth = mainSize;
+        } else {
+          item.mMeasuredHeight = mainSize;
+        }
+      }
+    }
+  }
+}
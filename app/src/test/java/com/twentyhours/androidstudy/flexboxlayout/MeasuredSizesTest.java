@@ -0,0 +1,208 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link MeasuredSizes}, which compare it with a reference list of the sizes per
+ * adapter position.
+ */
+public class MeasuredSizesTest {
+  /** Stands for an item which is gone in the reference list */
+  private static final int GONE = -1;
+
+  private MeasuredSizes mSizes;
+
+  /** The width of the item per position, null if it isn't measured */
+  private List<Integer> mExpected;
+
+  private int mNextWidth;
+
+  @Before
+  public void setUp() throws Exception {
+    mSizes = new MeasuredSizes();
+    mExpected = new ArrayList<>();
+    mNextWidth = 0;
+  }
+
+  @Test
+  public void put_coversPositionsUpToIt() throws Exception {
+    put(3);
+    assertEquals(4, mSizes.size());
+    assertFalse(mSizes.isMeasured(0));
+    assertTrue(mSizes.isMeasured(3));
+    assertFalse(mSizes.isMeasured(4));
+    assertEquals(1, mSizes.getHeight(3));
+    assertEquals(2, mSizes.getMarginLeft(3));
+    assertEquals(5, mSizes.getMarginBottom(3));
+  }
+
+  @Test
+  public void insert_shiftsSizesAfterIt() throws Exception {
+    putRange(0, 5);
+    insert(2, 3);
+    verify();
+    assertFalse(mSizes.isMeasured(2));
+    assertFalse(mSizes.isMeasured(4));
+    assertTrue(mSizes.isMeasured(5));
+  }
+
+  @Test
+  public void remove_shiftsSizesAfterIt() throws Exception {
+    putRange(0, 6);
+    remove(1, 2);
+    verify();
+    // Past the covered positions.
+    remove(3, 10);
+    verify();
+    assertEquals(3, mSizes.size());
+  }
+
+  @Test
+  public void move_keepsMovedSize() throws Exception {
+    putRange(0, 6);
+    move(1, 4);
+    verify();
+    move(5, 0);
+    verify();
+  }
+
+  @Test
+  public void move_outOfCoveredPositionsForgetsRange() throws Exception {
+    putRange(0, 6);
+    move(2, 10);
+    verify();
+    assertTrue(mSizes.isMeasured(1));
+    assertFalse(mSizes.isMeasured(2));
+  }
+
+  @Test
+  public void putGone() throws Exception {
+    putRange(0, 3);
+    mSizes.putGone(1);
+    mExpected.set(1, GONE);
+    insert(0, 1);
+    verify();
+    assertTrue(mSizes.isGone(2));
+  }
+
+  @Test
+  public void randomOperations_matchReferenceList() throws Exception {
+    Random random = new Random(7);
+    for (int i = 0; i < 20000; i++) {
+      int size = mExpected.size();
+      int position = random.nextInt(size + 3);
+      switch (random.nextInt(7)) {
+        case 0:
+        case 1:
+          if (random.nextInt(5) == 0) {
+            cover(position);
+            mSizes.putGone(position);
+            mExpected.set(position, GONE);
+          } else {
+            put(position);
+          }
+          break;
+        case 2:
+          insert(position, 1 + random.nextInt(4));
+          break;
+        case 3:
+          remove(position, 1 + random.nextInt(4));
+          break;
+        case 4:
+          move(position, random.nextInt(size + 3));
+          break;
+        case 5:
+          int itemCount = 1 + random.nextInt(4);
+          mSizes.invalidate(position, itemCount);
+          for (int j = position; j < Math.min(position + itemCount, size); j++) {
+            mExpected.set(j, null);
+          }
+          break;
+        default:
+          if (random.nextInt(100) == 0) {
+            mSizes.clear();
+            mExpected.clear();
+          }
+          break;
+      }
+      verify();
+    }
+  }
+
+  private void put(int position) {
+    cover(position);
+    int width = mNextWidth++;
+    mSizes.put(position, width, 1, 2, 3, 4, 5);
+    mExpected.set(position, width);
+  }
+
+  private void putRange(int positionStart, int itemCount) {
+    for (int i = positionStart; i < positionStart + itemCount; i++) {
+      put(i);
+    }
+  }
+
+  private void cover(int position) {
+    while (mExpected.size() <= position) {
+      mExpected.add(null);
+    }
+  }
+
+  private void insert(int positionStart, int itemCount) {
+    mSizes.insert(positionStart, itemCount);
+    if (positionStart < mExpected.size()) {
+      mExpected.addAll(positionStart, Collections.<Integer>nCopies(itemCount, null));
+    }
+  }
+
+  private void remove(int positionStart, int itemCount) {
+    mSizes.remove(positionStart, itemCount);
+    if (positionStart < mExpected.size()) {
+      mExpected.subList(positionStart,
+          Math.min(positionStart + itemCount, mExpected.size())).clear();
+    }
+  }
+
+  private void move(int from, int to) {
+    if (from == to) {
+      return;
+    }
+    int size = mExpected.size();
+    mSizes.move(from, to, 1);
+    if (Math.max(from, to) < size) {
+      mExpected.add(to, mExpected.remove(from));
+    } else {
+      // The positions past the covered ones aren't known, the shifted ones are forgotten.
+      for (int i = Math.min(from, to); i < size; i++) {
+        mExpected.set(i, null);
+      }
+    }
+  }
+
+  private void verify() {
+    assertEquals(mExpected.size(), mSizes.size());
+    for (int i = 0; i < mExpected.size() + 2; i++) {
+      Integer expected = i < mExpected.size() ? mExpected.get(i) : null;
+      assertEquals(expected != null, mSizes.isMeasured(i));
+      if (expected == null) {
+        continue;
+      }
+      assertEquals(expected == GONE, mSizes.isGone(i));
+      if (expected != GONE) {
+        assertEquals((long) expected, mSizes.getWidth(i));
+        assertEquals(1, mSizes.getHeight(i));
+        assertEquals(4, mSizes.getMarginRight(i));
+      }
+    }
+  }
+}
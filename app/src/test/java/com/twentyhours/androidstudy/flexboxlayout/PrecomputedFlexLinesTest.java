@@ -0,0 +1,129 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+import android.view.View.MeasureSpec;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link PrecomputedFlexLines}, which run on the plain JVM.
+ */
+public class PrecomputedFlexLinesTest {
+  private static final int EXACTLY_100 = MeasureSpec.EXACTLY | 100;
+
+  @Test
+  public void build_wrapsItemsByHints() throws Exception {
+    PrecomputedFlexLines precomputed = newRowBuilder(EXACTLY_100)
+        .addItem(40, 10)
+        .addItem(40, 20)
+        .addItem(40, 10)
+        .addItem(70, 30)
+        .addItem(30, 10)
+        .build();
+
+    List<FlexLine> lines = precomputed.getFlexLines();
+    assertEquals(3, lines.size());
+    assertEquals(2, lines.get(0).getItemCount());
+    assertEquals(20, lines.get(0).getCrossSize());
+    assertEquals(1, lines.get(1).getItemCount());
+    assertEquals(2, lines.get(2).getItemCount());
+    assertEquals(100, lines.get(2).getMainSize());
+    assertEquals(30, lines.get(2).getCrossSize());
+    assertEquals(FlexboxLayout.NO_HIDDEN_CHILD, precomputed.getFirstHiddenItemIndex());
+    for (int i = 0; i < precomputed.getItemCount(); i++) {
+      // No flexible length is resolved, the items keep their hints.
+      assertEquals(precomputed.mHintWidths[i], precomputed.getWidth(i));
+      assertEquals(precomputed.mHintHeights[i], precomputed.getHeight(i));
+    }
+  }
+
+  @Test
+  public void build_columnWrapsByHeights() throws Exception {
+    PrecomputedFlexLines precomputed = new PrecomputedFlexLines.Builder(
+        FlexboxLayout.FLEX_DIRECTION_COLUMN, FlexboxLayout.FLEX_WRAP_WRAP, EXACTLY_100)
+        .addItem(10, 60)
+        .addItem(20, 60)
+        .build();
+
+    List<FlexLine> lines = precomputed.getFlexLines();
+    assertEquals(2, lines.size());
+    assertEquals(60, lines.get(0).getMainSize());
+    assertEquals(20, lines.get(1).getCrossSize());
+  }
+
+  @Test
+  public void build_countsPaddingMarginsAndDividers() throws Exception {
+    PrecomputedFlexLines precomputed = newRowBuilder(EXACTLY_100)
+        .setMainPadding(5, 5)
+        .setMainAxisDivider(10, FlexboxLayout.SHOW_DIVIDER_MIDDLE)
+        .addItem(30, 10, 5, 0, 5, 0, FlexItem.FLEX_GROW_DEFAULT, FlexItem.FLEX_SHRINK_DEFAULT,
+            FlexItem.FLEX_BASIS_PERCENT_DEFAULT)
+        .addItem(30, 10)
+        .addItem(10, 10)
+        .build();
+
+    // 5 + (5 + 30 + 5) + 10 + 30 + 5 = 90, the third item and its divider don't fit.
+    List<FlexLine> lines = precomputed.getFlexLines();
+    assertEquals(2, lines.size());
+    assertEquals(2, lines.get(0).getItemCount());
+    assertEquals(90, lines.get(0).getMainSize());
+  }
+
+  @Test
+  public void build_resolvesFlexGrowAndShrink() throws Exception {
+    PrecomputedFlexLines precomputed = newRowBuilder(EXACTLY_100)
+        .addItem(20, 10, 0, 0, 0, 0, 1f, 1f, FlexItem.FLEX_BASIS_PERCENT_DEFAULT)
+        .addItem(20, 10, 0, 0, 0, 0, 3f, 1f, FlexItem.FLEX_BASIS_PERCENT_DEFAULT)
+        .build();
+
+    assertEquals(1, precomputed.getFlexLines().size());
+    assertEquals(35, precomputed.getWidth(0));
+    assertEquals(65, precomputed.getWidth(1));
+    // The cross sizes aren't flexible.
+    assertEquals(10, precomputed.getHeight(0));
+    assertEquals(20, precomputed.mHintWidths[0]);
+
+    precomputed = new PrecomputedFlexLines.Builder(FlexboxLayout.FLEX_DIRECTION_ROW,
+        FlexboxLayout.FLEX_WRAP_NOWRAP, EXACTLY_100)
+        .addItem(80, 10)
+        .addItem(80, 10)
+        .build();
+    assertEquals(1, precomputed.getFlexLines().size());
+    assertEquals(50, precomputed.getWidth(0));
+    assertEquals(50, precomputed.getWidth(1));
+  }
+
+  @Test
+  public void build_flexBasisPercentNeedsExactMainSize() throws Exception {
+    PrecomputedFlexLines precomputed = newRowBuilder(EXACTLY_100)
+        .addItem(10, 10, 0, 0, 0, 0, 0f, 0f, 0.5f)
+        .build();
+    assertEquals(50, precomputed.getWidth(0));
+
+    precomputed = newRowBuilder(MeasureSpec.AT_MOST | 100)
+        .addItem(10, 10, 0, 0, 0, 0, 0f, 0f, 0.5f)
+        .build();
+    assertEquals(10, precomputed.getWidth(0));
+  }
+
+  @Test
+  public void build_hidesItemsAfterMaxLines() throws Exception {
+    PrecomputedFlexLines precomputed = newRowBuilder(EXACTLY_100)
+        .setMaxLines(1)
+        .addItem(60, 10)
+        .addItem(60, 10)
+        .addItem(60, 10)
+        .build();
+
+    assertEquals(1, precomputed.getFlexLines().size());
+    assertEquals(1, precomputed.getFirstHiddenItemIndex());
+  }
+
+  private static PrecomputedFlexLines.Builder newRowBuilder(int mainMeasureSpec) {
+    return new PrecomputedFlexLines.Builder(FlexboxLayout.FLEX_DIRECTION_ROW,
+        FlexboxLayout.FLEX_WRAP_WRAP, mainMeasureSpec);
+  }
+}
@@ -0,0 +1,298 @@
+package com.twentyhours.androidstudy.recyclerview;
+
+import com.twentyhours.androidstudy.recyclerview.AdapterHelper.UpdateOp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link AdapterHelper} and {@link OpReorderer}, which replay the dispatched
+ * operations on a plain list and compare it with the list the notifications describe.
+ */
+public class AdapterHelperTest {
+  private static final int INITIAL_ITEM_COUNT = 20;
+
+  private static final Object PAYLOAD = "payload";
+
+  private ReplayCallback mCallback;
+
+  private AdapterHelper mAdapterHelper;
+
+  /** The items after the notifications are applied one by one, null for the inserted ones */
+  private List<Integer> mExpected;
+
+  /** The items updated by the notifications */
+  private Set<Integer> mExpectedUpdated;
+
+  @Before
+  public void setUp() throws Exception {
+    mCallback = new ReplayCallback();
+    mAdapterHelper = new AdapterHelper(mCallback);
+    mExpected = new ArrayList<>();
+    for (int i = 0; i < INITIAL_ITEM_COUNT; i++) {
+      mExpected.add(i);
+    }
+    mExpectedUpdated = new HashSet<>();
+    mCallback.reset(mExpected);
+  }
+
+  @Test
+  public void coalesce_consecutiveChanges() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      notifyChanged(i % INITIAL_ITEM_COUNT, 1, null);
+    }
+    assertEquals(1, mAdapterHelper.mPendingUpdates.size());
+    consumeAndVerify();
+  }
+
+  @Test
+  public void coalesce_consecutiveInserts() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      notifyInserted(5 + i, 1);
+    }
+    assertEquals(1, mAdapterHelper.mPendingUpdates.size());
+    consumeAndVerify();
+  }
+
+  @Test
+  public void coalesce_removesAtSamePositionAndBackwards() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      notifyInserted(INITIAL_ITEM_COUNT, 100);
+      consumeAndVerify();
+    }
+    for (int i = 0; i < 500; i++) {
+      notifyRemoved(5, 1);
+    }
+    assertEquals(1, mAdapterHelper.mPendingUpdates.size());
+    consumeAndVerify();
+
+    for (int i = mExpected.size() - 1; i >= 0; i--) {
+      notifyRemoved(i, 1);
+    }
+    assertEquals(1, mAdapterHelper.mPendingUpdates.size());
+    consumeAndVerify();
+  }
+
+  @Test
+  public void coalesce_differentPayloadsAreNotMerged() throws Exception {
+    notifyChanged(0, 2, null);
+    notifyChanged(2, 2, PAYLOAD);
+    notifyChanged(4, 2, PAYLOAD);
+    assertEquals(2, mAdapterHelper.mPendingUpdates.size());
+    consumeAndVerify();
+  }
+
+  @Test
+  public void coalesce_interleavedKindsAreNotMerged() throws Exception {
+    notifyInserted(0, 1);
+    notifyRemoved(5, 1);
+    notifyInserted(1, 1);
+    assertEquals(3, mAdapterHelper.mPendingUpdates.size());
+    consumeAndVerify();
+  }
+
+  @Test
+  public void reorder_movesBeforeOtherOps() throws Exception {
+    notifyMoved(2, 10);
+    notifyRemoved(9, 3);
+    notifyMoved(0, 4);
+    notifyChanged(3, 4, null);
+    notifyInserted(2, 2);
+    consumeAndVerify();
+  }
+
+  @Test
+  public void pool_reusesConsumedOps() throws Exception {
+    notifyInserted(0, 1);
+    UpdateOp op = mAdapterHelper.mPendingUpdates.get(0);
+    consumeAndVerify();
+    notifyRemoved(3, 1);
+    assertSame(op, mAdapterHelper.mPendingUpdates.get(0));
+    assertEquals(UpdateOp.REMOVE, op.cmd);
+    assertEquals(3, op.positionStart);
+    consumeAndVerify();
+  }
+
+  @Test
+  public void pool_noAllocationInSteadyState() throws Exception {
+    Set<UpdateOp> seen = Collections.newSetFromMap(new IdentityHashMap<UpdateOp, Boolean>());
+    for (int round = 0; round < 100; round++) {
+      // The ops of a kind different from the previous one aren't merged.
+      for (int i = 0; i < 5; i++) {
+        notifyInserted(i * 2, 1);
+        notifyChanged(i * 2 + 1, 1, null);
+      }
+      assertEquals(10, mAdapterHelper.mPendingUpdates.size());
+      seen.addAll(mAdapterHelper.mPendingUpdates);
+      consumeAndVerify();
+    }
+    assertEquals(10, seen.size());
+  }
+
+  @Test
+  public void randomOperations_matchReferenceList() throws Exception {
+    Random random = new Random(42);
+    for (int round = 0; round < 2000; round++) {
+      int opCount = 1 + random.nextInt(15);
+      int last = random.nextInt(mExpected.size() + 1);
+      for (int i = 0; i < opCount; i++) {
+        int size = mExpected.size();
+        // Stay near the last position half of the time to exercise the merges.
+        int position = random.nextBoolean()
+            ? Math.max(0, Math.min(size, last + random.nextInt(3) - 1))
+            : random.nextInt(size + 1);
+        switch (random.nextInt(4)) {
+          case 0:
+            notifyInserted(position, 1 + random.nextInt(3));
+            break;
+          case 1:
+            if (position < size) {
+              notifyRemoved(position, 1 + random.nextInt(Math.min(3, size - position)));
+            }
+            break;
+          case 2:
+            if (position < size) {
+              notifyChanged(position, 1 + random.nextInt(Math.min(3, size - position)),
+                  random.nextBoolean() ? null : PAYLOAD);
+            }
+            break;
+          default:
+            if (size >= 2) {
+              int from = Math.min(position, size - 1);
+              int to = random.nextInt(size);
+              if (from != to) {
+                notifyMoved(from, to);
+              }
+            }
+            break;
+        }
+        last = position;
+      }
+      assertTrue(mAdapterHelper.mPendingUpdates.size() <= opCount);
+      consumeAndVerify();
+      if (mExpected.size() > 100 || mExpected.isEmpty()) {
+        setUp();
+      }
+    }
+  }
+
+  private void notifyInserted(int positionStart, int itemCount) {
+    mAdapterHelper.onItemRangeInserted(positionStart, itemCount);
+    for (int i = 0; i < itemCount; i++) {
+      mExpected.add(positionStart, null);
+    }
+  }
+
+  private void notifyRemoved(int positionStart, int itemCount) {
+    mAdapterHelper.onItemRangeRemoved(positionStart, itemCount);
+    mExpected.subList(positionStart, positionStart + itemCount).clear();
+  }
+
+  private void notifyChanged(int positionStart, int itemCount, Object payload) {
+    mAdapterHelper.onItemRangeChanged(positionStart, itemCount, payload);
+    markUpdated(mExpected, mExpectedUpdated, positionStart, itemCount);
+  }
+
+  private void notifyMoved(int from, int to) {
+    mAdapterHelper.onItemRangeMoved(from, to, 1);
+    mExpected.add(to, mExpected.remove(from));
+  }
+
+  private void consumeAndVerify() {
+    mAdapterHelper.consumeUpdatesInOnePass();
+    assertEquals(0, mAdapterHelper.mPendingUpdates.size());
+    assertEquals(mExpected, mCallback.mItems);
+    // Only the items still in the list can be told apart.
+    mExpectedUpdated.retainAll(mExpected);
+    mCallback.mUpdated.retainAll(mCallback.mItems);
+    assertEquals(mExpectedUpdated, mCallback.mUpdated);
+    mCallback.reset(mExpected);
+    mExpectedUpdated.clear();
+  }
+
+  private static void markUpdated(List<Integer> items, Set<Integer> updated, int positionStart,
+                                  int itemCount) {
+    for (int i = positionStart; i < positionStart + itemCount; i++) {
+      if (items.get(i) != null) {
+        updated.add(items.get(i));
+      }
+    }
+  }
+
+  /**
+   * Applies the dispatched operations to a copy of the items of the last layout pass.
+   */
+  private static class ReplayCallback implements AdapterHelper.Callback {
+    final List<Integer> mItems = new ArrayList<>();
+
+    final Set<Integer> mUpdated = new HashSet<>();
+
+    void reset(List<Integer> items) {
+      mItems.clear();
+      mItems.addAll(items);
+      mUpdated.clear();
+    }
+
+    @Override
+    public RecyclerView.ViewHolder findViewHolder(int position) {
+      return null;
+    }
+
+    @Override
+    public void offsetPositionsForRemovingInvisible(int positionStart, int itemCount) {
+    }
+
+    @Override
+    public void offsetPositionsForRemovingLaidOutOrNewView(int positionStart, int itemCount) {
+    }
+
+    @Override
+    public void markViewHoldersUpdated(int positionStart, int itemCount, Object payloads) {
+    }
+
+    @Override
+    public void onDispatchFirstPass(UpdateOp op) {
+      throw new AssertionError("The operations are consumed in one pass");
+    }
+
+    @Override
+    public void onDispatchSecondPass(UpdateOp op) {
+      switch (op.cmd) {
+        case UpdateOp.ADD:
+          for (int i = 0; i < op.itemCount; i++) {
+            mItems.add(op.positionStart, null);
+          }
+          break;
+        case UpdateOp.REMOVE:
+          mItems.subList(op.positionStart, op.positionStart + op.itemCount).clear();
+          break;
+        case UpdateOp.UPDATE:
+          markUpdated(mItems, mUpdated, op.positionStart, op.itemCount);
+          break;
+        case UpdateOp.MOVE:
+          mItems.add(op.itemCount, mItems.remove(op.positionStart));
+          break;
+      }
+    }
+
+    @Override
+    public void offsetPositionsForAdd(int positionStart, int itemCount) {
+    }
+
+    @Override
+    public void offsetPositionsForMove(int from, int to) {
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.twentyhours.androidstudy.recyclerview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link ChildHelper.Bucket}, which run on the plain JVM against a reference
+ * {@link BitSet}.
+ */
+public class ChildHelperBucketTest {
+  // spans three words of the chain
+  private static final int SIZE = ChildHelper.Bucket.BITS_PER_WORD * 3;
+
+  private ChildHelper.Bucket mBucket;
+
+  @Before
+  public void setUp() throws Exception {
+    mBucket = new ChildHelper.Bucket();
+  }
+
+  @Test
+  public void insert_carriesLastBitToNextWord() throws Exception {
+    mBucket.set(63);
+    mBucket.insert(0, false);
+    assertFalse(mBucket.get(63));
+    assertTrue(mBucket.get(64));
+    assertEquals(1, mBucket.countOnesBefore(65));
+    assertEquals(0, mBucket.countOnesBefore(64));
+  }
+
+  @Test
+  public void remove_carriesFirstBitBackFromNextWord() throws Exception {
+    mBucket.set(64);
+    assertFalse(mBucket.remove(0));
+    assertTrue(mBucket.get(63));
+    assertFalse(mBucket.get(64));
+    assertEquals(1, mBucket.countOnesBefore(SIZE));
+  }
+
+  @Test
+  public void get_beyondChain_isFalse() throws Exception {
+    assertFalse(mBucket.get(1000));
+    assertFalse(mBucket.remove(1000));
+    assertEquals(0, mBucket.countOnesBefore(1000));
+  }
+
+  @Test
+  public void randomOperations_matchBitSet() throws Exception {
+    final Random random = new Random(0);
+    final BitSet expected = new BitSet();
+    for (int i = 0; i < 20000; i++) {
+      // indices around the word boundaries are the interesting ones
+      final int index = random.nextBoolean()
+          ? random.nextInt(SIZE)
+          : ChildHelper.Bucket.BITS_PER_WORD * (1 + random.nextInt(2)) - 2 + random.nextInt(4);
+      switch (random.nextInt(5)) {
+        case 0:
+          mBucket.set(index);
+          expected.set(index);
+          break;
+        case 1:
+          mBucket.clear(index);
+          expected.clear(index);
+          break;
+        case 2: {
+          final boolean value = random.nextBoolean();
+          mBucket.insert(index, value);
+          insert(expected, index, value);
+          break;
+        }
+        case 3:
+          assertEquals(expected.get(index), mBucket.remove(index));
+          remove(expected, index);
+          break;
+        default:
+          if (random.nextInt(50) == 0) {
+            mBucket.reset();
+            expected.clear();
+          }
+          break;
+      }
+      // keep the reference within the tested range, like the child count bounds the bucket
+      if (expected.length() > SIZE) {
+        expected.clear(SIZE, expected.length());
+      }
+      mBucket.clear(SIZE);
+      assertMatches(expected);
+    }
+  }
+
+  private void assertMatches(BitSet expected) {
+    for (int i = 0; i < SIZE; i++) {
+      assertEquals(expected.get(i), mBucket.get(i));
+      assertEquals(expected.get(0, i).cardinality(), mBucket.countOnesBefore(i));
+    }
+  }
+
+  private static void insert(BitSet bits, int index, boolean value) {
+    for (int i = bits.length(); i > index; i--) {
+      bits.set(i, bits.get(i - 1));
+    }
+    bits.set(index, value);
+  }
+
+  private static void remove(BitSet bits, int index) {
+    final int length = bits.length();
+    for (int i = index; i < length; i++) {
+      bits.set(i, bits.get(i + 1));
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.twentyhours.androidstudy.recyclerview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link DiffUtil}, which replay the dispatched updates on a plain list.
+ */
+public class DiffUtilTest {
+
+  @Test
+  public void dispatchUpdates_insertAndRemove() throws Exception {
+    List<String> ops = dispatch(Arrays.asList("a", "b", "c"), Arrays.asList("a", "x", "c"),
+        true);
+    assertEquals(Arrays.asList("rm 1,1", "ins 1,1"), ops);
+  }
+
+  @Test
+  public void dispatchUpdates_detectsMove() throws Exception {
+    List<String> ops = dispatch(Arrays.asList("a", "b", "c", "d"),
+        Arrays.asList("b", "c", "d", "a"), true);
+    assertEquals(Arrays.asList("mv 0,3"), ops);
+  }
+
+  @Test
+  public void dispatchUpdates_withoutMoveDetection() throws Exception {
+    List<String> ops = dispatch(Arrays.asList("a", "b", "c", "d"),
+        Arrays.asList("b", "c", "d", "a"), false);
+    assertEquals(Arrays.asList("ins 4,1", "rm 0,1"), ops);
+  }
+
+  @Test
+  public void dispatchUpdates_changeWithPayload() throws Exception {
+    List<String> ops = dispatch(Arrays.asList("a", "b", "c"), Arrays.asList("a", "B", "c"),
+        true);
+    assertEquals(Arrays.asList("chg 1,1,b->B"), ops);
+  }
+
+  @Test
+  public void dispatchUpdates_producesNewList() throws Exception {
+    List<String> oldList = Arrays.asList("a", "b", "c", "d", "e", "f", "g");
+    List<String> newList = Arrays.asList("g", "c", "x", "A", "e", "y", "b");
+    List<String> replay = new ArrayList<>(oldList);
+    DiffUtil.calculateDiff(new StringCallback(oldList, newList), true)
+        .dispatchUpdatesTo(new ReplayCallback(replay));
+    assertEquals(Arrays.asList("g", "c", null, "a", "e", null, "b"), replay);
+  }
+
+  private static List<String> dispatch(List<String> oldList, List<String> newList,
+                                       boolean detectMoves) {
+    final List<String> ops = new ArrayList<>();
+    final StringCallback callback = new StringCallback(oldList, newList);
+    DiffUtil.calculateDiff(callback, detectMoves).dispatchUpdatesTo(new ListUpdateCallback() {
+      @Override
+      public void onInserted(int position, int count) {
+        ops.add("ins " + position + "," + count);
+      }
+
+      @Override
+      public void onRemoved(int position, int count) {
+        ops.add("rm " + position + "," + count);
+      }
+
+      @Override
+      public void onMoved(int fromPosition, int toPosition) {
+        ops.add("mv " + fromPosition + "," + toPosition);
+      }
+
+      @Override
+      public void onChanged(int position, int count, Object payload) {
+        ops.add("chg " + position + "," + count + "," + payload);
+      }
+    });
+    return ops;
+  }
+
+  /**
+   * Items are the same when they are equal ignoring case, and their contents are the same
+   * when they are equal.
+   */
+  private static class StringCallback extends DiffUtil.Callback {
+    final List<String> mOldList;
+    final List<String> mNewList;
+
+    StringCallback(List<String> oldList, List<String> newList) {
+      mOldList = oldList;
+      mNewList = newList;
+    }
+
+    @Override
+    public int getOldListSize() {
+      return mOldList.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+      return mNewList.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+      return mOldList.get(oldItemPosition).equalsIgnoreCase(mNewList.get(newItemPosition));
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+      return mOldList.get(oldItemPosition).equals(mNewList.get(newItemPosition));
+    }
+
+    @Override
+    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+      return mOldList.get(oldItemPosition) + "->" + mNewList.get(newItemPosition);
+    }
+  }
+
+  /**
+   * Applies the updates to a copy of the old list. Inserted items are added as {@code null},
+   * since DiffUtil only reports their positions.
+   */
+  private static class ReplayCallback implements ListUpdateCallback {
+    final List<String> mList;
+
+    ReplayCallback(List<String> list) {
+      mList = list;
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+      for (int i = 0; i < count; i++) {
+        mList.add(position, null);
+      }
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+      for (int i = 0; i < count; i++) {
+        mList.remove(position);
+      }
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+      mList.add(toPosition, mList.remove(fromPosition));
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.twentyhours.androidstudy.recyclerview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link LongHashMap}, which run on the plain JVM.
+ */
+public class LongHashMapTest {
+  private LongHashMap<String> mMap;
+
+  @Before
+  public void setUp() throws Exception {
+    mMap = new LongHashMap<>();
+  }
+
+  @Test
+  public void put_replacesValueOfSameKey() throws Exception {
+    mMap.put(7, "a");
+    mMap.put(7, "b");
+    assertEquals(1, mMap.size());
+    assertEquals("b", mMap.get(7));
+    assertNull(mMap.get(8));
+  }
+
+  @Test
+  public void remove_onlyIfMappedToValue() throws Exception {
+    mMap.put(-1, "a");
+    assertFalse(mMap.remove(-1, "b"));
+    assertEquals("a", mMap.get(-1));
+    assertTrue(mMap.remove(-1, "a"));
+    assertNull(mMap.get(-1));
+    assertEquals(0, mMap.size());
+  }
+
+  @Test
+  public void clear_removesAll() throws Exception {
+    for (long i = 0; i < 100; i++) {
+      mMap.put(i, "v" + i);
+    }
+    assertEquals(100, mMap.size());
+    mMap.clear();
+    assertEquals(0, mMap.size());
+    assertNull(mMap.get(42));
+  }
+
+  @Test
+  public void randomOperations_matchHashMap() throws Exception {
+    final Random random = new Random(0);
+    final Map<Long, String> expected = new HashMap<>();
+    for (int i = 0; i < 20000; i++) {
+      // a small key range, so the probe sequences collide and removals shift entries
+      final long key = random.nextInt(200) - 100;
+      if (random.nextInt(3) == 0) {
+        final String value = expected.get(key);
+        if (value != null) {
+          assertTrue(mMap.remove(key, value));
+          expected.remove(key);
+        } else {
+          assertFalse(mMap.remove(key, "missing"));
+        }
+      } else {
+        final String value = "v" + i;
+        mMap.put(key, value);
+        expected.put(key, value);
+      }
+      assertEquals(expected.size(), mMap.size());
+    }
+    for (long key = -100; key < 100; key++) {
+      assertEquals(expected.get(key), mMap.get(key));
+    }
+  }
+}
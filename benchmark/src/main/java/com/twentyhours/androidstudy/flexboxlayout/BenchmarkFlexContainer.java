@@ -0,0 +1,169 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A {@link FlexContainer} whose items have random but reproducible sizes, margins, flex grow
+ * attributes and visibilities. The items are held in primitive arrays and exposed through a single
+ * reused {@link FlexItem}, so that the benchmarks only see the allocations of the engine.
+ */
+class BenchmarkFlexContainer implements FlexContainer {
+  private final boolean mMainAxisHorizontal;
+
+  private final int[] mWidths;
+
+  private final int[] mHeights;
+
+  private final int[] mMeasuredWidths;
+
+  private final int[] mMeasuredHeights;
+
+  private final int[] mMargins;
+
+  private final float[] mFlexGrows;
+
+  private final boolean[] mGone;
+
+  /** The positions of the items calculated by {@link #layout(FlexboxEngine, int)} */
+  private final int[] mLefts;
+
+  private final int[] mTops;
+
+  private final Item mItem = new Item();
+
+  BenchmarkFlexContainer(int itemCount, boolean mainAxisHorizontal, long seed) {
+    mMainAxisHorizontal = mainAxisHorizontal;
+    mWidths = new int[itemCount];
+    mHeights = new int[itemCount];
+    mMeasuredWidths = new int[itemCount];
+    mMeasuredHeights = new int[itemCount];
+    mMargins = new int[itemCount];
+    mFlexGrows = new float[itemCount];
+    mGone = new boolean[itemCount];
+    mLefts = new int[itemCount];
+    mTops = new int[itemCount];
+
+    Random random = new Random(seed);
+    for (int i = 0; i < itemCount; i++) {
+      mWidths[i] = 40 + random.nextInt(160);
+      mHeights[i] = 40 + random.nextInt(80);
+      mMargins[i] = random.nextInt(3) * 4;
+      mFlexGrows[i] = i % 3 == 0 ? 1f : FlexItem.FLEX_GROW_DEFAULT;
+      mGone[i] = random.nextInt(20) == 0;
+    }
+  }
+
+  @Override
+  public int getFlexItemCount() {
+    return mWidths.length;
+  }
+
+  @Override
+  public FlexItem getFlexItemAt(int index) {
+    mItem.mIndex = index;
+    return mItem;
+  }
+
+  @Override
+  public void measureFlexItem(int index, int mainSize) {
+    mMeasuredWidths[index] = mWidths[index];
+    mMeasuredHeights[index] = mHeights[index];
+    if (mainSize != FlexboxEngine.SIZE_UNDEFINED) {
+      if (mMainAxisHorizontal) {
+        mMeasuredWidths[index] = mainSize;
+      } else {
+        mMeasuredHeights[index] = mainSize;
+      }
+    }
+  }
+
+  /**
+   * Place the items in the flex lines from the start edges of both axes, as FlexboxLayout does
+   * in its layout pass without the calls to View#layout.
+   *
+   * @return the sum of the positions, to be consumed by the benchmark
+   */
+  int layout(FlexboxEngine engine, int padding) {
+    List<FlexLine> lines = engine.getFlexLines();
+    int checksum = 0;
+    int crossPosition = padding;
+    for (int i = 0, size = lines.size(); i < size; i++) {
+      FlexLine flexLine = lines.get(i);
+      int mainPosition = padding;
+      for (int j = flexLine.getFirstIndex(), end = j + flexLine.getItemCount(); j < end; j++) {
+        if (mGone[j]) {
+          continue;
+        }
+        int margin = mMargins[j];
+        mainPosition += margin;
+        if (mMainAxisHorizontal) {
+          mLefts[j] = mainPosition;
+          mTops[j] = crossPosition + margin;
+          mainPosition += mMeasuredWidths[j] + margin;
+        } else {
+          mLefts[j] = crossPosition + margin;
+          mTops[j] = mainPosition;
+          mainPosition += mMeasuredHeights[j] + margin;
+        }
+        checksum += mLefts[j] + mTops[j];
+      }
+      crossPosition += flexLine.getCrossSize();
+    }
+    return checksum;
+  }
+
+  private class Item implements FlexItem {
+    int mIndex;
+
+    @Override
+    public float getFlexGrow() {
+      return mFlexGrows[mIndex];
+    }
+
+    @Override
+    public float getFlexShrink() {
+      return FLEX_SHRINK_DEFAULT;
+    }
+
+    @Override
+    public float getFlexBasisPercent() {
+      return FLEX_BASIS_PERCENT_DEFAULT;
+    }
+
+    @Override
+    public int getMarginLeft() {
+      return mMargins[mIndex];
+    }
+
+    @Override
+    public int getMarginTop() {
+      return mMargins[mIndex];
+    }
+
+    @Override
+    public int getMarginRight() {
+      return mMargins[mIndex];
+    }
+
+    @Override
+    public int getMarginBottom() {
+      return mMargins[mIndex];
+    }
+
+    @Override
+    public int getMeasuredWidth() {
+      return mMeasuredWidths[mIndex];
+    }
+
+    @Override
+    public int getMeasuredHeight() {
+      return mMeasuredHeights[mIndex];
+    }
+
+    @Override
+    public boolean isGone() {
+      return mGone[mIndex];
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package com.twentyhours.androidstudy.flexboxlayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link FlexboxEngine}, which does the measure pass of FlexboxLayout apart from
+ * measuring the children themselves.
+ *
+ * <p>Run with {@code ./gradlew :benchmark:jmh}. The gc profiler reports the allocation rate
+ * ({@code gc.alloc.rate.norm} is bytes per operation) next to the throughput.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FlexboxEngineBenchmark {
+  private static final long SEED = 42L;
+
+  /** The size of the container along the main axis, like a phone screen */
+  private static final int MAIN_SIZE = 1080;
+
+  private static final int PADDING = 16;
+
+  @Param({"10", "1000", "10000"})
+  public int itemCount;
+
+  @Param({"row", "column"})
+  public String flexDirection;
+
+  @Param({"wrap", "nowrap"})
+  public String flexWrap;
+
+  private FlexboxEngine mEngine;
+
+  private BenchmarkFlexContainer mContainer;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    boolean mainAxisHorizontal = "row".equals(flexDirection);
+    mContainer = new BenchmarkFlexContainer(itemCount, mainAxisHorizontal, SEED);
+    mEngine = new FlexboxEngine();
+    mEngine.setMainAxisHorizontal(mainAxisHorizontal);
+    mEngine.setSingleLine("nowrap".equals(flexWrap));
+    mEngine.setMainAxisConstraints(MAIN_SIZE, FlexboxEngine.SIZE_MODE_EXACTLY, PADDING * 2);
+    // The benchmarks reading the flex lines need them calculated beforehand.
+    measure();
+  }
+
+  /** Line breaking of all the items from scratch. */
+  @Benchmark
+  public int calculateFlexLines() {
+    mEngine.clearFlexLines();
+    return mEngine.calculateFlexLines(mContainer, 0);
+  }
+
+  /** A whole measure pass, i.e. line breaking and resolving the flexible lengths. */
+  @Benchmark
+  public int measure() {
+    mEngine.clearFlexLines();
+    mEngine.calculateFlexLines(mContainer, 0);
+    mEngine.resolveFlexibleLengths(mContainer, 0);
+    return mEngine.getSumOfCrossSize();
+  }
+
+  /** A measure pass followed by placing every item in the flex lines. */
+  @Benchmark
+  public int measureAndLayout() {
+    measure();
+    return mContainer.layout(mEngine, PADDING);
+  }
+
+  @Benchmark
+  public int getSumOfCrossSize() {
+    return mEngine.getSumOfCrossSize();
+  }
+
+  @Benchmark
+  public int getLargestMainSize() {
+    return mEngine.getLargestMainSize();
+  }
+}